@@ -15,3 +15,6 @@
 #-keepclassmembers class fqcn.of.javascript.interface.for.webview {
 #   public *;
 #}
+
+# ViewBinders 通过类名查找编译期生成的绑定器
+-keep class **_ViewBinder { <init>(android.view.View); }
@@ -1,13 +1,9 @@
 package com.wyu.iwork.adapter;
 
 import android.content.Context;
-import android.graphics.Rect;
-import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
-import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TextView;
 
 import com.wyu.iwork.R;
 import com.wyu.iwork.adapter.viewholder.AppChoiceViewHolder;
@@ -33,7 +29,7 @@ public class AppChoiceAdapter extends BaseAdapter<AppChoiceViewHolder,TestModel>
     @Override
     public void bindData(AppChoiceViewHolder vh, TestModel data) {
         if (data == null) return;
-        ((TextView) vh.getView(R.id.name)).setText(data.getName());
+        vh.autoBind(data);
     }
 
     //    @Override
@@ -42,19 +38,9 @@ public class AppChoiceAdapter extends BaseAdapter<AppChoiceViewHolder,TestModel>
 //    }
 
     @Override
-    protected void getItemOffsets(Rect outRect, View view, RecyclerView parent,
-            RecyclerView.State state)
-    {
-        final int item_offset_2dp = context.getResources().getDimensionPixelSize(
-                R.dimen.item_offset_2dp);
-        final int item_offset_8dp = context.getResources().getDimensionPixelSize(
-                R.dimen.item_offset_8dp);
-        GridLayoutManager gridLayoutManager = (GridLayoutManager) parent.getLayoutManager();
-        final int spanCount = gridLayoutManager.getSpanCount();
-        final int childAdapterPos = parent.getChildAdapterPosition(view);
-        outRect.set(0, childAdapterPos < spanCount ? item_offset_8dp : 0,
-                (childAdapterPos + 1) % spanCount != 0 ? item_offset_2dp : 0,
-                getItemCount() - (childAdapterPos + 1) < spanCount ? 0 : item_offset_2dp);
+    public RecyclerView.ItemDecoration getItemDecoration() {
+        return new GridSpacingItemDecoration(context, R.dimen.item_offset_2dp,
+                R.dimen.item_offset_2dp, R.dimen.item_offset_8dp);
     }
 
 
@@ -1,55 +1,72 @@
 package com.wyu.iwork.adapter;
 
 import android.content.Context;
-import android.graphics.Rect;
-import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
-import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import com.wyu.iwork.R;
 import com.wyu.iwork.adapter.viewholder.AppChoiceViewHolder;
+import com.wyu.iwork.adapter.viewholder.BaseViewHolder;
 import com.wyu.iwork.model.TestModel;
 import com.wyu.iwork.test.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Created by jhj_Plus on 2016/10/26.
  */
-public class AppCommonUseAdapter extends BaseAdapter<AppChoiceViewHolder,TestModel> {
-    private static final String TAG = "AppChoiceAdapter";
+public class AppCommonUseAdapter extends SectionedGridAdapter<TestModel> {
+    private static final String TAG = "AppCommonUseAdapter";
 
     public AppCommonUseAdapter(Context context) {
-        super(context, Test.getRandomTestData(6, 8));
+        super(context, 4);
+        List<Section<TestModel>> sections = new ArrayList<>(3);
+        sections.add(new Section<>(context.getString(R.string.CRM), R.drawable.ic_tab_my_selected,
+                Test.getRandomTestData(6, 8)));
+        sections.add(new Section<>(context.getString(R.string.purchase),
+                R.drawable.ic_tab_work_selected, Test.getRandomTestData(6, 8)));
+        sections.add(new Section<>(context.getString(R.string.stock),
+                R.drawable.ic_tab_my_selected, Test.getRandomTestData(6, 8)));
+        setSections(sections);
+    }
+
+    @Override
+    public BaseViewHolder onCreateHeaderViewHolder(ViewGroup parent) {
+        return new AppChoiceViewHolder(
+                LayoutInflater.from(context).inflate(R.layout.item_section_header, parent, false));
     }
 
     @Override
-    public AppChoiceViewHolder getViewHolder(ViewGroup parent, int viewType) {
+    public BaseViewHolder onCreateItemViewHolder(ViewGroup parent) {
         return new AppChoiceViewHolder(
                 LayoutInflater.from(context).inflate(R.layout.item_app, parent, false));
     }
 
     @Override
-    public void bindData(AppChoiceViewHolder vh, TestModel data) {
-        if (data == null) return;
+    public void bindHeader(BaseViewHolder vh, Section<TestModel> section) {
+        TextView tv_title = vh.getView(R.id.title);
+        tv_title.setText(section.title);
+        tv_title.setCompoundDrawablesWithIntrinsicBounds(section.icon, 0, 0, 0);
+    }
+
+    @Override
+    public void bindItem(BaseViewHolder vh, TestModel data) {
         TextView tv_name= vh.getView(R.id.name);
+        if (data == null) {
+            //占位项，复用的 ViewHolder 需要清空之前的内容
+            tv_name.setText(null);
+            tv_name.setCompoundDrawablesWithIntrinsicBounds(0, 0, 0, 0);
+            return;
+        }
         tv_name.setText(data.getName());
         tv_name.setCompoundDrawablesWithIntrinsicBounds(0,data.getIcon(),0,0);
     }
 
-
-    @Override
-    protected void getItemOffsets(Rect outRect, View view, RecyclerView parent,
-            RecyclerView.State state)
-    {
-        final int item_offset_2dp = context.getResources().getDimensionPixelSize(
-                R.dimen.item_offset_2dp);
-        GridLayoutManager gridLayoutManager = (GridLayoutManager) parent.getLayoutManager();
-        final int spanCount = gridLayoutManager.getSpanCount();
-        final int childAdapterPos = parent.getChildAdapterPosition(view);
-        outRect.set(0, 0, (childAdapterPos + 1) % spanCount != 0 ? item_offset_2dp : 0,
-                getItemCount() - (childAdapterPos + 1) < spanCount ? 0 : item_offset_2dp);
+    public RecyclerView.ItemDecoration getItemDecoration() {
+        return createItemDecoration(R.dimen.item_offset_2dp, R.dimen.item_offset_2dp, 0);
     }
 
 }
@@ -2,6 +2,7 @@ package com.wyu.iwork.adapter;
 
 import android.content.Context;
 import android.graphics.Rect;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,41 +11,50 @@ import com.wyu.iwork.adapter.viewholder.BaseViewHolder;
 import com.wyu.iwork.interfaces.Adapter;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static com.wyu.iwork.R.dimen.item_offset_8dp;
 
 /**
  * Created by jhj_Plus on 2016/10/24.
  */
-public abstract class BaseAdapter<VH extends BaseViewHolder, D> extends RecyclerView.Adapter<VH>
+public abstract class BaseAdapter<VH extends BaseViewHolder, D> extends ViewHolderAdapter<VH>
         implements Adapter<D>
 {
     private static final String TAG = "BaseAdapter";
-    protected Context context;
     List<D> mItems;
+    /**
+     * {@link #beginBatch()} 的嵌套深度和批量修改期间记录的通知
+     */
+    private int mBatchDepth;
+    private ListTransaction mTransaction;
+    /**
+     * 数据列表的版本，每次修改时递增，用于判断后台差异计算期间列表是否被修改过
+     */
+    private int mListVersion;
+    private ListDiffer<D> mDiffer;
+    /**
+     * 分页模式下的数据列表，非分页模式时为 null
+     */
+    private PagedList<D> mPagedList;
 
     public BaseAdapter(Context context) {
         this(context, null);
     }
 
     public BaseAdapter(Context context, List<D> items) {
-        this.context = context;
+        super(context);
         mItems = items == null ? new ArrayList<D>() : items;
     }
 
-    public abstract VH getViewHolder(ViewGroup parent, int viewType);
-
     public abstract void bindData(VH vh, D data);
 
     @Override
-    public VH onCreateViewHolder(ViewGroup parent, int viewType) {
-        return getViewHolder(parent, viewType);
-    }
-
-    @Override
-    public void onBindViewHolder(VH holder, int position) {
+    protected void onBind(VH holder, int position) {
         boolean hasData = position < mItems.size();
+        if (mPagedList != null) mPagedList.loadAround(position);
         bindData(holder, hasData ? mItems.get(position) : null);
     }
 
@@ -85,7 +95,7 @@ public abstract class BaseAdapter<VH extends BaseViewHolder, D> extends Recycler
     @Override
     public void addItem(int position, D item) {
         mItems.add(position, item);
-        notifyItemInserted(position);
+        dispatchInserted(position, 1);
     }
 
     @Override
@@ -96,33 +106,215 @@ public abstract class BaseAdapter<VH extends BaseViewHolder, D> extends Recycler
     @Override
     public void addItems(int position, List<D> items) {
         mItems.addAll(position, items);
-        notifyItemRangeInserted(position, items.size());
+        dispatchInserted(position, items.size());
     }
 
     @Override
     public D removeItem(int position) {
         D removedItem = mItems.remove(position);
-        notifyItemRemoved(position);
+        dispatchRemoved(position, 1);
         return removedItem;
     }
 
     @Override
     public void removeItem(D item) {
         final int removedPos = mItems.indexOf(item);
-        mItems.remove(item);
-        notifyItemRemoved(removedPos);
+        if (removedPos < 0) return;
+        mItems.remove(removedPos);
+        dispatchRemoved(removedPos, 1);
     }
 
+    /**
+     * 删除列表里所有和 items 中的元素相等的项，要删除的项可以不连续
+     * <p>一次遍历压缩列表，按位置从后往前发出每一段连续删除范围的通知，保证每个通知的位置都有效</p>
+     */
     @Override
     public void removeItems(List<D> items) {
-        final int removedPosStart = mItems.indexOf(items.get(0));
-        mItems.removeAll(items);
-        notifyItemRangeRemoved(removedPosStart, items.size());
+        if (items == null || items.isEmpty()) return;
+        final Set<D> removed = new HashSet<>(items);
+        final int size = mItems.size();
+        //每段连续删除范围依次占用起点和数量两个元素
+        int[] runs = null;
+        int runCount = 0;
+        int write = 0;
+        for (int read = 0; read < size; read++) {
+            final D item = mItems.get(read);
+            if (!removed.contains(item)) {
+                if (write != read) mItems.set(write, item);
+                write++;
+                continue;
+            }
+            if (runCount > 0 && runs[runCount * 2 - 2] + runs[runCount * 2 - 1] == read) {
+                runs[runCount * 2 - 1]++;
+                continue;
+            }
+            if (runs == null) {
+                runs = new int[8];
+            } else if (runs.length < (runCount + 1) * 2) {
+                int[] newRuns = new int[runs.length * 2];
+                System.arraycopy(runs, 0, newRuns, 0, runCount * 2);
+                runs = newRuns;
+            }
+            runs[runCount * 2] = read;
+            runs[runCount * 2 + 1] = 1;
+            runCount++;
+        }
+        if (runCount == 0) return;
+        mItems.subList(write, size).clear();
+        beginBatch();
+        for (int run = runCount - 1; run >= 0; run--) {
+            dispatchRemoved(runs[run * 2], runs[run * 2 + 1]);
+        }
+        commit();
     }
 
     @Override
     public void setItem(int position, D newItem) {
         mItems.set(position, newItem);
-        notifyItemChanged(position);
+        dispatchChanged(position, 1);
+    }
+
+    /**
+     * 进入分页模式，列表总数固定，还没有加载的位置以 null 占位交给 {@link #bindData(BaseViewHolder, Object)}
+     * <p>绑定列表项时自动加载附近的页，页加载完成或被丢弃时只刷新该页的范围。
+     * 分页模式下不支持 {@link #addItem(Object, boolean)} 等增删改操作</p>
+     * @param pagedList 分页列表，为 null 时退出分页模式并清空数据
+     */
+    public void setPagedList(PagedList<D> pagedList) {
+        if (mDiffer != null) mDiffer.cancel();
+        if (mPagedList != null) mPagedList.setCallback(null);
+        mPagedList = pagedList;
+        if (pagedList != null) {
+            pagedList.setCallback(new PagedList.Callback() {
+                @Override
+                public void onChanged(int position, int count) {
+                    dispatchChanged(position, count);
+                }
+            });
+        }
+        mItems = pagedList != null ? pagedList : new ArrayList<D>();
+        mListVersion++;
+        if (mTransaction != null) mTransaction.clear();
+        notifyDataSetChanged();
+    }
+
+    /**
+     * 用新列表替换当前的数据列表，在后台线程计算差异后在主线程只发出变化部分的通知
+     * <p>
+     *     两项是否相同由 {@link #areItemsTheSame(Object, Object)} 和
+     *     {@link #areContentsTheSame(Object, Object)} 决定。计算完成前再次提交时之前的结果会被丢弃；
+     *     计算期间通过其它方法修改了列表时直接替换列表并刷新全部数据
+     * </p>
+     * <p><b>注意：必须在主线程调用，提交后的列表归适配器所有，调用方不能再修改</b></p>
+     * @param newList 新的数据列表，为 null 时清空
+     */
+    public void submitList(List<D> newList) {
+        if (mDiffer == null) mDiffer = createListDiffer(new DiffCallback());
+        //提交普通列表时退出分页模式，和分页列表的差异照常计算
+        if (mPagedList != null) {
+            mPagedList.setCallback(null);
+            mPagedList = null;
+        }
+        if (newList == mItems) {
+            mDiffer.cancel();
+            return;
+        }
+        //一边为空时不需要计算差异
+        if (newList == null || newList.isEmpty() || mItems.isEmpty()) {
+            mDiffer.cancel();
+            final int oldSize = mItems.size();
+            mItems = newList == null ? new ArrayList<D>() : newList;
+            if (oldSize > 0) dispatchRemoved(0, oldSize);
+            if (!mItems.isEmpty()) dispatchInserted(0, mItems.size());
+            return;
+        }
+        mDiffer.submit(new ArrayList<>(mItems), newList, mListVersion);
+    }
+
+    /**
+     * 创建后台差异计算类，测试时可以替换计算差异和回调结果的线程
+     */
+    ListDiffer<D> createListDiffer(ListDiffer.Callback<D> callback) {
+        return new ListDiffer<>(callback);
+    }
+
+    /**
+     * {@link #submitList(List)} 计算差异时判断两项是否代表同一个数据，在工作线程中调用
+     * <p>默认比较引用，有唯一标识的数据模型应该重写该方法比较标识</p>
+     */
+    protected boolean areItemsTheSame(D oldItem, D newItem) {
+        return oldItem == newItem;
+    }
+
+    /**
+     * {@link #submitList(List)} 计算差异时判断同一个数据的显示内容是否相同，在工作线程中调用
+     * <p>只在 {@link #areItemsTheSame(Object, Object)} 返回 true 时调用，默认使用 equals</p>
+     */
+    protected boolean areContentsTheSame(D oldItem, D newItem) {
+        return oldItem.equals(newItem);
+    }
+
+    private class DiffCallback implements ListDiffer.Callback<D> {
+        @Override
+        public boolean areItemsTheSame(D oldItem, D newItem) {
+            return BaseAdapter.this.areItemsTheSame(oldItem, newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(D oldItem, D newItem) {
+            return BaseAdapter.this.areContentsTheSame(oldItem, newItem);
+        }
+
+        @Override
+        public void onDiffResult(List<D> newList, DiffUtil.DiffResult result, int baseVersion) {
+            mItems = newList;
+            if (baseVersion != mListVersion) {
+                //计算期间列表被修改过，差异已经不对应当前列表
+                mListVersion++;
+                if (mTransaction != null) mTransaction.clear();
+                notifyDataSetChanged();
+                return;
+            }
+            mListVersion++;
+            result.dispatchUpdatesTo(BaseAdapter.this);
+        }
+    }
+
+    @Override
+    public void beginBatch() {
+        if (mBatchDepth++ == 0 && mTransaction == null) mTransaction = new ListTransaction();
+    }
+
+    @Override
+    public void commit() {
+        if (mBatchDepth == 0) throw new IllegalStateException("commit() without beginBatch()");
+        if (--mBatchDepth == 0) mTransaction.dispatch(this);
+    }
+
+    private void dispatchInserted(int position, int count) {
+        mListVersion++;
+        if (mBatchDepth > 0) {
+            mTransaction.onInserted(position, count);
+        } else {
+            notifyItemRangeInserted(position, count);
+        }
+    }
+
+    private void dispatchRemoved(int position, int count) {
+        mListVersion++;
+        if (mBatchDepth > 0) {
+            mTransaction.onRemoved(position, count);
+        } else {
+            notifyItemRangeRemoved(position, count);
+        }
+    }
+
+    private void dispatchChanged(int position, int count) {
+        mListVersion++;
+        if (mBatchDepth > 0) {
+            mTransaction.onChanged(position, count);
+        } else {
+            notifyItemRangeChanged(position, count);
+        }
     }
 }
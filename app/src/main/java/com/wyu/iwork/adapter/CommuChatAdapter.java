@@ -1,7 +1,6 @@
 package com.wyu.iwork.adapter;
 
 import android.content.Context;
-import android.graphics.Rect;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -41,9 +40,8 @@ public class CommuChatAdapter extends BaseAdapter<AppChoiceViewHolder,TestModel>
     }
 
     @Override
-    protected void getItemOffsets(Rect outRect, View view, RecyclerView parent,
-            RecyclerView.State state)
-    {
+    public RecyclerView.ItemDecoration getItemDecoration() {
+        return new GridSpacingItemDecoration(context, 0, 0, 0);
     }
 
 }
@@ -0,0 +1,114 @@
+package com.wyu.iwork.adapter;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Rect;
+import android.support.annotation.DimenRes;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * 竖直网格的间距装饰，列与列之间留出水平间距，行与行之间留出竖直间距，最后一列和最后一行不留间距，
+ * 可以额外给第一行留出顶部间距
+ * <p>
+ *     间距在创建时解析一次；每次调用只读取布局参数里的 span 信息和 {@link RecyclerView.State} 里的列表项数量，
+ *     默认的 {@link GridLayoutManager.SpanSizeLookup} 直接按位置算出行列，自定义的 SpanSizeLookup
+ *     应该打开 span 索引缓存。不是 {@link GridLayoutManager} 时按只有一列处理
+ * </p>
+ */
+public class GridSpacingItemDecoration extends RecyclerView.ItemDecoration {
+    private static final String TAG = "GridSpacingItemDecoration";
+
+    private final int mHorizontalSpacing;
+    private final int mVerticalSpacing;
+    private final int mFirstRowTop;
+
+    /**
+     * 最后一行的行号缓存，列表项数量和列数不变时不需要重新计算
+     */
+    private int mCachedItemCount = -1;
+    private int mCachedSpanCount = -1;
+    private GridLayoutManager.SpanSizeLookup mCachedLookup;
+    private int mLastGroupIndex;
+
+    /**
+     * @param horizontalSpacing 列间距的尺寸资源，为 0 时不留间距
+     * @param verticalSpacing 行间距的尺寸资源，为 0 时不留间距
+     * @param firstRowTop 第一行顶部间距的尺寸资源，为 0 时不留间距
+     */
+    public GridSpacingItemDecoration(Context context, @DimenRes int horizontalSpacing,
+            @DimenRes int verticalSpacing, @DimenRes int firstRowTop)
+    {
+        Resources res = context.getResources();
+        mHorizontalSpacing = getDimension(res, horizontalSpacing);
+        mVerticalSpacing = getDimension(res, verticalSpacing);
+        mFirstRowTop = getDimension(res, firstRowTop);
+    }
+
+    private static int getDimension(Resources res, @DimenRes int id) {
+        return id != 0 ? res.getDimensionPixelSize(id) : 0;
+    }
+
+    @Override
+    public void getItemOffsets(Rect outRect, View view, RecyclerView parent,
+            RecyclerView.State state)
+    {
+        final int itemCount = state.getItemCount();
+        final int position =
+                ((RecyclerView.LayoutParams) view.getLayoutParams()).getViewLayoutPosition();
+        if (position == RecyclerView.NO_POSITION || itemCount == 0) {
+            outRect.set(0, 0, 0, 0);
+            return;
+        }
+        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
+        if (!(layoutManager instanceof GridLayoutManager)) {
+            outRect.set(0, position == 0 ? mFirstRowTop : 0, 0,
+                    position == itemCount - 1 ? 0 : mVerticalSpacing);
+            return;
+        }
+        final GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
+        final int spanCount = gridLayoutManager.getSpanCount();
+        final GridLayoutManager.SpanSizeLookup lookup = gridLayoutManager.getSpanSizeLookup();
+
+        final boolean lastColumn;
+        final boolean firstRow;
+        final boolean lastRow;
+        if (lookup instanceof GridLayoutManager.DefaultSpanSizeLookup) {
+            lastColumn = (position + 1) % spanCount == 0;
+            firstRow = position < spanCount;
+            lastRow = position >= (itemCount - 1) / spanCount * spanCount;
+        } else {
+            GridLayoutManager.LayoutParams lp =
+                    (GridLayoutManager.LayoutParams) view.getLayoutParams();
+            lastColumn = lp.getSpanIndex() + lp.getSpanSize() >= spanCount;
+            //第一行最多只有 spanCount 项
+            firstRow = position < spanCount && lookup.getSpanGroupIndex(position, spanCount) == 0;
+            lastRow = lookup.getSpanGroupIndex(position, spanCount) ==
+                    getLastGroupIndex(lookup, itemCount, spanCount);
+        }
+        outRect.set(0, firstRow ? mFirstRowTop : 0, lastColumn ? 0 : mHorizontalSpacing,
+                lastRow ? 0 : mVerticalSpacing);
+    }
+
+    private int getLastGroupIndex(GridLayoutManager.SpanSizeLookup lookup, int itemCount,
+            int spanCount)
+    {
+        if (lookup != mCachedLookup || itemCount != mCachedItemCount ||
+                spanCount != mCachedSpanCount)
+        {
+            mCachedLookup = lookup;
+            mCachedItemCount = itemCount;
+            mCachedSpanCount = spanCount;
+            mLastGroupIndex = lookup.getSpanGroupIndex(itemCount - 1, spanCount);
+        }
+        return mLastGroupIndex;
+    }
+
+    /**
+     * 列表项的 span 大小变化但数量没有变化时调用，使最后一行的缓存失效
+     */
+    public void invalidate() {
+        mCachedLookup = null;
+    }
+}
@@ -0,0 +1,148 @@
+package com.wyu.iwork.adapter;
+
+import android.os.Process;
+import android.support.v7.util.DiffUtil;
+
+import com.wyu.iwork.utils.MainThreadExecutor;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link BaseAdapter#submitList(List)} 的后台差异计算类
+ * <p>
+ *     在单独的工作线程中用 {@link DiffUtil} 计算旧列表到新列表的差异，完成后在主线程回调
+ *     {@link Callback#onDiffResult(List, DiffUtil.DiffResult, int)}。
+ *     新提交的列表会使之前未完成的计算失效，过期的结果不会被回调
+ * </p>
+ */
+class ListDiffer<D> {
+    private static final String TAG = "ListDiffer";
+
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, "ListDiffer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    /**
+     * 计算差异的工作线程和回调结果的主线程
+     */
+    private final Executor mWorkExecutor;
+    private final Executor mMainExecutor;
+
+    /**
+     * 差异计算的版本号，每次提交或取消时递增，用于丢弃过期的计算结果
+     */
+    private final AtomicInteger mGeneration = new AtomicInteger();
+
+    private final Callback<D> mCallback;
+
+    ListDiffer(Callback<D> callback) {
+        this(callback, sExecutor, new MainThreadExecutor());
+    }
+
+    /**
+     * @param workExecutor 计算差异的线程
+     * @param mainExecutor 回调结果的线程，必须是调用 {@link #submit(List, List, int)} 的线程
+     */
+    ListDiffer(Callback<D> callback, Executor workExecutor, Executor mainExecutor) {
+        mCallback = callback;
+        mWorkExecutor = workExecutor;
+        mMainExecutor = mainExecutor;
+    }
+
+    /**
+     * 在工作线程中计算差异
+     * <p><b>注意：必须在主线程调用，计算期间不能修改 oldList 和 newList</b></p>
+     * @param oldList 当前列表的快照
+     * @param newList 新列表
+     * @param baseVersion 提交时适配器数据的版本，原样回传给 {@link Callback}
+     */
+    void submit(final List<D> oldList, final List<D> newList, final int baseVersion) {
+        final int generation = cancel();
+        mWorkExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mGeneration.get() != generation) return;
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                    @Override
+                    public int getOldListSize() {
+                        return oldList.size();
+                    }
+
+                    @Override
+                    public int getNewListSize() {
+                        return newList.size();
+                    }
+
+                    @Override
+                    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                        D oldItem = oldList.get(oldItemPosition);
+                        D newItem = newList.get(newItemPosition);
+                        if (oldItem == null || newItem == null) return oldItem == newItem;
+                        return mCallback.areItemsTheSame(oldItem, newItem);
+                    }
+
+                    @Override
+                    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                        D oldItem = oldList.get(oldItemPosition);
+                        D newItem = newList.get(newItemPosition);
+                        if (oldItem == null || newItem == null) return oldItem == newItem;
+                        return mCallback.areContentsTheSame(oldItem, newItem);
+                    }
+                });
+                if (mGeneration.get() != generation) return;
+                mMainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mGeneration.get() != generation) return;
+                        mCallback.onDiffResult(newList, result, baseVersion);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 使正在进行的差异计算失效
+     * @return 新的版本号
+     */
+    int cancel() {
+        return mGeneration.incrementAndGet();
+    }
+
+    interface Callback<D> {
+        /**
+         * 工作线程回调，判断两项是否代表同一个数据，两项都不为 null
+         */
+        boolean areItemsTheSame(D oldItem, D newItem);
+
+        /**
+         * 工作线程回调，判断同一个数据的显示内容是否相同，两项都不为 null
+         */
+        boolean areContentsTheSame(D oldItem, D newItem);
+
+        /**
+         * 主线程回调，差异计算完成并且没有过期
+         * @param newList 提交的新列表
+         * @param result 差异结果
+         * @param baseVersion 提交时传入的版本
+         */
+        void onDiffResult(List<D> newList, DiffUtil.DiffResult result, int baseVersion);
+    }
+}
@@ -0,0 +1,127 @@
+package com.wyu.iwork.adapter;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * 记录 {@link BaseAdapter} 批量修改期间的列表更新通知，把相邻的同类操作合并成最小的范围，
+ * 在 {@link #dispatch(RecyclerView.Adapter)} 时按记录顺序一次性发出
+ * <p>记录的位置和直接调用 notifyItem* 时一样，都是执行该操作那一刻的列表位置</p>
+ */
+class ListTransaction {
+    private static final String TAG = "ListTransaction";
+
+    private static final int TYPE_NONE = 0;
+    private static final int TYPE_INSERT = 1;
+    private static final int TYPE_REMOVE = 2;
+    private static final int TYPE_CHANGE = 3;
+
+    /**
+     * 已经不能再合并的操作，每个操作依次占用 type、position、count 三个元素
+     */
+    private int[] mOps = new int[3 * 8];
+    private int mOpCount;
+
+    /**
+     * 还可以继续合并的最后一个操作
+     */
+    private int mLastType = TYPE_NONE;
+    private int mLastPosition;
+    private int mLastCount;
+
+    void onInserted(int position, int count) {
+        if (count <= 0) return;
+        if (mLastType == TYPE_INSERT && position >= mLastPosition &&
+                position <= mLastPosition + mLastCount)
+        {
+            mLastCount += count;
+            mLastPosition = Math.min(position, mLastPosition);
+            return;
+        }
+        push(TYPE_INSERT, position, count);
+    }
+
+    void onRemoved(int position, int count) {
+        if (count <= 0) return;
+        //新删除的范围紧挨着上一次删除范围的前面或者覆盖了上一次删除的起点
+        if (mLastType == TYPE_REMOVE && mLastPosition >= position &&
+                mLastPosition <= position + count)
+        {
+            mLastCount += count;
+            mLastPosition = position;
+            return;
+        }
+        push(TYPE_REMOVE, position, count);
+    }
+
+    void onChanged(int position, int count) {
+        if (count <= 0) return;
+        if (mLastType == TYPE_CHANGE && position <= mLastPosition + mLastCount &&
+                position + count >= mLastPosition)
+        {
+            final int end = Math.max(position + count, mLastPosition + mLastCount);
+            mLastPosition = Math.min(position, mLastPosition);
+            mLastCount = end - mLastPosition;
+            return;
+        }
+        push(TYPE_CHANGE, position, count);
+    }
+
+    boolean isEmpty() {
+        return mOpCount == 0 && mLastType == TYPE_NONE;
+    }
+
+    /**
+     * 丢弃所有记录，用于已经整体刷新了数据的情况
+     */
+    void clear() {
+        mOpCount = 0;
+        mLastType = TYPE_NONE;
+    }
+
+    private void push(int type, int position, int count) {
+        flushLast();
+        mLastType = type;
+        mLastPosition = position;
+        mLastCount = count;
+    }
+
+    private void flushLast() {
+        if (mLastType == TYPE_NONE) return;
+        if (mOps.length < (mOpCount + 1) * 3) {
+            int[] ops = new int[mOps.length * 2];
+            System.arraycopy(mOps, 0, ops, 0, mOpCount * 3);
+            mOps = ops;
+        }
+        final int i = mOpCount * 3;
+        mOps[i] = mLastType;
+        mOps[i + 1] = mLastPosition;
+        mOps[i + 2] = mLastCount;
+        mOpCount++;
+        mLastType = TYPE_NONE;
+    }
+
+    /**
+     * 按记录顺序发出合并后的通知并清空记录
+     * @param adapter 接收通知的适配器
+     */
+    void dispatch(RecyclerView.Adapter<?> adapter) {
+        flushLast();
+        for (int op = 0; op < mOpCount; op++) {
+            final int i = op * 3;
+            final int position = mOps[i + 1];
+            final int count = mOps[i + 2];
+            switch (mOps[i]) {
+                case TYPE_INSERT:
+                    adapter.notifyItemRangeInserted(position, count);
+                    break;
+                case TYPE_REMOVE:
+                    adapter.notifyItemRangeRemoved(position, count);
+                    break;
+                case TYPE_CHANGE:
+                    adapter.notifyItemRangeChanged(position, count);
+                    break;
+            }
+        }
+        mOpCount = 0;
+    }
+}
@@ -7,28 +7,61 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.jhj.expandablerecyclerview.adapter.ChildFilter;
 import com.jhj.expandablerecyclerview.adapter.ExpandableAdapter;
 import com.jhj.expandablerecyclerview.model.ParentItem;
+import com.jhj.expandablerecyclerview.viewholder.BaseViewHolder;
 import com.wyu.iwork.R;
 import com.wyu.iwork.adapter.viewholder.CommuOrgnzChildViewHolder;
 import com.wyu.iwork.adapter.viewholder.CommuOrgnzParentViewHolder;
 import com.wyu.iwork.model.OrgnzChild;
 import com.wyu.iwork.model.OrgnzParent;
+import com.wyu.iwork.net.ImagePrefetcher;
+import com.wyu.iwork.net.ImageSpec;
+import com.wyu.iwork.net.Network;
 import com.wyu.iwork.test.Test;
 
+import java.util.List;
+
 /**
+ * 组织架构列表的适配器，同时作为 {@link ImagePrefetcher} 的图片来源预加载成员头像
  * Created by jhj_Plus on 2016/10/28.
  */
 public class OrgnzAdapter
         extends ExpandableAdapter<CommuOrgnzParentViewHolder, CommuOrgnzChildViewHolder>
+        implements ImagePrefetcher.Source
 {
     private static final String TAG = "OrgnzAdapter";
 
     private Context mContext;
+    /**
+     * 成员头像 View 的边长，和 {@code item_orgnz_child} 布局里的头像尺寸相同
+     */
+    private final int mAvatarSize;
 
     public OrgnzAdapter(Context context) {
-        super(Test.get());
+        this(context, Test.get());
+    }
+
+    /**
+     * @param context 上下文
+     * @param parentItems 部门列表，可以是
+     *                    {@link com.jhj.expandablerecyclerview.adapter.ParentItemGroupBuilder}
+     *                    正在构建的集合
+     */
+    public OrgnzAdapter(Context context, List<OrgnzParent> parentItems) {
+        super(parentItems);
         mContext = context;
+        mAvatarSize = context.getResources().getDimensionPixelSize(R.dimen.head_40dp);
+        setChildFilter(new NameFilter());
+    }
+
+    /**
+     * 根据成员名字过滤组织架构，过滤条件为空时恢复显示所有成员
+     * @param name 成员名字
+     */
+    public void filterByName(CharSequence name) {
+        filter(name);
     }
 
     @Override
@@ -58,6 +91,43 @@ public class OrgnzAdapter
         childViewHolder.bind((OrgnzChild) childListItem);
     }
 
+    @Override
+    public void onViewAttachedToWindow(BaseViewHolder holder) {
+        super.onViewAttachedToWindow(holder);
+        Network.notifyItemVisible(holder, true);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(BaseViewHolder holder) {
+        super.onViewDetachedFromWindow(holder);
+        Network.notifyItemVisible(holder, false);
+    }
+
+    @Override
+    public void onViewRecycled(BaseViewHolder holder) {
+        super.onViewRecycled(holder);
+        Network.notifyItemRecycled(holder);
+    }
+
+
+    /**
+     * 成员的头像，按 {@link CommuOrgnzChildViewHolder} 加载时相同的尺寸和格式描述，预加载的图片可以直接命中
+     */
+    @Override
+    public ImageSpec getPrefetchImage(int position) {
+        Object item = getItem(position);
+        if (!(item instanceof OrgnzChild)) return null;
+        final String headUrl = ((OrgnzChild) item).getHeadUrl();
+        return headUrl != null ? Network.avatarSpec(headUrl, mAvatarSize) : null;
+    }
+
+    private static class NameFilter extends ChildFilter {
+        @Override
+        public boolean accept(ParentItem parentItem, Object childItem, CharSequence constraint) {
+            String name = ((OrgnzChild) childItem).getName();
+            return name != null && name.contains(constraint);
+        }
+    }
 
     public RecyclerView.ItemDecoration getItemDecoration() {
         return new BaseItemDecoration();
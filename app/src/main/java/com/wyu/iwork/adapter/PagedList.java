@@ -0,0 +1,282 @@
+package com.wyu.iwork.adapter;
+
+import com.wyu.iwork.utils.MainThreadExecutor;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 总数固定、按页从 {@link DataSource} 加载的只读列表，还没有加载的位置返回 null 作为占位
+ * <p>
+ *     {@link BaseAdapter} 绑定列表项时调用 {@link #loadAround(int)}，绑定位置附近还没有加载的页会被请求加载。
+ *     保留的页超过上限时，丢弃最近绑定过的位置范围之外离该范围最远的页，丢弃后重新变成占位，
+ *     最近绑定过的位置所在的页不会被丢弃。页加载完成或被丢弃时只通知该页的范围发生了变化
+ * </p>
+ * <p><b>注意：必须在主线程使用，不支持增删改操作</b></p>
+ */
+public class PagedList<D> extends AbstractList<D> {
+    private static final String TAG = "PagedList";
+
+    private static final int STATE_UNLOADED = 0;
+    private static final int STATE_LOADING = 1;
+    private static final int STATE_LOADED = 2;
+
+    /**
+     * 记录最近绑定的位置数，这些位置的范围加上预取距离是不会被丢弃的保留窗口。
+     * 比一屏能显示的列表项多，快速滑动时窗口跟随最后绑定的位置移动
+     */
+    private static final int RECENT_BIND_COUNT = 32;
+
+    /**
+     * 投递加载结果和变化通知，loadAround 在绑定列表项期间调用，此时不能发出更新通知
+     */
+    private final Executor mMainExecutor;
+
+    private final DataSource<D> mDataSource;
+    private final int mTotalCount;
+    private final int mPageSize;
+    private final int mPrefetchDistance;
+    private final int mMaxPages;
+
+    private final Object[][] mPages;
+    private final int[] mPageStates;
+    /**
+     * 每页的请求版本，页被丢弃或重新请求时递增，用于丢弃过期的加载结果
+     */
+    private final int[] mPageTokens;
+
+    /**
+     * 正在加载和已经加载的页数
+     */
+    private int mHeldPageCount;
+
+    /**
+     * 最近绑定的位置，循环写入
+     */
+    private final int[] mRecentBinds = new int[RECENT_BIND_COUNT];
+    private int mRecentBindCount;
+    private int mNextRecentBind;
+
+    private Callback mCallback;
+
+    /**
+     * @param dataSource 数据源
+     * @param totalCount 列表总数，包含占位
+     * @param pageSize 每页的数量
+     * @param prefetchDistance 绑定位置前后多少项以内的页需要加载
+     * @param maxPages 最多同时保留的页数，超出时丢弃离最近绑定的位置最远的页，
+     *                 最近绑定的位置需要更多页时以保留窗口为准
+     */
+    public PagedList(DataSource<D> dataSource, int totalCount, int pageSize,
+            int prefetchDistance, int maxPages)
+    {
+        this(dataSource, totalCount, pageSize, prefetchDistance, maxPages,
+                new MainThreadExecutor());
+    }
+
+    /**
+     * @param mainExecutor 在主线程执行加载结果和变化通知，不能在调用时直接执行
+     */
+    PagedList(DataSource<D> dataSource, int totalCount, int pageSize, int prefetchDistance,
+            int maxPages, Executor mainExecutor)
+    {
+        if (pageSize <= 0) throw new IllegalArgumentException("pageSize must be positive");
+        mMainExecutor = mainExecutor;
+        mDataSource = dataSource;
+        mTotalCount = totalCount;
+        mPageSize = pageSize;
+        mPrefetchDistance = prefetchDistance;
+        //至少要能容纳预取范围覆盖的所有页
+        mMaxPages = Math.max(maxPages, 2 * ((prefetchDistance + pageSize - 1) / pageSize) + 1);
+        final int pageCount = (totalCount + pageSize - 1) / pageSize;
+        mPages = new Object[pageCount][];
+        mPageStates = new int[pageCount];
+        mPageTokens = new int[pageCount];
+    }
+
+    public PagedList(DataSource<D> dataSource, int totalCount, int pageSize) {
+        this(dataSource, totalCount, pageSize, pageSize, 5);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public D get(int index) {
+        if (index < 0 || index >= mTotalCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mTotalCount);
+        }
+        Object[] page = mPages[index / mPageSize];
+        return page != null ? (D) page[index % mPageSize] : null;
+    }
+
+    @Override
+    public int size() {
+        return mTotalCount;
+    }
+
+    /**
+     * @return 指定位置是否还是占位
+     */
+    public boolean isPlaceholder(int index) {
+        return mPages[index / mPageSize] == null;
+    }
+
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * 设置页加载完成或被丢弃时的范围变化回调
+     */
+    public void setCallback(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * 通知列表当前访问的位置，加载附近的页，保留的页超过上限时丢弃离最近绑定的位置最远的页
+     * @param index 当前绑定的位置
+     */
+    public void loadAround(int index) {
+        if (index < 0 || index >= mTotalCount) return;
+        mRecentBinds[mNextRecentBind] = index;
+        mNextRecentBind = (mNextRecentBind + 1) % RECENT_BIND_COUNT;
+        if (mRecentBindCount < RECENT_BIND_COUNT) mRecentBindCount++;
+
+        final int firstPage = Math.max(0, index - mPrefetchDistance) / mPageSize;
+        final int lastPage = Math.min(mTotalCount - 1, index + mPrefetchDistance) / mPageSize;
+        boolean requested = false;
+        for (int page = firstPage; page <= lastPage; page++) {
+            if (mPageStates[page] == STATE_UNLOADED) {
+                requestPage(page);
+                requested = true;
+            }
+        }
+        //只有请求新页时保留的页数才会增加
+        if (requested && mHeldPageCount > mMaxPages) dropFarPages();
+    }
+
+    private void requestPage(final int page) {
+        mPageStates[page] = STATE_LOADING;
+        mHeldPageCount++;
+        final int token = ++mPageTokens[page];
+        final int start = page * mPageSize;
+        final int count = Math.min(mPageSize, mTotalCount - start);
+        mDataSource.loadRange(start, count, new LoadCallback<D>() {
+            @Override
+            public void onResult(final List<D> items) {
+                //同步返回时也要延后处理
+                mMainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPageLoaded(page, token, items);
+                    }
+                });
+            }
+
+            @Override
+            public void onError() {
+                mMainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        //失败后回到未加载状态，下一次访问附近位置时重新请求
+                        if (mPageTokens[page] != token || mPageStates[page] != STATE_LOADING) {
+                            return;
+                        }
+                        mPageStates[page] = STATE_UNLOADED;
+                        mHeldPageCount--;
+                    }
+                });
+            }
+        });
+    }
+
+    private void onPageLoaded(int page, int token, List<D> items) {
+        if (mPageTokens[page] != token || mPageStates[page] != STATE_LOADING) return;
+        final int start = page * mPageSize;
+        final int count = Math.min(mPageSize, mTotalCount - start);
+        Object[] data = new Object[count];
+        for (int i = 0; i < count && i < items.size(); i++) {
+            data[i] = items.get(i);
+        }
+        mPages[page] = data;
+        mPageStates[page] = STATE_LOADED;
+        if (mCallback != null) mCallback.onChanged(start, count);
+    }
+
+    /**
+     * 从离保留窗口最远的页开始丢弃，直到保留的页数不超过上限或者窗口外已经没有页。
+     * 保留窗口是最近绑定的位置范围向两边扩展预取距离后覆盖的页
+     */
+    private void dropFarPages() {
+        int min = mRecentBinds[0];
+        int max = min;
+        for (int i = 1; i < mRecentBindCount; i++) {
+            min = Math.min(min, mRecentBinds[i]);
+            max = Math.max(max, mRecentBinds[i]);
+        }
+        final int keepFirst = Math.max(0, min - mPrefetchDistance) / mPageSize;
+        final int keepLast = Math.min(mTotalCount - 1, max + mPrefetchDistance) / mPageSize;
+        int low = 0;
+        int high = mPages.length - 1;
+        while (mHeldPageCount > mMaxPages && (low < keepFirst || high > keepLast)) {
+            final boolean dropLow = low < keepFirst &&
+                    (high <= keepLast || keepFirst - low >= high - keepLast);
+            dropPage(dropLow ? low++ : high--);
+        }
+    }
+
+    /**
+     * 丢弃一页并通知该页的范围变化。正在加载的页也要通知，之后返回的结果因为版本不同被忽略，
+     * 该范围的占位重新绑定时会重新请求
+     */
+    private void dropPage(int page) {
+        if (mPageStates[page] == STATE_UNLOADED) return;
+        mPageStates[page] = STATE_UNLOADED;
+        mPageTokens[page]++;
+        mPages[page] = null;
+        mHeldPageCount--;
+        final int start = page * mPageSize;
+        postChanged(start, Math.min(mPageSize, mTotalCount - start));
+    }
+
+    /**
+     * 丢弃发生在绑定列表项期间，延后到下一个消息发出通知
+     */
+    private void postChanged(final int start, final int count) {
+        mMainExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mCallback != null) mCallback.onChanged(start, count);
+            }
+        });
+    }
+
+    /**
+     * 分页数据源
+     */
+    public interface DataSource<D> {
+        /**
+         * 加载指定范围的数据，可以在任意线程中回调结果
+         * @param start 起始位置
+         * @param count 数量
+         * @param callback 结果回调
+         */
+        void loadRange(int start, int count, LoadCallback<D> callback);
+    }
+
+    public interface LoadCallback<D> {
+        /**
+         * @param items 加载到的数据，数量不足时缺少的位置保持占位
+         */
+        void onResult(List<D> items);
+
+        void onError();
+    }
+
+    public interface Callback {
+        /**
+         * 指定范围的数据由占位变成已加载，或者由已加载被丢弃成占位
+         */
+        void onChanged(int position, int count);
+    }
+}
@@ -0,0 +1,177 @@
+package com.wyu.iwork.adapter;
+
+import android.content.Context;
+import android.support.annotation.DimenRes;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import com.wyu.iwork.adapter.viewholder.BaseViewHolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 在一个 {@link RecyclerView} 里显示多个分组的网格适配器，每个分组由一行占满整行的标题和若干网格项组成
+ * <p>
+ *     所有分组共用一个 {@link GridLayoutManager} 和同一个 ViewHolder 缓存池，通过
+ *     {@link #getSpanSizeLookup()} 让标题占满整行。每个分组标题的位置在设置数据时计算一次，
+ *     根据位置查找所属分组时只需要二分查找
+ * </p>
+ */
+public abstract class SectionedGridAdapter<D> extends ViewHolderAdapter<BaseViewHolder> {
+    private static final String TAG = "SectionedGridAdapter";
+
+    public static final int VIEW_TYPE_HEADER = 0;
+    public static final int VIEW_TYPE_ITEM = 1;
+
+    private final int mSpanCount;
+    private final List<Section<D>> mSections = new ArrayList<>();
+    /**
+     * 每个分组标题在适配器里的位置，递增排列
+     */
+    private int[] mHeaderPositions = new int[0];
+    private int mItemCount;
+    /**
+     * 通过 {@link #createItemDecoration(int, int, int)} 创建的间距装饰，分组变化时使其缓存失效
+     */
+    private final List<GridSpacingItemDecoration> mItemDecorations = new ArrayList<>(1);
+
+    private final GridLayoutManager.SpanSizeLookup mSpanSizeLookup =
+            new GridLayoutManager.SpanSizeLookup() {
+                @Override
+                public int getSpanSize(int position) {
+                    return isHeader(position) ? mSpanCount : 1;
+                }
+            };
+
+    public SectionedGridAdapter(Context context, int spanCount) {
+        super(context);
+        mSpanCount = spanCount;
+        mSpanSizeLookup.setSpanIndexCacheEnabled(true);
+    }
+
+    public abstract BaseViewHolder onCreateHeaderViewHolder(ViewGroup parent);
+
+    public abstract BaseViewHolder onCreateItemViewHolder(ViewGroup parent);
+
+    public abstract void bindHeader(BaseViewHolder vh, Section<D> section);
+
+    /**
+     * @param data 网格项数据，可能为 null
+     */
+    public abstract void bindItem(BaseViewHolder vh, D data);
+
+    /**
+     * 替换所有分组并刷新
+     */
+    public void setSections(List<Section<D>> sections) {
+        mSections.clear();
+        if (sections != null) mSections.addAll(sections);
+        mHeaderPositions = new int[mSections.size()];
+        int position = 0;
+        for (int i = 0; i < mHeaderPositions.length; i++) {
+            mHeaderPositions[i] = position;
+            position += 1 + mSections.get(i).items.size();
+        }
+        mItemCount = position;
+        mSpanSizeLookup.invalidateSpanIndexCache();
+        //总数不变时各行的划分也可能改变，装饰缓存的最后一行需要重新计算
+        for (GridSpacingItemDecoration itemDecoration : mItemDecorations) {
+            itemDecoration.invalidate();
+        }
+        notifyDataSetChanged();
+    }
+
+    public int getSpanCount() {
+        return mSpanCount;
+    }
+
+    /**
+     * 标题占满整行、网格项占一列的 SpanSizeLookup，已经打开 span 索引缓存
+     */
+    public GridLayoutManager.SpanSizeLookup getSpanSizeLookup() {
+        return mSpanSizeLookup;
+    }
+
+    /**
+     * 创建已经设置好列数和 {@link #getSpanSizeLookup()} 的布局管理器
+     */
+    public GridLayoutManager createLayoutManager() {
+        GridLayoutManager layoutManager = new GridLayoutManager(context, mSpanCount);
+        layoutManager.setSpanSizeLookup(mSpanSizeLookup);
+        return layoutManager;
+    }
+
+    /**
+     * 创建和当前分组关联的间距装饰，{@link #setSections(List)} 时自动使其缓存失效
+     * @see GridSpacingItemDecoration#GridSpacingItemDecoration(Context, int, int, int)
+     */
+    public GridSpacingItemDecoration createItemDecoration(@DimenRes int horizontalSpacing,
+            @DimenRes int verticalSpacing, @DimenRes int firstRowTop)
+    {
+        GridSpacingItemDecoration itemDecoration = new GridSpacingItemDecoration(context,
+                horizontalSpacing, verticalSpacing, firstRowTop);
+        mItemDecorations.add(itemDecoration);
+        return itemDecoration;
+    }
+
+    public boolean isHeader(int position) {
+        return Arrays.binarySearch(mHeaderPositions, position) >= 0;
+    }
+
+    /**
+     * @return 该位置所属的分组序号
+     */
+    public int getSectionIndex(int position) {
+        final int index = Arrays.binarySearch(mHeaderPositions, position);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return isHeader(position) ? VIEW_TYPE_HEADER : VIEW_TYPE_ITEM;
+    }
+
+    @Override
+    public BaseViewHolder getViewHolder(ViewGroup parent, int viewType) {
+        return viewType == VIEW_TYPE_HEADER ? onCreateHeaderViewHolder(parent) :
+                onCreateItemViewHolder(parent);
+    }
+
+    @Override
+    protected void onBind(BaseViewHolder holder, int position) {
+        final int sectionIndex = getSectionIndex(position);
+        final Section<D> section = mSections.get(sectionIndex);
+        final int headerPosition = mHeaderPositions[sectionIndex];
+        if (position == headerPosition) {
+            bindHeader(holder, section);
+        } else {
+            bindItem(holder, section.items.get(position - headerPosition - 1));
+        }
+    }
+
+    /**
+     * 一个分组的标题和网格项
+     */
+    public static class Section<D> {
+        public final CharSequence title;
+        /**
+         * 标题图标的资源 Id，为 0 时没有图标
+         */
+        public final int icon;
+        public final List<D> items;
+
+        public Section(CharSequence title, int icon, List<D> items) {
+            this.title = title;
+            this.icon = icon;
+            this.items = items != null ? items : new ArrayList<D>();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.wyu.iwork.adapter;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import android.view.ViewGroup;
+
+import com.jhj.expandablerecyclerview.utils.Tracer;
+import com.jhj.expandablerecyclerview.viewholder.ViewIndex;
+import com.wyu.iwork.adapter.viewholder.BaseViewHolder;
+import com.wyu.iwork.net.Network;
+
+/**
+ * {@link BaseAdapter} 和 {@link SectionedGridAdapter} 共用的 ViewHolder 创建、绑定和生命周期处理
+ * <p>
+ *     创建和绑定都包在以适配器类名命名的 systrace 区间里；同一种列表项类型的 ViewHolder
+ *     共用该类型第一个创建的 ViewHolder 生成的 {@link ViewIndex}；列表项进入、离开屏幕和被回收时
+ *     调整或取消以该 ViewHolder 为标记的图片加载
+ * </p>
+ */
+public abstract class ViewHolderAdapter<VH extends BaseViewHolder>
+        extends RecyclerView.Adapter<VH>
+{
+    private static final String TAG = "ViewHolderAdapter";
+
+    protected Context context;
+    /**
+     * systrace 区间名称，包含具体的适配器类名，创建时拼接一次
+     */
+    private final String mTraceCreate;
+    private final String mTraceBind;
+    /**
+     * 每种列表项类型的 View 索引，由该类型第一个创建的 ViewHolder 的布局生成
+     */
+    private final SparseArray<ViewIndex> mViewIndexes = new SparseArray<>();
+
+    public ViewHolderAdapter(Context context) {
+        this.context = context;
+        final String name = getClass().getSimpleName();
+        mTraceCreate = name + ":onCreateViewHolder";
+        mTraceBind = name + ":onBindViewHolder";
+    }
+
+    public abstract VH getViewHolder(ViewGroup parent, int viewType);
+
+    /**
+     * 在 systrace 区间内绑定列表项
+     */
+    protected abstract void onBind(VH holder, int position);
+
+    @Override
+    public VH onCreateViewHolder(ViewGroup parent, int viewType) {
+        Tracer.beginSection(mTraceCreate);
+        VH vh = getViewHolder(parent, viewType);
+        ViewIndex viewIndex = mViewIndexes.get(viewType);
+        if (viewIndex == null) {
+            viewIndex = ViewIndex.of(vh.itemView);
+            mViewIndexes.put(viewType, viewIndex);
+        }
+        vh.setViewIndex(viewIndex);
+        Tracer.endSection();
+        return vh;
+    }
+
+    @Override
+    public void onBindViewHolder(VH holder, int position) {
+        Tracer.beginSection(mTraceBind);
+        onBind(holder, position);
+        Tracer.endSection();
+    }
+
+    /**
+     * 列表项进入屏幕，以该 ViewHolder 为标记的图片加载提高优先级
+     */
+    @Override
+    public void onViewAttachedToWindow(VH holder) {
+        super.onViewAttachedToWindow(holder);
+        Network.notifyItemVisible(holder, true);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(VH holder) {
+        super.onViewDetachedFromWindow(holder);
+        Network.notifyItemVisible(holder, false);
+    }
+
+    /**
+     * 列表项被回收，取消以该 ViewHolder 为标记的请求
+     */
+    @Override
+    public void onViewRecycled(VH holder) {
+        super.onViewRecycled(holder);
+        Network.notifyItemRecycled(holder);
+    }
+}
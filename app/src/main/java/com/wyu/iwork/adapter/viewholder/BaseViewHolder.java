@@ -4,6 +4,10 @@ import android.support.v7.widget.RecyclerView;
 import android.util.SparseArray;
 import android.view.View;
 
+import com.jhj.expandablerecyclerview.viewholder.ViewBinder;
+import com.jhj.expandablerecyclerview.viewholder.ViewBinders;
+import com.jhj.expandablerecyclerview.viewholder.ViewIndex;
+
 /**
  * Created by jhj_Plus on 2016/10/26.
  */
@@ -11,7 +15,19 @@ public abstract class BaseViewHolder extends RecyclerView.ViewHolder
 {
     private static final String TAG = "BaseViewHolder";
 
-    private SparseArray<View> mCachedViews = new SparseArray<>();
+    /**
+     * 该列表项类型共享的 View 索引和按索引解析好的 View
+     */
+    private ViewIndex mViewIndex;
+    private View[] mIndexedViews;
+
+    /**
+     * 不在 {@link #mViewIndex} 里的 View 缓存，没有找到的 View 不缓存
+     */
+    private SparseArray<View> mCachedViews;
+
+    private ViewBinder<Object> mViewBinder;
+    private Class<?> mViewBinderModelClass;
 
     public BaseViewHolder(View itemView) {
         super(itemView);
@@ -31,14 +47,54 @@ public abstract class BaseViewHolder extends RecyclerView.ViewHolder
 
     @SuppressWarnings("unchecked")
     public <T extends View> T getView(int id) {
+        if (mViewIndex != null) {
+            final int slot = mViewIndex.slotOf(id);
+            if (slot >= 0) return (T) mIndexedViews[slot];
+        }
+        if (mCachedViews == null) mCachedViews = new SparseArray<>(4);
         View v = mCachedViews.get(id);
         if (v == null) {
             v = itemView.findViewById(id);
-            mCachedViews.put(id, v);
+            if (v != null) mCachedViews.put(id, v);
         }
         return (T) v;
     }
 
+    /**
+     * @see com.jhj.expandablerecyclerview.viewholder.BaseViewHolder#getViewAt(int)
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends View> T getViewAt(int slot) {
+        if (mIndexedViews == null) throw new IllegalStateException("ViewIndex not set");
+        return (T) mIndexedViews[slot];
+    }
+
+    /**
+     * 设置该列表项类型共享的 View 索引，由 {@link com.wyu.iwork.adapter.BaseAdapter} 在创建时设置
+     */
+    public void setViewIndex(ViewIndex viewIndex) {
+        mViewIndex = viewIndex;
+        mIndexedViews = viewIndex != null ? viewIndex.resolve(itemView) : null;
+    }
+
+    public ViewIndex getViewIndex() {
+        return mViewIndex;
+    }
+
+    /**
+     * 通过编译期生成的 ViewBinder 绑定数据
+     * @see com.jhj.expandablerecyclerview.viewholder.BaseViewHolder#autoBind(Object)
+     */
+    public void autoBind(Object data) {
+        if (data == null) return;
+        final Class<?> modelClass = data.getClass();
+        if (mViewBinderModelClass != modelClass) {
+            mViewBinder = ViewBinders.create(modelClass, itemView);
+            mViewBinderModelClass = modelClass;
+        }
+        mViewBinder.bind(data);
+    }
+
     protected int[] getRegisterViewClickIds() {return null;}
 
     protected void onClick(BaseViewHolder vh, View v, int position) {}
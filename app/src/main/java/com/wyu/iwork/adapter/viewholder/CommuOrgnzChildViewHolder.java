@@ -2,11 +2,11 @@ package com.wyu.iwork.adapter.viewholder;
 
 import android.view.View;
 import android.widget.ImageView;
-import android.widget.TextView;
 
 import com.jhj.expandablerecyclerview.viewholder.ChildViewHolder;
 import com.wyu.iwork.R;
 import com.wyu.iwork.model.OrgnzChild;
+import com.wyu.iwork.net.Network;
 
 /**
  * Created by jhj_Plus on 2016/10/28.
@@ -20,8 +20,16 @@ public class CommuOrgnzChildViewHolder extends ChildViewHolder<OrgnzChild> {
 
     @Override
     public void bind(OrgnzChild data) {
-        ((TextView) getView(R.id.name)).setText(data.getName());
-        ((ImageView)getView(R.id.head)).setImageResource(data.getHead());
-        ((TextView) getView(R.id.tel)).setText(data.getTel());
+        autoBind(data);
+        final String headUrl = data.getHeadUrl();
+        if (headUrl != null) {
+            //以 ViewHolder 为标记，适配器在列表项离开屏幕时降低优先级，被回收时取消
+            Network.getInstance(itemView.getContext()).loadAvatar(headUrl,
+                    (ImageView) getView(R.id.head), data.getHead(), this);
+        } else {
+            //之前绑定的成员的头像可能还在加载
+            Network network = Network.peekInstance();
+            if (network != null) network.cancelAll(this);
+        }
     }
 }
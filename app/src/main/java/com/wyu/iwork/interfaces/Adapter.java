@@ -24,4 +24,17 @@ public interface Adapter<D> {
     void removeItems(List<D> items);
 
     void setItem(int position, D newItem);
+
+    /**
+     * 开始批量修改，之后的增删改操作立即修改数据列表，但是列表更新通知会被记录下来，
+     * 直到对应的 {@link #commit()} 时合并成最少的范围通知再一次性发出
+     * <p>可以嵌套调用，最外层的 {@link #commit()} 才会发出通知</p>
+     */
+    void beginBatch();
+
+    /**
+     * 结束 {@link #beginBatch()} 开始的批量修改，最外层时发出合并后的列表更新通知
+     * @throws IllegalStateException 没有对应的 {@link #beginBatch()}
+     */
+    void commit();
 }
@@ -1,12 +1,23 @@
 package com.wyu.iwork.model;
 
+import com.jhj.expandablerecyclerview.annotation.BindImageResource;
+import com.jhj.expandablerecyclerview.annotation.BindText;
+import com.wyu.iwork.R;
+
 /**
  * Created by jhj_Plus on 2016/10/28.
  */
 public class OrgnzChild {
     private static final String TAG = "OrgnzParent";
+    @BindText(R.id.name)
     private String name;
+    @BindImageResource(R.id.head)
     private int head;
+    /**
+     * 头像地址，为 null 时只显示 {@link #head}
+     */
+    private String headUrl;
+    @BindText(R.id.tel)
     private String tel;
 
     public String getName() {
@@ -25,6 +36,14 @@ public class OrgnzChild {
         this.head = head;
     }
 
+    public String getHeadUrl() {
+        return headUrl;
+    }
+
+    public void setHeadUrl(String headUrl) {
+        this.headUrl = headUrl;
+    }
+
     public String getTel() {
         return tel;
     }
@@ -1,11 +1,15 @@
 package com.wyu.iwork.model;
 
+import com.jhj.expandablerecyclerview.annotation.BindText;
+import com.wyu.iwork.R;
+
 /**
  * Created by jhj_Plus on 2016/10/26.
  */
 public class TestModel {
     private static final String TAG = "TestModel";
     private int icon;
+    @BindText(R.id.name)
     private String name;
 
     public int getIcon() {
@@ -0,0 +1,581 @@
+package com.wyu.iwork.net;
+
+import android.graphics.Bitmap;
+import android.widget.ImageView;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.jhj.expandablerecyclerview.utils.Logger;
+import com.wyu.iwork.utils.MainThreadExecutor;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 三级图片加载：内存缓存 {@link LruBitmapCache} -> 磁盘缓存 {@link DiskByteCache} -> 网络
+ * <p>
+ *     每次加载由 {@link ImageSpec} 描述，按目标尺寸缩小采样解码，内存缓存按地址、尺寸档位和格式区分，
+ *     磁盘缓存和网络请求只按地址区分
+ * </p>
+ * <p>
+ *     内存缓存在主线程同步查找；磁盘缓存在其工作线程中读取并解码；都没有命中时通过 Volley 下载，
+ *     下载到的原始字节在网络线程中写入磁盘缓存后再解码。磁盘缓存保存的是编码后的字节，
+ *     被内存缓存淘汰的图片重新显示时只需要重新解码，不需要重新下载
+ * </p>
+ * <p>
+ *     同一个内存缓存键同时只有一次加载，后来的加载合并到正在进行的加载上，全部取消后才取消底层请求。
+ *     网络请求先在这里按优先级排队，同时交给 Volley 的请求数不超过 {@link #MAX_ACTIVE_REQUESTS}，
+ *     所以排队期间调整的优先级仍然有效，已经滚出屏幕的列表项可以在发出请求前被降级或取消
+ * </p>
+ * <p><b>注意：除了统计以外的方法都必须在主线程调用</b></p>
+ */
+public class BitmapLoader {
+    private static final String TAG = "BitmapLoader";
+
+    /**
+     * 同时交给 Volley 的请求数，和 Volley 默认的网络线程数相同
+     */
+    private static final int MAX_ACTIVE_REQUESTS = 4;
+
+    private static final int STATE_DISK = 0;
+    private static final int STATE_PENDING = 1;
+    private static final int STATE_ACTIVE = 2;
+
+    private final RequestQueue mRequestQueue;
+    private final LruBitmapCache mMemoryCache;
+    /**
+     * 解码时复用的图片池，由内存缓存淘汰的图片填充
+     */
+    private final BitmapPool mBitmapPool;
+    /**
+     * 磁盘缓存，打开失败时为 null，只使用内存缓存和网络
+     */
+    private final DiskByteCache mDiskCache;
+    /**
+     * 把磁盘缓存工作线程的结果交回主线程
+     */
+    private final Executor mMainExecutor;
+
+    /**
+     * 每个 ImageView 当前正在进行的加载，View 重新请求图片时取消之前的加载。
+     * 加载的回调只弱引用 View，不会阻止 View 被回收，加载完成或取消时移除
+     */
+    private final WeakHashMap<ImageView, LoadTask> mViewTasks = new WeakHashMap<>();
+
+    /**
+     * 内存缓存键到正在进行的加载的映射
+     */
+    private final HashMap<String, InFlight> mInFlight = new HashMap<>();
+    /**
+     * 等待交给 Volley 的网络加载，按加入顺序排列，取出时选择优先级最高的
+     */
+    private final List<InFlight> mPending = new ArrayList<>();
+    private int mActiveCount;
+
+    /**
+     * 预加载只需要填充缓存，不需要处理结果
+     */
+    private static final Listener PREFETCH_LISTENER = new Listener() {
+        @Override
+        public void onBitmapLoaded(String url, Bitmap bitmap) {
+        }
+
+        @Override
+        public void onError(String url, VolleyError error) {
+        }
+    };
+
+    private int mMemoryHitCount;
+    private int mDiskHitCount;
+    private int mNetworkLoadCount;
+    private int mErrorCount;
+    private int mPrefetchCount;
+    private int mCoalescedCount;
+    private int mCanceledCount;
+
+    public BitmapLoader(RequestQueue requestQueue, LruBitmapCache memoryCache,
+            BitmapPool bitmapPool, DiskByteCache diskCache)
+    {
+        this(requestQueue, memoryCache, bitmapPool, diskCache, new MainThreadExecutor());
+    }
+
+    /**
+     * @param mainExecutor 执行磁盘读取结果的回调，必须和 requestQueue 分发结果的线程相同
+     */
+    BitmapLoader(RequestQueue requestQueue, LruBitmapCache memoryCache, BitmapPool bitmapPool,
+            DiskByteCache diskCache, Executor mainExecutor)
+    {
+        mRequestQueue = requestQueue;
+        mMemoryCache = memoryCache;
+        mBitmapPool = bitmapPool;
+        mDiskCache = diskCache;
+        mMainExecutor = mainExecutor;
+    }
+
+    /**
+     * 按 View 的尺寸加载图片并设置到 ImageView 上
+     * @see #load(ImageSpec, ImageView, int, Object)
+     */
+    public void load(String url, ImageView view, int placeholder) {
+        load(ImageSpec.forView(url, view, Bitmap.Config.ARGB_8888), view, placeholder, null);
+    }
+
+    /**
+     * @see #load(ImageSpec, ImageView, int, Object)
+     */
+    public void load(ImageSpec spec, ImageView view, int placeholder) {
+        load(spec, view, placeholder, null);
+    }
+
+    /**
+     * 加载图片并设置到 ImageView 上，同一个 ImageView 之前未完成的加载会被取消。
+     * 图片通过 {@link BitmapPool#setImageBitmap(ImageView, Bitmap)} 设置，不再显示后可以被复用
+     * <p>
+     *     加载以 {@link Request.Priority#NORMAL} 开始，列表项进入或离开屏幕时通过
+     *     {@link #setVisible(Object, boolean)} 调整，列表项被回收时通过 {@link #cancelAll(Object)} 取消
+     * </p>
+     * @param spec 图片地址、目标尺寸和解码格式
+     * @param view 显示图片的 View
+     * @param placeholder 加载完成前和加载失败时显示的图片资源，为 0 时清空
+     * @param tag 加载的标记，通常是 View 所在的 ViewHolder，可以为 null
+     */
+    public void load(ImageSpec spec, ImageView view, int placeholder, Object tag) {
+        LoadTask previous = mViewTasks.remove(view);
+        if (previous != null) previous.cancel();
+        LoadTask task = load(spec, Request.Priority.NORMAL, tag,
+                new ViewListener(view, placeholder));
+        //内存缓存命中时已经同步设置了图片
+        if (task.isDone()) return;
+        mBitmapPool.setImageBitmap(view, null);
+        view.setImageResource(placeholder);
+        mViewTasks.put(view, task);
+    }
+
+    /**
+     * 加载图片，内存缓存命中时在返回前同步回调
+     * @param spec 图片地址、目标尺寸和解码格式
+     * @param listener 主线程回调
+     * @return 可以取消的加载任务
+     */
+    public LoadTask load(ImageSpec spec, Listener listener) {
+        return load(spec, Request.Priority.NORMAL, null, listener);
+    }
+
+    /**
+     * 预先加载图片到内存缓存，网络请求使用低优先级，不会排在正在显示的图片前面
+     * @param spec 图片地址、目标尺寸和解码格式
+     * @return 可以取消的加载任务，内存缓存已经命中时返回的任务已经完成
+     */
+    public LoadTask prefetch(ImageSpec spec) {
+        mPrefetchCount++;
+        return load(spec, Request.Priority.LOW, null, PREFETCH_LISTENER);
+    }
+
+    /**
+     * 加载图片的统一入口，测试用来直接指定优先级和标记
+     */
+    LoadTask load(ImageSpec spec, Request.Priority priority, Object tag, Listener listener) {
+        final LoadTask task = new LoadTask(this, spec, priority, tag, listener);
+        Bitmap bitmap = mMemoryCache.getBitmap(spec.getCacheKey());
+        if (bitmap != null) {
+            mMemoryHitCount++;
+            task.deliver(bitmap);
+            return task;
+        }
+        InFlight inFlight = mInFlight.get(spec.getCacheKey());
+        if (inFlight != null) {
+            mCoalescedCount++;
+            inFlight.mTasks.add(task);
+            return task;
+        }
+        inFlight = new InFlight(spec);
+        inFlight.mTasks.add(task);
+        mInFlight.put(spec.getCacheKey(), inFlight);
+        if (mDiskCache == null || mDiskCache.isClosed()) {
+            enqueueNetwork(inFlight);
+        } else {
+            loadFromDisk(inFlight);
+        }
+        return task;
+    }
+
+    private void loadFromDisk(final InFlight inFlight) {
+        inFlight.mState = STATE_DISK;
+        final ImageSpec spec = inFlight.mSpec;
+        mDiskCache.get(spec.url, new DiskByteCache.Callback() {
+            @Override
+            public void onResult(String key, byte[] data) {
+                //取消的加载不需要再解码
+                final boolean skip = data == null || inFlight.mCanceled;
+                final Bitmap bitmap = skip ? null : decode(mBitmapPool, spec, data);
+                mMainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (inFlight.mCanceled) return;
+                        if (bitmap != null) {
+                            mDiskHitCount++;
+                            finish(inFlight, bitmap, null);
+                        } else {
+                            enqueueNetwork(inFlight);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private static Bitmap decode(BitmapPool pool, ImageSpec spec, byte[] data) {
+        return pool.decode(data, spec.width, spec.height, spec.config);
+    }
+
+    private void enqueueNetwork(InFlight inFlight) {
+        inFlight.mState = STATE_PENDING;
+        mPending.add(inFlight);
+        scheduleNetwork();
+    }
+
+    /**
+     * 把排队的网络加载按优先级交给 Volley，直到达到同时请求数的上限
+     */
+    private void scheduleNetwork() {
+        while (mActiveCount < MAX_ACTIVE_REQUESTS && !mPending.isEmpty()) {
+            int best = 0;
+            Request.Priority bestPriority = mPending.get(0).getPriority();
+            for (int i = 1; i < mPending.size(); i++) {
+                final Request.Priority priority = mPending.get(i).getPriority();
+                if (priority.compareTo(bestPriority) > 0) {
+                    best = i;
+                    bestPriority = priority;
+                }
+            }
+            startNetwork(mPending.remove(best), bestPriority);
+        }
+    }
+
+    private void startNetwork(final InFlight inFlight, Request.Priority priority) {
+        mNetworkLoadCount++;
+        mActiveCount++;
+        inFlight.mState = STATE_ACTIVE;
+        final ImageSpec spec = inFlight.mSpec;
+        BitmapRequest request = new BitmapRequest(spec, priority, mDiskCache, mBitmapPool,
+                new Response.Listener<Bitmap>() {
+                    @Override
+                    public void onResponse(Bitmap bitmap) {
+                        finish(inFlight, bitmap, null);
+                    }
+                }, new Response.ErrorListener() {
+                    @Override
+                    public void onErrorResponse(VolleyError error) {
+                        mErrorCount++;
+                        if (Logger.isEnabled()) Logger.w(TAG, "load " + spec + " failed", error);
+                        finish(inFlight, null, error);
+                    }
+                });
+        inFlight.mRequest = request;
+        mRequestQueue.add(request);
+    }
+
+    /**
+     * 加载结束，把结果交给所有合并在一起的任务
+     * @param bitmap 加载到的图片，失败时为 null
+     * @param error 失败原因
+     */
+    private void finish(InFlight inFlight, Bitmap bitmap, VolleyError error) {
+        final String key = inFlight.mSpec.getCacheKey();
+        if (mInFlight.get(key) == inFlight) mInFlight.remove(key);
+        if (inFlight.mState == STATE_ACTIVE) {
+            mActiveCount--;
+            scheduleNetwork();
+        }
+        if (bitmap != null) mMemoryCache.putBitmap(key, bitmap);
+        //回调里可能开始新的加载，先复制一份
+        List<LoadTask> tasks = new ArrayList<>(inFlight.mTasks);
+        inFlight.mTasks.clear();
+        for (LoadTask task : tasks) {
+            if (bitmap != null) {
+                task.deliver(bitmap);
+            } else {
+                task.deliverError(error);
+            }
+        }
+    }
+
+    /**
+     * 任务被取消，所在的加载没有其它任务时取消底层的磁盘读取或网络请求
+     */
+    void onCanceled(LoadTask task) {
+        mCanceledCount++;
+        if (task.mListener instanceof ViewListener) {
+            ((ViewListener) task.mListener).removeTask(task);
+        }
+        final String key = task.mSpec.getCacheKey();
+        InFlight inFlight = mInFlight.get(key);
+        if (inFlight == null || !inFlight.mTasks.remove(task) || !inFlight.mTasks.isEmpty()) {
+            return;
+        }
+        mInFlight.remove(key);
+        inFlight.mCanceled = true;
+        if (inFlight.mState == STATE_PENDING) {
+            mPending.remove(inFlight);
+        } else if (inFlight.mState == STATE_ACTIVE) {
+            //取消的请求不会再回调，这里直接释放请求数
+            inFlight.mRequest.cancel();
+            mActiveCount--;
+            scheduleNetwork();
+        }
+    }
+
+    /**
+     * 调整指定标记的加载的优先级，在屏幕上的使用 {@link Request.Priority#HIGH}，
+     * 离开屏幕的使用 {@link Request.Priority#LOW}。只对还没有交给 Volley 的加载有效
+     * @param tag {@link #load(ImageSpec, ImageView, int, Object)} 传入的标记
+     * @param visible 是否在屏幕上
+     */
+    public void setVisible(Object tag, boolean visible) {
+        if (tag == null || mInFlight.isEmpty()) return;
+        final Request.Priority priority = visible ? Request.Priority.HIGH : Request.Priority.LOW;
+        for (InFlight inFlight : mInFlight.values()) {
+            for (LoadTask task : inFlight.mTasks) {
+                if (task.mTag == tag) task.mPriority = priority;
+            }
+        }
+    }
+
+    /**
+     * 取消指定标记的所有未完成的加载
+     * @param tag {@link #load(ImageSpec, ImageView, int, Object)} 传入的标记
+     */
+    public void cancelAll(Object tag) {
+        if (tag == null || mInFlight.isEmpty()) return;
+        List<LoadTask> canceled = new ArrayList<>();
+        //先取消还没有交给 Volley 的加载，释放的请求数不会交给马上就要取消的加载
+        for (InFlight inFlight : mInFlight.values()) {
+            if (inFlight.mState != STATE_ACTIVE) addTagged(inFlight, tag, canceled);
+        }
+        for (InFlight inFlight : mInFlight.values()) {
+            if (inFlight.mState == STATE_ACTIVE) addTagged(inFlight, tag, canceled);
+        }
+        for (LoadTask task : canceled) {
+            task.cancel();
+        }
+    }
+
+    private static void addTagged(InFlight inFlight, Object tag, List<LoadTask> out) {
+        for (LoadTask task : inFlight.mTasks) {
+            if (task.mTag == tag) out.add(task);
+        }
+    }
+
+    public int getMemoryHitCount() {
+        return mMemoryHitCount;
+    }
+
+    public int getDiskHitCount() {
+        return mDiskHitCount;
+    }
+
+    public int getNetworkLoadCount() {
+        return mNetworkLoadCount;
+    }
+
+    public int getPrefetchCount() {
+        return mPrefetchCount;
+    }
+
+    public int getCoalescedCount() {
+        return mCoalescedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BitmapLoader[memoryHits=" + mMemoryHitCount + ",diskHits=" + mDiskHitCount
+                + ",networkLoads=" + mNetworkLoadCount + ",prefetches=" + mPrefetchCount
+                + ",coalesced=" + mCoalescedCount + ",canceled=" + mCanceledCount + ",errors="
+                + mErrorCount + "] " + mBitmapPool + " " + mDiskCache;
+    }
+
+    public interface Listener {
+        void onBitmapLoaded(String url, Bitmap bitmap);
+
+        void onError(String url, VolleyError error);
+    }
+
+    /**
+     * 把加载结果设置到 ImageView 上，View 已经被回收时忽略结果
+     */
+    private class ViewListener implements Listener {
+        private final WeakReference<ImageView> mView;
+        private final int mPlaceholder;
+
+        ViewListener(ImageView view, int placeholder) {
+            mView = new WeakReference<>(view);
+            mPlaceholder = placeholder;
+        }
+
+        @Override
+        public void onBitmapLoaded(String url, Bitmap bitmap) {
+            ImageView view = mView.get();
+            if (view == null) return;
+            mViewTasks.remove(view);
+            mBitmapPool.setImageBitmap(view, bitmap);
+        }
+
+        @Override
+        public void onError(String url, VolleyError error) {
+            ImageView view = mView.get();
+            if (view == null) return;
+            mViewTasks.remove(view);
+            mBitmapPool.setImageBitmap(view, null);
+            view.setImageResource(mPlaceholder);
+        }
+
+        /**
+         * 取消的加载不再占用 View 的记录，View 已经开始新的加载时保留新的记录
+         */
+        void removeTask(LoadTask task) {
+            ImageView view = mView.get();
+            if (view != null && mViewTasks.get(view) == task) mViewTasks.remove(view);
+        }
+    }
+
+    /**
+     * 一次加载，完成或取消后不会再回调
+     */
+    public static class LoadTask {
+        private final BitmapLoader mLoader;
+        private final ImageSpec mSpec;
+        private final Object mTag;
+        private final Listener mListener;
+        private Request.Priority mPriority;
+        private boolean mDone;
+
+        LoadTask(BitmapLoader loader, ImageSpec spec, Request.Priority priority, Object tag,
+                Listener listener)
+        {
+            mLoader = loader;
+            mSpec = spec;
+            mPriority = priority;
+            mTag = tag;
+            mListener = listener;
+        }
+
+        public String getUrl() {
+            return mSpec.url;
+        }
+
+        public ImageSpec getSpec() {
+            return mSpec;
+        }
+
+        public Object getTag() {
+            return mTag;
+        }
+
+        public boolean isDone() {
+            return mDone;
+        }
+
+        /**
+         * 取消加载，没有其它相同的加载时已经发出的网络请求也会被取消
+         */
+        public void cancel() {
+            if (mDone) return;
+            mDone = true;
+            mLoader.onCanceled(this);
+        }
+
+        void deliver(Bitmap bitmap) {
+            if (mDone) return;
+            mDone = true;
+            mListener.onBitmapLoaded(mSpec.url, bitmap);
+        }
+
+        void deliverError(VolleyError error) {
+            if (mDone) return;
+            mDone = true;
+            mListener.onError(mSpec.url, error);
+        }
+    }
+
+    /**
+     * 同一个内存缓存键正在进行的加载，合并了所有请求该图片的任务
+     */
+    private static class InFlight {
+        final ImageSpec mSpec;
+        final List<LoadTask> mTasks = new ArrayList<>(1);
+        int mState;
+        Request<?> mRequest;
+        /**
+         * 磁盘工作线程会读取
+         */
+        volatile boolean mCanceled;
+
+        InFlight(ImageSpec spec) {
+            mSpec = spec;
+        }
+
+        /**
+         * @return 所有任务中最高的优先级
+         */
+        Request.Priority getPriority() {
+            Request.Priority priority = Request.Priority.LOW;
+            for (LoadTask task : mTasks) {
+                if (task.mPriority.compareTo(priority) > 0) priority = task.mPriority;
+            }
+            return priority;
+        }
+    }
+
+    /**
+     * 下载图片原始字节，在网络线程中按原地址写入磁盘缓存，再按目标尺寸解码
+     * <p>不使用 Volley 自己的缓存，原始字节已经保存在 {@link DiskByteCache} 里</p>
+     */
+    private static class BitmapRequest extends Request<Bitmap> {
+        private final ImageSpec mSpec;
+        private final Priority mPriority;
+        private final DiskByteCache mDiskCache;
+        private final BitmapPool mBitmapPool;
+        private final Response.Listener<Bitmap> mListener;
+
+        BitmapRequest(ImageSpec spec, Priority priority, DiskByteCache diskCache,
+                BitmapPool bitmapPool, Response.Listener<Bitmap> listener,
+                Response.ErrorListener errorListener)
+        {
+            super(Method.GET, spec.url, errorListener);
+            mSpec = spec;
+            mPriority = priority;
+            mDiskCache = diskCache;
+            mBitmapPool = bitmapPool;
+            mListener = listener;
+            setShouldCache(false);
+        }
+
+        @Override
+        public Priority getPriority() {
+            return mPriority;
+        }
+
+        @Override
+        protected Response<Bitmap> parseNetworkResponse(NetworkResponse response) {
+            Bitmap bitmap = decode(mBitmapPool, mSpec, response.data);
+            if (bitmap == null) return Response.error(new ParseError(response));
+            if (mDiskCache != null && !mDiskCache.isClosed()) {
+                mDiskCache.put(getUrl(), response.data);
+            }
+            return Response.success(bitmap, null);
+        }
+
+        @Override
+        protected void deliverResponse(Bitmap response) {
+            mListener.onResponse(response);
+        }
+    }
+}
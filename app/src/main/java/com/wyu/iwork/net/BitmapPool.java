@@ -0,0 +1,340 @@
+package com.wyu.iwork.net;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.widget.ImageView;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * 按字节数分桶的可复用图片池，解码时通过 {@link BitmapFactory.Options#inBitmap} 复用被
+ * {@link LruBitmapCache} 淘汰的图片，避免快速滚动时不断分配新的大块内存引起 GC 停顿
+ * <p>
+ *     API 19 以后只要被复用图片的内存不小于需要的大小就可以复用，从不小于需要字节数的最小桶里取；
+ *     API 19 以前要求宽高和格式完全一致并且不能缩放采样，只从字节数相等的桶里找完全匹配的图片
+ * </p>
+ * <p>
+ *     被淘汰时仍然显示在 View 上的图片不能复用，否则正在显示的内容会被新的解码覆盖。
+ *     通过 {@link #setImageBitmap(ImageView, Bitmap)} 设置的图片记录了显示计数，
+ *     计数归零后才会放入池中；没有记录过显示计数的图片可能正被其它地方显示，淘汰后直接交给 GC
+ * </p>
+ * <p><b>注意：所有方法都是线程安全的，解码可以在任意线程调用</b></p>
+ */
+public class BitmapPool {
+    private static final String TAG = "BitmapPool";
+
+    /**
+     * 可复用图片最多比需要的大这么多倍，避免用很大的图片承载很小的解码
+     */
+    private static final int MAX_SIZE_MULTIPLE = 4;
+
+    /**
+     * 同一时间只解码一张图片，避免多个线程同时解码大图导致内存峰值过高
+     */
+    private static final Object sDecodeLock = new Object();
+
+    private final long mMaxBytes;
+    private long mSize;
+
+    /**
+     * 字节数到该字节数的可复用图片的映射
+     */
+    private final TreeMap<Integer, ArrayDeque<Bitmap>> mBuckets = new TreeMap<>();
+    /**
+     * 池中所有图片，按放入顺序排列，超出上限时先丢弃最早放入的
+     */
+    private final LinkedHashSet<Bitmap> mBitmaps = new LinkedHashSet<>();
+
+    /**
+     * 图片正在多少个 View 上显示，View 被回收后对应的图片也会随之从这里消失
+     */
+    private final WeakHashMap<Bitmap, Integer> mDisplayCounts = new WeakHashMap<>();
+    /**
+     * 每个 View 当前显示的由池管理的图片
+     */
+    private final WeakHashMap<ImageView, Bitmap> mDisplayed = new WeakHashMap<>();
+    /**
+     * 记录过显示计数的图片，只有这些图片淘汰后可以确定是否还在显示
+     */
+    private final WeakHashMap<Bitmap, Boolean> mTracked = new WeakHashMap<>();
+    /**
+     * 被淘汰时仍在显示的图片，显示计数归零后放入池中
+     */
+    private final WeakHashMap<Bitmap, Boolean> mPendingRelease = new WeakHashMap<>();
+
+    private int mHitCount;
+    private int mMissCount;
+    private int mPutCount;
+    private int mEvictionCount;
+
+    /**
+     * @param maxBytes 池中图片的最大总字节数
+     */
+    public BitmapPool(long maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * 设置 ImageView 显示的图片并记录显示计数，之前通过这个方法设置的图片计数减一
+     * <p>只能在主线程调用</p>
+     * @param bitmap 新图片，为 null 时只释放之前的图片
+     */
+    public void setImageBitmap(ImageView view, Bitmap bitmap) {
+        synchronized (this) {
+            Bitmap previous = bitmap != null ? mDisplayed.put(view, bitmap) :
+                    mDisplayed.remove(view);
+            if (previous == bitmap) return;
+            if (bitmap != null) {
+                Integer count = mDisplayCounts.get(bitmap);
+                mDisplayCounts.put(bitmap, count != null ? count + 1 : 1);
+                mTracked.put(bitmap, Boolean.TRUE);
+            }
+            if (previous != null) release(previous);
+        }
+        if (bitmap != null) view.setImageBitmap(bitmap);
+    }
+
+    private void release(Bitmap bitmap) {
+        Integer count = mDisplayCounts.get(bitmap);
+        if (count == null) return;
+        if (count > 1) {
+            mDisplayCounts.put(bitmap, count - 1);
+            return;
+        }
+        mDisplayCounts.remove(bitmap);
+        if (mPendingRelease.remove(bitmap) != null) put(bitmap);
+    }
+
+    /**
+     * 内存缓存淘汰图片时调用，图片仍在显示时等到不再显示再放入池中，
+     * 从来没有记录过显示计数的图片直接交给 GC
+     */
+    public synchronized void onEvicted(Bitmap bitmap) {
+        if (mDisplayCounts.containsKey(bitmap)) {
+            mPendingRelease.put(bitmap, Boolean.TRUE);
+        } else if (mTracked.remove(bitmap) != null) {
+            put(bitmap);
+        }
+    }
+
+    /**
+     * 放入可复用的图片，不可变、已回收或超过池上限的图片不会放入
+     * @return 是否放入
+     */
+    public synchronized boolean put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) return false;
+        final int size = getByteCount(bitmap);
+        if (size > mMaxBytes || !mBitmaps.add(bitmap)) return false;
+        ArrayDeque<Bitmap> bucket = mBuckets.get(size);
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            mBuckets.put(size, bucket);
+        }
+        bucket.addLast(bitmap);
+        mSize += size;
+        mPutCount++;
+        trimToSize(mMaxBytes);
+        return true;
+    }
+
+    /**
+     * 取出可以承载指定大小解码的图片，取出的图片不再属于池
+     * @return 可复用的图片，没有合适的图片时返回 null
+     */
+    public synchronized Bitmap get(int width, int height, Bitmap.Config config,
+            int sampleSize)
+    {
+        final int required = width * height * getBytesPerPixel(config);
+        Bitmap bitmap = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            Integer size = mBuckets.ceilingKey(required);
+            if (size != null && size <= required * MAX_SIZE_MULTIPLE) {
+                bitmap = mBuckets.get(size).peekLast();
+            }
+        } else if (sampleSize == 1) {
+            ArrayDeque<Bitmap> bucket = mBuckets.get(required);
+            if (bucket != null) {
+                for (Bitmap candidate : bucket) {
+                    if (candidate.getWidth() == width && candidate.getHeight() == height &&
+                            candidate.getConfig() == config)
+                    {
+                        bitmap = candidate;
+                        break;
+                    }
+                }
+            }
+        }
+        if (bitmap == null) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        remove(bitmap);
+        return bitmap;
+    }
+
+    private void remove(Bitmap bitmap) {
+        final int size = getByteCount(bitmap);
+        ArrayDeque<Bitmap> bucket = mBuckets.get(size);
+        bucket.remove(bitmap);
+        if (bucket.isEmpty()) mBuckets.remove(size);
+        mBitmaps.remove(bitmap);
+        mSize -= size;
+    }
+
+    /**
+     * 丢弃最早放入的图片直到总字节数不超过指定值
+     */
+    public synchronized void trimToSize(long maxBytes) {
+        Iterator<Bitmap> iterator = mBitmaps.iterator();
+        while (mSize > maxBytes && iterator.hasNext()) {
+            Bitmap bitmap = iterator.next();
+            iterator.remove();
+            final int size = getByteCount(bitmap);
+            ArrayDeque<Bitmap> bucket = mBuckets.get(size);
+            bucket.remove(bitmap);
+            if (bucket.isEmpty()) mBuckets.remove(size);
+            mSize -= size;
+            mEvictionCount++;
+        }
+    }
+
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * 按 {@link Bitmap.Config#ARGB_8888} 解码
+     * @see #decode(byte[], int, int, Bitmap.Config)
+     */
+    public Bitmap decode(byte[] data, int maxWidth, int maxHeight) {
+        return decode(data, maxWidth, maxHeight, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * 解码图片字节，尽量复用池中的图片，解码结果是可变的，被淘汰后可以再次放入池中
+     * @param maxWidth 最大宽度，按 2 的幂缩小采样直到不小于该宽度，为 0 时不限制
+     * @param maxHeight 最大高度，为 0 时不限制
+     * @param config 优先使用的解码格式，带透明度的图片可能仍然解码成 ARGB_8888
+     * @return 解码后的图片，字节无法解码时返回 null
+     */
+    public Bitmap decode(byte[] data, int maxWidth, int maxHeight, Bitmap.Config config) {
+        synchronized (sDecodeLock) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeByteArray(data, 0, data.length, options);
+            if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = getSampleSize(options.outWidth, options.outHeight, maxWidth,
+                    maxHeight);
+            options.inPreferredConfig = config;
+            options.inMutable = true;
+            final int width = ceilDiv(options.outWidth, options.inSampleSize);
+            final int height = ceilDiv(options.outHeight, options.inSampleSize);
+            options.inBitmap = get(width, height, getDecodeConfig(options.outMimeType, config),
+                    options.inSampleSize);
+            try {
+                try {
+                    return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+                } catch (IllegalArgumentException e) {
+                    //格式不支持复用时重新分配，借出的图片没有被使用，放回池中
+                    final Bitmap borrowed = options.inBitmap;
+                    if (borrowed == null) return null;
+                    options.inBitmap = null;
+                    put(borrowed);
+                    return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+                }
+            } catch (OutOfMemoryError e) {
+                clear();
+                return null;
+            }
+        }
+    }
+
+    static int getSampleSize(int width, int height, int maxWidth, int maxHeight) {
+        int sampleSize = 1;
+        while ((maxWidth <= 0 || width / (sampleSize * 2) >= maxWidth) &&
+                (maxHeight <= 0 || height / (sampleSize * 2) >= maxHeight) &&
+                (maxWidth > 0 || maxHeight > 0))
+        {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * 估计解码实际使用的格式，用来计算复用图片需要的字节数
+     * <p>
+     *     只有 JPEG 一定不透明，会按要求的 {@link Bitmap.Config#RGB_565} 解码；
+     *     其它格式可能带透明度，解码器会改用 {@link Bitmap.Config#ARGB_8888}，按较大的格式借用
+     * </p>
+     * @param mimeType 读取边界时得到的图片类型，未知时为 null
+     * @param config 要求的解码格式
+     */
+    static Bitmap.Config getDecodeConfig(String mimeType, Bitmap.Config config) {
+        if (config == Bitmap.Config.RGB_565 && !"image/jpeg".equals(mimeType)) {
+            return Bitmap.Config.ARGB_8888;
+        }
+        return config;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    static int getByteCount(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    /**
+     * 其它格式都按每个像素 4 字节计算，借用的图片只会偏大
+     */
+    static int getBytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.RGB_565) return 2;
+        if (config == Bitmap.Config.ALPHA_8) return 1;
+        return 4;
+    }
+
+    public synchronized long size() {
+        return mSize;
+    }
+
+    public long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    public synchronized int hitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int missCount() {
+        return mMissCount;
+    }
+
+    public synchronized int putCount() {
+        return mPutCount;
+    }
+
+    public synchronized int evictionCount() {
+        return mEvictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final int accesses = mHitCount + mMissCount;
+        final int hitPercent = accesses != 0 ? 100 * mHitCount / accesses : 0;
+        return "BitmapPool[size=" + mSize + ",maxBytes=" + mMaxBytes + ",bitmaps="
+                + mBitmaps.size() + ",hits=" + mHitCount + ",misses=" + mMissCount + ",hitRate="
+                + hitPercent + "%]";
+    }
+}
@@ -0,0 +1,451 @@
+package com.wyu.iwork.net;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 保存图片原始字节的磁盘 LRU 缓存，作为 {@link LruBitmapCache} 之后的第二级缓存
+ * <p>
+ *     每个条目是缓存目录下的一个文件，文件名是键的 MD5。条目的增删和访问顺序追加记录到日志文件里，
+ *     重新打开时回放日志恢复条目和 LRU 顺序，所以冷启动后已经下载过的图片不需要重新请求。
+ *     总字节数超过上限时删除最久没有访问的条目
+ * </p>
+ * <p>
+ *     写入先写临时文件再重命名，写完后才记录日志，中途崩溃只会留下下次打开时清理掉的临时文件。
+ *     同步方法会读写磁盘，不能在主线程调用；{@link #get(String, Callback)} 在缓存自己的工作线程中读取
+ * </p>
+ */
+public class DiskByteCache {
+    private static final String TAG = "DiskByteCache";
+
+    private static final String JOURNAL_FILE = "journal";
+    private static final String JOURNAL_FILE_TEMP = "journal.tmp";
+    private static final String MAGIC = "com.wyu.iwork.DiskByteCache";
+    private static final String VERSION = "1";
+    private static final String CLEAN = "CLEAN";
+    private static final String REMOVE = "REMOVE";
+    private static final String READ = "READ";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * 日志里多余的记录超过该数量并且超过条目数时重写日志
+     */
+    private static final int REDUNDANT_OP_COMPACT_THRESHOLD = 2000;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "DiskByteCache");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final File mDirectory;
+    private final long mMaxBytes;
+
+    /**
+     * 文件名到条目字节数的映射，按访问顺序排列，第一个是最久没有访问的条目
+     */
+    private final LinkedHashMap<String, Long> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long mSize;
+    private Writer mJournalWriter;
+    private int mRedundantOpCount;
+
+    private int mHitCount;
+    private int mMissCount;
+    private int mPutCount;
+    private int mEvictionCount;
+
+    private DiskByteCache(File directory, long maxBytes) {
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * 打开缓存目录，目录不存在时创建。日志最后一行不完整时忽略该行，其它损坏时清空目录重新开始
+     * @param directory 缓存目录，只能由一个缓存实例使用
+     * @param maxBytes 缓存的最大字节数
+     */
+    public static DiskByteCache open(File directory, long maxBytes) throws IOException {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes <= 0");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create cache directory " + directory);
+        }
+        DiskByteCache cache = new DiskByteCache(directory, maxBytes);
+        try {
+            cache.readJournal();
+        } catch (IOException e) {
+            cache.deleteContents();
+            cache.mEntries.clear();
+            cache.mSize = 0;
+        }
+        cache.rebuildJournal();
+        cache.trimToSize(maxBytes);
+        return cache;
+    }
+
+    /**
+     * 读取条目
+     * @param key 条目的键，通常是图片的 url
+     * @return 条目的字节，不存在时返回 null
+     */
+    public synchronized byte[] get(String key) {
+        checkNotClosed();
+        final String name = fileNameOf(key);
+        if (mEntries.get(name) == null) {
+            mMissCount++;
+            return null;
+        }
+        byte[] data;
+        try {
+            data = readFully(new File(mDirectory, name));
+        } catch (IOException e) {
+            //文件被外部删除或者损坏
+            removeEntry(name);
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        appendJournal(READ, name, -1);
+        return data;
+    }
+
+    /**
+     * 在缓存的工作线程中读取条目，结果也在工作线程中回调
+     */
+    public void get(final String key, final Callback callback) {
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                byte[] data;
+                synchronized (DiskByteCache.this) {
+                    data = isClosed() ? null : get(key);
+                }
+                callback.onResult(key, data);
+            }
+        });
+    }
+
+    /**
+     * 写入条目，已经存在时替换，超过字节数上限的单个条目不会写入
+     * @param key 条目的键
+     * @param data 条目的字节
+     * @return 是否写入成功
+     */
+    public synchronized boolean put(String key, byte[] data) {
+        checkNotClosed();
+        if (data.length > mMaxBytes) return false;
+        final String name = fileNameOf(key);
+        final File temp = new File(mDirectory, name + TEMP_SUFFIX);
+        final File file = new File(mDirectory, name);
+        try {
+            OutputStream out = new FileOutputStream(temp);
+            try {
+                out.write(data);
+            } finally {
+                out.close();
+            }
+            if (file.exists() && !file.delete()) throw new IOException("Unable to delete " + file);
+            if (!temp.renameTo(file)) throw new IOException("Unable to rename " + temp);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+            return false;
+        }
+        Long previous = mEntries.put(name, (long) data.length);
+        if (previous != null) {
+            mSize -= previous;
+            mRedundantOpCount++;
+        }
+        mSize += data.length;
+        mPutCount++;
+        appendJournal(CLEAN, name, data.length);
+        trimToSize(mMaxBytes);
+        return true;
+    }
+
+    /**
+     * 删除条目
+     * @return 条目是否存在
+     */
+    public synchronized boolean remove(String key) {
+        checkNotClosed();
+        return removeEntry(fileNameOf(key));
+    }
+
+    public synchronized boolean contains(String key) {
+        return mEntries.containsKey(fileNameOf(key));
+    }
+
+    /**
+     * 删除最久没有访问的条目直到总字节数不超过 maxBytes，用于内存或存储空间紧张时主动收缩
+     */
+    public synchronized void trimToSize(long maxBytes) {
+        Iterator<Map.Entry<String, Long>> iterator = mEntries.entrySet().iterator();
+        while (mSize > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            deleteEntryFile(eldest.getKey(), eldest.getValue());
+            mEvictionCount++;
+        }
+        compactJournalIfNeeded();
+    }
+
+    public synchronized long size() {
+        return mSize;
+    }
+
+    public long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return mEntries.size();
+    }
+
+    public synchronized int hitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int missCount() {
+        return mMissCount;
+    }
+
+    public synchronized int putCount() {
+        return mPutCount;
+    }
+
+    public synchronized int evictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * 关闭日志文件，关闭后不能再读写
+     */
+    public synchronized void close() throws IOException {
+        if (mJournalWriter == null) return;
+        mJournalWriter.close();
+        mJournalWriter = null;
+    }
+
+    public synchronized boolean isClosed() {
+        return mJournalWriter == null;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final int accesses = mHitCount + mMissCount;
+        return String.format("DiskByteCache[size=%d,maxBytes=%d,entries=%d,hits=%d,misses=%d,"
+                        + "hitRate=%d%%,evictions=%d]", mSize, mMaxBytes, mEntries.size(),
+                mHitCount, mMissCount, accesses == 0 ? 0 : 100 * mHitCount / accesses,
+                mEvictionCount);
+    }
+
+    private boolean removeEntry(String name) {
+        Long size = mEntries.remove(name);
+        if (size == null) return false;
+        deleteEntryFile(name, size);
+        return true;
+    }
+
+    private void deleteEntryFile(String name, long size) {
+        //noinspection ResultOfMethodCallIgnored
+        new File(mDirectory, name).delete();
+        mSize -= size;
+        mRedundantOpCount++;
+        appendJournal(REMOVE, name, -1);
+    }
+
+    private void readJournal() throws IOException {
+        File journal = new File(mDirectory, JOURNAL_FILE);
+        if (!journal.exists()) return;
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(journal), UTF_8));
+        try {
+            if (!MAGIC.equals(reader.readLine()) || !VERSION.equals(reader.readLine())) {
+                throw new IOException("Unexpected journal header");
+            }
+            int lineCount = 0;
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (c != '\n') {
+                    line.append((char) c);
+                    continue;
+                }
+                lineCount++;
+                readJournalLine(line.toString());
+                line.setLength(0);
+            }
+            //最后一行没有换行符说明写到一半进程被杀死，丢弃这一行，打开后会按已读取的条目重写日志
+            mRedundantOpCount = lineCount - mEntries.size();
+        } finally {
+            reader.close();
+        }
+        //日志记录了但文件已经不存在的条目
+        Iterator<Map.Entry<String, Long>> iterator = mEntries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (!new File(mDirectory, entry.getKey()).isFile()) {
+                mSize -= entry.getValue();
+                iterator.remove();
+            }
+        }
+    }
+
+    private void readJournalLine(String line) throws IOException {
+        String[] parts = line.split(" ");
+        if (parts.length < 2) throw new IOException("Unexpected journal line: " + line);
+        final String name = parts[1];
+        if (CLEAN.equals(parts[0]) && parts.length == 3) {
+            final long size;
+            try {
+                size = Long.parseLong(parts[2]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Unexpected journal line: " + line);
+            }
+            Long previous = mEntries.put(name, size);
+            if (previous != null) mSize -= previous;
+            mSize += size;
+        } else if (REMOVE.equals(parts[0])) {
+            Long previous = mEntries.remove(name);
+            if (previous != null) mSize -= previous;
+        } else if (READ.equals(parts[0])) {
+            //只更新访问顺序
+            mEntries.get(name);
+        } else {
+            throw new IOException("Unexpected journal line: " + line);
+        }
+    }
+
+    /**
+     * 按当前的条目和访问顺序重写日志，并删除不属于任何条目的文件
+     */
+    private void rebuildJournal() throws IOException {
+        if (mJournalWriter != null) mJournalWriter.close();
+        File temp = new File(mDirectory, JOURNAL_FILE_TEMP);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp),
+                UTF_8));
+        try {
+            writer.write(MAGIC + "\n" + VERSION + "\n");
+            for (Map.Entry<String, Long> entry : mEntries.entrySet()) {
+                writer.write(CLEAN + ' ' + entry.getKey() + ' ' + entry.getValue() + '\n');
+            }
+        } finally {
+            writer.close();
+        }
+        File journal = new File(mDirectory, JOURNAL_FILE);
+        if (journal.exists() && !journal.delete()) {
+            throw new IOException("Unable to delete journal");
+        }
+        if (!temp.renameTo(journal)) throw new IOException("Unable to rename journal");
+        mRedundantOpCount = 0;
+        mJournalWriter = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(journal, true), UTF_8));
+
+        File[] files = mDirectory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            final String name = file.getName();
+            if (JOURNAL_FILE.equals(name) || mEntries.containsKey(name)) continue;
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private void compactJournalIfNeeded() {
+        if (mRedundantOpCount < REDUNDANT_OP_COMPACT_THRESHOLD ||
+                mRedundantOpCount < mEntries.size()) return;
+        try {
+            rebuildJournal();
+        } catch (IOException e) {
+            //保留原来的日志继续追加，下一次再尝试压缩
+        }
+    }
+
+    private void appendJournal(String op, String name, long size) {
+        if (mJournalWriter == null) return;
+        if (READ.equals(op)) mRedundantOpCount++;
+        try {
+            mJournalWriter.write(size >= 0 ? op + ' ' + name + ' ' + size + '\n' :
+                    op + ' ' + name + '\n');
+            mJournalWriter.flush();
+        } catch (IOException e) {
+            //日志写入失败时该条目在下次打开时丢失，不影响本次使用
+        }
+    }
+
+    private void deleteContents() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private void checkNotClosed() {
+        if (mJournalWriter == null) throw new IllegalStateException("cache is closed");
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String fileNameOf(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] hash = digest.digest(key.getBytes(UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16))
+                        .append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return String.valueOf(key.hashCode() & 0x7FFFFFFFL);
+        }
+    }
+
+    public interface Callback {
+        /**
+         * @param key 读取的键
+         * @param data 条目的字节，不存在时为 null
+         */
+        void onResult(String key, byte[] data);
+    }
+}
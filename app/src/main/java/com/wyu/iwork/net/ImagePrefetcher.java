@@ -0,0 +1,171 @@
+package com.wyu.iwork.net;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 根据滚动方向和速度预先加载即将出现的列表项图片，避免快速滑动时图片在列表项出现后才开始加载
+ * <p>
+ *     每次滚动时按滚动方向取可见范围之外的若干个位置，数量随滚动速度增加，
+ *     向 {@link Source} 查询这些位置的图片，通过 {@link BitmapLoader#prefetch(ImageSpec)} 以低优先级加载。
+ *     不再处于预加载范围内的未完成加载会被取消，预加载范围不变时不会重复查询
+ * </p>
+ * <p><b>注意：只支持 {@link LinearLayoutManager} 及其子类</b></p>
+ */
+public class ImagePrefetcher extends RecyclerView.OnScrollListener {
+    private static final String TAG = "ImagePrefetcher";
+
+    /**
+     * 按当前速度预测多少帧之后的位置
+     */
+    private static final int LOOKAHEAD_FRAMES = 30;
+
+    private final BitmapLoader mLoader;
+    private final Source mSource;
+    private final int mMinDistance;
+    private final int mMaxDistance;
+
+    private RecyclerView mRecyclerView;
+    /**
+     * 上一次预加载的范围，范围不变时不需要重新查询
+     */
+    private int mWindowStart = RecyclerView.NO_POSITION;
+    private int mWindowEnd = RecyclerView.NO_POSITION;
+    /**
+     * 正在预加载的图片，按内存缓存的键区分
+     */
+    private final LinkedHashMap<String, BitmapLoader.LoadTask> mTasks = new LinkedHashMap<>();
+
+    /**
+     * @param loader 图片加载类
+     * @param source 查询列表项的图片
+     * @param minDistance 静止或慢速滚动时预加载可见范围之外的项数
+     * @param maxDistance 快速滑动时最多预加载的项数
+     */
+    public ImagePrefetcher(BitmapLoader loader, Source source, int minDistance, int maxDistance) {
+        mLoader = loader;
+        mSource = source;
+        mMinDistance = minDistance;
+        mMaxDistance = Math.max(minDistance, maxDistance);
+    }
+
+    public ImagePrefetcher(BitmapLoader loader, Source source) {
+        this(loader, source, 4, 20);
+    }
+
+    public void attach(RecyclerView recyclerView) {
+        if (mRecyclerView == recyclerView) return;
+        detach();
+        mRecyclerView = recyclerView;
+        recyclerView.addOnScrollListener(this);
+    }
+
+    /**
+     * 移除滚动监听并取消所有未完成的预加载
+     */
+    public void detach() {
+        if (mRecyclerView == null) return;
+        mRecyclerView.removeOnScrollListener(this);
+        mRecyclerView = null;
+        cancelAll();
+    }
+
+    public void cancelAll() {
+        for (BitmapLoader.LoadTask task : mTasks.values()) {
+            task.cancel();
+        }
+        mTasks.clear();
+        mWindowStart = mWindowEnd = RecyclerView.NO_POSITION;
+    }
+
+    @Override
+    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager)) return;
+        final LinearLayoutManager lm = (LinearLayoutManager) layoutManager;
+        final boolean vertical = lm.getOrientation() == LinearLayoutManager.VERTICAL;
+        onScrolled(lm.findFirstVisibleItemPosition(), lm.findLastVisibleItemPosition(),
+                lm.getItemCount(), vertical ? dy : dx,
+                vertical ? recyclerView.getHeight() : recyclerView.getWidth());
+    }
+
+    /**
+     * 按可见范围和这一帧的位移更新预加载范围
+     * @param first 第一个可见项的位置
+     * @param last 最后一个可见项的位置
+     * @param itemCount 适配器的项数
+     * @param delta 滚动方向上的位移，向后滚动为正
+     * @param extent RecyclerView 在滚动方向上的尺寸
+     */
+    void onScrolled(int first, int last, int itemCount, int delta, int extent) {
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) return;
+        //布局完成时也会回调一次，没有位移时按向后滚动处理
+        final boolean forward = delta >= 0;
+        final int distance = getDistance(Math.abs(delta), extent, last - first + 1);
+        final int start = forward ? last + 1 : Math.max(0, first - distance);
+        final int end = forward ? Math.min(itemCount - 1, last + distance) : first - 1;
+        if (start == mWindowStart && end == mWindowEnd) return;
+        mWindowStart = start;
+        mWindowEnd = end;
+        prefetch(start, end, forward);
+    }
+
+    /**
+     * 按每帧滚动的距离估计速度，计算预加载的项数
+     * @param pixelsPerFrame 这一帧滚动的像素数
+     * @param extent RecyclerView 在滚动方向上的尺寸
+     * @param visibleCount 可见的项数
+     */
+    int getDistance(int pixelsPerFrame, int extent, int visibleCount) {
+        if (extent <= 0 || visibleCount <= 0) return mMinDistance;
+        final long itemsAhead = (long) pixelsPerFrame * LOOKAHEAD_FRAMES * visibleCount / extent;
+        return (int) Math.min(mMaxDistance, mMinDistance + itemsAhead);
+    }
+
+    private void prefetch(int start, int end, boolean forward) {
+        Set<String> window = new HashSet<>();
+        //离可见范围近的位置先加载
+        final int step = forward ? 1 : -1;
+        for (int position = forward ? start : end; position >= start && position <= end;
+                position += step)
+        {
+            ImageSpec spec = mSource.getPrefetchImage(position);
+            if (spec == null) continue;
+            final String key = spec.getCacheKey();
+            window.add(key);
+            BitmapLoader.LoadTask task = mTasks.get(key);
+            if (task != null && !task.isDone()) continue;
+            task = mLoader.prefetch(spec);
+            if (!task.isDone()) mTasks.put(key, task);
+        }
+        Iterator<Map.Entry<String, BitmapLoader.LoadTask>> iterator =
+                mTasks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, BitmapLoader.LoadTask> entry = iterator.next();
+            BitmapLoader.LoadTask task = entry.getValue();
+            if (task.isDone()) {
+                iterator.remove();
+            } else if (!window.contains(entry.getKey())) {
+                task.cancel();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 列表项图片的来源，通常由适配器实现
+     */
+    public interface Source {
+        /**
+         * @param position 适配器中的位置
+         * @return 该位置需要显示的图片，没有图片时返回 null
+         */
+        ImageSpec getPrefetchImage(int position);
+    }
+}
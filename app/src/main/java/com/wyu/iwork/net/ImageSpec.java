@@ -0,0 +1,98 @@
+package com.wyu.iwork.net;
+
+import android.graphics.Bitmap;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 一次图片加载的地址、目标尺寸和解码格式
+ * <p>
+ *     目标尺寸向上取整到 2 的幂作为尺寸档位，解码时按档位做 2 的幂缩小采样，
+ *     内存缓存的键包含地址、档位和格式，相近尺寸的 View 共用同一张图片。
+ *     磁盘缓存保存的是原始字节，仍然只按地址存取，不同尺寸从同一份字节解码
+ * </p>
+ */
+public class ImageSpec {
+    private static final String TAG = "ImageSpec";
+
+    /**
+     * 最小的尺寸档位，更小的目标尺寸都使用这个档位
+     */
+    private static final int MIN_BUCKET = 16;
+
+    public final String url;
+    /**
+     * 尺寸档位的宽高，为 0 时不缩小
+     */
+    public final int width;
+    public final int height;
+    public final Bitmap.Config config;
+    private final String mCacheKey;
+
+    /**
+     * @param url 图片地址
+     * @param width 目标宽度的像素数，为 0 时不限制
+     * @param height 目标高度的像素数，为 0 时不限制
+     * @param config 解码格式，不透明的头像使用 {@link Bitmap.Config#RGB_565} 可以节省一半内存
+     */
+    public ImageSpec(String url, int width, int height, Bitmap.Config config) {
+        this.url = url;
+        this.width = bucket(width);
+        this.height = bucket(height);
+        this.config = config != null ? config : Bitmap.Config.ARGB_8888;
+        mCacheKey = url + "#" + this.width + "x" + this.height + "#" + this.config.name();
+    }
+
+    /**
+     * 原尺寸 {@link Bitmap.Config#ARGB_8888} 解码
+     */
+    public ImageSpec(String url) {
+        this(url, 0, 0, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * 按 View 的尺寸解码，优先使用布局参数里固定的宽高，其次使用已经测量的宽高，都没有时不缩小
+     */
+    public static ImageSpec forView(String url, View view, Bitmap.Config config) {
+        return new ImageSpec(url, getTargetSize(view, true), getTargetSize(view, false), config);
+    }
+
+    private static int getTargetSize(View view, boolean horizontal) {
+        ViewGroup.LayoutParams lp = view.getLayoutParams();
+        final int size = lp == null ? 0 : horizontal ? lp.width : lp.height;
+        //MATCH_PARENT 和 WRAP_CONTENT 都是负数
+        if (size > 0) return size;
+        return Math.max(0, horizontal ? view.getWidth() : view.getHeight());
+    }
+
+    /**
+     * 向上取整到 2 的幂
+     */
+    static int bucket(int size) {
+        if (size <= 0) return 0;
+        if (size <= MIN_BUCKET) return MIN_BUCKET;
+        return Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * @return 内存缓存的键
+     */
+    public String getCacheKey() {
+        return mCacheKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof ImageSpec && mCacheKey.equals(((ImageSpec) o).mCacheKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return mCacheKey.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mCacheKey;
+    }
+}
@@ -1,18 +1,47 @@
 package com.wyu.iwork.net;
 
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.res.Configuration;
 import android.graphics.Bitmap;
-import android.util.DisplayMetrics;
-import android.util.LruCache;
+import android.support.v4.util.LruCache;
 
 import com.android.volley.toolbox.ImageLoader;
+import com.jhj.expandablerecyclerview.utils.Logger;
 
 /**
- * Created by jhj_Plus on 2016/10/25.
+ * 图片内存缓存，容量按进程可用的堆大小计算，收到系统内存紧张的回调时按比例缩减
+ * <p>
+ *     容量取 {@link ActivityManager#getMemoryClass()} 的八分之一，应用声明了 largeHeap 时取
+ *     {@link ActivityManager#getLargeMemoryClass()} 的八分之一。通过
+ *     {@link Context#registerComponentCallbacks} 注册后，{@link #onTrimMemory(int)} 和
+ *     {@link #onLowMemory()} 把缓存和复用池裁剪到容量的一定比例，之后的加载可以重新填满
+ * </p>
  */
-public class LruBitmapCache extends LruCache<String,Bitmap> implements ImageLoader.ImageCache {
+public class LruBitmapCache extends LruCache<String,Bitmap>
+        implements ImageLoader.ImageCache, ComponentCallbacks2
+{
     private static final String TAG = "LruBitmapCache";
 
+    /**
+     * 缓存占用进程堆大小的比例
+     */
+    private static final int HEAP_FRACTION = 8;
+
+    /**
+     * 被淘汰的图片交给该池复用，为 null 时直接交给 GC
+     */
+    private BitmapPool mBitmapPool;
+
+    /**
+     * 只统计 {@link #getBitmap(String)} 的访问，{@link #putBitmap(String, Bitmap)} 里的查找不计入
+     */
+    private int mHitCount;
+    private int mMissCount;
+    private int mTrimCount;
+
     public LruBitmapCache(Context context) {
         this(getCacheSize(context));
     }
@@ -21,9 +50,25 @@ public class LruBitmapCache extends LruCache<String,Bitmap> implements ImageLoad
         super(maxSize);
     }
 
+    public void setBitmapPool(BitmapPool bitmapPool) {
+        mBitmapPool = bitmapPool;
+    }
+
+    public BitmapPool getBitmapPool() {
+        return mBitmapPool;
+    }
+
     @Override
     public Bitmap getBitmap(String url) {
-        return get(url);
+        Bitmap bitmap = get(url);
+        synchronized (this) {
+            if (bitmap != null) {
+                mHitCount++;
+            } else {
+                mMissCount++;
+            }
+        }
+        return bitmap;
     }
 
     @Override
@@ -33,18 +78,96 @@ public class LruBitmapCache extends LruCache<String,Bitmap> implements ImageLoad
         }
     }
 
+    @Override
+    protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+        if (mBitmapPool != null && oldValue != newValue) mBitmapPool.onEvicted(oldValue);
+    }
+
     @Override
     protected int sizeOf(String key, Bitmap value) {
-        return value.getRowBytes() * value.getHeight();
+        return BitmapPool.getByteCount(value);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        trimToFraction(getTrimFraction(level));
+    }
+
+    @Override
+    public void onLowMemory() {
+        trimToFraction(0);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    /**
+     * @return 对应内存等级应该保留的容量比例
+     */
+    static float getTrimFraction(int level) {
+        if (level >= TRIM_MEMORY_COMPLETE) return 0;
+        //进程在后台 LRU 列表里，越靠后越容易被杀死
+        if (level >= TRIM_MEMORY_MODERATE) return 0.25f;
+        if (level >= TRIM_MEMORY_BACKGROUND) return 0.5f;
+        //界面不可见，当前显示的图片都不再需要
+        if (level >= TRIM_MEMORY_UI_HIDDEN) return 0.5f;
+        //前台运行但是系统内存紧张
+        if (level >= TRIM_MEMORY_RUNNING_CRITICAL) return 0.25f;
+        if (level >= TRIM_MEMORY_RUNNING_LOW) return 0.5f;
+        if (level >= TRIM_MEMORY_RUNNING_MODERATE) return 0.75f;
+        return 1;
+    }
+
+    /**
+     * 把缓存和复用池裁剪到各自容量的一定比例
+     * @param fraction 保留的比例，为 0 时清空
+     */
+    public void trimToFraction(float fraction) {
+        if (fraction >= 1) return;
+        synchronized (this) {
+            mTrimCount++;
+        }
+        if (fraction <= 0) {
+            evictAll();
+        } else {
+            trimToSize((int) (maxSize() * fraction));
+        }
+        if (mBitmapPool != null) {
+            if (fraction <= 0) {
+                mBitmapPool.clear();
+            } else {
+                mBitmapPool.trimToSize((long) (mBitmapPool.getMaxBytes() * fraction));
+            }
+        }
+        if (Logger.isEnabled()) Logger.d(TAG, "trimToFraction {}: {}", fraction, getStats());
+    }
+
+    /**
+     * @return {@link #getBitmap(String)} 的命中率，没有访问时返回 0
+     */
+    public synchronized float getHitRate() {
+        final int accesses = mHitCount + mMissCount;
+        return accesses != 0 ? (float) mHitCount / accesses : 0;
+    }
+
+    /**
+     * @return 当前字节数、容量、淘汰次数和命中率等统计
+     */
+    public synchronized String getStats() {
+        return "LruBitmapCache[size=" + size() + ",maxSize=" + maxSize() + ",evictions="
+                + evictionCount() + ",trims=" + mTrimCount + ",hits=" + mHitCount + ",misses="
+                + mMissCount + ",hitRate=" + (int) (getHitRate() * 100) + "%] " + mBitmapPool;
     }
 
+    /**
+     * @return 进程堆大小的八分之一，应用声明了 largeHeap 时按大堆计算
+     */
     public static int getCacheSize(Context context) {
-        DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
-        final int screenWidth = displayMetrics.widthPixels;
-        final int screenHeight = displayMetrics.heightPixels;
-        //手机屏幕占用的字节数
-        final int screenBytes = screenWidth * screenHeight * 4;
-        //返回3个屏幕字节数大小缓存
-        return screenBytes * 3;
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        final boolean largeHeap =
+                (context.getApplicationInfo().flags & ApplicationInfo.FLAG_LARGE_HEAP) != 0;
+        final int memoryClass = largeHeap ? am.getLargeMemoryClass() : am.getMemoryClass();
+        return memoryClass * 1024 * 1024 / HEAP_FRACTION;
     }
 }
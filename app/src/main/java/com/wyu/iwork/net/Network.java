@@ -1,16 +1,28 @@
 package com.wyu.iwork.net;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.widget.ImageView;
 
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
-import com.android.volley.toolbox.ImageLoader;
 import com.android.volley.toolbox.Volley;
+import com.jhj.expandablerecyclerview.utils.Logger;
+
+import java.io.File;
+import java.io.IOException;
 
 /**
  * Created by jhj_Plus on 2016/10/25.
  */
 public class Network {
+    private static final String TAG = "Network";
+    /**
+     * 图片磁盘缓存的目录名和容量
+     */
+    private static final String BITMAP_CACHE_DIR = "bitmaps";
+    private static final long BITMAP_CACHE_BYTES = 20 * 1024 * 1024;
+
     private static Network sNetwork;
     private Context mContext;
     /**
@@ -18,9 +30,13 @@ public class Network {
      */
     private RequestQueue mRequestQueue;
     /**
-     * 图片加载类
+     * 图片内存缓存
      */
-    private ImageLoader mImageLoader;
+    private LruBitmapCache mBitmapCache;
+    /**
+     * 图片加载类，依次查找内存缓存、磁盘缓存和网络
+     */
+    private BitmapLoader mImageLoader;
 
     private Network(Context context) {
         mContext = context.getApplicationContext();
@@ -40,14 +56,139 @@ public class Network {
         return mRequestQueue;
     }
 
+    /**
+     * @return 已经创建的实例，还没有创建时返回 null，用于不需要为此创建网络组件的取消操作
+     */
+    public static synchronized Network peekInstance() {
+        return sNetwork;
+    }
+
+    /**
+     * 加入请求队列，可以缓存的 GET 请求和正在进行的相同缓存键的请求由 Volley 合并，
+     * 等前一个请求写入缓存后直接从缓存返回
+     */
     public <T> void addRequest(Request<T> request) {
         getRequestQueue().add(request);
     }
 
-    public ImageLoader getImageLoader() {
+    /**
+     * 加入请求队列并设置标记，通过 {@link #cancelAll(Object)} 按标记取消
+     * @param tag 请求的标记，通常是发出请求的 Fragment 或 ViewHolder
+     */
+    public <T> void addRequest(Request<T> request, Object tag) {
+        request.setTag(tag);
+        addRequest(request);
+    }
+
+    /**
+     * 取消指定标记的所有网络请求和图片加载
+     */
+    public void cancelAll(Object tag) {
+        if (tag == null) return;
+        if (mRequestQueue != null) mRequestQueue.cancelAll(tag);
+        if (mImageLoader != null) mImageLoader.cancelAll(tag);
+    }
+
+    /**
+     * 调整指定标记的图片加载的优先级
+     * @see BitmapLoader#setVisible(Object, boolean)
+     */
+    public void setVisible(Object tag, boolean visible) {
+        if (mImageLoader != null) mImageLoader.setVisible(tag, visible);
+    }
+
+    /**
+     * 列表项进入或离开屏幕，调整以其 ViewHolder 为标记的图片加载的优先级，
+     * 网络组件还没有创建时什么也不做。由适配器的 {@code onViewAttachedToWindow} 和
+     * {@code onViewDetachedFromWindow} 调用
+     * @param holder 列表项的 ViewHolder
+     * @param visible 是否在屏幕上
+     */
+    public static void notifyItemVisible(Object holder, boolean visible) {
+        Network network = peekInstance();
+        if (network != null) network.setVisible(holder, visible);
+    }
+
+    /**
+     * 列表项被回收，取消以其 ViewHolder 为标记的请求，网络组件还没有创建时什么也不做。
+     * 由适配器的 {@code onViewRecycled} 调用
+     * @param holder 列表项的 ViewHolder
+     */
+    public static void notifyItemRecycled(Object holder) {
+        Network network = peekInstance();
+        if (network != null) network.cancelAll(holder);
+    }
+
+    public LruBitmapCache getBitmapCache() {
+        if (mBitmapCache == null) {
+            mBitmapCache = new LruBitmapCache(mContext);
+            //复用池最多保留内存缓存三分之一的字节数
+            mBitmapCache.setBitmapPool(new BitmapPool(mBitmapCache.maxSize() / 3));
+            //内存紧张时裁剪缓存和复用池
+            mContext.registerComponentCallbacks(mBitmapCache);
+        }
+        return mBitmapCache;
+    }
+
+    /**
+     * 依次查找内存缓存、磁盘缓存和网络的图片加载类，磁盘缓存打开失败时只使用内存缓存
+     */
+    public BitmapLoader getImageLoader() {
         if (mImageLoader == null) {
-            mImageLoader = new ImageLoader(getRequestQueue(), new LruBitmapCache(mContext));
+            DiskByteCache diskCache = null;
+            try {
+                diskCache = DiskByteCache.open(new File(mContext.getCacheDir(), BITMAP_CACHE_DIR),
+                        BITMAP_CACHE_BYTES);
+            } catch (IOException e) {
+                if (Logger.isEnabled()) Logger.w(TAG, "open bitmap disk cache failed", e);
+            }
+            LruBitmapCache cache = getBitmapCache();
+            mImageLoader = new BitmapLoader(getRequestQueue(), cache, cache.getBitmapPool(),
+                    diskCache);
         }
         return mImageLoader;
     }
+
+    /**
+     * 创建使用 {@link #getImageLoader()} 的列表图片预加载器，需要调用
+     * {@link ImagePrefetcher#attach(android.support.v7.widget.RecyclerView)} 绑定到列表
+     */
+    public ImagePrefetcher newImagePrefetcher(ImagePrefetcher.Source source) {
+        return new ImagePrefetcher(getImageLoader(), source);
+    }
+
+    /**
+     * 按目标尺寸和解码格式加载图片并设置到 ImageView 上，解码时缩小采样到不小于目标尺寸
+     * @param width 目标宽度的像素数，为 0 时使用 View 的尺寸
+     * @param height 目标高度的像素数，为 0 时使用 View 的尺寸
+     * @param config 解码格式，不透明的头像使用 {@link Bitmap.Config#RGB_565}
+     * @param placeholder 加载完成前和加载失败时显示的图片资源
+     * @param tag 加载的标记，列表里传入 View 所在的 ViewHolder，适配器通过
+     *            {@link #setVisible(Object, boolean)} 和 {@link #cancelAll(Object)} 调整和取消
+     */
+    public void loadImage(String url, ImageView view, int width, int height,
+            Bitmap.Config config, int placeholder, Object tag)
+    {
+        ImageSpec spec = width > 0 && height > 0 ? new ImageSpec(url, width, height, config) :
+                ImageSpec.forView(url, view, config);
+        getImageLoader().load(spec, view, placeholder, tag);
+    }
+
+    /**
+     * 按 View 的尺寸以 {@link Bitmap.Config#RGB_565} 加载不透明的头像
+     * @see #loadImage(String, ImageView, int, int, Bitmap.Config, int, Object)
+     * @see #avatarSpec(String, int)
+     */
+    public void loadAvatar(String url, ImageView view, int placeholder, Object tag) {
+        loadImage(url, view, 0, 0, Bitmap.Config.RGB_565, placeholder, tag);
+    }
+
+    /**
+     * 和 {@link #loadAvatar(String, ImageView, int, Object)} 相同的头像加载描述，
+     * 用于预加载，尺寸相同时命中同一个内存缓存键
+     * @param size 头像 View 的边长，单位像素
+     */
+    public static ImageSpec avatarSpec(String url, int size) {
+        return new ImageSpec(url, size, size, Bitmap.Config.RGB_565);
+    }
 }
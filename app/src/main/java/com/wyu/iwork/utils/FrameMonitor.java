@@ -0,0 +1,384 @@
+package com.wyu.iwork.utils;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.graphics.Color;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import com.jhj.expandablerecyclerview.utils.Logger;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 基于 {@link Choreographer} 帧回调的掉帧监控，只用于 debug 构建
+ * <p>
+ *     记录相邻两帧的间隔，按屏幕刷新周期(60Hz 设备上约 16.7ms 的帧预算)四舍五入得到错过的 vsync 数，
+ *     错过至少一个 vsync 即认为卡顿，同时累计丢帧数；并把每一帧归属到当前可见的最深层 {@link Screen}(例如 {@code CommuFragment} 里的
+ *     {@code CommuOrgnzFragment})，按页面统计帧耗时分布
+ * </p>
+ * <p>
+ *     {@link #attach(Activity)} 之后在界面右上角显示当前页面的帧率和掉帧比例，
+ *     点击悬浮窗清空统计，长按导出统计结果到 {@code getExternalFilesDir()/frame_stats.txt}
+ * </p>
+ */
+public class FrameMonitor {
+    private static final String TAG = "FrameMonitor";
+
+    private static final String EXPORT_FILE_NAME = "frame_stats.txt";
+
+    /**
+     * 帧耗时分布区间的上限，单位毫秒，最后一个区间为超过 250ms 的帧
+     */
+    private static final int[] BUCKET_BOUNDS_MS = {16, 24, 33, 50, 100, 250};
+
+    /**
+     * 悬浮窗刷新间隔
+     */
+    private static final long OVERLAY_UPDATE_INTERVAL_NANOS = 500 * 1000000L;
+
+    /**
+     * 超过该间隔的帧认为是界面从后台回来或者监控刚开始，不计入统计
+     */
+    private static final long MAX_FRAME_NANOS = 2000 * 1000000L;
+
+    private static FrameMonitor sInstance;
+
+    /**
+     * 可以被统计的页面，通常是 Fragment
+     */
+    public interface Screen {
+        /**
+         * @return 用于统计的页面名称
+         */
+        String getScreenName();
+
+        /**
+         * @return 该页面当前是否对用户可见，包括所有上层页面都可见
+         */
+        boolean isScreenVisible();
+
+        /**
+         * @return 页面嵌套深度，可见页面中最深的一个为当前页面
+         */
+        int getScreenDepth();
+    }
+
+    /**
+     * 单个页面的帧统计
+     */
+    public static class ScreenStats {
+        public final String name;
+        public int frameCount;
+        /**
+         * 至少错过一个 vsync 的帧数，帧间隔在一个周期附近的抖动不算卡顿
+         */
+        public int jankFrameCount;
+        /**
+         * 所有卡顿帧错过的 vsync 总数，一次长时间的卡顿会错过多个 vsync
+         */
+        public int droppedFrameCount;
+        public long totalNanos;
+        public long maxNanos;
+        public final int[] histogram = new int[BUCKET_BOUNDS_MS.length + 1];
+
+        ScreenStats(String name) {
+            this.name = name;
+        }
+
+        void record(long frameNanos, long intervalNanos) {
+            frameCount++;
+            totalNanos += frameNanos;
+            if (frameNanos > maxNanos) maxNanos = frameNanos;
+            //帧时间是 vsync 时间戳，间隔是整数个周期加上抖动，四舍五入后按时完成的帧错过 0 个
+            final int missedVsyncs =
+                    (int) ((frameNanos + intervalNanos / 2) / intervalNanos) - 1;
+            if (missedVsyncs >= 1) {
+                jankFrameCount++;
+                droppedFrameCount += missedVsyncs;
+            }
+            final long frameMs = frameNanos / 1000000L;
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && frameMs >= BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            histogram[bucket]++;
+        }
+
+        public float getFps() {
+            return totalNanos == 0 ? 0 : frameCount * 1e9f / totalNanos;
+        }
+
+        public float getJankPercent() {
+            return frameCount == 0 ? 0 : jankFrameCount * 100f / frameCount;
+        }
+    }
+
+    private final List<Screen> mScreens = new ArrayList<>();
+    private final Map<String, ScreenStats> mStats = new LinkedHashMap<>();
+    /**
+     * 当前帧归属的页面统计，页面可见性变化后置为 null，下一帧时重新查找
+     */
+    private ScreenStats mCurrentStats;
+    private Activity mActivity;
+    private TextView mOverlay;
+    private boolean mRunning;
+    private long mFrameIntervalNanos = 16666667L;
+    private long mLastFrameNanos;
+    private long mLastOverlayUpdateNanos;
+    /**
+     * {@link Choreographer.FrameCallback}，声明为 Object 避免 API 16 以下加载该类时校验失败
+     */
+    private Object mFrameCallback;
+
+    public static FrameMonitor get() {
+        if (sInstance == null) {
+            sInstance = new FrameMonitor();
+        }
+        return sInstance;
+    }
+
+    FrameMonitor() {
+    }
+
+    /**
+     * 开始监控指定 Activity 的帧并显示悬浮窗，API 16 以下无效
+     * @param activity 要监控的 Activity
+     */
+    public void attach(Activity activity) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN || mRunning) return;
+        mActivity = activity;
+        final float refreshRate = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        if (refreshRate > 0) mFrameIntervalNanos = (long) (1e9 / refreshRate);
+        addOverlay(activity);
+        mRunning = true;
+        mLastFrameNanos = 0;
+        postFrameCallback();
+    }
+
+    /**
+     * 停止监控并移除悬浮窗，统计结果保留
+     * @param activity 之前 {@link #attach(Activity)} 的 Activity
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    public void detach(Activity activity) {
+        if (!mRunning || mActivity != activity) return;
+        mRunning = false;
+        Choreographer.getInstance().removeFrameCallback(
+                (Choreographer.FrameCallback) mFrameCallback);
+        if (mOverlay != null && mOverlay.getParent() != null) {
+            ((ViewGroup) mOverlay.getParent()).removeView(mOverlay);
+        }
+        mOverlay = null;
+        mActivity = null;
+        mCurrentStats = null;
+    }
+
+    public void addScreen(Screen screen) {
+        if (!mScreens.contains(screen)) mScreens.add(screen);
+        mCurrentStats = null;
+    }
+
+    public void removeScreen(Screen screen) {
+        mScreens.remove(screen);
+        mCurrentStats = null;
+    }
+
+    /**
+     * 页面可见性变化后调用，下一帧时重新查找当前页面
+     */
+    public void invalidateScreen() {
+        mCurrentStats = null;
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public void reset() {
+        mStats.clear();
+        mCurrentStats = null;
+        mLastFrameNanos = 0;
+    }
+
+    /**
+     * @return 按页面首次出现顺序排列的统计快照
+     */
+    public List<ScreenStats> getStats() {
+        return new ArrayList<>(mStats.values());
+    }
+
+    /**
+     * 输出所有页面的统计结果
+     * @param writer 输出目标
+     */
+    public void dump(PrintWriter writer) {
+        writer.println(String.format(Locale.US, "frame budget %.2fms, jank = missed >= 1 vsync",
+                mFrameIntervalNanos / 1e6));
+        StringBuilder header = new StringBuilder(
+                "screen,frames,fps,jank,jank%,dropped,avgMs,maxMs");
+        for (int i = 0; i <= BUCKET_BOUNDS_MS.length; i++) {
+            header.append(',').append(i < BUCKET_BOUNDS_MS.length ?
+                    "<" + BUCKET_BOUNDS_MS[i] + "ms" : ">=" + BUCKET_BOUNDS_MS[i - 1] + "ms");
+        }
+        writer.println(header);
+        for (ScreenStats stats : mStats.values()) {
+            StringBuilder line = new StringBuilder(String.format(Locale.US,
+                    "%s,%d,%.1f,%d,%.1f,%d,%.2f,%.2f", stats.name, stats.frameCount,
+                    stats.getFps(), stats.jankFrameCount, stats.getJankPercent(),
+                    stats.droppedFrameCount,
+                    stats.frameCount == 0 ? 0 : stats.totalNanos / 1e6 / stats.frameCount,
+                    stats.maxNanos / 1e6));
+            for (int count : stats.histogram) {
+                line.append(',').append(count);
+            }
+            writer.println(line);
+        }
+        writer.flush();
+    }
+
+    /**
+     * @return CSV 格式的统计摘要
+     */
+    public String getSummary() {
+        StringWriter writer = new StringWriter();
+        dump(new PrintWriter(writer));
+        return writer.toString();
+    }
+
+    /**
+     * 导出统计摘要到指定文件
+     * @param file 目标文件，已存在时覆盖
+     * @throws IOException 写入失败
+     */
+    public void export(File file) throws IOException {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try {
+            dump(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void postFrameCallback() {
+        if (mFrameCallback == null) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    onFrame(frameTimeNanos);
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallback(
+                (Choreographer.FrameCallback) mFrameCallback);
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        if (!mRunning) return;
+        recordFrame(frameTimeNanos);
+        if (frameTimeNanos - mLastOverlayUpdateNanos >= OVERLAY_UPDATE_INTERVAL_NANOS) {
+            mLastOverlayUpdateNanos = frameTimeNanos;
+            updateOverlay();
+        }
+        postFrameCallback();
+    }
+
+    /**
+     * 把和上一帧的间隔记到当前页面上，第一帧和间隔过长的帧只作为下一帧的起点
+     * @param frameTimeNanos 该帧的 vsync 时间戳
+     */
+    void recordFrame(long frameTimeNanos) {
+        final long frameNanos = frameTimeNanos - mLastFrameNanos;
+        if (mLastFrameNanos != 0 && frameNanos > 0 && frameNanos < MAX_FRAME_NANOS) {
+            getCurrentStats().record(frameNanos, mFrameIntervalNanos);
+        }
+        mLastFrameNanos = frameTimeNanos;
+    }
+
+    /**
+     * 查找当前可见的最深层页面的统计
+     */
+    private ScreenStats getCurrentStats() {
+        if (mCurrentStats != null) return mCurrentStats;
+        Screen current = null;
+        for (Screen screen : mScreens) {
+            if (!screen.isScreenVisible()) continue;
+            if (current == null || screen.getScreenDepth() > current.getScreenDepth()) {
+                current = screen;
+            }
+        }
+        final String name = current != null ? current.getScreenName() :
+                mActivity.getClass().getSimpleName();
+        ScreenStats stats = mStats.get(name);
+        if (stats == null) {
+            stats = new ScreenStats(name);
+            mStats.put(name, stats);
+        }
+        mCurrentStats = stats;
+        return stats;
+    }
+
+    private void addOverlay(final Activity activity) {
+        mOverlay = new TextView(activity);
+        mOverlay.setTextSize(10);
+        mOverlay.setTextColor(Color.WHITE);
+        mOverlay.setBackgroundColor(0x99000000);
+        final int padding = (int) Util.dp2px(activity, 4);
+        mOverlay.setPadding(padding, padding, padding, padding);
+        mOverlay.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                reset();
+                updateOverlay();
+            }
+        });
+        mOverlay.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View v) {
+                exportToFile(activity);
+                return true;
+            }
+        });
+        FrameLayout.LayoutParams lp = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT,
+                Gravity.TOP | Gravity.END);
+        lp.topMargin = (int) Util.dp2px(activity, 80);
+        ((ViewGroup) activity.getWindow().getDecorView()).addView(mOverlay, lp);
+    }
+
+    private void updateOverlay() {
+        if (mOverlay == null || mActivity == null) return;
+        ScreenStats stats = getCurrentStats();
+        mOverlay.setText(String.format(Locale.US, "%s\n%.1f fps  jank %d/%d (%.1f%%)",
+                stats.name, stats.getFps(), stats.jankFrameCount, stats.frameCount,
+                stats.getJankPercent()));
+    }
+
+    private void exportToFile(Activity activity) {
+        File dir = activity.getExternalFilesDir(null);
+        if (dir == null) dir = activity.getFilesDir();
+        File file = new File(dir, EXPORT_FILE_NAME);
+        try {
+            export(file);
+            if (Logger.isEnabled()) Logger.i(TAG, getSummary());
+            Toast.makeText(activity, file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Logger.e(TAG, "export failed", e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.wyu.iwork.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 把任务投递到主线程的消息队列执行，在主线程调用时也会延后到下一个消息
+ */
+public class MainThreadExecutor implements Executor {
+    private static final String TAG = "MainThreadExecutor";
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void execute(Runnable command) {
+        mHandler.post(command);
+    }
+}
@@ -7,10 +7,14 @@ import android.util.SparseArray;
 import android.view.View;
 import android.widget.TextView;
 
+import com.jhj.expandablerecyclerview.utils.Logger;
+import com.jhj.expandablerecyclerview.utils.Tracer;
+import com.wyu.iwork.BuildConfig;
 import com.wyu.iwork.R;
+import com.wyu.iwork.adapter.OrgnzAdapter;
 import com.wyu.iwork.view.fragment.MainFragment;
 import com.wyu.iwork.interfaces.TabCallback;
-import com.wyu.iwork.utils.Logger;
+import com.wyu.iwork.utils.FrameMonitor;
 
 public class MainActivity extends BaseActivity implements TabCallback {
     private static final String TAG = "MainActivity";
@@ -20,10 +24,26 @@ public class MainActivity extends BaseActivity implements TabCallback {
      */
     private SparseArray<View> mCustomViews = new SparseArray<>(3);
 
+    /**
+     * 应用页搜索框输入的成员名字和正在显示的组织架构适配器，两者在不同的页面里，由这里转交
+     */
+    private CharSequence mMemberQuery = "";
+    private OrgnzAdapter mOrgnzAdapter;
+
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
+        //debug 构建下打开日志和适配器的 systrace 区间，需要在创建适配器之前设置
+        Logger.setEnabled(BuildConfig.DEBUG);
+        Tracer.setEnabled(BuildConfig.DEBUG);
         super.onCreate(savedInstanceState);
         onTabSelected(0);
+        if (BuildConfig.DEBUG) FrameMonitor.get().attach(this);
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (BuildConfig.DEBUG) FrameMonitor.get().detach(this);
+        super.onDestroy();
     }
 
     @Override
@@ -60,9 +80,9 @@ public class MainActivity extends BaseActivity implements TabCallback {
         if (customView == null) {
             customView = setCustomViewForToolbar(viewId);
             mCustomViews.put(viewId, customView);
-            Logger.e(TAG,"onTabSelected///init"+customView);
+            Logger.e(TAG, "onTabSelected///init{}", customView);
         } else {
-            Logger.e(TAG,"onTabSelected///reuse"+customView);
+            Logger.e(TAG, "onTabSelected///reuse{}", customView);
             setCustomViewForToolbar(customView);
         }
 
@@ -76,4 +96,22 @@ public class MainActivity extends BaseActivity implements TabCallback {
         return mCustomViews.get(layoutResId);
     }
 
+    /**
+     * 按成员名字过滤组织架构，组织架构页还没有创建时在创建后应用
+     * @param name 成员名字，为空时显示所有成员
+     */
+    public void filterMembers(CharSequence name) {
+        mMemberQuery = name == null ? "" : name;
+        if (mOrgnzAdapter != null) mOrgnzAdapter.filterByName(mMemberQuery);
+    }
+
+    /**
+     * 组织架构页创建和销毁列表时调用，创建时立即应用当前的搜索条件
+     * @param adapter 组织架构适配器，列表销毁时为 null
+     */
+    public void setOrgnzAdapter(OrgnzAdapter adapter) {
+        mOrgnzAdapter = adapter;
+        if (adapter != null && mMemberQuery.length() > 0) adapter.filterByName(mMemberQuery);
+    }
+
 }
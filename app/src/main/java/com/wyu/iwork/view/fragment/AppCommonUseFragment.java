@@ -2,7 +2,6 @@ package com.wyu.iwork.view.fragment;
 
 import android.os.Bundle;
 import android.support.annotation.Nullable;
-import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -16,9 +15,7 @@ import com.wyu.iwork.adapter.AppCommonUseAdapter;
  */
 public class AppCommonUseFragment extends BaseFragment {
     private static final String TAG = "MyFragment";
-    private RecyclerView mCrmGrid;
-    private RecyclerView mPurchaseGrid;
-    private RecyclerView mStockGrid;
+    private RecyclerView mRecyclerView;
 
     @Nullable
     @Override
@@ -31,26 +28,13 @@ public class AppCommonUseFragment extends BaseFragment {
 
     @Override
     public void initView(View rootView) {
-        mCrmGrid= (RecyclerView) rootView.findViewById(R.id.crmGrid);
-        mPurchaseGrid= (RecyclerView) rootView.findViewById(R.id.purchaseGrid);
-        mStockGrid= (RecyclerView) rootView.findViewById(R.id.stockGrid);
-
+        mRecyclerView= (RecyclerView) rootView.findViewById(R.id.recyclerView);
+        //三个分组在同一个列表里显示，共用布局和 ViewHolder 缓存池
         AppCommonUseAdapter adapter = new AppCommonUseAdapter(getActivity());
-
-        mCrmGrid.setLayoutManager(new GridLayoutManager(getContext(), 4));
-        mCrmGrid.setAdapter(adapter);
-        mCrmGrid.setHasFixedSize(true);
-        mCrmGrid.addItemDecoration(adapter.getItemDecoration());
-
-        mPurchaseGrid.setLayoutManager(new GridLayoutManager(getContext(), 4));
-        mPurchaseGrid.setAdapter(adapter);
-        mPurchaseGrid.setHasFixedSize(true);
-        mPurchaseGrid.addItemDecoration(adapter.getItemDecoration());
-
-        mStockGrid.setLayoutManager(new GridLayoutManager(getContext(), 4));
-        mStockGrid.setAdapter(adapter);
-        mStockGrid.setHasFixedSize(true);
-        mStockGrid.addItemDecoration(adapter.getItemDecoration());
+        mRecyclerView.setLayoutManager(adapter.createLayoutManager());
+        mRecyclerView.setAdapter(adapter);
+        mRecyclerView.setHasFixedSize(true);
+        mRecyclerView.addItemDecoration(adapter.getItemDecoration());
     }
 
 }
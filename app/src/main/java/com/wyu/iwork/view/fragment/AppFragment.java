@@ -46,6 +46,8 @@ public class AppFragment extends BaseFragment implements CompoundButton.OnChecke
 
     @Override
     public void initView(View rootView) {
+        mSearchView = (SearchView) rootView.findViewById(R.id.searchView);
+        mSearchView.setOnQueryTextListener(mQueryListener);
         mViewPager = (ViewPager) rootView.findViewById(R.id.viewPager);
         mViewPager.setAdapter(new ViewPagerAdapter(getChildFragmentManager()));
         mViewPager.addOnPageChangeListener(mPageListener);
@@ -92,6 +94,24 @@ public class AppFragment extends BaseFragment implements CompoundButton.OnChecke
                 }
             };
 
+    /**
+     * 输入时按成员名字过滤组织架构，过滤在后台进行，连续输入时只应用最后一次的结果
+     */
+    private SearchView.OnQueryTextListener mQueryListener = new SearchView.OnQueryTextListener() {
+        @Override
+        public boolean onQueryTextSubmit(String query) {
+            ((MainActivity) getActivity()).filterMembers(query);
+            mSearchView.clearFocus();
+            return true;
+        }
+
+        @Override
+        public boolean onQueryTextChange(String newText) {
+            ((MainActivity) getActivity()).filterMembers(newText);
+            return true;
+        }
+    };
+
     @Override
     public void onCreateOptionsMenu(Menu menu, MenuInflater inflater) {
         super.onCreateOptionsMenu(menu, inflater);
@@ -7,13 +7,16 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.wyu.iwork.BuildConfig;
 import com.wyu.iwork.interfaces.IView;
+import com.wyu.iwork.net.Network;
 import com.wyu.iwork.presenter.ComponentPresenter;
+import com.wyu.iwork.utils.FrameMonitor;
 
 /**
  * Created by jhj_Plus on 2016/10/24.
  */
-public abstract class BaseFragment extends Fragment implements IView {
+public abstract class BaseFragment extends Fragment implements IView, FrameMonitor.Screen {
     private static final String TAG = "BaseFragment";
 
     /**
@@ -51,9 +54,70 @@ public abstract class BaseFragment extends Fragment implements IView {
         }
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        if (BuildConfig.DEBUG) FrameMonitor.get().addScreen(this);
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        if (BuildConfig.DEBUG) FrameMonitor.get().removeScreen(this);
+    }
+
+    @Override
+    public void setUserVisibleHint(boolean isVisibleToUser) {
+        super.setUserVisibleHint(isVisibleToUser);
+        if (BuildConfig.DEBUG) FrameMonitor.get().invalidateScreen();
+    }
+
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (BuildConfig.DEBUG) FrameMonitor.get().invalidateScreen();
+    }
+
+    @Override
+    public String getScreenName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * ViewPager 中的 Fragment 通过 {@link #getUserVisibleHint()} 标识是否为当前页，
+     * 嵌套的 Fragment 还需要所有上层 Fragment 都可见
+     */
+    @Override
+    public boolean isScreenVisible() {
+        if (!isResumed()) return false;
+        for (Fragment f = this; f != null; f = f.getParentFragment()) {
+            if (!f.getUserVisibleHint() || f.isHidden()) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int getScreenDepth() {
+        int depth = 0;
+        for (Fragment f = getParentFragment(); f != null; f = f.getParentFragment()) {
+            depth++;
+        }
+        return depth;
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
         if (presenter != null) presenter.detachView();
     }
+
+    /**
+     * 取消以该 Fragment 为标记的请求，离开界面后不再需要它们的结果
+     */
+    @Override
+    public void onDetach() {
+        super.onDetach();
+        Network network = Network.peekInstance();
+        if (network != null) network.cancelAll(this);
+    }
 }
@@ -13,6 +13,9 @@ import com.jhj.expandablerecyclerview.adapter.ExpandableAdapter;
 import com.wyu.iwork.R;
 import com.wyu.iwork.adapter.OrgnzAdapter;
 import com.wyu.iwork.adapter.viewholder.CommuOrgnzParentViewHolder;
+import com.wyu.iwork.net.ImagePrefetcher;
+import com.wyu.iwork.net.Network;
+import com.wyu.iwork.view.activity.MainActivity;
 
 /**
  * Created by jhj_Plus on 2016/10/25.
@@ -20,6 +23,10 @@ import com.wyu.iwork.adapter.viewholder.CommuOrgnzParentViewHolder;
 public class CommuOrgnzFragment extends BaseFragment {
     private static final String TAG = "MyFragment";
     private RecyclerView mRecyclerView;
+    /**
+     * 按滚动方向预加载即将出现的成员头像
+     */
+    private ImagePrefetcher mImagePrefetcher;
     @Nullable
     @Override
     public View onCreateView(LayoutInflater inflater, @Nullable ViewGroup container,
@@ -73,6 +80,20 @@ public class CommuOrgnzFragment extends BaseFragment {
         });
         mRecyclerView.setAdapter(adapter);
         mRecyclerView.setHasFixedSize(true);
+        mImagePrefetcher = Network.getInstance(getContext()).newImagePrefetcher(adapter);
+        mImagePrefetcher.attach(mRecyclerView);
+        //应用页搜索框的成员名字由 MainActivity 转交过来
+        ((MainActivity) getActivity()).setOrgnzAdapter(adapter);
+    }
+
+    @Override
+    public void onDestroyView() {
+        ((MainActivity) getActivity()).setOrgnzAdapter(null);
+        if (mImagePrefetcher != null) {
+            mImagePrefetcher.detach();
+            mImagePrefetcher = null;
+        }
+        super.onDestroyView();
     }
 
 }
@@ -14,9 +14,9 @@ import android.widget.CompoundButton;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
 
+import com.jhj.expandablerecyclerview.utils.Logger;
 import com.wyu.iwork.R;
 import com.wyu.iwork.interfaces.TabCallback;
-import com.wyu.iwork.utils.Logger;
 
 /**
  * Created by jhj_Plus on 2016/10/24.
@@ -65,7 +65,7 @@ public class MainFragment extends Fragment implements CompoundButton.OnCheckedCh
         if (isChecked) {
             final int position=mTabGroup.indexOfChild(buttonView);
             if (mCallback != null) {
-                Logger.e(TAG, "onCheckedChanged=" + position);
+                if (Logger.isEnabled()) Logger.e(TAG, "onCheckedChanged={}", position);
                 mCallback.onTabSelected(position);
             }
             mViewPager.setCurrentItem(position, false);
@@ -81,7 +81,7 @@ public class MainFragment extends Fragment implements CompoundButton.OnCheckedCh
 
         @Override
         public Fragment getItem(int position) {
-            Logger.e(TAG,"getItem=>"+position);
+            if (Logger.isEnabled()) Logger.e(TAG, "getItem=>{}", position);
             switch (position) {
                 case 0:
                     return new AppFragment();
@@ -0,0 +1,239 @@
+package com.wyu.iwork.adapter;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import com.wyu.iwork.BuildConfig;
+import com.wyu.iwork.adapter.viewholder.BaseViewHolder;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ListTransaction} 合并同类操作的规则，以及 {@link BaseAdapter#removeItems(List)}
+ * 对不连续的删除项发出的通知范围
+ * <p>通知由注册在适配器上的观察者按发出顺序记录，不需要真正的 RecyclerView</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ListTransactionTest {
+    private RecordingAdapter mAdapter;
+    private ListTransaction mTransaction;
+
+    @Before
+    public void setUp() {
+        mAdapter = new RecordingAdapter(
+                new ArrayList<>(Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h", "i", "j")));
+        mTransaction = new ListTransaction();
+    }
+
+    @Test
+    public void insertsAtEndOfPreviousRangeMerge() {
+        mTransaction.onInserted(0, 1);
+        mTransaction.onInserted(1, 1);
+        mTransaction.onInserted(2, 2);
+        mTransaction.dispatch(mAdapter);
+        assertEquals(events("insert 0+4"), mAdapter.events);
+    }
+
+    @Test
+    public void insertInsidePreviousRangeMerges() {
+        mTransaction.onInserted(5, 3);
+        mTransaction.onInserted(5, 1);
+        mTransaction.onInserted(7, 2);
+        mTransaction.dispatch(mAdapter);
+        assertEquals(events("insert 5+6"), mAdapter.events);
+    }
+
+    @Test
+    public void insertsApartDoNotMerge() {
+        mTransaction.onInserted(0, 1);
+        mTransaction.onInserted(5, 1);
+        mTransaction.onInserted(4, 1);
+        mTransaction.dispatch(mAdapter);
+        assertEquals(events("insert 0+1", "insert 5+1", "insert 4+1"), mAdapter.events);
+    }
+
+    @Test
+    public void removesAtSamePositionMerge() {
+        //依次删除同一个位置，后面的项不断前移
+        mTransaction.onRemoved(3, 1);
+        mTransaction.onRemoved(3, 2);
+        mTransaction.dispatch(mAdapter);
+        assertEquals(events("remove 3+3"), mAdapter.events);
+    }
+
+    @Test
+    public void removeJustBeforePreviousRangeMerges() {
+        mTransaction.onRemoved(5, 1);
+        mTransaction.onRemoved(4, 1);
+        mTransaction.onRemoved(1, 3);
+        mTransaction.dispatch(mAdapter);
+        assertEquals(events("remove 1+5"), mAdapter.events);
+    }
+
+    @Test
+    public void removesApartDoNotMerge() {
+        mTransaction.onRemoved(3, 1);
+        mTransaction.onRemoved(4, 1);
+        mTransaction.onRemoved(0, 2);
+        mTransaction.dispatch(mAdapter);
+        assertEquals(events("remove 3+1", "remove 4+1", "remove 0+2"), mAdapter.events);
+    }
+
+    @Test
+    public void overlappingOrTouchingChangesMergeToUnion() {
+        mTransaction.onChanged(4, 2);
+        mTransaction.onChanged(6, 1);
+        mTransaction.onChanged(2, 2);
+        mTransaction.onChanged(3, 1);
+        mTransaction.dispatch(mAdapter);
+        assertEquals(events("change 2+5"), mAdapter.events);
+    }
+
+    @Test
+    public void changesApartDoNotMerge() {
+        mTransaction.onChanged(4, 1);
+        mTransaction.onChanged(1, 2);
+        mTransaction.onChanged(6, 1);
+        mTransaction.dispatch(mAdapter);
+        assertEquals(events("change 4+1", "change 1+2", "change 6+1"), mAdapter.events);
+    }
+
+    @Test
+    public void differentTypesKeepOrder() {
+        mTransaction.onInserted(0, 1);
+        mTransaction.onChanged(0, 1);
+        mTransaction.onRemoved(0, 1);
+        mTransaction.onInserted(0, 1);
+        mTransaction.dispatch(mAdapter);
+        assertEquals(events("insert 0+1", "change 0+1", "remove 0+1", "insert 0+1"),
+                mAdapter.events);
+    }
+
+    @Test
+    public void emptyCountsAreIgnored() {
+        mTransaction.onInserted(0, 0);
+        mTransaction.onRemoved(0, 0);
+        mTransaction.onChanged(0, 0);
+        assertTrue(mTransaction.isEmpty());
+        mTransaction.dispatch(mAdapter);
+        assertTrue(mAdapter.events.isEmpty());
+    }
+
+    @Test
+    public void dispatchAndClearResetRecords() {
+        mTransaction.onInserted(0, 1);
+        mTransaction.dispatch(mAdapter);
+        assertTrue(mTransaction.isEmpty());
+        //下一批的操作不会和已经发出的操作合并
+        mTransaction.onInserted(1, 1);
+        mTransaction.dispatch(mAdapter);
+        assertEquals(events("insert 0+1", "insert 1+1"), mAdapter.events);
+
+        mAdapter.events.clear();
+        mTransaction.onRemoved(0, 1);
+        mTransaction.clear();
+        assertTrue(mTransaction.isEmpty());
+        mTransaction.dispatch(mAdapter);
+        assertTrue(mAdapter.events.isEmpty());
+    }
+
+    @Test
+    public void removeItemsNotifiesRunsFromBackToFront() {
+        mAdapter.removeItems(Arrays.asList("b", "c", "f", "h", "i", "j"));
+        assertEquals(Arrays.asList("a", "d", "e", "g"), mAdapter.mItems);
+        //从后往前发出，每个通知的位置在发出时都有效
+        assertEquals(events("remove 7+3", "remove 5+1", "remove 1+2"), mAdapter.events);
+    }
+
+    @Test
+    public void removeItemsRemovesEveryEqualItem() {
+        mAdapter.addItem(3, "a");
+        mAdapter.events.clear();
+        mAdapter.removeItems(Arrays.asList("a", "d", "x"));
+        assertEquals(Arrays.asList("b", "c", "e", "f", "g", "h", "i", "j"), mAdapter.mItems);
+        //插入的 a 和后面的 d 在同一段里
+        assertEquals(events("remove 3+2", "remove 0+1"), mAdapter.events);
+    }
+
+    @Test
+    public void removeItemsWithoutMatchDoesNotNotify() {
+        mAdapter.removeItems(Arrays.asList("x", "y"));
+        mAdapter.removeItems(new ArrayList<String>());
+        assertEquals(10, mAdapter.getItemCount());
+        assertTrue(mAdapter.events.isEmpty());
+    }
+
+    @Test
+    public void removeItemsInsideOuterBatchDispatchesOnOuterCommit() {
+        mAdapter.beginBatch();
+        mAdapter.removeItems(Arrays.asList("a", "b", "d"));
+        assertTrue(mAdapter.events.isEmpty());
+        mAdapter.removeItem(0);
+        mAdapter.addItem("k", false);
+        mAdapter.commit();
+        //从后往前的 3+1 之后，0+2 和紧接着删除的 0+1 合并
+        assertEquals(events("remove 3+1", "remove 0+3", "insert 6+1"), mAdapter.events);
+        assertEquals(Arrays.asList("e", "f", "g", "h", "i", "j", "k"), mAdapter.mItems);
+    }
+
+    private static List<String> events(String... events) {
+        return Arrays.asList(events);
+    }
+
+    /**
+     * 不创建 ViewHolder 的适配器，按顺序记录收到的所有更新通知
+     */
+    private static class RecordingAdapter extends BaseAdapter<BaseViewHolder, String> {
+        final List<String> events = new ArrayList<>();
+
+        RecordingAdapter(List<String> items) {
+            super(null, items);
+            registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+                @Override
+                public void onChanged() {
+                    events.add("changed");
+                }
+
+                @Override
+                public void onItemRangeInserted(int positionStart, int itemCount) {
+                    events.add("insert " + positionStart + "+" + itemCount);
+                }
+
+                @Override
+                public void onItemRangeRemoved(int positionStart, int itemCount) {
+                    events.add("remove " + positionStart + "+" + itemCount);
+                }
+
+                @Override
+                public void onItemRangeChanged(int positionStart, int itemCount) {
+                    events.add("change " + positionStart + "+" + itemCount);
+                }
+
+                @Override
+                public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                    events.add("move " + fromPosition + ">" + toPosition + "+" + itemCount);
+                }
+            });
+        }
+
+        @Override
+        public BaseViewHolder getViewHolder(ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void bindData(BaseViewHolder holder, String data) {
+        }
+    }
+}
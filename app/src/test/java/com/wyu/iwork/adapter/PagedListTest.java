@@ -0,0 +1,197 @@
+package com.wyu.iwork.adapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * 分页列表的加载、按最近绑定的位置丢弃页，以及丢弃后过期结果的处理
+ * <p>主线程用手动执行的队列代替，数据源记录请求，由测试决定何时返回结果</p>
+ */
+public class PagedListTest {
+    private static final int PAGE_SIZE = 10;
+    private static final int PREFETCH = 5;
+    private static final int MAX_PAGES = 3;
+
+    private final LinkedList<Runnable> mMainQueue = new LinkedList<>();
+    private final Executor mMainExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            mMainQueue.add(command);
+        }
+    };
+    private final RecordingSource mSource = new RecordingSource();
+    private final List<String> mChanges = new ArrayList<>();
+
+    private PagedList<String> newList(int totalCount) {
+        PagedList<String> list = new PagedList<>(mSource, totalCount, PAGE_SIZE, PREFETCH,
+                MAX_PAGES, mMainExecutor);
+        list.setCallback(new PagedList.Callback() {
+            @Override
+            public void onChanged(int position, int count) {
+                mChanges.add(position + "+" + count);
+            }
+        });
+        return list;
+    }
+
+    @Test
+    public void loadsPagesNearBoundPosition() {
+        PagedList<String> list = newList(100);
+        list.loadAround(0);
+        assertEquals(1, mSource.pending.size());
+        assertEquals(0, mSource.pending.get(0).start);
+        //靠近页尾时预取下一页，同一页不会重复请求
+        list.loadAround(3);
+        list.loadAround(8);
+        assertEquals(2, mSource.pending.size());
+        assertEquals(10, mSource.pending.get(1).start);
+
+        mSource.completeAll();
+        //结果在主线程的下一个消息里处理，不会在绑定期间发出通知
+        assertTrue(list.isPlaceholder(0));
+        assertTrue(mChanges.isEmpty());
+        drain();
+        assertEquals("item 0", list.get(0));
+        assertEquals("item 19", list.get(19));
+        assertNull(list.get(20));
+        assertEquals(2, mChanges.size());
+        assertEquals("0+10", mChanges.get(0));
+        assertEquals("10+10", mChanges.get(1));
+    }
+
+    @Test
+    public void dropsOnlyPagesOutsideRecentlyBoundRange() {
+        PagedList<String> list = newList(200);
+        for (int position = 0; position < 200; position++) {
+            list.loadAround(position);
+            mSource.completeAll();
+            drain();
+        }
+        //最后一次请求新页(第 19 页)时最近绑定的 32 个位置是 154~185，加上预取距离覆盖 14~19 页，
+        //窗口内的页即使超过上限也保留，之前的页都被丢弃
+        for (int page = 0; page < 20; page++) {
+            assertEquals("page " + page, page < 14, list.isPlaceholder(page * PAGE_SIZE));
+        }
+        //第 0 页加载和被丢弃各通知一次
+        assertEquals(2, count(mChanges, "0+10"));
+    }
+
+    @Test
+    public void keepsRecentlyBoundPagesFarApart() {
+        PagedList<String> list = newList(200);
+        //在两个相距很远的位置之间来回绑定，两边的页都在最近绑定的范围内
+        for (int position : new int[]{0, 100, 150, 0, 150}) {
+            list.loadAround(position);
+            mSource.completeAll();
+            drain();
+        }
+        assertFalse(list.isPlaceholder(0));
+        assertFalse(list.isPlaceholder(100));
+        assertFalse(list.isPlaceholder(150));
+        //只有加载完成时的一次通知
+        assertEquals(1, count(mChanges, "0+10"));
+        assertEquals(1, count(mSource.requested, "0+10"));
+    }
+
+    @Test
+    public void droppedLoadingPageNotifiesAndIgnoresStaleResult() {
+        PagedList<String> list = newList(400);
+        list.loadAround(0);
+        Request stale = mSource.pending.remove(0);
+        //滚动到远处，第 0 页离开最近绑定的范围时还在加载
+        for (int position = 100; position <= 140; position++) {
+            list.loadAround(position);
+            mSource.completeAll();
+            drain();
+        }
+        assertEquals(1, count(mChanges, "0+10"));
+        assertTrue(list.isPlaceholder(0));
+
+        //过期的结果被忽略，不会再通知
+        stale.complete();
+        drain();
+        assertTrue(list.isPlaceholder(0));
+        assertEquals(1, count(mChanges, "0+10"));
+
+        //回到第 0 页时重新请求
+        list.loadAround(0);
+        assertEquals(2, count(mSource.requested, "0+10"));
+        mSource.completeAll();
+        drain();
+        assertEquals("item 0", list.get(0));
+    }
+
+    @Test
+    public void failedPageIsRequestedAgain() {
+        PagedList<String> list = newList(100);
+        list.loadAround(0);
+        mSource.pending.remove(0).callback.onError();
+        drain();
+        assertTrue(list.isPlaceholder(0));
+        assertTrue(mChanges.isEmpty());
+        list.loadAround(1);
+        assertEquals(2, count(mSource.requested, "0+10"));
+    }
+
+    private void drain() {
+        while (!mMainQueue.isEmpty()) {
+            mMainQueue.poll().run();
+        }
+    }
+
+    private static int count(List<String> values, String value) {
+        int count = 0;
+        for (String v : values) {
+            if (v.equals(value)) count++;
+        }
+        return count;
+    }
+
+    private static class Request {
+        final int start;
+        final int count;
+        final PagedList.LoadCallback<String> callback;
+
+        Request(int start, int count, PagedList.LoadCallback<String> callback) {
+            this.start = start;
+            this.count = count;
+            this.callback = callback;
+        }
+
+        void complete() {
+            List<String> items = new ArrayList<>(count);
+            for (int i = start; i < start + count; i++) {
+                items.add("item " + i);
+            }
+            callback.onResult(items);
+        }
+    }
+
+    /**
+     * 记录所有请求，结果由测试手动返回
+     */
+    private static class RecordingSource implements PagedList.DataSource<String> {
+        final List<Request> pending = new ArrayList<>();
+        final List<String> requested = new ArrayList<>();
+
+        @Override
+        public void loadRange(int start, int count, PagedList.LoadCallback<String> callback) {
+            requested.add(start + "+" + count);
+            pending.add(new Request(start, count, callback));
+        }
+
+        void completeAll() {
+            List<Request> requests = new ArrayList<>(pending);
+            pending.clear();
+            for (Request request : requests) {
+                request.complete();
+            }
+        }
+    }
+}
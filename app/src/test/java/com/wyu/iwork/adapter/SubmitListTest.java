@@ -0,0 +1,201 @@
+package com.wyu.iwork.adapter;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import com.wyu.iwork.BuildConfig;
+import com.wyu.iwork.adapter.viewholder.BaseViewHolder;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link BaseAdapter#submitList(List)} 的后台差异计算：只发出变化部分的通知、丢弃被新提交取代的结果，
+ * 以及计算期间列表被修改时退回到全部刷新
+ * <p>工作线程和主线程都用手动执行的队列代替，由测试决定差异计算和结果回调的执行时机</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SubmitListTest {
+    private final LinkedList<Runnable> mWorkQueue = new LinkedList<>();
+    private final LinkedList<Runnable> mMainQueue = new LinkedList<>();
+
+    private RecordingAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mAdapter = new RecordingAdapter(list("a", "b", "c", "d", "e"));
+    }
+
+    @Test
+    public void diffDispatchesOnlyChangedRanges() {
+        List<String> newList = list("a", "b", "d", "e", "f");
+        mAdapter.submitList(newList);
+        //结果回到主线程之前列表不变
+        runAll(mWorkQueue);
+        assertEquals(5, mAdapter.getItemCount());
+        assertTrue(mAdapter.events.isEmpty());
+
+        runAll(mMainQueue);
+        assertSame(newList, mAdapter.mItems);
+        assertEquals(events("insert 5+1", "remove 2+1"), sorted(mAdapter.events));
+    }
+
+    @Test
+    public void resubmitDropsStaleResult() {
+        mAdapter.submitList(list("a", "b", "c", "d", "e", "f"));
+        runAll(mWorkQueue);
+        //第一次的结果已经在主线程队列里，新的提交使它过期
+        List<String> newList = list("a", "b", "c", "d", "e", "g");
+        mAdapter.submitList(newList);
+        runAll(mWorkQueue);
+        runAll(mMainQueue);
+        assertSame(newList, mAdapter.mItems);
+        assertEquals(events("insert 5+1"), mAdapter.events);
+    }
+
+    @Test
+    public void replacedDiffDoesNotRun() {
+        mAdapter.submitList(list("a", "b", "c", "d", "e", "f"));
+        List<String> newList = list("a", "b", "c", "d", "e", "g");
+        mAdapter.submitList(newList);
+        runAll(mWorkQueue);
+        //只计算了最后一次提交，第一次提交的新数据没有参与比较
+        assertTrue(mAdapter.comparedItems.contains("g"));
+        assertFalse(mAdapter.comparedItems.contains("f"));
+        runAll(mMainQueue);
+        assertSame(newList, mAdapter.mItems);
+        assertEquals(events("insert 5+1"), mAdapter.events);
+    }
+
+    @Test
+    public void modificationDuringDiffFallsBackToFullRefresh() {
+        List<String> newList = list("a", "b", "c", "d", "e", "f");
+        mAdapter.submitList(newList);
+        //差异计算期间通过其它方法修改了列表
+        mAdapter.addItem("z", false);
+        runAll(mWorkQueue);
+        runAll(mMainQueue);
+        assertSame(newList, mAdapter.mItems);
+        assertEquals(events("insert 5+1", "changed"), mAdapter.events);
+
+        //之后的提交照常按差异通知
+        mAdapter.events.clear();
+        mAdapter.submitList(list("a", "b", "c", "d", "e", "f", "h"));
+        runAll(mWorkQueue);
+        runAll(mMainQueue);
+        assertEquals(events("insert 6+1"), mAdapter.events);
+    }
+
+    @Test
+    public void emptySideSkipsDiff() {
+        mAdapter.submitList(null);
+        assertTrue(mWorkQueue.isEmpty());
+        assertEquals(0, mAdapter.getItemCount());
+        assertEquals(events("remove 0+5"), mAdapter.events);
+    }
+
+    private static void runAll(LinkedList<Runnable> queue) {
+        while (!queue.isEmpty()) {
+            queue.poll().run();
+        }
+    }
+
+    private static Executor queue(final LinkedList<Runnable> queue) {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queue.add(command);
+            }
+        };
+    }
+
+    private static List<String> list(String... items) {
+        return new ArrayList<>(Arrays.asList(items));
+    }
+
+    private static List<String> events(String... events) {
+        return Arrays.asList(events);
+    }
+
+    /**
+     * DiffUtil 发出同一批通知的顺序是实现细节，只比较通知的集合
+     */
+    private static List<String> sorted(List<String> events) {
+        List<String> sorted = new ArrayList<>(events);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * 不创建 ViewHolder 的适配器，按顺序记录收到的所有更新通知，差异计算使用测试的队列
+     */
+    private class RecordingAdapter extends BaseAdapter<BaseViewHolder, String> {
+        final List<String> events = new ArrayList<>();
+        final Set<String> comparedItems = new HashSet<>();
+
+        RecordingAdapter(List<String> items) {
+            super(null, items);
+            registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+                @Override
+                public void onChanged() {
+                    events.add("changed");
+                }
+
+                @Override
+                public void onItemRangeInserted(int positionStart, int itemCount) {
+                    events.add("insert " + positionStart + "+" + itemCount);
+                }
+
+                @Override
+                public void onItemRangeRemoved(int positionStart, int itemCount) {
+                    events.add("remove " + positionStart + "+" + itemCount);
+                }
+
+                @Override
+                public void onItemRangeChanged(int positionStart, int itemCount) {
+                    events.add("change " + positionStart + "+" + itemCount);
+                }
+
+                @Override
+                public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                    events.add("move " + fromPosition + ">" + toPosition + "+" + itemCount);
+                }
+            });
+        }
+
+        @Override
+        ListDiffer<String> createListDiffer(ListDiffer.Callback<String> callback) {
+            return new ListDiffer<>(callback, queue(mWorkQueue), queue(mMainQueue));
+        }
+
+        @Override
+        protected boolean areItemsTheSame(String oldItem, String newItem) {
+            comparedItems.add(newItem);
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public BaseViewHolder getViewHolder(ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void bindData(BaseViewHolder holder, String data) {
+        }
+    }
+}
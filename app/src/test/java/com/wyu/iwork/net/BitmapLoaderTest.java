@@ -0,0 +1,435 @@
+package com.wyu.iwork.net;
+
+import android.graphics.Bitmap;
+
+import com.android.volley.ExecutorDelivery;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.ResponseDelivery;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.NoCache;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.wyu.iwork.BuildConfig;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用本地 HTTP 服务器模拟图片服务器，让 {@link BitmapLoader} 真正地经过内存缓存、磁盘缓存和 Volley，
+ * 验证列表来回滚动和冷启动时各级缓存的命中次数
+ * <p>
+ *     主线程用测试线程执行的队列代替，Volley 的结果和磁盘缓存的回调都投递到这个队列，
+ *     图片解码由 Robolectric 的 BitmapFactory 完成
+ * </p>
+ * <p>
+ *     合并、取消、排队和优先级的用例使用只记录请求的 {@link FakeRequestQueue}，
+ *     由测试决定每个请求何时完成
+ * </p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class BitmapLoaderTest {
+    private static final int IMAGE_BYTES = 16 * 1024;
+    /**
+     * 内存缓存只保留这么多张图片，滚回去时更早的图片需要从磁盘缓存读取
+     */
+    private static final int MEMORY_ENTRIES = 10;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private HttpServer mServer;
+    private final AtomicInteger mServerRequests = new AtomicInteger();
+    private File mCacheDir;
+
+    private final LinkedBlockingQueue<Runnable> mMainQueue = new LinkedBlockingQueue<>();
+    private final Executor mMainExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            mMainQueue.add(command);
+        }
+    };
+    private RequestQueue mRequestQueue;
+    private final ResponseDelivery mDelivery = new ExecutorDelivery(mMainExecutor);
+    private final FakeRequestQueue mFakeQueue = new FakeRequestQueue(mDelivery);
+    private Bitmap mBitmap;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/image", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                mServerRequests.incrementAndGet();
+                byte[] body = imageBytes(exchange.getRequestURI().getPath());
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                try {
+                    out.write(body);
+                } finally {
+                    out.close();
+                }
+            }
+        });
+        mServer.start();
+        mCacheDir = mFolder.newFolder("bitmaps");
+        mRequestQueue = new RequestQueue(new NoCache(), new UrlConnectionNetwork(), 4,
+                new ExecutorDelivery(mMainExecutor));
+        mRequestQueue.start();
+        mBitmap = Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888);
+    }
+
+    @After
+    public void tearDown() {
+        mRequestQueue.stop();
+        mServer.stop(0);
+    }
+
+    @Test
+    public void scrollBackHitsDisk() throws Exception {
+        DiskByteCache diskCache = DiskByteCache.open(mCacheDir, 100 * IMAGE_BYTES);
+        BitmapLoader loader = newLoader(diskCache);
+        //向下滚动 50 项再滚回来
+        for (int i = 0; i < 50; i++) {
+            assertNotNull(load(loader, url(i)));
+        }
+        for (int i = 49; i >= 0; i--) {
+            assertNotNull(load(loader, url(i)));
+        }
+        assertEquals(50, mServerRequests.get());
+        assertEquals(50, loader.getNetworkLoadCount());
+        //最后显示的几项还在内存缓存里，其余从磁盘缓存解码
+        assertEquals(MEMORY_ENTRIES, loader.getMemoryHitCount());
+        assertEquals(50 - MEMORY_ENTRIES, loader.getDiskHitCount());
+        assertEquals(50, diskCache.getEntryCount());
+        diskCache.close();
+    }
+
+    @Test
+    public void coldStartReplaysJournal() throws Exception {
+        DiskByteCache diskCache = DiskByteCache.open(mCacheDir, 100 * IMAGE_BYTES);
+        BitmapLoader loader = newLoader(diskCache);
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(load(loader, url(i)));
+        }
+        diskCache.close();
+
+        //重新打开磁盘缓存，内存缓存是空的
+        DiskByteCache reopened = DiskByteCache.open(mCacheDir, 100 * IMAGE_BYTES);
+        BitmapLoader coldLoader = newLoader(reopened);
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(load(coldLoader, url(i)));
+        }
+        assertEquals(20, mServerRequests.get());
+        assertEquals(0, coldLoader.getNetworkLoadCount());
+        assertEquals(20, coldLoader.getDiskHitCount());
+        assertEquals(20, reopened.hitCount());
+        reopened.close();
+    }
+
+    @Test
+    public void withoutDiskCacheScrollBackDownloadsAgain() throws Exception {
+        BitmapLoader loader = newLoader(null);
+        for (int i = 0; i < 50; i++) {
+            assertNotNull(load(loader, url(i)));
+        }
+        for (int i = 49; i >= 0; i--) {
+            assertNotNull(load(loader, url(i)));
+        }
+        assertEquals(100 - MEMORY_ENTRIES, mServerRequests.get());
+        assertEquals(0, loader.getDiskHitCount());
+    }
+
+    @Test
+    public void identicalSpecsShareOneRequest() {
+        BitmapLoader loader = newFakeLoader();
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        RecordingListener third = new RecordingListener();
+        loader.load(spec(0), first);
+        loader.load(spec(0), second);
+        loader.load(spec(0), third);
+        assertEquals(1, mFakeQueue.requests.size());
+        assertEquals(2, loader.getCoalescedCount());
+
+        complete(0);
+        assertSame(mBitmap, first.bitmap);
+        assertSame(mBitmap, second.bitmap);
+        assertSame(mBitmap, third.bitmap);
+        //之后相同的加载直接命中内存缓存
+        RecordingListener later = new RecordingListener();
+        assertTrue(loader.load(spec(0), later).isDone());
+        assertSame(mBitmap, later.bitmap);
+        assertEquals(1, loader.getMemoryHitCount());
+        assertEquals(1, mFakeQueue.requests.size());
+    }
+
+    @Test
+    public void cancelingOneWaiterKeepsSharedRequest() {
+        BitmapLoader loader = newFakeLoader();
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        BitmapLoader.LoadTask firstTask = loader.load(spec(0), first);
+        BitmapLoader.LoadTask secondTask = loader.load(spec(0), second);
+        Request<?> request = mFakeQueue.requests.get(0);
+
+        firstTask.cancel();
+        assertFalse(request.isCanceled());
+        complete(0);
+        assertNull(first.bitmap);
+        assertSame(mBitmap, second.bitmap);
+        assertTrue(secondTask.isDone());
+
+        //所有等待者都取消后取消底层请求
+        BitmapLoader.LoadTask third = loader.load(spec(1), new RecordingListener());
+        BitmapLoader.LoadTask fourth = loader.load(spec(1), new RecordingListener());
+        third.cancel();
+        assertFalse(mFakeQueue.requests.get(1).isCanceled());
+        fourth.cancel();
+        assertTrue(mFakeQueue.requests.get(1).isCanceled());
+    }
+
+    @Test
+    public void pendingLoadsStartByPriorityWithinActiveLimit() {
+        BitmapLoader loader = newFakeLoader();
+        //同时交给 Volley 的请求数上限是 4
+        for (int i = 0; i < 4; i++) {
+            loader.load(spec(i), new RecordingListener());
+        }
+        loader.load(spec(4), Request.Priority.LOW, null, new RecordingListener());
+        loader.load(spec(5), Request.Priority.NORMAL, null, new RecordingListener());
+        loader.load(spec(6), Request.Priority.HIGH, null, new RecordingListener());
+        loader.load(spec(7), Request.Priority.NORMAL, null, new RecordingListener());
+        assertEquals(4, mFakeQueue.requests.size());
+
+        //每完成一个请求，从排队的加载里取出优先级最高、同优先级里最早的一个
+        complete(0);
+        assertRequest(4, spec(6), Request.Priority.HIGH);
+        complete(1);
+        assertRequest(5, spec(5), Request.Priority.NORMAL);
+        complete(2);
+        assertRequest(6, spec(7), Request.Priority.NORMAL);
+        complete(3);
+        assertRequest(7, spec(4), Request.Priority.LOW);
+        assertEquals(8, mFakeQueue.requests.size());
+    }
+
+    @Test
+    public void setVisibleChangesPriorityOfPendingLoads() {
+        BitmapLoader loader = newFakeLoader();
+        final Object visibleTag = new Object();
+        final Object hiddenTag = new Object();
+        for (int i = 0; i < 4; i++) {
+            loader.load(spec(i), new RecordingListener());
+        }
+        loader.load(spec(4), Request.Priority.NORMAL, hiddenTag, new RecordingListener());
+        loader.load(spec(5), Request.Priority.NORMAL, visibleTag, new RecordingListener());
+        loader.setVisible(visibleTag, true);
+        loader.setVisible(hiddenTag, false);
+
+        complete(0);
+        assertRequest(4, spec(5), Request.Priority.HIGH);
+        complete(1);
+        assertRequest(5, spec(4), Request.Priority.LOW);
+    }
+
+    @Test
+    public void cancelAllCancelsOnlyTaggedLoads() {
+        BitmapLoader loader = newFakeLoader();
+        final Object tag = new Object();
+        final Object otherTag = new Object();
+        RecordingListener shared = new RecordingListener();
+        loader.load(spec(0), Request.Priority.NORMAL, tag, new RecordingListener());
+        loader.load(spec(1), Request.Priority.NORMAL, tag, new RecordingListener());
+        loader.load(spec(1), Request.Priority.NORMAL, otherTag, shared);
+        for (int i = 2; i < 4; i++) {
+            loader.load(spec(i), new RecordingListener());
+        }
+        //排队中的加载
+        loader.load(spec(4), Request.Priority.HIGH, tag, new RecordingListener());
+        loader.load(spec(5), Request.Priority.NORMAL, otherTag, new RecordingListener());
+        assertEquals(4, mFakeQueue.requests.size());
+
+        loader.cancelAll(tag);
+        //只被该标记使用的请求被取消，和其它标记合并的请求保留
+        assertTrue(mFakeQueue.requests.get(0).isCanceled());
+        assertFalse(mFakeQueue.requests.get(1).isCanceled());
+        //释放的请求数交给排队中未被取消的加载
+        assertEquals(5, mFakeQueue.requests.size());
+        assertRequest(4, spec(5), Request.Priority.NORMAL);
+
+        complete(1);
+        assertSame(mBitmap, shared.bitmap);
+        assertEquals(5, mFakeQueue.requests.size());
+    }
+
+    private BitmapLoader newFakeLoader() {
+        return new BitmapLoader(mFakeQueue, new LruBitmapCache(MEMORY_ENTRIES) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return 1;
+            }
+        }, new BitmapPool(1024 * 1024), null, mMainExecutor);
+    }
+
+    private static ImageSpec spec(int index) {
+        return new ImageSpec("http://example.com/image/" + index, 64, 64,
+                Bitmap.Config.RGB_565);
+    }
+
+    /**
+     * 让假请求队列里的第 index 个请求成功返回 {@link #mBitmap}，并执行主线程队列
+     */
+    private void complete(int index) {
+        mDelivery.postResponse(mFakeQueue.requests.get(index), Response.success(mBitmap, null));
+        Runnable runnable;
+        while ((runnable = mMainQueue.poll()) != null) {
+            runnable.run();
+        }
+    }
+
+    private void assertRequest(int index, ImageSpec spec, Request.Priority priority) {
+        Request<?> request = mFakeQueue.requests.get(index);
+        assertEquals(spec.url, request.getUrl());
+        assertEquals(priority, request.getPriority());
+    }
+
+    private BitmapLoader newLoader(DiskByteCache diskCache) {
+        //按张数计算容量，不依赖 Robolectric 里图片的字节数
+        LruBitmapCache memoryCache = new LruBitmapCache(MEMORY_ENTRIES) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return 1;
+            }
+        };
+        return new BitmapLoader(mRequestQueue, memoryCache, new BitmapPool(1024 * 1024),
+                diskCache, mMainExecutor);
+    }
+
+    /**
+     * 发起加载并在测试线程上执行主线程队列，直到加载完成
+     */
+    private Bitmap load(BitmapLoader loader, String url) throws InterruptedException {
+        final AtomicReference<Bitmap> result = new AtomicReference<>();
+        final AtomicReference<VolleyError> error = new AtomicReference<>();
+        BitmapLoader.LoadTask task = loader.load(new ImageSpec(url, 64, 64,
+                Bitmap.Config.ARGB_8888), new BitmapLoader.Listener() {
+            @Override
+            public void onBitmapLoaded(String url, Bitmap bitmap) {
+                result.set(bitmap);
+            }
+
+            @Override
+            public void onError(String url, VolleyError e) {
+                error.set(e);
+            }
+        });
+        while (!task.isDone()) {
+            Runnable runnable = mMainQueue.poll(5, TimeUnit.SECONDS);
+            assertNotNull("timed out loading " + url, runnable);
+            runnable.run();
+        }
+        assertNull(error.get());
+        return result.get();
+    }
+
+    private String url(int index) {
+        return "http://127.0.0.1:" + mServer.getAddress().getPort() + "/image/" + index;
+    }
+
+    private static byte[] imageBytes(String path) {
+        byte[] body = new byte[IMAGE_BYTES];
+        Arrays.fill(body, (byte) path.hashCode());
+        return body;
+    }
+
+    private static class RecordingListener implements BitmapLoader.Listener {
+        Bitmap bitmap;
+        VolleyError error;
+
+        @Override
+        public void onBitmapLoaded(String url, Bitmap bitmap) {
+            this.bitmap = bitmap;
+        }
+
+        @Override
+        public void onError(String url, VolleyError error) {
+            this.error = error;
+        }
+    }
+
+    /**
+     * 只记录交给它的请求，不执行网络请求
+     */
+    private static class FakeRequestQueue extends RequestQueue {
+        final List<Request<?>> requests = new ArrayList<>();
+
+        FakeRequestQueue(ResponseDelivery delivery) {
+            super(new NoCache(), null, 1, delivery);
+        }
+
+        @Override
+        public <T> Request<T> add(Request<T> request) {
+            request.setRequestQueue(this);
+            requests.add(request);
+            return request;
+        }
+    }
+
+    /**
+     * 直接用 {@link HttpURLConnection} 下载的 Volley 网络实现
+     */
+    private static class UrlConnectionNetwork implements com.android.volley.Network {
+        @Override
+        public NetworkResponse performRequest(Request<?> request) throws VolleyError {
+            try {
+                HttpURLConnection connection =
+                        (HttpURLConnection) new URL(request.getUrl()).openConnection();
+                try {
+                    InputStream in = connection.getInputStream();
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[8192];
+                    int count;
+                    while ((count = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, count);
+                    }
+                    in.close();
+                    return new NetworkResponse(out.toByteArray());
+                } finally {
+                    connection.disconnect();
+                }
+            } catch (IOException e) {
+                throw new VolleyError(e);
+            }
+        }
+    }
+}
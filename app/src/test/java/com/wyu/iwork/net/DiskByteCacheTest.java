@@ -0,0 +1,158 @@
+package com.wyu.iwork.net;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 磁盘缓存的淘汰、日志回放和异步读取，经过 {@link BitmapLoader} 的完整加载见 {@link BitmapLoaderTest}
+ */
+public class DiskByteCacheTest {
+    private static final int IMAGE_BYTES = 16 * 1024;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mCacheDir;
+
+    @Before
+    public void setUp() throws Exception {
+        mCacheDir = mFolder.newFolder("bitmaps");
+    }
+
+    @Test
+    public void coldStartReplaysJournal() throws Exception {
+        DiskByteCache cache = DiskByteCache.open(mCacheDir, 100 * IMAGE_BYTES);
+        for (int i = 0; i < 20; i++) {
+            put(cache, url(i));
+        }
+        cache.close();
+
+        DiskByteCache reopened = DiskByteCache.open(mCacheDir, 100 * IMAGE_BYTES);
+        assertEquals(20, reopened.getEntryCount());
+        assertEquals(20 * IMAGE_BYTES, reopened.size());
+        for (int i = 0; i < 20; i++) {
+            assertArrayEquals(imageBytes(url(i)), reopened.get(url(i)));
+        }
+        assertEquals(20, reopened.hitCount());
+        assertEquals(0, reopened.missCount());
+        reopened.close();
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedWithinBudget() throws Exception {
+        DiskByteCache cache = DiskByteCache.open(mCacheDir, 10 * IMAGE_BYTES);
+        for (int i = 0; i < 10; i++) {
+            put(cache, url(i));
+        }
+        //访问第 0 项，之后写入的新条目应该先淘汰第 1 项
+        assertNotNull(cache.get(url(0)));
+        put(cache, url(10));
+        assertTrue(cache.size() <= cache.getMaxBytes());
+        assertTrue(cache.contains(url(0)));
+        assertFalse(cache.contains(url(1)));
+        assertEquals(1, cache.evictionCount());
+        cache.close();
+
+        DiskByteCache reopened = DiskByteCache.open(mCacheDir, 10 * IMAGE_BYTES);
+        assertTrue(reopened.contains(url(0)));
+        assertFalse(reopened.contains(url(1)));
+        assertEquals(10, reopened.getEntryCount());
+        reopened.close();
+    }
+
+    @Test
+    public void truncatedJournalLineIsIgnored() throws Exception {
+        DiskByteCache cache = DiskByteCache.open(mCacheDir, 100 * IMAGE_BYTES);
+        for (int i = 0; i < 3; i++) {
+            put(cache, url(i));
+        }
+        cache.close();
+        //模拟写日志时进程被杀死，最后一行只写了一半
+        File journal = new File(mCacheDir, "journal");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(journal, true), "UTF-8");
+        try {
+            writer.write("CLEAN 0123");
+        } finally {
+            writer.close();
+        }
+
+        DiskByteCache reopened = DiskByteCache.open(mCacheDir, 100 * IMAGE_BYTES);
+        assertEquals(3, reopened.getEntryCount());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(reopened.contains(url(i)));
+        }
+        //日志已经重写，之后追加的记录在下次打开时仍然有效
+        put(reopened, url(3));
+        reopened.close();
+        DiskByteCache again = DiskByteCache.open(mCacheDir, 100 * IMAGE_BYTES);
+        assertEquals(4, again.getEntryCount());
+        again.close();
+    }
+
+    @Test
+    public void corruptJournalClearsCache() throws Exception {
+        DiskByteCache cache = DiskByteCache.open(mCacheDir, 100 * IMAGE_BYTES);
+        put(cache, url(0));
+        cache.close();
+        File journal = new File(mCacheDir, "journal");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(journal, true), "UTF-8");
+        try {
+            writer.write("BOGUS line\n");
+        } finally {
+            writer.close();
+        }
+
+        DiskByteCache reopened = DiskByteCache.open(mCacheDir, 100 * IMAGE_BYTES);
+        assertEquals(0, reopened.getEntryCount());
+        assertEquals(0, reopened.size());
+        reopened.close();
+    }
+
+    @Test
+    public void asyncGetRunsOffCallerThread() throws Exception {
+        DiskByteCache cache = DiskByteCache.open(mCacheDir, 100 * IMAGE_BYTES);
+        put(cache, url(0));
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<byte[]> result = new AtomicReference<>();
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        cache.get(url(0), new DiskByteCache.Callback() {
+            @Override
+            public void onResult(String key, byte[] data) {
+                result.set(data);
+                thread.set(Thread.currentThread());
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertArrayEquals(imageBytes(url(0)), result.get());
+        assertNotSame(Thread.currentThread(), thread.get());
+        cache.close();
+    }
+
+    private void put(DiskByteCache cache, String url) {
+        assertTrue(cache.put(url, imageBytes(url)));
+    }
+
+    private static String url(int index) {
+        return "http://example.com/image/" + index;
+    }
+
+    private static byte[] imageBytes(String url) {
+        byte[] body = new byte[IMAGE_BYTES];
+        Arrays.fill(body, (byte) url.hashCode());
+        return body;
+    }
+}
@@ -0,0 +1,174 @@
+package com.wyu.iwork.net;
+
+import android.graphics.Bitmap;
+
+import com.android.volley.Request;
+import com.android.volley.VolleyError;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 预加载项数随滚动速度的变化，预加载范围随滚动方向移动，以及离开范围的预加载被取消
+ * <p>用记录调用的加载类代替 {@link BitmapLoader}，不会真正加载图片</p>
+ */
+public class ImagePrefetcherTest {
+    private static final int EXTENT = 1920;
+    /**
+     * 每帧 16px 时预加载 6 项，见 {@link #distanceGrowsWithVelocityUpToMax()}
+     */
+    private static final int SLOW = 16;
+
+    private RecordingLoader mLoader;
+    private ImagePrefetcher mPrefetcher;
+    private final List<Integer> mQueried = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mLoader = new RecordingLoader();
+        mPrefetcher = new ImagePrefetcher(mLoader, new ImagePrefetcher.Source() {
+            @Override
+            public ImageSpec getPrefetchImage(int position) {
+                mQueried.add(position);
+                return new ImageSpec(url(position), 64, 64, Bitmap.Config.RGB_565);
+            }
+        }, 4, 20);
+    }
+
+    @Test
+    public void distanceGrowsWithVelocityUpToMax() {
+        ImagePrefetcher prefetcher = new ImagePrefetcher(null, null, 4, 20);
+        //静止时只预加载最少的项数
+        assertEquals(4, prefetcher.getDistance(0, 1920, 10));
+        //每帧滚动 16px，30 帧约 1/4 屏，10 个可见项对应 2 项
+        assertEquals(6, prefetcher.getDistance(16, 1920, 10));
+        assertEquals(20, prefetcher.getDistance(200, 1920, 10));
+        assertEquals(4, prefetcher.getDistance(100, 0, 10));
+    }
+
+    @Test
+    public void forwardScrollPrefetchesBelowVisibleRange() {
+        mPrefetcher.onScrolled(0, 9, 100, SLOW, EXTENT);
+        assertEquals(urls(10, 11, 12, 13, 14, 15), mLoader.prefetched);
+        assertTrue(mLoader.canceled.isEmpty());
+    }
+
+    @Test
+    public void backwardScrollPrefetchesAboveVisibleRangeNearestFirst() {
+        mPrefetcher.onScrolled(50, 59, 100, -SLOW, EXTENT);
+        assertEquals(urls(49, 48, 47, 46, 45, 44), mLoader.prefetched);
+    }
+
+    @Test
+    public void windowStopsAtListEnd() {
+        mPrefetcher.onScrolled(90, 97, 100, SLOW, EXTENT);
+        assertEquals(urls(98, 99), mLoader.prefetched);
+    }
+
+    @Test
+    public void windowMovesWithScrollAndCancelsLeftBehind() {
+        mPrefetcher.onScrolled(0, 9, 100, SLOW, EXTENT);
+        mLoader.prefetched.clear();
+        //继续向后滚动 3 项，仍在范围内的 13~15 不重复加载，10~12 已经可见
+        mPrefetcher.onScrolled(3, 12, 100, SLOW, EXTENT);
+        assertEquals(urls(16, 17, 18), mLoader.prefetched);
+        assertEquals(urls(10, 11, 12), mLoader.canceled);
+    }
+
+    @Test
+    public void reversingDirectionCancelsPrefetchesAhead() {
+        mPrefetcher.onScrolled(20, 29, 100, SLOW, EXTENT);
+        mLoader.prefetched.clear();
+        mPrefetcher.onScrolled(20, 29, 100, -SLOW, EXTENT);
+        assertEquals(urls(19, 18, 17, 16, 15, 14), mLoader.prefetched);
+        assertEquals(urls(30, 31, 32, 33, 34, 35), mLoader.canceled);
+    }
+
+    @Test
+    public void fasterScrollWidensWindow() {
+        mPrefetcher.onScrolled(0, 9, 100, SLOW, EXTENT);
+        mPrefetcher.onScrolled(0, 9, 100, 200, EXTENT);
+        assertEquals(20, mLoader.prefetched.size());
+        assertEquals(url(29), mLoader.prefetched.get(mLoader.prefetched.size() - 1));
+        assertTrue(mLoader.canceled.isEmpty());
+    }
+
+    @Test
+    public void unchangedWindowDoesNotQuerySource() {
+        mPrefetcher.onScrolled(0, 9, 100, SLOW, EXTENT);
+        mQueried.clear();
+        mPrefetcher.onScrolled(0, 9, 100, SLOW, EXTENT);
+        assertTrue(mQueried.isEmpty());
+        assertEquals(6, mLoader.prefetched.size());
+    }
+
+    @Test
+    public void completedPrefetchIsNotCanceled() {
+        mPrefetcher.onScrolled(0, 9, 100, SLOW, EXTENT);
+        mLoader.tasks.get(0).deliver(null);
+        mPrefetcher.onScrolled(40, 49, 100, SLOW, EXTENT);
+        assertEquals(urls(11, 12, 13, 14, 15), mLoader.canceled);
+    }
+
+    @Test
+    public void cancelAllCancelsPendingPrefetches() {
+        mPrefetcher.onScrolled(0, 9, 100, SLOW, EXTENT);
+        mPrefetcher.cancelAll();
+        assertEquals(urls(10, 11, 12, 13, 14, 15), mLoader.canceled);
+        //范围已经重置，相同的滚动会重新预加载
+        mPrefetcher.onScrolled(0, 9, 100, SLOW, EXTENT);
+        assertEquals(12, mLoader.prefetched.size());
+    }
+
+    private static String url(int position) {
+        return "http://example.com/image/" + position;
+    }
+
+    private static List<String> urls(Integer... positions) {
+        List<String> urls = new ArrayList<>(positions.length);
+        for (int position : Arrays.asList(positions)) {
+            urls.add(url(position));
+        }
+        return urls;
+    }
+
+    /**
+     * 只记录预加载和取消的加载类，返回的任务直到取消或手动完成前都处于进行中
+     */
+    private static class RecordingLoader extends BitmapLoader {
+        final List<String> prefetched = new ArrayList<>();
+        final List<String> canceled = new ArrayList<>();
+        final List<LoadTask> tasks = new ArrayList<>();
+
+        RecordingLoader() {
+            super(null, null, null, null, null);
+        }
+
+        @Override
+        public LoadTask prefetch(ImageSpec spec) {
+            prefetched.add(spec.url);
+            LoadTask task = new LoadTask(this, spec, Request.Priority.LOW, null, new Listener() {
+                @Override
+                public void onBitmapLoaded(String url, Bitmap bitmap) {
+                }
+
+                @Override
+                public void onError(String url, VolleyError error) {
+                }
+            });
+            tasks.add(task);
+            return task;
+        }
+
+        @Override
+        void onCanceled(LoadTask task) {
+            canceled.add(task.getUrl());
+        }
+    }
+}
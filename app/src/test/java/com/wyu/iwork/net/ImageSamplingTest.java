@@ -0,0 +1,61 @@
+package com.wyu.iwork.net;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 目标尺寸档位和缩小采样的计算
+ */
+public class ImageSamplingTest {
+
+    @Test
+    public void bucketRoundsUpToPowerOfTwo() {
+        assertEquals(0, ImageSpec.bucket(0));
+        assertEquals(16, ImageSpec.bucket(10));
+        assertEquals(64, ImageSpec.bucket(64));
+        //40dp 的头像在 xxhdpi 下是 120px
+        assertEquals(128, ImageSpec.bucket(120));
+        assertEquals(256, ImageSpec.bucket(129));
+    }
+
+    @Test
+    public void sampleSizeKeepsDecodeAtLeastTarget() {
+        assertEquals(1, BitmapPool.getSampleSize(1024, 1024, 0, 0));
+        assertEquals(8, BitmapPool.getSampleSize(1024, 1024, 128, 128));
+        assertEquals(4, BitmapPool.getSampleSize(1024, 768, 128, 128));
+        assertEquals(1, BitmapPool.getSampleSize(100, 100, 128, 128));
+        //只限制一边时按该边采样
+        assertEquals(4, BitmapPool.getSampleSize(2048, 512, 512, 0));
+    }
+
+    @Test
+    public void avatarFootprintDrops() {
+        final int target = ImageSpec.bucket(120);
+        final int sampleSize = BitmapPool.getSampleSize(1024, 1024, target, target);
+        final int side = 1024 / sampleSize;
+        final int full = 1024 * 1024 * 4;
+        //RGB_565 每个像素 2 字节
+        final int sampled = side * side * 2;
+        assertEquals(128, side);
+        assertEquals(128, full / sampled);
+    }
+
+    @Test
+    public void reusedBitmapSizedForActualDecodeConfig() {
+        //JPEG 按要求的 RGB_565 解码
+        assertEquals(Bitmap.Config.RGB_565,
+                BitmapPool.getDecodeConfig("image/jpeg", Bitmap.Config.RGB_565));
+        //PNG 可能带透明度，按 ARGB_8888 借用，避免借到的图片太小
+        assertEquals(Bitmap.Config.ARGB_8888,
+                BitmapPool.getDecodeConfig("image/png", Bitmap.Config.RGB_565));
+        assertEquals(Bitmap.Config.ARGB_8888,
+                BitmapPool.getDecodeConfig(null, Bitmap.Config.RGB_565));
+        assertEquals(Bitmap.Config.ARGB_8888,
+                BitmapPool.getDecodeConfig("image/png", Bitmap.Config.ARGB_8888));
+        assertEquals(2, BitmapPool.getBytesPerPixel(Bitmap.Config.RGB_565));
+        assertEquals(4, BitmapPool.getBytesPerPixel(Bitmap.Config.ARGB_8888));
+    }
+}
@@ -0,0 +1,41 @@
+package com.wyu.iwork.net;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 内存等级到缓存保留比例的映射
+ */
+public class LruBitmapCacheTest {
+
+    @Test
+    public void trimFractionShrinksWithPressure() {
+        assertEquals(1, LruBitmapCache.getTrimFraction(0), 0);
+        assertEquals(0.75f, LruBitmapCache.getTrimFraction(
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE), 0);
+        assertEquals(0.5f, LruBitmapCache.getTrimFraction(
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW), 0);
+        assertEquals(0.25f, LruBitmapCache.getTrimFraction(
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL), 0);
+        assertEquals(0.5f, LruBitmapCache.getTrimFraction(
+                ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN), 0);
+        assertEquals(0.25f, LruBitmapCache.getTrimFraction(
+                ComponentCallbacks2.TRIM_MEMORY_MODERATE), 0);
+        assertEquals(0, LruBitmapCache.getTrimFraction(
+                ComponentCallbacks2.TRIM_MEMORY_COMPLETE), 0);
+    }
+
+    @Test
+    public void backgroundLevelsNeverKeepMoreThanHidden() {
+        final float hidden = LruBitmapCache.getTrimFraction(
+                ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        for (int level = ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+                level <= ComponentCallbacks2.TRIM_MEMORY_COMPLETE; level++)
+        {
+            assertTrue(LruBitmapCache.getTrimFraction(level) <= hidden);
+        }
+    }
+}
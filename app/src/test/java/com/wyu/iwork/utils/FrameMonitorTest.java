@@ -0,0 +1,158 @@
+package com.wyu.iwork.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按 vsync 时间戳统计帧数、卡顿帧和丢帧，以及帧归属的页面
+ * <p>直接传入帧时间戳，不需要 Choreographer</p>
+ */
+public class FrameMonitorTest {
+    /**
+     * 60Hz 屏幕的刷新周期，也是每帧的预算
+     */
+    private static final long INTERVAL = 16666667L;
+    private static final long START = 1000000000L;
+
+    private FrameMonitor mMonitor;
+    private TestScreen mParent;
+    private TestScreen mChild;
+    private long mFrameTime;
+
+    @Before
+    public void setUp() {
+        mMonitor = new FrameMonitor();
+        mParent = new TestScreen("parent", 0);
+        mChild = new TestScreen("child", 1);
+        mMonitor.addScreen(mParent);
+        mMonitor.addScreen(mChild);
+        mFrameTime = START;
+        mMonitor.recordFrame(mFrameTime);
+    }
+
+    @Test
+    public void onTimeFramesAreNotJank() {
+        for (int i = 0; i < 60; i++) {
+            frame(INTERVAL);
+        }
+        FrameMonitor.ScreenStats stats = stats("child");
+        //第一帧只作为起点
+        assertEquals(60, stats.frameCount);
+        assertEquals(0, stats.jankFrameCount);
+        assertEquals(0, stats.droppedFrameCount);
+        assertEquals(60f, stats.getFps(), 0.01f);
+    }
+
+    @Test
+    public void jitteredFramesAreNotJank() {
+        //vsync 时间戳在一个周期附近抖动几百微秒，59.94Hz 的屏幕每帧也比 60Hz 的周期长一点
+        final long[] jitters = {300000L, -400000L, 250000L, -200000L, 500000L, 16683L};
+        for (int i = 0; i < 60; i++) {
+            frame(INTERVAL + jitters[i % jitters.length]);
+        }
+        FrameMonitor.ScreenStats stats = stats("child");
+        assertEquals(60, stats.frameCount);
+        assertEquals(0, stats.jankFrameCount);
+        assertEquals(0, stats.droppedFrameCount);
+    }
+
+    @Test
+    public void missedVsyncIsJank() {
+        frame(INTERVAL);
+        //抖动后的两个周期也只错过一个 vsync
+        frame(2 * INTERVAL - 400000L);
+        frame(INTERVAL);
+        FrameMonitor.ScreenStats stats = stats("child");
+        assertEquals(3, stats.frameCount);
+        assertEquals(1, stats.jankFrameCount);
+        assertEquals(1, stats.droppedFrameCount);
+        assertEquals(100f / 3, stats.getJankPercent(), 0.01f);
+    }
+
+    @Test
+    public void droppedFramesCountMissedVsyncs() {
+        frame(2 * INTERVAL);
+        frame(4 * INTERVAL);
+        frame(INTERVAL);
+        FrameMonitor.ScreenStats stats = stats("child");
+        assertEquals(3, stats.frameCount);
+        assertEquals(2, stats.jankFrameCount);
+        assertEquals(1 + 3, stats.droppedFrameCount);
+        assertEquals(4 * INTERVAL, stats.maxNanos);
+        //16~24ms、33~50ms 和 50~100ms 的区间各一帧
+        assertEquals(1, stats.histogram[1]);
+        assertEquals(1, stats.histogram[3]);
+        assertEquals(1, stats.histogram[4]);
+    }
+
+    @Test
+    public void longPauseIsNotCounted() {
+        frame(INTERVAL);
+        //从后台回来，间隔超过 2 秒的帧只作为下一帧的起点
+        frame(3000 * 1000000L);
+        frame(INTERVAL);
+        FrameMonitor.ScreenStats stats = stats("child");
+        assertEquals(2, stats.frameCount);
+        assertEquals(0, stats.jankFrameCount);
+    }
+
+    @Test
+    public void framesGoToDeepestVisibleScreen() {
+        frame(INTERVAL);
+        mChild.visible = false;
+        mMonitor.invalidateScreen();
+        frame(2 * INTERVAL);
+        frame(INTERVAL);
+        assertEquals(1, stats("child").frameCount);
+        FrameMonitor.ScreenStats parent = stats("parent");
+        assertEquals(2, parent.frameCount);
+        assertEquals(1, parent.jankFrameCount);
+
+        mMonitor.reset();
+        assertTrue(mMonitor.getStats().isEmpty());
+    }
+
+    private void frame(long frameNanos) {
+        mFrameTime += frameNanos;
+        mMonitor.recordFrame(mFrameTime);
+    }
+
+    private FrameMonitor.ScreenStats stats(String name) {
+        List<FrameMonitor.ScreenStats> stats = mMonitor.getStats();
+        for (FrameMonitor.ScreenStats screenStats : stats) {
+            if (screenStats.name.equals(name)) return screenStats;
+        }
+        fail("no stats for " + name);
+        return null;
+    }
+
+    private static class TestScreen implements FrameMonitor.Screen {
+        final String name;
+        final int depth;
+        boolean visible = true;
+
+        TestScreen(String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+        }
+
+        @Override
+        public String getScreenName() {
+            return name;
+        }
+
+        @Override
+        public boolean isScreenVisible() {
+            return visible;
+        }
+
+        @Override
+        public int getScreenDepth() {
+            return depth;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.jhj.expandablerecyclerview.benchmark;
+
+import com.jhj.expandablerecyclerview.core.ExpandableItemList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 展开折叠操作，每次调用都成对执行以保证数据状态在迭代之间不变
+ */
+@State(Scope.Thread)
+public class ExpandCollapseBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"0.0", "0.5", "1.0"})
+    public double expandedRatio;
+
+    private ExpandableItemList mItemList;
+    private TreeFixture.CountingCallback mCallback;
+    private int[] mParentPositions;
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        TreeFixture fixture = new TreeFixture(rows, expandedRatio, 42);
+        mItemList = fixture.itemList;
+        mCallback = fixture.callback;
+        mParentPositions = fixture.randomParentPositions(13);
+    }
+
+    /**
+     * 切换一个随机父列表项的展开状态再切换回来
+     */
+    @Benchmark
+    public long toggleSingle() {
+        final int parentPosition = mParentPositions[
+                mIndex = (mIndex + 1) & (TreeFixture.QUERY_COUNT - 1)];
+        if (mItemList.getParentWrapper(parentPosition).isExpanded()) {
+            mItemList.collapse(parentPosition);
+            mItemList.expand(parentPosition);
+        } else {
+            mItemList.expand(parentPosition);
+            mItemList.collapse(parentPosition);
+        }
+        return mCallback.count;
+    }
+
+    /**
+     * 展开所有父列表项，再恢复原来的展开状态
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long expandAll() {
+        final int parentCount = mItemList.getParentCount();
+        boolean[] expansionState = mItemList.getExpansionState();
+        for (int i = 0; i < parentCount; i++) {
+            mItemList.expand(i);
+        }
+        for (int i = 0; i < parentCount; i++) {
+            if (!expansionState[i]) mItemList.collapse(i);
+        }
+        return mCallback.count;
+    }
+}
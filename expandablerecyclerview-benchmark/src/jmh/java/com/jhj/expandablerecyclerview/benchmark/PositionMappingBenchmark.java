@@ -0,0 +1,65 @@
+package com.jhj.expandablerecyclerview.benchmark;
+
+import com.jhj.expandablerecyclerview.core.ExpandableItemList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 父列表项位置、子列表项位置和适配器位置之间的换算，对应
+ * {@code onBindViewHolder}、{@code getItemViewType} 中每次都会执行的查询
+ */
+@State(Scope.Thread)
+public class PositionMappingBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"0.0", "0.1", "0.5", "1.0"})
+    public double expandedRatio;
+
+    private ExpandableItemList mItemList;
+    private int[] mAdapterPositions;
+    private int[] mParentPositions;
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        TreeFixture fixture = new TreeFixture(rows, expandedRatio, 42);
+        mItemList = fixture.itemList;
+        mAdapterPositions = fixture.randomAdapterPositions(7);
+        mParentPositions = fixture.randomParentPositions(11);
+    }
+
+    private int nextIndex() {
+        return mIndex = (mIndex + 1) & (TreeFixture.QUERY_COUNT - 1);
+    }
+
+    @Benchmark
+    public int adapterToParentPosition() {
+        return mItemList.getParentPosition(mAdapterPositions[nextIndex()]);
+    }
+
+    @Benchmark
+    public int adapterToChildPosition() {
+        return mItemList.getChildPosition(mAdapterPositions[nextIndex()]);
+    }
+
+    @Benchmark
+    public int parentToAdapterPosition() {
+        return mItemList.getParentAdapterPosition(mParentPositions[nextIndex()]);
+    }
+
+    @Benchmark
+    public int childToAdapterPosition() {
+        return mItemList.getChildAdapterPosition(mParentPositions[nextIndex()], 0);
+    }
+
+    @Benchmark
+    public Object getItem() {
+        return mItemList.getItem(mAdapterPositions[nextIndex()]);
+    }
+}
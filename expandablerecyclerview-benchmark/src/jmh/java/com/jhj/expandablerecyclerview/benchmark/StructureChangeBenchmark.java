@@ -0,0 +1,88 @@
+package com.jhj.expandablerecyclerview.benchmark;
+
+import com.jhj.expandablerecyclerview.core.ExpandableItemList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 父列表项和子列表项的区间插入移除以及父列表项移动，包括之后第一次位置查询触发的重建开销。
+ * 每次调用都成对执行以保证数据状态在迭代之间不变
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StructureChangeBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"0.0", "0.5", "1.0"})
+    public double expandedRatio;
+
+    @Param({"1", "32"})
+    public int rangeSize;
+
+    private List<TreeFixture.BenchParent> mParentItems;
+    private ExpandableItemList mItemList;
+    private TreeFixture.CountingCallback mCallback;
+    private int mMiddle;
+
+    @Setup
+    public void setUp() {
+        TreeFixture fixture = new TreeFixture(rows, expandedRatio, 42);
+        mParentItems = fixture.parentItems;
+        mItemList = fixture.itemList;
+        mCallback = fixture.callback;
+        mMiddle = mParentItems.size() / 2;
+    }
+
+    @Benchmark
+    public int insertRemoveParentRange() {
+        List<TreeFixture.BenchParent> range = mParentItems.subList(mMiddle, mMiddle);
+        for (int i = 0; i < rangeSize; i++) {
+            range.add(new TreeFixture.BenchParent(expandedRatio >= 0.5));
+        }
+        mItemList.insertParents(mMiddle, rangeSize);
+        final int position = mItemList.getParentAdapterPosition(mParentItems.size() - 1);
+        range.clear();
+        mItemList.removeParents(mMiddle, rangeSize);
+        return position + mItemList.getParentAdapterPosition(mParentItems.size() - 1);
+    }
+
+    @Benchmark
+    public int insertRemoveChildRange() {
+        mItemList.expand(mMiddle);
+        List<Object> childItems = mParentItems.get(mMiddle).getChildItems();
+        List<Object> range = childItems.subList(0, 0);
+        for (int i = 0; i < rangeSize; i++) {
+            range.add(new Object());
+        }
+        mItemList.insertChildren(mMiddle, 0, rangeSize);
+        final int position = mItemList.getParentAdapterPosition(mParentItems.size() - 1);
+        range.clear();
+        mItemList.removeChildren(mMiddle, 0, rangeSize);
+        return position + mItemList.getParentAdapterPosition(mParentItems.size() - 1);
+    }
+
+    @Benchmark
+    public long moveParent() {
+        final int to = mParentItems.size() - 1;
+        mParentItems.add(to, mParentItems.remove(0));
+        mItemList.moveParent(0, to);
+        mItemList.getParentAdapterPosition(to);
+        mParentItems.add(0, mParentItems.remove(to));
+        mItemList.moveParent(to, 0);
+        mItemList.getParentAdapterPosition(to);
+        return mCallback.count;
+    }
+}
@@ -0,0 +1,111 @@
+package com.jhj.expandablerecyclerview.benchmark;
+
+import com.jhj.expandablerecyclerview.core.ExpandableItemList;
+import com.jhj.expandablerecyclerview.model.ParentItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试使用的合成数据
+ * <p>
+ *     每个父列表项有 {@link #CHILD_COUNT} 个子列表项，按 {@code expandedRatio} 的比例随机展开，
+ *     父列表项数量根据目标行数计算，使展开后的总行数接近 {@code rows}
+ * </p>
+ */
+final class TreeFixture {
+    static final int CHILD_COUNT = 9;
+
+    /**
+     * 随机查询位置的数量，取 2 的幂便于取模
+     */
+    static final int QUERY_COUNT = 1 << 12;
+
+    final List<BenchParent> parentItems;
+    final ExpandableItemList itemList;
+    final CountingCallback callback = new CountingCallback();
+
+    TreeFixture(int rows, double expandedRatio, long seed) {
+        final int parentCount = Math.max(1, (int) (rows / (1 + CHILD_COUNT * expandedRatio)));
+        Random random = new Random(seed);
+        parentItems = new ArrayList<>(parentCount);
+        for (int i = 0; i < parentCount; i++) {
+            parentItems.add(new BenchParent(random.nextDouble() < expandedRatio));
+        }
+        itemList = new ExpandableItemList(parentItems);
+        itemList.setUpdateCallback(callback);
+    }
+
+    int[] randomAdapterPositions(long seed) {
+        Random random = new Random(seed);
+        int[] positions = new int[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            positions[i] = random.nextInt(itemList.getItemCount());
+        }
+        return positions;
+    }
+
+    int[] randomParentPositions(long seed) {
+        Random random = new Random(seed);
+        int[] positions = new int[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            positions[i] = random.nextInt(parentItems.size());
+        }
+        return positions;
+    }
+
+    static final class BenchParent implements ParentItem<Object> {
+        private final List<Object> mChildItems = new ArrayList<>(CHILD_COUNT);
+        private final boolean mInitiallyExpanded;
+
+        BenchParent(boolean initiallyExpanded) {
+            mInitiallyExpanded = initiallyExpanded;
+            for (int i = 0; i < CHILD_COUNT; i++) {
+                mChildItems.add(new Object());
+            }
+        }
+
+        @Override
+        public List<Object> getChildItems() {
+            return mChildItems;
+        }
+
+        @Override
+        public boolean isExpandable() {
+            return true;
+        }
+
+        @Override
+        public boolean isInitiallyExpanded() {
+            return mInitiallyExpanded;
+        }
+    }
+
+    /**
+     * 只统计通知次数，避免回调被 JIT 优化掉
+     */
+    static final class CountingCallback implements ExpandableItemList.UpdateCallback {
+        long count;
+
+        @Override
+        public void onInserted(int position, int count) {
+            this.count += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            this.count += count;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            count++;
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            this.count += count;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.jhj.expandablerecyclerview.compiler;
+
+import com.jhj.expandablerecyclerview.annotation.BindImageResource;
+import com.jhj.expandablerecyclerview.annotation.BindText;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * 为带有 {@link BindText} 或 {@link BindImageResource} 字段的数据模型生成 {@code <Model>_ViewBinder}
+ * <p>
+ *     生成的类在构造时查找一次所有要绑定的 View 并保存到类型确定的字段里，
+ *     {@code bind(model)} 直接通过 getter 或字段读取数据后设置到 View 上，
+ *     绑定过程没有 Id 到 View 的查找，也没有反射
+ * </p>
+ */
+public class ViewBinderProcessor extends AbstractProcessor {
+    private static final String TAG = "ViewBinderProcessor";
+
+    private static final String BINDER_SUFFIX = "_ViewBinder";
+    private static final String VIEW_BINDER =
+            "com.jhj.expandablerecyclerview.viewholder.ViewBinder";
+    private static final String VIEW = "android.view.View";
+    private static final String TEXT_VIEW = "android.widget.TextView";
+    private static final String IMAGE_VIEW = "android.widget.ImageView";
+
+    private Elements mElements;
+    private Types mTypes;
+    private Filer mFiler;
+    private Messager mMessager;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        mElements = processingEnv.getElementUtils();
+        mTypes = processingEnv.getTypeUtils();
+        mFiler = processingEnv.getFiler();
+        mMessager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> types = new HashSet<>();
+        types.add(BindText.class.getCanonicalName());
+        types.add(BindImageResource.class.getCanonicalName());
+        return types;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        //按模型类分组
+        Set<Element> elements = new LinkedHashSet<>();
+        elements.addAll(roundEnv.getElementsAnnotatedWith(BindText.class));
+        elements.addAll(roundEnv.getElementsAnnotatedWith(BindImageResource.class));
+        Map<TypeElement, List<Binding>> bindingMap = new LinkedHashMap<>();
+        collect(elements, bindingMap);
+        for (Map.Entry<TypeElement, List<Binding>> entry : bindingMap.entrySet()) {
+            TypeElement model = entry.getKey();
+            if (!checkModel(model)) continue;
+            try {
+                write(model, entry.getValue());
+            } catch (IOException e) {
+                error(model, "生成 %s 失败: %s", binderName(model), e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void collect(Set<? extends Element> elements, Map<TypeElement, List<Binding>> out) {
+        for (Element element : elements) {
+            if (element.getKind() != ElementKind.FIELD) continue;
+            VariableElement field = (VariableElement) element;
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                error(field, "@BindText/@BindImageResource 不能用于 static 字段");
+                continue;
+            }
+            Binding binding = createBinding(field);
+            if (binding == null) continue;
+            TypeElement model = (TypeElement) field.getEnclosingElement();
+            List<Binding> bindings = out.get(model);
+            if (bindings == null) {
+                bindings = new ArrayList<>();
+                out.put(model, bindings);
+            }
+            bindings.add(binding);
+        }
+    }
+
+    private Binding createBinding(VariableElement field) {
+        String accessor = accessorOf(field);
+        if (accessor == null) {
+            error(field, "字段 %s 是 private 的，需要提供 getter", field.getSimpleName());
+            return null;
+        }
+        TypeMirror type = field.asType();
+        BindText bindText = field.getAnnotation(BindText.class);
+        BindImageResource bindImage = field.getAnnotation(BindImageResource.class);
+        if (bindText != null && bindImage != null) {
+            error(field, "字段 %s 只能绑定到一个 View", field.getSimpleName());
+            return null;
+        }
+        if (bindText != null) {
+            TypeMirror charSequence =
+                    mElements.getTypeElement(CharSequence.class.getName()).asType();
+            String value = mTypes.isAssignable(type, charSequence) ?
+                    "data." + accessor : "String.valueOf(data." + accessor + ")";
+            return new Binding(field, bindText.value(), TEXT_VIEW, "setText(" + value + ")");
+        }
+        if (type.getKind() != TypeKind.INT) {
+            error(field, "@BindImageResource 只能用于 int 类型的资源 Id 字段");
+            return null;
+        }
+        return new Binding(field, bindImage.value(), IMAGE_VIEW,
+                "setImageResource(data." + accessor + ")");
+    }
+
+    /**
+     * 优先使用 getter，没有 getter 时直接访问非 private 字段
+     * @return 读取字段值的表达式，例如 {@code getName()}；无法访问时返回 null
+     */
+    private String accessorOf(VariableElement field) {
+        String name = field.getSimpleName().toString();
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        TypeElement model = (TypeElement) field.getEnclosingElement();
+        for (ExecutableElement method : ElementFilter.methodsIn(model.getEnclosedElements())) {
+            if (!method.getParameters().isEmpty()) continue;
+            if (method.getModifiers().contains(Modifier.PRIVATE)) continue;
+            if (method.getModifiers().contains(Modifier.STATIC)) continue;
+            if (!mTypes.isSameType(method.getReturnType(), field.asType())) continue;
+            String methodName = method.getSimpleName().toString();
+            if (methodName.equals("get" + capitalized) || (field.asType().getKind() ==
+                    TypeKind.BOOLEAN && methodName.equals("is" + capitalized)))
+            {
+                return methodName + "()";
+            }
+        }
+        if (field.getModifiers().contains(Modifier.PRIVATE)) return null;
+        return name;
+    }
+
+    private boolean checkModel(TypeElement model) {
+        if (model.getModifiers().contains(Modifier.PRIVATE)) {
+            error(model, "带有绑定注解的类 %s 不能是 private 的", model.getSimpleName());
+            return false;
+        }
+        if (model.getNestingKind() == NestingKind.MEMBER &&
+                !model.getModifiers().contains(Modifier.STATIC))
+        {
+            error(model, "带有绑定注解的内部类 %s 必须是 static 的", model.getSimpleName());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 生成类名为模型类的二进制简单名加后缀，例如 {@code Outer$Inner_ViewBinder}，
+     * 运行时只需要用 {@code Class.getName()} 拼接后缀就能找到
+     */
+    private String binderName(TypeElement model) {
+        String binaryName = mElements.getBinaryName(model).toString();
+        return binaryName.substring(binaryName.lastIndexOf('.') + 1) + BINDER_SUFFIX;
+    }
+
+    private void write(TypeElement model, List<Binding> bindings) throws IOException {
+        PackageElement pkg = mElements.getPackageOf(model);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String binderName = binderName(model);
+        String modelName = model.getQualifiedName().toString();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("// Generated code from ").append(getClass().getSimpleName())
+                .append(". Do not modify!\n");
+        if (!packageName.isEmpty()) sb.append("package ").append(packageName).append(";\n\n");
+        sb.append("public final class ").append(binderName).append(" implements ")
+                .append(VIEW_BINDER).append('<').append(modelName).append("> {\n");
+        for (Binding binding : bindings) {
+            sb.append("    private final ").append(binding.viewType).append(' ')
+                    .append(binding.fieldName).append(";\n");
+        }
+        sb.append('\n');
+        sb.append("    public ").append(binderName).append('(').append(VIEW)
+                .append(" itemView) {\n");
+        for (Binding binding : bindings) {
+            sb.append("        this.").append(binding.fieldName).append(" = (")
+                    .append(binding.viewType).append(") findView(itemView, ")
+                    .append(binding.viewId).append(");\n");
+        }
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    public void bind(").append(modelName).append(" data) {\n");
+        for (Binding binding : bindings) {
+            sb.append("        if (").append(binding.fieldName).append(" != null) ")
+                    .append(binding.fieldName).append('.').append(binding.statement)
+                    .append(";\n");
+        }
+        sb.append("    }\n\n");
+        sb.append("    private static ").append(VIEW).append(" findView(").append(VIEW)
+                .append(" itemView, int id) {\n");
+        sb.append("        return itemView.getId() == id ? itemView : itemView.findViewById(id);\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? binderName : packageName + '.' + binderName;
+        JavaFileObject file = mFiler.createSourceFile(qualifiedName, model);
+        Writer writer = file.openWriter();
+        try {
+            writer.write(sb.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void error(Element element, String message, Object... args) {
+        mMessager.printMessage(Diagnostic.Kind.ERROR, String.format(message, args), element);
+    }
+
+    /**
+     * 一个字段到一个 View 的绑定
+     */
+    private static class Binding {
+        final String fieldName;
+        final int viewId;
+        final String viewType;
+        /**
+         * 在 View 上执行的绑定语句，例如 {@code setText(data.getName())}
+         */
+        final String statement;
+
+        Binding(VariableElement field, int viewId, String viewType, String statement) {
+            String name = field.getSimpleName().toString();
+            //加上 m 前缀，避免和生成代码里的参数名冲突
+            this.fieldName = "m" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            this.viewId = viewId;
+            this.viewType = viewType;
+            this.statement = statement;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.jhj.expandablerecyclerview.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 把数据模型里 int 类型的图片资源 Id 字段绑定到列表项里指定 Id 的 {@code ImageView}，
+ * 由编译期生成的 ViewBinder 调用 {@code setImageResource}
+ * <p>字段不能是 private 的，除非提供了对应的 getter</p>
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface BindImageResource {
+    /**
+     * @return 要绑定的 ImageView 的 Id
+     */
+    int value();
+}
@@ -0,0 +1,20 @@
+package com.jhj.expandablerecyclerview.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 把数据模型的字段绑定到列表项里指定 Id 的 {@code TextView}，由编译期生成的 ViewBinder 调用 {@code setText}
+ * <p>字段是 {@link CharSequence} 时直接设置，其它类型先转换成字符串</p>
+ * <p>字段不能是 private 的，除非提供了对应的 getter，例如 {@code getName()} 或者 {@code isChecked()}</p>
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface BindText {
+    /**
+     * @return 要绑定的 TextView 的 Id
+     */
+    int value();
+}
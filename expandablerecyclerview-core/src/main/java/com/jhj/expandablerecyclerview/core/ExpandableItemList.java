@@ -0,0 +1,632 @@
+package com.jhj.expandablerecyclerview.core;
+
+import com.jhj.expandablerecyclerview.model.ParentItem;
+import com.jhj.expandablerecyclerview.model.ParentItemWrapper;
+
+import java.util.List;
+
+/**
+ * 可展开折叠列表的扁平化引擎，不依赖 Android，可以直接在 JVM 上测试和基准测试
+ * <p>
+ *     不再保存扁平化后的列表项集合，而是为每个父列表项记录它当前占用的行数(父列表项本身加上可见的子列表项)，
+ *     并用树状数组(Fenwick Tree)维护行数的前缀和：
+ *     <ul>
+ *         <li>适配器位置和父列表项位置、子列表项位置之间的转换为 O(log n)</li>
+ *         <li>展开、折叠以及子列表项的插入移除只需要更新一个父列表项的行数，为 O(log n)</li>
+ *         <li>父列表项的插入、移除和移动会使树状数组失效，在下一次查询时以 O(n) 重建</li>
+ *     </ul>
+ *     这里的 n 是父列表项的数量。为 null 的父列表项占用 0 行，不会显示，但仍然保留它在父列表里的位置
+ * </p>
+ * <p>
+ *     所有结构上的变化通过 {@link UpdateCallback} 以区间的形式通知，调用方负责把它们转发给具体的列表控件
+ * </p>
+ */
+public class ExpandableItemList {
+    private static final String TAG = "ExpandableItemList";
+
+    public static final int NO_POSITION = -1;
+
+    private static final int[] EMPTY_INDEXES = new int[0];
+
+    /**
+     * 列表项变化回调接口，位置都是扁平化后的适配器位置
+     */
+    public interface UpdateCallback {
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        void onChanged(int position, int count);
+    }
+
+    private static final UpdateCallback EMPTY_CALLBACK = new UpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {}
+
+        @Override
+        public void onRemoved(int position, int count) {}
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {}
+
+        @Override
+        public void onChanged(int position, int count) {}
+    };
+
+    private UpdateCallback mCallback = EMPTY_CALLBACK;
+
+    /**
+     * 客户端的父列表项集合
+     */
+    private List<? extends ParentItem> mParentItems;
+
+    /**
+     * 父列表项包装类，与客户端父列表项一一对应，为 null 的父列表项对应的包装类也为 null
+     */
+    private ParentItemWrapper[] mWrappers = new ParentItemWrapper[0];
+
+    /**
+     * 每个父列表项当前占用的行数
+     */
+    private int[] mRowCounts = EMPTY_INDEXES;
+
+    /**
+     * 行数的树状数组，下标从 1 开始
+     */
+    private int[] mTree = new int[1];
+
+    /**
+     * 树状数组是否和 {@link #mRowCounts} 一致，父列表项的插入移除移动之后需要重建
+     */
+    private boolean mTreeValid;
+
+    private int mParentCount;
+
+    private int mItemCount;
+
+    public ExpandableItemList(List<? extends ParentItem> parentItems) {
+        setParentItems(parentItems);
+    }
+
+    public void setUpdateCallback(UpdateCallback callback) {
+        mCallback = callback != null ? callback : EMPTY_CALLBACK;
+    }
+
+    /**
+     * 设置新的父列表项集合，根据 {@link ParentItem#isInitiallyExpanded()} 初始化展开状态，不会回调通知
+     * @param parentItems 父列表项集合
+     */
+    public void setParentItems(List<? extends ParentItem> parentItems) {
+        if (parentItems == null) {
+            throw new IllegalArgumentException("parentItems should not be null");
+        }
+        mParentItems = parentItems;
+        final int parentCount = parentItems.size();
+        mParentCount = parentCount;
+        mWrappers = new ParentItemWrapper[capacityFor(parentCount)];
+        mRowCounts = new int[mWrappers.length];
+        mItemCount = 0;
+        for (int i = 0; i < parentCount; i++) {
+            mItemCount += wrap(i, true);
+        }
+        mTreeValid = false;
+    }
+
+    public List<? extends ParentItem> getParentItems() {
+        return mParentItems;
+    }
+
+    /**
+     * 当前显示的列表项(父列表项和所有展开的子列表项)数量
+     */
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    /**
+     * 父列表项数量，包括为 null 的父列表项
+     */
+    public int getParentCount() {
+        return mParentCount;
+    }
+
+    /**
+     * 获取指定父列表项的包装类
+     * @param parentPosition 父列表项在父列表里的位置
+     * @return 父列表项包装类，位置无效或者父列表项为 null 时返回 null
+     */
+    public ParentItemWrapper getParentWrapper(int parentPosition) {
+        if (parentPosition < 0 || parentPosition >= mParentCount) return null;
+        return mWrappers[parentPosition];
+    }
+
+    /**
+     * 获取指定适配器位置的列表项
+     * @param position 适配器位置
+     * @return 父列表项位置返回 {@link ParentItemWrapper}，子列表项位置返回子列表项
+     */
+    public Object getItem(int position) {
+        checkPosition(position);
+        final int parentPos = findParent(position);
+        final int offset = position - prefixSum(parentPos);
+        final ParentItemWrapper parentItemWrapper = mWrappers[parentPos];
+        return offset == 0 ? parentItemWrapper :
+                parentItemWrapper.getChildItems().get(offset - 1);
+    }
+
+    /**
+     * 指定适配器位置的列表项是否是父列表项
+     */
+    public boolean isParent(int position) {
+        if (position < 0 || position >= mItemCount) return false;
+        return position == prefixSum(findParent(position));
+    }
+
+    /**
+     * 根据列表项在适配器里的位置返回它在父列表里的位置，子列表项返回所属父列表项的位置
+     */
+    public int getParentPosition(int position) {
+        if (position < 0 || position >= mItemCount) return NO_POSITION;
+        return findParent(position);
+    }
+
+    /**
+     * 根据子列表项在适配器里的位置返回它在子列表里的位置，父列表项返回 {@link #NO_POSITION}
+     */
+    public int getChildPosition(int position) {
+        if (position < 0 || position >= mItemCount) return NO_POSITION;
+        return position - prefixSum(findParent(position)) - 1;
+    }
+
+    /**
+     * 父列表项在适配器里对应的位置，父列表项为 null 时返回 {@link #NO_POSITION}
+     */
+    public int getParentAdapterPosition(int parentPosition) {
+        if (parentPosition < 0 || parentPosition >= mParentCount ||
+                mWrappers[parentPosition] == null) return NO_POSITION;
+        return prefixSum(parentPosition);
+    }
+
+    /**
+     * 子列表项在适配器里对应的位置，父列表项没有展开或者子列表项不可见时返回 {@link #NO_POSITION}
+     */
+    public int getChildAdapterPosition(int parentPosition, int childPosition) {
+        if (parentPosition < 0 || parentPosition >= mParentCount || childPosition < 0 ||
+                childPosition >= getVisibleChildCount(parentPosition)) return NO_POSITION;
+        return prefixSum(parentPosition) + childPosition + 1;
+    }
+
+    /**
+     * 父列表项当前可见的子列表项数量，折叠时为 0
+     */
+    public int getVisibleChildCount(int parentPosition) {
+        if (parentPosition < 0 || parentPosition >= mParentCount) return 0;
+        final int rowCount = mRowCounts[parentPosition];
+        return rowCount > 0 ? rowCount - 1 : 0;
+    }
+
+    /**
+     * 展开父列表项
+     * @return 是否展开成功，已经展开或者没有子列表项时返回 false
+     */
+    public boolean expand(int parentPosition) {
+        ParentItemWrapper parentItemWrapper = getParentWrapper(parentPosition);
+        if (parentItemWrapper == null || parentItemWrapper.isExpanded()) return false;
+        final int childCount = parentItemWrapper.getChildItemCount();
+        if (childCount == 0) return false;
+        parentItemWrapper.setExpanded(true);
+        updateRowCount(parentPosition, childCount);
+        mCallback.onInserted(prefixSum(parentPosition) + 1, childCount);
+        return true;
+    }
+
+    /**
+     * 折叠父列表项
+     * @return 是否折叠成功，已经折叠时返回 false
+     */
+    public boolean collapse(int parentPosition) {
+        ParentItemWrapper parentItemWrapper = getParentWrapper(parentPosition);
+        if (parentItemWrapper == null || !parentItemWrapper.isExpanded()) return false;
+        final int childCount = getVisibleChildCount(parentPosition);
+        parentItemWrapper.setExpanded(false);
+        if (childCount > 0) {
+            updateRowCount(parentPosition, -childCount);
+            mCallback.onRemoved(prefixSum(parentPosition) + 1, childCount);
+        }
+        return true;
+    }
+
+    /**
+     * 父列表项集合中已经插入了新的父列表项后调用
+     * @param parentPositionStart 新父列表项的起始位置
+     * @param parentItemCount 新父列表项的数量
+     * @return 插入的行数(父列表项和其初始展开的子列表项)
+     */
+    public int insertParents(int parentPositionStart, int parentItemCount) {
+        if (parentPositionStart < 0 || parentPositionStart > mParentCount ||
+                parentItemCount <= 0) return 0;
+        final int adapterPosStart = prefixSum(parentPositionStart);
+        final int newParentCount = mParentCount + parentItemCount;
+        if (newParentCount > mWrappers.length) {
+            final int capacity = capacityFor(newParentCount);
+            ParentItemWrapper[] wrappers = new ParentItemWrapper[capacity];
+            int[] rowCounts = new int[capacity];
+            System.arraycopy(mWrappers, 0, wrappers, 0, parentPositionStart);
+            System.arraycopy(mRowCounts, 0, rowCounts, 0, parentPositionStart);
+            System.arraycopy(mWrappers, parentPositionStart, wrappers,
+                    parentPositionStart + parentItemCount, mParentCount - parentPositionStart);
+            System.arraycopy(mRowCounts, parentPositionStart, rowCounts,
+                    parentPositionStart + parentItemCount, mParentCount - parentPositionStart);
+            mWrappers = wrappers;
+            mRowCounts = rowCounts;
+        } else {
+            System.arraycopy(mWrappers, parentPositionStart, mWrappers,
+                    parentPositionStart + parentItemCount, mParentCount - parentPositionStart);
+            System.arraycopy(mRowCounts, parentPositionStart, mRowCounts,
+                    parentPositionStart + parentItemCount, mParentCount - parentPositionStart);
+        }
+        mParentCount = newParentCount;
+        int insertedItemCount = 0;
+        for (int i = parentPositionStart; i < parentPositionStart + parentItemCount; i++) {
+            insertedItemCount += wrap(i, true);
+        }
+        mItemCount += insertedItemCount;
+        mTreeValid = false;
+        if (insertedItemCount > 0) mCallback.onInserted(adapterPosStart, insertedItemCount);
+        return insertedItemCount;
+    }
+
+    /**
+     * 父列表项集合中已经移除了父列表项后调用
+     * @param parentPositionStart 移除的父列表项的起始位置
+     * @param parentItemCount 移除的父列表项的数量
+     * @return 移除的行数
+     */
+    public int removeParents(int parentPositionStart, int parentItemCount) {
+        if (parentPositionStart < 0 || parentPositionStart >= mParentCount ||
+                parentItemCount <= 0) return 0;
+        parentItemCount = Math.min(parentItemCount, mParentCount - parentPositionStart);
+        final int parentPositionEnd = parentPositionStart + parentItemCount;
+        final int adapterPosStart = prefixSum(parentPositionStart);
+        final int removedItemCount = prefixSum(parentPositionEnd) - adapterPosStart;
+        System.arraycopy(mWrappers, parentPositionEnd, mWrappers, parentPositionStart,
+                mParentCount - parentPositionEnd);
+        System.arraycopy(mRowCounts, parentPositionEnd, mRowCounts, parentPositionStart,
+                mParentCount - parentPositionEnd);
+        mParentCount -= parentItemCount;
+        for (int i = mParentCount; i < mParentCount + parentItemCount; i++) {
+            mWrappers[i] = null;
+            mRowCounts[i] = 0;
+        }
+        mItemCount -= removedItemCount;
+        mTreeValid = false;
+        if (removedItemCount > 0) mCallback.onRemoved(adapterPosStart, removedItemCount);
+        return removedItemCount;
+    }
+
+    /**
+     * 父列表项数据已经改变后调用，重新关联父列表项集合中对应位置的父列表项，连续的行合并为一次通知
+     * @param parentPositionStart 改变的父列表项起始位置
+     * @param parentItemCount 改变的父列表项数量
+     */
+    public void changeParents(int parentPositionStart, int parentItemCount) {
+        if (parentPositionStart < 0) return;
+        final int parentPositionEnd = Math.min(parentPositionStart + parentItemCount,
+                mParentCount);
+        int rangeStart = NO_POSITION;
+        int rangeCount = 0;
+        for (int i = parentPositionStart; i < parentPositionEnd; i++) {
+            ParentItem changedParentItem = mParentItems.get(i);
+            ParentItemWrapper parentItemWrapper = mWrappers[i];
+            if (changedParentItem == null || parentItemWrapper == null) continue;
+            parentItemWrapper.setParentItem(changedParentItem);
+            final int adapterPos = prefixSum(i);
+            if (rangeStart + rangeCount != adapterPos) {
+                if (rangeCount > 0) mCallback.onChanged(rangeStart, rangeCount);
+                rangeStart = adapterPos;
+                rangeCount = 0;
+            }
+            rangeCount++;
+        }
+        if (rangeCount > 0) mCallback.onChanged(rangeStart, rangeCount);
+    }
+
+    /**
+     * 父列表项已经从 {@code fromParentPosition} 移动到 {@code toParentPosition} 后调用，
+     * 展开的子列表项跟随父列表项一起移动
+     */
+    public void moveParent(int fromParentPosition, int toParentPosition) {
+        if (fromParentPosition == toParentPosition || fromParentPosition < 0 ||
+                toParentPosition < 0 || fromParentPosition >= mParentCount ||
+                toParentPosition >= mParentCount) return;
+        final int fromAdapterPos = prefixSum(fromParentPosition);
+        final ParentItemWrapper movedWrapper = mWrappers[fromParentPosition];
+        final int movedRowCount = mRowCounts[fromParentPosition];
+        if (fromParentPosition < toParentPosition) {
+            System.arraycopy(mWrappers, fromParentPosition + 1, mWrappers, fromParentPosition,
+                    toParentPosition - fromParentPosition);
+            System.arraycopy(mRowCounts, fromParentPosition + 1, mRowCounts, fromParentPosition,
+                    toParentPosition - fromParentPosition);
+        } else {
+            System.arraycopy(mWrappers, toParentPosition, mWrappers, toParentPosition + 1,
+                    fromParentPosition - toParentPosition);
+            System.arraycopy(mRowCounts, toParentPosition, mRowCounts, toParentPosition + 1,
+                    fromParentPosition - toParentPosition);
+        }
+        mWrappers[toParentPosition] = movedWrapper;
+        mRowCounts[toParentPosition] = movedRowCount;
+        mTreeValid = false;
+        final int toAdapterPos = prefixSum(toParentPosition);
+        if (toAdapterPos > fromAdapterPos) {
+            //向下移动时每次把块的第一行移动到目标块的最后一行
+            for (int i = 0; i < movedRowCount; i++) {
+                mCallback.onMoved(fromAdapterPos, toAdapterPos + movedRowCount - 1);
+            }
+        } else {
+            for (int i = 0; i < movedRowCount; i++) {
+                mCallback.onMoved(fromAdapterPos + i, toAdapterPos + i);
+            }
+        }
+    }
+
+    /**
+     * 子列表项已经插入到父列表项的子列表后调用，只有父列表项已展开时才会插入行
+     * @return 是否插入了行
+     */
+    public boolean insertChildren(int parentPosition, int childPositionStart,
+            int childItemCount)
+    {
+        ParentItemWrapper parentItemWrapper = getParentWrapper(parentPosition);
+        if (parentItemWrapper == null || !parentItemWrapper.isExpanded() || childItemCount <= 0 ||
+                childPositionStart < 0 ||
+                childPositionStart > getVisibleChildCount(parentPosition)) return false;
+        updateRowCount(parentPosition, childItemCount);
+        mCallback.onInserted(prefixSum(parentPosition) + 1 + childPositionStart, childItemCount);
+        return true;
+    }
+
+    /**
+     * 子列表项已经从父列表项的子列表移除后调用，只有父列表项已展开时才会移除行，
+     * 所有可见的子列表项都移除后父列表项变为折叠状态
+     * @return 是否移除了行
+     */
+    public boolean removeChildren(int parentPosition, int childPositionStart,
+            int childItemCount)
+    {
+        ParentItemWrapper parentItemWrapper = getParentWrapper(parentPosition);
+        if (parentItemWrapper == null || !parentItemWrapper.isExpanded() || childItemCount <= 0)
+            return false;
+        final int visibleChildCount = getVisibleChildCount(parentPosition);
+        if (childPositionStart < 0 || childPositionStart >= visibleChildCount) return false;
+        childItemCount = Math.min(childItemCount, visibleChildCount - childPositionStart);
+        updateRowCount(parentPosition, -childItemCount);
+        if (childItemCount == visibleChildCount) parentItemWrapper.setExpanded(false);
+        mCallback.onRemoved(prefixSum(parentPosition) + 1 + childPositionStart, childItemCount);
+        return true;
+    }
+
+    /**
+     * 子列表项数据已经改变后调用，只有父列表项已展开时才会通知
+     */
+    public void changeChildren(int parentPosition, int childPositionStart, int childItemCount) {
+        ParentItemWrapper parentItemWrapper = getParentWrapper(parentPosition);
+        if (parentItemWrapper == null || !parentItemWrapper.isExpanded()) return;
+        final int visibleChildCount = getVisibleChildCount(parentPosition);
+        if (childPositionStart < 0 || childPositionStart >= visibleChildCount) return;
+        childItemCount = Math.min(childItemCount, visibleChildCount - childPositionStart);
+        if (childItemCount <= 0) return;
+        mCallback.onChanged(prefixSum(parentPosition) + 1 + childPositionStart, childItemCount);
+    }
+
+    /**
+     * 子列表项已经在两个展开的父列表项(可以是同一个)之间移动后调用
+     * @return 是否移动了行，任意一个父列表项没有展开时返回 false
+     */
+    public boolean moveChild(int fromParentPosition, int fromChildPosition,
+            int toParentPosition, int toChildPosition)
+    {
+        final int fromAdapterPos = getChildAdapterPosition(fromParentPosition,
+                fromChildPosition);
+        ParentItemWrapper toParentItemWrapper = getParentWrapper(toParentPosition);
+        if (fromAdapterPos == NO_POSITION || toParentItemWrapper == null ||
+                !toParentItemWrapper.isExpanded()) return false;
+        if (fromParentPosition != toParentPosition) {
+            if (toChildPosition < 0 ||
+                    toChildPosition > getVisibleChildCount(toParentPosition)) return false;
+            updateRowCount(fromParentPosition, -1);
+            updateRowCount(toParentPosition, 1);
+        } else if (toChildPosition < 0 ||
+                toChildPosition >= getVisibleChildCount(toParentPosition)) return false;
+        mCallback.onMoved(fromAdapterPos, prefixSum(toParentPosition) + 1 + toChildPosition);
+        return true;
+    }
+
+    /**
+     * 更新父列表项下可见的子列表项，只通知新旧可见子列表项之间变化的连续区间
+     * @param parentPosition 父列表项在父列表里的位置
+     * @param filteredIndexes 保留的子列表项在原始子列表里的位置(升序)，为 null 时保留所有子列表项
+     * @param expand 是否展开该父列表项
+     * @return 更新后父列表项是否为展开状态，没有可见的子列表项时总是折叠的
+     */
+    public boolean setVisibleChildIndexes(int parentPosition, int[] filteredIndexes,
+            boolean expand)
+    {
+        ParentItemWrapper parentItemWrapper = getParentWrapper(parentPosition);
+        if (parentItemWrapper == null) return false;
+        final int[] oldIndexes = parentItemWrapper.isExpanded() ?
+                getVisibleChildIndexes(parentItemWrapper) : EMPTY_INDEXES;
+        parentItemWrapper.setFilteredChildIndexes(filteredIndexes);
+        final int[] newIndexes =
+                expand ? getVisibleChildIndexes(parentItemWrapper) : EMPTY_INDEXES;
+        final boolean expanded = newIndexes.length > 0;
+        parentItemWrapper.setExpanded(expanded);
+
+        int pos = prefixSum(parentPosition) + 1;
+        int oldIndex = 0;
+        int newIndex = 0;
+        //新旧位置都是升序的，同时遍历找出连续移除和连续插入的区间
+        while (oldIndex < oldIndexes.length || newIndex < newIndexes.length) {
+            if (oldIndex < oldIndexes.length && newIndex < newIndexes.length &&
+                    oldIndexes[oldIndex] == newIndexes[newIndex]) {
+                oldIndex++;
+                newIndex++;
+                pos++;
+            } else if (newIndex >= newIndexes.length || (oldIndex < oldIndexes.length &&
+                    oldIndexes[oldIndex] < newIndexes[newIndex])) {
+                final int start = oldIndex;
+                while (oldIndex < oldIndexes.length && (newIndex >= newIndexes.length ||
+                        oldIndexes[oldIndex] < newIndexes[newIndex])) {
+                    oldIndex++;
+                }
+                final int removedCount = oldIndex - start;
+                updateRowCount(parentPosition, -removedCount);
+                mCallback.onRemoved(pos, removedCount);
+            } else {
+                final int start = newIndex;
+                while (newIndex < newIndexes.length && (oldIndex >= oldIndexes.length ||
+                        newIndexes[newIndex] < oldIndexes[oldIndex])) {
+                    newIndex++;
+                }
+                final int insertedCount = newIndex - start;
+                updateRowCount(parentPosition, insertedCount);
+                mCallback.onInserted(pos, insertedCount);
+                pos += insertedCount;
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * 获取所有父列表项的展开状态
+     */
+    public boolean[] getExpansionState() {
+        boolean[] expansionState = new boolean[mParentCount];
+        for (int i = 0; i < mParentCount; i++) {
+            expansionState[i] = mWrappers[i] != null && mWrappers[i].isExpanded();
+        }
+        return expansionState;
+    }
+
+    /**
+     * 按照保存的展开状态重新构建所有父列表项，清除过滤结果，不会回调通知
+     * <p>如果恢复时父列表项的数量与保存时不同，多出的父列表项为折叠状态</p>
+     * @param expansionState 之前保存的展开状态
+     */
+    public void setExpansionState(boolean[] expansionState) {
+        mItemCount = 0;
+        for (int i = 0; i < mParentCount; i++) {
+            mItemCount += wrap(i, false);
+            if (i < expansionState.length && expansionState[i] && mWrappers[i] != null) {
+                final int childCount = mWrappers[i].getChildItemCount();
+                if (childCount == 0) continue;
+                mWrappers[i].setExpanded(true);
+                mRowCounts[i] += childCount;
+                mItemCount += childCount;
+            }
+        }
+        mTreeValid = false;
+    }
+
+    /**
+     * 为父列表项集合中指定位置的父列表项创建包装类
+     * @param initialExpansion 是否根据 {@link ParentItem#isInitiallyExpanded()} 初始化展开状态
+     * @return 该父列表项占用的行数
+     */
+    private int wrap(int position, boolean initialExpansion) {
+        ParentItem parentItem = mParentItems.get(position);
+        if (parentItem == null) {
+            mWrappers[position] = null;
+            mRowCounts[position] = 0;
+            return 0;
+        }
+        ParentItemWrapper parentItemWrapper = new ParentItemWrapper(parentItem);
+        int rowCount = 1;
+        if (initialExpansion && parentItemWrapper.isInitiallyExpanded()) {
+            final int childCount = parentItemWrapper.getChildItemCount();
+            //父列表项返回的 ChildItems 为 null 或者 childCount 为0 设置为折叠状态
+            parentItemWrapper.setExpanded(childCount > 0);
+            rowCount += childCount;
+        }
+        mWrappers[position] = parentItemWrapper;
+        mRowCounts[position] = rowCount;
+        return rowCount;
+    }
+
+    private static int[] getVisibleChildIndexes(ParentItemWrapper parentItemWrapper) {
+        int[] filteredIndexes = parentItemWrapper.getFilteredChildIndexes();
+        if (filteredIndexes != null) return filteredIndexes;
+        final int childCount = parentItemWrapper.getChildItemCount();
+        int[] indexes = new int[childCount];
+        for (int i = 0; i < childCount; i++) {
+            indexes[i] = i;
+        }
+        return indexes;
+    }
+
+    private static int capacityFor(int parentCount) {
+        return Math.max(parentCount + (parentCount >> 1), 8);
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= mItemCount) {
+            throw new IndexOutOfBoundsException(
+                    "Invalid position " + position + ", item count " + mItemCount);
+        }
+    }
+
+    //———————————————————————————树状数组———————————————————————————————————————\\
+
+    private void ensureTree() {
+        if (mTreeValid) return;
+        final int n = mParentCount;
+        if (mTree.length < n + 1) mTree = new int[mWrappers.length + 1];
+        mTree[0] = 0;
+        for (int i = 1; i <= n; i++) {
+            mTree[i] = mRowCounts[i - 1];
+        }
+        for (int i = 1; i <= n; i++) {
+            final int parent = i + (i & -i);
+            if (parent <= n) mTree[parent] += mTree[i];
+        }
+        mTreeValid = true;
+    }
+
+    private void updateRowCount(int parentPosition, int delta) {
+        mRowCounts[parentPosition] += delta;
+        mItemCount += delta;
+        if (!mTreeValid) return;
+        for (int i = parentPosition + 1; i <= mParentCount; i += i & -i) {
+            mTree[i] += delta;
+        }
+    }
+
+    /**
+     * 前 {@code parentCount} 个父列表项占用的总行数，即第 {@code parentCount} 个父列表项的适配器位置
+     */
+    private int prefixSum(int parentCount) {
+        ensureTree();
+        int sum = 0;
+        for (int i = parentCount; i > 0; i -= i & -i) {
+            sum += mTree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 查找适配器位置所在的父列表项，即前缀和大于 {@code position} 的最小下标
+     */
+    private int findParent(int position) {
+        ensureTree();
+        int index = 0;
+        for (int mask = Integer.highestOneBit(mParentCount); mask != 0; mask >>= 1) {
+            final int next = index + mask;
+            if (next <= mParentCount && mTree[next] <= position) {
+                index = next;
+                position -= mTree[next];
+            }
+        }
+        return index;
+    }
+}
@@ -1,5 +1,6 @@
 package com.jhj.expandablerecyclerview.model;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -19,6 +20,16 @@ public class ParentItemWrapper {
      */
     private boolean mExpanded = false;
 
+    /**
+     * 过滤后保留的子列表项在原始子列表里的位置，为 null 时表示没有过滤
+     */
+    private int[] mFilteredChildIndexes;
+
+    /**
+     * 过滤后保留的子列表项
+     */
+    private List<Object> mFilteredChildItems;
+
     public ParentItemWrapper(ParentItem parentItem) {
         mParentItem = parentItem;
     }
@@ -71,12 +82,55 @@ public class ParentItemWrapper {
 
     /**
      * 回调获取属于该父列表项的所有子列表项
+     * <p>如果当前设置了过滤结果，返回过滤后保留的子列表项</p>
      * @return
      */
     public List<?> getChildItems() {
+        return mFilteredChildItems != null ? mFilteredChildItems : mParentItem.getChildItems();
+    }
+
+    /**
+     * 回调获取属于该父列表项的所有原始子列表项，不受过滤结果影响
+     * @return
+     */
+    public List<?> getSourceChildItems() {
         return mParentItem.getChildItems();
     }
 
+    /**
+     * 设置过滤后保留的子列表项
+     * @param filteredChildIndexes 保留的子列表项在原始子列表里的位置(升序)，为 null 时清除过滤结果
+     */
+    public void setFilteredChildIndexes(int[] filteredChildIndexes) {
+        mFilteredChildIndexes = filteredChildIndexes;
+        if (filteredChildIndexes == null) {
+            mFilteredChildItems = null;
+            return;
+        }
+        List<?> sourceChildItems = getSourceChildItems();
+        List<Object> filteredChildItems = new ArrayList<>(filteredChildIndexes.length);
+        for (int childIndex : filteredChildIndexes) {
+            filteredChildItems.add(sourceChildItems.get(childIndex));
+        }
+        mFilteredChildItems = filteredChildItems;
+    }
+
+    /**
+     * 获取过滤后保留的子列表项在原始子列表里的位置
+     * @return 保留的子列表项位置，没有过滤时返回 null
+     */
+    public int[] getFilteredChildIndexes() {
+        return mFilteredChildIndexes;
+    }
+
+    /**
+     * 当前是否设置了过滤结果
+     * @return
+     */
+    public boolean isFiltered() {
+        return mFilteredChildIndexes != null;
+    }
+
     public int getChildItemCount() {
         List<?> childItems = getChildItems();
         return childItems != null ? childItems.size() : 0;
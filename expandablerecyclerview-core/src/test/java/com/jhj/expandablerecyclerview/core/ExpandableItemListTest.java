@@ -0,0 +1,239 @@
+package com.jhj.expandablerecyclerview.core;
+
+import com.jhj.expandablerecyclerview.model.ParentItem;
+import com.jhj.expandablerecyclerview.model.ParentItemWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 每次操作之后，按照回调把变化应用到一份镜像列表上，并和根据展开状态直接展开得到的列表比较
+ */
+public class ExpandableItemListTest {
+
+    private List<Parent> mParents;
+    private ExpandableItemList mItemList;
+    private List<Object> mMirror;
+
+    @Before
+    public void setUp() throws Exception {
+        mParents = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            mParents.add(new Parent("p" + i, i + 1, i % 2 == 0));
+        }
+        mItemList = new ExpandableItemList(mParents);
+        mMirror = flatten();
+        mItemList.setUpdateCallback(new ExpandableItemList.UpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                for (int i = 0; i < count; i++) {
+                    mMirror.add(position + i, unwrap(mItemList.getItem(position + i)));
+                }
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                mMirror.subList(position, position + count).clear();
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                mMirror.add(toPosition, mMirror.remove(fromPosition));
+            }
+
+            @Override
+            public void onChanged(int position, int count) {}
+        });
+    }
+
+    @Test
+    public void initialState_followsInitiallyExpanded() throws Exception {
+        //p0(1 child) p2(3) p4(5) 初始展开
+        assertEquals(5 + 1 + 3 + 5, mItemList.getItemCount());
+        assertConsistent();
+    }
+
+    @Test
+    public void positionMapping_isConsistent() throws Exception {
+        for (int pos = 0; pos < mItemList.getItemCount(); pos++) {
+            final int parentPos = mItemList.getParentPosition(pos);
+            final int childPos = mItemList.getChildPosition(pos);
+            if (mItemList.isParent(pos)) {
+                assertEquals(ExpandableItemList.NO_POSITION, childPos);
+                assertEquals(pos, mItemList.getParentAdapterPosition(parentPos));
+            } else {
+                assertEquals(mParents.get(parentPos).children.get(childPos),
+                        mItemList.getItem(pos));
+                assertEquals(pos, mItemList.getChildAdapterPosition(parentPos, childPos));
+            }
+        }
+        assertEquals(ExpandableItemList.NO_POSITION,
+                mItemList.getParentPosition(mItemList.getItemCount()));
+    }
+
+    @Test
+    public void expandCollapse() throws Exception {
+        assertTrue(mItemList.expand(1));
+        assertFalse(mItemList.expand(1));
+        assertConsistent();
+        assertTrue(mItemList.collapse(2));
+        assertFalse(mItemList.collapse(2));
+        assertConsistent();
+    }
+
+    @Test
+    public void insertAndRemoveParents() throws Exception {
+        mParents.add(2, new Parent("new0", 2, true));
+        mParents.add(3, new Parent("new1", 2, false));
+        assertEquals(4, mItemList.insertParents(2, 2));
+        assertConsistent();
+
+        mParents.subList(0, 3).clear();
+        mItemList.removeParents(0, 3);
+        assertConsistent();
+    }
+
+    @Test
+    public void insertAndRemoveChildren() throws Exception {
+        mParents.get(2).children.add(1, "p2-new");
+        assertTrue(mItemList.insertChildren(2, 1, 1));
+        //折叠的父列表项不插入行
+        mParents.get(1).children.add("p1-new");
+        assertFalse(mItemList.insertChildren(1, 2, 1));
+        assertConsistent();
+
+        mParents.get(0).children.clear();
+        assertTrue(mItemList.removeChildren(0, 0, 1));
+        assertFalse(mItemList.getParentWrapper(0).isExpanded());
+        assertConsistent();
+    }
+
+    @Test
+    public void moveParent() throws Exception {
+        mParents.add(3, mParents.remove(0));
+        mItemList.moveParent(0, 3);
+        assertConsistent();
+
+        mParents.add(0, mParents.remove(4));
+        mItemList.moveParent(4, 0);
+        assertConsistent();
+    }
+
+    @Test
+    public void moveChild() throws Exception {
+        List<String> from = mParents.get(4).children;
+        List<String> to = mParents.get(2).children;
+        to.add(1, from.remove(3));
+        assertTrue(mItemList.moveChild(4, 3, 2, 1));
+        assertConsistent();
+
+        Collections.swap(to, 0, 1);
+        assertTrue(mItemList.moveChild(2, 1, 2, 0));
+        assertConsistent();
+    }
+
+    @Test
+    public void visibleChildIndexes() throws Exception {
+        assertTrue(mItemList.setVisibleChildIndexes(4, new int[]{1, 3}, true));
+        assertEquals(2, mItemList.getVisibleChildCount(4));
+        assertTrue(mItemList.setVisibleChildIndexes(1, new int[]{0}, true));
+        assertFalse(mItemList.setVisibleChildIndexes(2, new int[0], true));
+        assertConsistent();
+
+        assertTrue(mItemList.setVisibleChildIndexes(4, null, true));
+        assertEquals(5, mItemList.getVisibleChildCount(4));
+        assertConsistent();
+    }
+
+    @Test
+    public void nullParent_isHidden() throws Exception {
+        mParents.add(1, null);
+        assertEquals(0, mItemList.insertParents(1, 1));
+        assertEquals(6, mItemList.getParentCount());
+        assertEquals(ExpandableItemList.NO_POSITION, mItemList.getParentAdapterPosition(1));
+        assertEquals(2, mItemList.getParentPosition(2));
+        assertConsistent();
+    }
+
+    @Test
+    public void expansionState_roundTrip() throws Exception {
+        boolean[] state = mItemList.getExpansionState();
+        mItemList.expand(1);
+        mItemList.collapse(0);
+        mItemList.setExpansionState(state);
+        assertArrayEquals(state, mItemList.getExpansionState());
+        assertEquals(flatten(), snapshot());
+    }
+
+    private void assertConsistent() {
+        List<Object> expected = flatten();
+        assertEquals(expected, mMirror);
+        assertEquals(expected, snapshot());
+    }
+
+    private List<Object> snapshot() {
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < mItemList.getItemCount(); i++) {
+            items.add(unwrap(mItemList.getItem(i)));
+        }
+        return items;
+    }
+
+    private static Object unwrap(Object item) {
+        return item instanceof ParentItemWrapper ? ((ParentItemWrapper) item).getParentItem() :
+                item;
+    }
+
+    private List<Object> flatten() {
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < mItemList.getParentCount(); i++) {
+            ParentItemWrapper parentItemWrapper = mItemList.getParentWrapper(i);
+            if (parentItemWrapper == null) continue;
+            items.add(parentItemWrapper.getParentItem());
+            if (parentItemWrapper.isExpanded()) {
+                items.addAll(parentItemWrapper.getChildItems());
+            }
+        }
+        return items;
+    }
+
+    private static class Parent implements ParentItem<String> {
+        final String name;
+        final List<String> children = new ArrayList<>();
+        final boolean initiallyExpanded;
+
+        Parent(String name, int childCount, boolean initiallyExpanded) {
+            this.name = name;
+            this.initiallyExpanded = initiallyExpanded;
+            for (int i = 0; i < childCount; i++) {
+                children.add(name + "-c" + i);
+            }
+        }
+
+        @Override
+        public List<String> getChildItems() {
+            return children;
+        }
+
+        @Override
+        public boolean isExpandable() {
+            return true;
+        }
+
+        @Override
+        public boolean isInitiallyExpanded() {
+            return initiallyExpanded;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.jhj.expandablerecyclerview.adapter;
+
+import com.jhj.expandablerecyclerview.model.ParentItem;
+
+/**
+ * 子列表项过滤器，配合 {@link ExpandableAdapter#filter(CharSequence)} 使用
+ * <p>
+ *     {@link #accept(ParentItem, Object, CharSequence)} 在工作线程中回调，实现类不能访问 View 或修改数据源
+ * </p>
+ */
+public abstract class ChildFilter {
+    private static final String TAG = "ChildFilter";
+
+    /**
+     * 判断指定的子列表项是否符合过滤条件
+     * <p><b>注意：该方法在工作线程中回调</b></p>
+     * @param parentItem 该子列表项所属的父列表项
+     * @param childItem 要判断的子列表项
+     * @param constraint 过滤条件，不会为 null 或空
+     * @return 是否保留该子列表项
+     */
+    public abstract boolean accept(ParentItem parentItem, Object childItem, CharSequence constraint);
+
+    /**
+     * 判断新的过滤条件是否是在上一次过滤条件基础上的进一步收窄
+     * <p>
+     *     返回 true 时只会在上一次过滤结果中继续过滤，而不是重新遍历所有子列表项。
+     *     默认实现认为以上一次条件开头的新条件为收窄，适用于 "包含" 一类的匹配方式，
+     *     如果 {@link #accept(ParentItem, Object, CharSequence)} 不满足该前提需要覆盖该方法
+     * </p>
+     * @param previous 上一次完成的过滤条件
+     * @param current 当前的过滤条件
+     * @return 当前条件的匹配结果是否一定是上一次匹配结果的子集
+     */
+    public boolean isNarrowing(CharSequence previous, CharSequence current) {
+        return current.toString().startsWith(previous.toString());
+    }
+}
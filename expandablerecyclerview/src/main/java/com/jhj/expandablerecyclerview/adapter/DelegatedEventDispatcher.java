@@ -0,0 +1,137 @@
+package com.jhj.expandablerecyclerview.adapter;
+
+import android.support.v4.view.AccessibilityDelegateCompat;
+import android.support.v4.view.GestureDetectorCompat;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.RecyclerViewAccessibilityDelegate;
+import android.view.GestureDetector;
+import android.view.HapticFeedbackConstants;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
+import android.view.View;
+
+import com.jhj.expandablerecyclerview.viewholder.BaseViewHolder;
+import com.jhj.expandablerecyclerview.viewholder.Event;
+
+/**
+ * {@link BaseViewHolder#EVENT_MODE_DELEGATED} 模式下挂在 {@link RecyclerView} 上的唯一触摸监听器
+ * <p>
+ *     通过手势识别单击和长按，命中测试出触摸的列表项和注册了该事件的 View 后调用
+ *     {@link BaseViewHolder#performEvent(View, Event.EventType)}，列表项里的 View 不需要设置任何监听器。
+ *     不拦截触摸事件，RecyclerView 的滚动不受影响
+ * </p>
+ * <p>
+ *     同时替换 RecyclerView 的无障碍代理，由它为 itemView 提供的列表项无障碍代理外层包一层
+ *     {@link BaseViewHolder.DelegatedAccessibility}，无障碍服务点击 itemView 时同样分发给 ViewHolder；
+ *     {@link #detach()} 时恢复原来的无障碍代理
+ * </p>
+ */
+class DelegatedEventDispatcher extends GestureDetector.SimpleOnGestureListener
+        implements RecyclerView.OnItemTouchListener
+{
+    private static final String TAG = "DelegatedEventDispatcher";
+
+    private final RecyclerView mRecyclerView;
+    private final GestureDetectorCompat mGestureDetector;
+    private RecyclerViewAccessibilityDelegate mOriginalAccessibility;
+    private RecyclerViewAccessibilityDelegate mItemAccessibility;
+
+    DelegatedEventDispatcher(RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        mGestureDetector = new GestureDetectorCompat(recyclerView.getContext(), this);
+    }
+
+    void attach() {
+        mRecyclerView.addOnItemTouchListener(this);
+        mOriginalAccessibility = mRecyclerView.getCompatAccessibilityDelegate();
+        mItemAccessibility = new ItemAccessibility(mRecyclerView);
+        mRecyclerView.setAccessibilityDelegateCompat(mItemAccessibility);
+    }
+
+    void detach() {
+        mRecyclerView.removeOnItemTouchListener(this);
+        //期间被其他人替换过时不恢复
+        if (mRecyclerView.getCompatAccessibilityDelegate() == mItemAccessibility) {
+            mRecyclerView.setAccessibilityDelegateCompat(mOriginalAccessibility);
+        }
+        mOriginalAccessibility = null;
+        mItemAccessibility = null;
+    }
+
+    RecyclerView getRecyclerView() {
+        return mRecyclerView;
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+        mGestureDetector.onTouchEvent(e);
+        return false;
+    }
+
+    @Override
+    public void onTouchEvent(RecyclerView rv, MotionEvent e) {
+    }
+
+    @Override
+    public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+    }
+
+    @Override
+    public boolean onSingleTapUp(MotionEvent e) {
+        View target = dispatch(e, Event.EventType.CLICK);
+        if (target != null) target.playSoundEffect(SoundEffectConstants.CLICK);
+        return target != null;
+    }
+
+    @Override
+    public void onLongPress(MotionEvent e) {
+        View target = dispatch(e, Event.EventType.LONGCLICK);
+        if (target != null) target.performHapticFeedback(HapticFeedbackConstants.LONG_PRESS);
+    }
+
+    /**
+     * 命中测试并分发事件
+     * @return 消费了该事件的 View，没有时返回 null
+     */
+    private View dispatch(MotionEvent e, Event.EventType eventType) {
+        //滚动中的点击只用于停止滚动
+        if (mRecyclerView.getScrollState() != RecyclerView.SCROLL_STATE_IDLE) return null;
+        final float x = e.getX();
+        final float y = e.getY();
+        View itemView = mRecyclerView.findChildViewUnder(x, y);
+        if (itemView == null) return null;
+        RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(itemView);
+        if (!(holder instanceof BaseViewHolder)) return null;
+        BaseViewHolder baseViewHolder = (BaseViewHolder) holder;
+        if (baseViewHolder.getEventMode() != BaseViewHolder.EVENT_MODE_DELEGATED) return null;
+        //动画中的列表项带有平移，findChildViewUnder 已经按平移后的位置命中
+        View target = baseViewHolder.findEventTarget(
+                x - itemView.getLeft() - ViewCompat.getTranslationX(itemView),
+                y - itemView.getTop() - ViewCompat.getTranslationY(itemView),
+                Event.maskOf(eventType));
+        if (target == null) return null;
+        baseViewHolder.performEvent(target, eventType);
+        return target;
+    }
+
+    /**
+     * RecyclerView 为每个 itemView 设置 {@link #getItemDelegate()} 返回的代理，
+     * 返回包装后的代理，不用和 RecyclerView 争抢 itemView 的无障碍代理
+     */
+    private static class ItemAccessibility extends RecyclerViewAccessibilityDelegate {
+        private AccessibilityDelegateCompat mItemDelegate;
+
+        ItemAccessibility(RecyclerView recyclerView) {
+            super(recyclerView);
+        }
+
+        @Override
+        public AccessibilityDelegateCompat getItemDelegate() {
+            if (mItemDelegate == null) {
+                mItemDelegate = new BaseViewHolder.DelegatedAccessibility(super.getItemDelegate());
+            }
+            return mItemDelegate;
+        }
+    }
+}
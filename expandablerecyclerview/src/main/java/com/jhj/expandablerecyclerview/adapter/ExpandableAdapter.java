@@ -2,16 +2,21 @@ package com.jhj.expandablerecyclerview.adapter;
 
 import android.os.Bundle;
 import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
 import android.view.ViewGroup;
 
+import com.jhj.expandablerecyclerview.core.ExpandableItemList;
 import com.jhj.expandablerecyclerview.viewholder.BaseViewHolder;
 import com.jhj.expandablerecyclerview.viewholder.ChildViewHolder;
 import com.jhj.expandablerecyclerview.viewholder.OnParentItemExpandCollapseListener;
 import com.jhj.expandablerecyclerview.viewholder.ParentViewHolder;
+import com.jhj.expandablerecyclerview.viewholder.ViewHolderCallback;
+import com.jhj.expandablerecyclerview.viewholder.ViewIndex;
 import com.jhj.expandablerecyclerview.model.ParentItem;
 import com.jhj.expandablerecyclerview.model.ParentItemWrapper;
 import com.jhj.expandablerecyclerview.utils.Logger;
 import com.jhj.expandablerecyclerview.utils.Packager;
+import com.jhj.expandablerecyclerview.utils.Tracer;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -48,6 +53,20 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
 
     private static final String SAVED_EXPANSION_STATE="savedExpansionState";
 
+    /**
+     * systrace 区间名称，使用常量避免每次调用时拼接字符串
+     */
+    private static final String TRACE_PREFIX = "ERV:";
+    private static final String TRACE_CREATE = TRACE_PREFIX + MetricsListener.OP_CREATE_VIEW_HOLDER;
+    private static final String TRACE_BIND = TRACE_PREFIX + MetricsListener.OP_BIND_VIEW_HOLDER;
+    private static final String TRACE_VIEW_TYPE = TRACE_PREFIX + MetricsListener.OP_GET_ITEM_VIEW_TYPE;
+    private static final String TRACE_CREATE_PARENT = TRACE_PREFIX + "onCreateParentViewHolder";
+    private static final String TRACE_CREATE_CHILD = TRACE_PREFIX + "onCreateChildViewHolder";
+    private static final String TRACE_BIND_PARENT = TRACE_PREFIX + "onBindParentViewHolder";
+    private static final String TRACE_BIND_CHILD = TRACE_PREFIX + "onBindChildViewHolder";
+    private static final String TRACE_PARENT_TYPE = TRACE_PREFIX + "getParentType";
+    private static final String TRACE_CHILD_TYPE = TRACE_PREFIX + "getChildType";
+
     /**
      * ExpandableRecyclerView 展开折叠模式处理类
      */
@@ -58,19 +77,118 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      */
     private List<? extends ParentItem> mParentItems = null;
     /**
-     * 当前显示的列表项(父列表项和所有展开的子列表项)集合
+     * 当前显示的列表项(父列表项和所有展开的子列表项)的扁平化引擎，负责所有位置换算和展开状态
+     */
+    private ExpandableItemList mItemList = null;
+
+    /**
+     * 把扁平化引擎的列表项变化转发给 RecyclerView
      */
-    private List<Object> mItems = null;
+    private final ExpandableItemList.UpdateCallback mItemListCallback =
+            new ExpandableItemList.UpdateCallback() {
+                @Override
+                public void onInserted(int position, int count) {
+                    countNotify(count);
+                    notifyItemRangeInserted(position, count);
+                }
+
+                @Override
+                public void onRemoved(int position, int count) {
+                    countNotify(count);
+                    notifyItemRangeRemoved(position, count);
+                }
+
+                @Override
+                public void onMoved(int fromPosition, int toPosition) {
+                    countNotify(1);
+                    notifyItemMoved(fromPosition, toPosition);
+                }
+
+                @Override
+                public void onChanged(int position, int count) {
+                    countNotify(count);
+                    notifyItemRangeChanged(position, count);
+                }
+            };
     /**
      * 当前所有监听适配器的 RecyclerView 集合
      */
     private List<RecyclerView> mAttachedRecyclerViews = new ArrayList<>(1);
 
+    /**
+     * 列表项 View 事件分发模式
+     * @see #setEventMode(int)
+     */
+    private int mEventMode = BaseViewHolder.EVENT_MODE_DIRECT;
+    /**
+     * {@link BaseViewHolder#EVENT_MODE_DELEGATED} 模式下每个 RecyclerView 上的事件分发器
+     */
+    private List<DelegatedEventDispatcher> mEventDispatchers = new ArrayList<>(1);
+
+    /**
+     * 每种列表项类型的 View 索引，由该类型第一个创建的 ViewHolder 的布局生成
+     */
+    private SparseArray<ViewIndex> mViewIndexes = new SparseArray<>();
+
+    /**
+     * 列表项事件触发时通过扁平化引擎解析父列表项和子列表项位置，开销为 O(log n)
+     */
+    private final BaseViewHolder.PositionResolver mPositionResolver =
+            new BaseViewHolder.PositionResolver() {
+                @Override
+                public void resolvePosition(int adapterPosition,
+                        BaseViewHolder.ViewHolderEventAfter event)
+                {
+                    if (adapterPosition >= getItemCount()) return;
+                    event.parentPosition = getParentPosition(adapterPosition);
+                    event.childPosition = mItemList.isParent(adapterPosition) ?
+                            RecyclerView.NO_POSITION : getChildPosition(adapterPosition);
+                }
+            };
+
     /**
      * 所有监听父列表项展开折叠状态监听器集合
      */
     private List<OnParentExpandCollapseListener> mExpandCollapseListeners = new ArrayList<>(1);
 
+    /**
+     * 子列表项过滤器
+     */
+    private ChildFilter mChildFilter;
+    /**
+     * 子列表项后台过滤处理类，第一次过滤时创建
+     */
+    private ExpandableFilter mExpandableFilter;
+    /**
+     * 子列表项过滤结果监听器
+     */
+    private OnFilterCompleteListener mFilterListener;
+    /**
+     * 开始过滤前所有父列表项的展开状态，用于清除过滤时恢复，为 null 时表示当前没有过滤
+     */
+    private boolean[] mPreFilterExpansionState;
+
+    /**
+     * 操作耗时统计监听器，默认不统计
+     */
+    private MetricsListener mMetricsListener = MetricsListener.NONE;
+    /**
+     * 是否设置了统计监听器，未设置时所有统计入口直接返回，不读取时钟
+     */
+    private boolean mMetricsEnabled;
+    /**
+     * 当前正在统计的操作嵌套深度，只有最外层的操作会回调监听器
+     */
+    private int mMetricsDepth;
+    /**
+     * 当前最外层操作累计的 notify 通知次数
+     */
+    private int mMetricsNotifyCount;
+    /**
+     * 当前最外层操作累计的 notify 通知涉及的行数
+     */
+    private int mMetricsRowCount;
+
     public ExpandableAdapter(List<? extends ParentItem> parentItems) {
         init(parentItems);
     }
@@ -80,7 +198,9 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
             throw new IllegalArgumentException("parentItems should not be " + "null");
         }
         mParentItems = parentItems;
-        mItems = ExpandableAdapterHelper.generateItems(parentItems);
+        mItemList = new ExpandableItemList(parentItems);
+        mItemList.setUpdateCallback(mItemListCallback);
+        resetFilter();
     }
 
 
@@ -89,8 +209,14 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @param newParentItems 新数据
      */
     public void invalidateParentItems(List<? extends ParentItem> newParentItems) {
-        init(newParentItems);
-        notifyDataSetChanged();
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_SET_PARENT_ITEMS);
+        try {
+            init(newParentItems);
+            countNotify(getItemCount());
+            notifyDataSetChanged();
+        } finally {
+            endOperation(MetricsListener.OP_SET_PARENT_ITEMS, startNanos);
+        }
     }
 
     /**
@@ -111,6 +237,103 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
         return mExpandCollapseMode.mode;
     }
 
+    /**
+     * 设置列表项 View 的事件分发模式
+     * <p>
+     *     {@link BaseViewHolder#EVENT_MODE_DELEGATED} 模式下列表项里的 View 不再设置各自的点击和长按监听器，
+     *     由适配器在 RecyclerView 上设置一个触摸监听器统一识别手势并分发给
+     *     {@link ViewHolderCallback} 和父列表项的展开折叠逻辑
+     * </p>
+     * <p><b>注意：应该在 {@link RecyclerView#setAdapter(RecyclerView.Adapter)} 之前调用，
+     * 只对之后创建的 ViewHolder 生效</b></p>
+     * @param eventMode {@link BaseViewHolder#EVENT_MODE_DIRECT}(默认) 或者
+     * {@link BaseViewHolder#EVENT_MODE_DELEGATED}
+     */
+    public void setEventMode(int eventMode) {
+        if (mEventMode == eventMode) return;
+        mEventMode = eventMode;
+        for (RecyclerView recyclerView : mAttachedRecyclerViews) {
+            if (eventMode == BaseViewHolder.EVENT_MODE_DELEGATED) {
+                attachEventDispatcher(recyclerView);
+            } else {
+                detachEventDispatcher(recyclerView);
+            }
+        }
+    }
+
+    public int getEventMode() {
+        return mEventMode;
+    }
+
+    private void attachEventDispatcher(RecyclerView recyclerView) {
+        DelegatedEventDispatcher dispatcher = new DelegatedEventDispatcher(recyclerView);
+        dispatcher.attach();
+        mEventDispatchers.add(dispatcher);
+    }
+
+    private void detachEventDispatcher(RecyclerView recyclerView) {
+        for (int i = mEventDispatchers.size() - 1; i >= 0; i--) {
+            DelegatedEventDispatcher dispatcher = mEventDispatchers.get(i);
+            if (dispatcher.getRecyclerView() == recyclerView) {
+                dispatcher.detach();
+                mEventDispatchers.remove(i);
+            }
+        }
+    }
+
+    /**
+     * 设置操作耗时统计监听器
+     * @param listener 监听器，为 null 时恢复为 {@link MetricsListener#NONE}
+     * @see MetricsListener
+     */
+    public void setMetricsListener(MetricsListener listener) {
+        mMetricsListener = listener != null ? listener : MetricsListener.NONE;
+        mMetricsEnabled = mMetricsListener != MetricsListener.NONE;
+        mMetricsDepth = 0;
+    }
+
+    /**
+     * 开始一次操作：打开 trace 区间并开始统计
+     * @param traceSection trace 区间名称，必须为常量
+     * @return 最外层操作的开始时间，没有开启统计或者是嵌套操作时返回 0
+     */
+    private long beginOperation(String traceSection) {
+        Tracer.beginSection(traceSection);
+        if (!mMetricsEnabled) return 0;
+        if (mMetricsDepth++ > 0) return 0;
+        mMetricsNotifyCount = 0;
+        mMetricsRowCount = 0;
+        return System.nanoTime();
+    }
+
+    private void endOperation(String operation, long startNanos) {
+        endOperation(operation, startNanos, mMetricsRowCount);
+    }
+
+    /**
+     * 结束一次操作：关闭 trace 区间，只有最外层的操作结束时才回调统计监听器
+     * @param operation 操作名称
+     * @param startNanos {@link #beginOperation(String)} 返回的开始时间
+     * @param rowCount 该操作涉及的行数
+     */
+    private void endOperation(String operation, long startNanos, int rowCount) {
+        Tracer.endSection();
+        if (!mMetricsEnabled || mMetricsDepth == 0) return;
+        if (--mMetricsDepth > 0) return;
+        mMetricsListener.onOperation(operation, mMetricsNotifyCount, rowCount,
+                System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 记录一次发给 RecyclerView 的 notify 通知
+     * @param rowCount 该通知涉及的行数
+     */
+    private void countNotify(int rowCount) {
+        if (!mMetricsEnabled) return;
+        mMetricsNotifyCount++;
+        mMetricsRowCount += rowCount;
+    }
+
     /**
      * 父列表项展开或折叠状态监听接口
      */
@@ -195,25 +418,59 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      */
     @Override
     public BaseViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        //本地 ItemView 的类型(parent 或者 child)
-        final int localViewType= Packager.getLocalViewType(viewType);
-        //外部返回的指定的具体的列表项类型(具体的父或子列表项类型)
-        final int clientViewType = Packager.getClientViewType(viewType);
-
-        if (localViewType == Packager.ITEM_VIEW_TYPE_PARENT) {
-            //回调并返回父列表项视图 ParentViewHolder
-            PVH pvh = onCreateParentViewHolder(parent, clientViewType);
-            //注册父列表项视图点击事件监听器,用于监听列表项视图的点击并根据列表项的展开状态触发列表项的展开或折叠回调
-            pvh.setClickEvent();
-            //注册 ParentItemView 点击回调监听器
-            pvh.setParentItemExpandCollapseListener(this);
-            return pvh;
-        } else if (localViewType == Packager.ITEM_VIEW_TYPE_CHILD) {
-            ////回调并返回子列表项视图 ChildViewHolder
-            return onCreateChildViewHolder(parent, clientViewType);
-        } else {
-            throw new IllegalStateException("Incorrect ViewType found");
+        final long startNanos = beginOperation(TRACE_CREATE);
+        try {
+            //本地 ItemView 的类型(parent 或者 child)
+            final int localViewType= Packager.getLocalViewType(viewType);
+            //外部返回的指定的具体的列表项类型(具体的父或子列表项类型)
+            final int clientViewType = Packager.getClientViewType(viewType);
+            //构造方法里注册的事件直接按当前模式处理，委托模式下不会先设置监听器再移除
+            BaseViewHolder.setCreatingEventMode(mEventMode);
+
+            if (localViewType == Packager.ITEM_VIEW_TYPE_PARENT) {
+                //回调并返回父列表项视图 ParentViewHolder
+                Tracer.beginSection(TRACE_CREATE_PARENT);
+                PVH pvh = onCreateParentViewHolder(parent, clientViewType);
+                Tracer.endSection();
+                pvh.setViewIndex(getViewIndex(viewType, pvh));
+                pvh.setEventMode(mEventMode);
+                pvh.setPositionResolver(mPositionResolver);
+                //注册父列表项视图点击事件监听器,用于监听列表项视图的点击并根据列表项的展开状态触发列表项的展开或折叠回调
+                pvh.setClickEvent();
+                //注册 ParentItemView 点击回调监听器
+                pvh.setParentItemExpandCollapseListener(this);
+                return pvh;
+            } else if (localViewType == Packager.ITEM_VIEW_TYPE_CHILD) {
+                ////回调并返回子列表项视图 ChildViewHolder
+                Tracer.beginSection(TRACE_CREATE_CHILD);
+                CVH cvh = onCreateChildViewHolder(parent, clientViewType);
+                Tracer.endSection();
+                cvh.setViewIndex(getViewIndex(viewType, cvh));
+                cvh.setEventMode(mEventMode);
+                cvh.setPositionResolver(mPositionResolver);
+                return cvh;
+            } else {
+                throw new IllegalStateException("Incorrect ViewType found");
+            }
+        } finally {
+            BaseViewHolder.setCreatingEventMode(BaseViewHolder.EVENT_MODE_DIRECT);
+            endOperation(MetricsListener.OP_CREATE_VIEW_HOLDER, startNanos, 1);
+        }
+    }
+
+    /**
+     * 获取列表项类型对应的 View 索引，该类型还没有索引时由 holder 的布局创建
+     * @param viewType {@link #getItemViewType(int)} 返回的列表项类型
+     * @param holder 新创建的该类型的 ViewHolder
+     * @return 该列表项类型的 View 索引
+     */
+    private ViewIndex getViewIndex(int viewType, BaseViewHolder holder) {
+        ViewIndex viewIndex = mViewIndexes.get(viewType);
+        if (viewIndex == null) {
+            viewIndex = ViewIndex.of(holder.itemView);
+            mViewIndexes.put(viewType, viewIndex);
         }
+        return viewIndex;
     }
 
     /**
@@ -234,46 +491,67 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
     @Override
     @SuppressWarnings("unchecked")
     public void onBindViewHolder(BaseViewHolder holder, int position) {
-        Object listItem = getItem(position);
-        int parentPosition = getParentPosition(position);
+        final long startNanos = beginOperation(TRACE_BIND);
+        try {
+            Object listItem = getItem(position);
+            int parentPosition = getParentPosition(position);
 
 //        Logger.e(TAG, "onBindViewHolder---->parentPos=" + parentPosition + ",adapterParentPos=" +
 //                position);
 
-        if (listItem instanceof ParentItemWrapper) {
-            PVH pvh = (PVH) holder;
-            ParentItemWrapper parentItemWrapper = (ParentItemWrapper) listItem;
-            //初始化展开折叠状态
-            pvh.setExpanded(parentItemWrapper.isExpanded());
-            onBindParentViewHolder(pvh, parentPosition, position,
-                    parentItemWrapper.getParentItem());
-        } else if (listItem == null) {
-            throw new IllegalStateException("Incorrect ViewHolder found");
-        } else {
-            CVH cvh = (CVH) holder;
-            onBindChildViewHolder(cvh, parentPosition, getChildPosition(position),
-                    getParentAdapterPosition(parentPosition), position, listItem);
+            if (listItem instanceof ParentItemWrapper) {
+                PVH pvh = (PVH) holder;
+                ParentItemWrapper parentItemWrapper = (ParentItemWrapper) listItem;
+                //初始化展开折叠状态
+                pvh.setExpanded(parentItemWrapper.isExpanded());
+                Tracer.beginSection(TRACE_BIND_PARENT);
+                onBindParentViewHolder(pvh, parentPosition, position,
+                        parentItemWrapper.getParentItem());
+                Tracer.endSection();
+            } else if (listItem == null) {
+                throw new IllegalStateException("Incorrect ViewHolder found");
+            } else {
+                CVH cvh = (CVH) holder;
+                final int childPosition = getChildPosition(position);
+                final int parentAdapterPosition = getParentAdapterPosition(parentPosition);
+                Tracer.beginSection(TRACE_BIND_CHILD);
+                onBindChildViewHolder(cvh, parentPosition, childPosition, parentAdapterPosition,
+                        position, listItem);
+                Tracer.endSection();
+            }
+        } finally {
+            endOperation(MetricsListener.OP_BIND_VIEW_HOLDER, startNanos, 1);
         }
     }
 
     @Override
     public int getItemViewType(int position) {
-        //获取指定列表项位置在适配器数据集合里所代表的列表项
-        Object listItem = getItem(position);
-        //获取指定列表项位置(父或子视图项的位置)的在父列表里位置
-        int parentPosition = getParentPosition(position);
-        //如果是父列表项类型就回调查询具体的父类型
-        //返回父类型和具体的父类型的组合后的列表项类型
-        if (listItem instanceof ParentItemWrapper) {
-            int parentType = getParentType(parentPosition);
-            return Packager.makeItemViewTypeSpec(parentType, Packager.ITEM_VIEW_TYPE_PARENT);
-        } else if (listItem == null) {
-            throw new IllegalStateException("Null object added");
-        } else {
-            //回调获取具体的子列表项类型
-            //返回子类型和具体子类型的组合后的列表项类型
-            int childType = getChildType(parentPosition, getChildPosition(position));
-            return Packager.makeItemViewTypeSpec(childType, Packager.ITEM_VIEW_TYPE_CHILD);
+        final long startNanos = beginOperation(TRACE_VIEW_TYPE);
+        try {
+            //获取指定列表项位置在适配器数据集合里所代表的列表项
+            Object listItem = getItem(position);
+            //获取指定列表项位置(父或子视图项的位置)的在父列表里位置
+            int parentPosition = getParentPosition(position);
+            //如果是父列表项类型就回调查询具体的父类型
+            //返回父类型和具体的父类型的组合后的列表项类型
+            if (listItem instanceof ParentItemWrapper) {
+                Tracer.beginSection(TRACE_PARENT_TYPE);
+                int parentType = getParentType(parentPosition);
+                Tracer.endSection();
+                return Packager.makeItemViewTypeSpec(parentType, Packager.ITEM_VIEW_TYPE_PARENT);
+            } else if (listItem == null) {
+                throw new IllegalStateException("Null object added");
+            } else {
+                //回调获取具体的子列表项类型
+                //返回子类型和具体子类型的组合后的列表项类型
+                final int childPosition = getChildPosition(position);
+                Tracer.beginSection(TRACE_CHILD_TYPE);
+                int childType = getChildType(parentPosition, childPosition);
+                Tracer.endSection();
+                return Packager.makeItemViewTypeSpec(childType, Packager.ITEM_VIEW_TYPE_CHILD);
+            }
+        } finally {
+            endOperation(MetricsListener.OP_GET_ITEM_VIEW_TYPE, startNanos, 1);
         }
     }
 
@@ -304,7 +582,7 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      */
     @Override
     public int getItemCount() {
-        return mItems.size();
+        return mItemList.getItemCount();
     }
 
     /**
@@ -354,7 +632,12 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      */
     @Override
     public boolean onParentItemExpand(int parentAdapterPosition) {
-        return expandParentItem(parentAdapterPosition, true, false);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_EXPAND);
+        try {
+            return expandParentItem(parentAdapterPosition, true, false);
+        } finally {
+            endOperation(MetricsListener.OP_EXPAND, startNanos);
+        }
     }
     /**
      * {@link ParentViewHolder} 里父列表项折叠回调，用于监听父列表项折叠事件并触发相关的折叠操作
@@ -362,7 +645,12 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      */
     @Override
     public boolean onParentItemCollapse(int parentAdapterPosition) {
-        return collapseParentItem(parentAdapterPosition, true, false);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_COLLAPSE);
+        try {
+            return collapseParentItem(parentAdapterPosition, true, false);
+        } finally {
+            endOperation(MetricsListener.OP_COLLAPSE, startNanos);
+        }
     }
 
 
@@ -377,6 +665,9 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
     public void onAttachedToRecyclerView(RecyclerView recyclerView) {
         super.onAttachedToRecyclerView(recyclerView);
         mAttachedRecyclerViews.add(recyclerView);
+        if (mEventMode == BaseViewHolder.EVENT_MODE_DELEGATED) {
+            attachEventDispatcher(recyclerView);
+        }
     }
 
     /**
@@ -387,6 +678,7 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
     public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
         super.onDetachedFromRecyclerView(recyclerView);
         mAttachedRecyclerViews.remove(recyclerView);
+        detachEventDispatcher(recyclerView);
     }
 
     /**
@@ -396,7 +688,7 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @return 指定适配器位置数据所代表的列表项
      */
     public Object getItem(int position) {
-        return mItems.get(position);
+        return mItemList.getItem(position);
     }
 
     /**
@@ -406,113 +698,25 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @return 指定列表项在父列表里的位置
      */
     private int getParentPosition(int adapterPosition) {
-        if (adapterPosition == RecyclerView.NO_POSITION) return RecyclerView.NO_POSITION;
-        if (adapterPosition == 0) return 0;
-        Object item = getItem(adapterPosition);
-        if (item instanceof ParentItemWrapper) {
-            int beforeExpandedChildItemCount = getBeforeExpandedChildCount(adapterPosition);
-            return adapterPosition - beforeExpandedChildItemCount;
-        } else {
-            for (int i = adapterPosition - 1; i >= 0; i--) {
-                if (getItem(i) instanceof ParentItemWrapper) {
-                    return i - getBeforeExpandedChildCount(i);
-                }
-            }
-        }
-        return RecyclerView.NO_POSITION;
+        return mItemList.getParentPosition(adapterPosition);
     }
-    
-    
+
     /**
      * 根据指定的子列表项在适配器数据集中所对应的位置返回该子列表项在子列表里的位置
      * @param childAdapterPosition 子列表项在适配器里对应的位置
      * @return 指定子列表项在子列表里的位置
      */
     private int getChildPosition(int childAdapterPosition) {
-        if (childAdapterPosition == RecyclerView.NO_POSITION) return RecyclerView.NO_POSITION;
-        int childAdapterPos = RecyclerView.NO_POSITION;
-        ParentItemWrapper parentItemWrapper = getParentWrapper(childAdapterPosition);
-        if (parentItemWrapper != null) {
-            Object childItem = getItem(childAdapterPosition);
-            List<?> childItems = parentItemWrapper.getChildItems();
-            if (childItems != null) {
-                childAdapterPos = childItems.indexOf(childItem);
-            }
-        }
-        return childAdapterPos;
+        return mItemList.getChildPosition(childAdapterPosition);
     }
 
-
-    /**
-     * 添加对应 {@code parentWrapperPosition} 位置的父列表项
-     *
-     * @param parentWrapperPosition 要添加新父列表项所指定的位置
-     * @param newParentItemPosition     新添加的父列表项的位置
-     * @return 插入要适配器数据集里的列表项的个数(父列表项和其展开的子列表项)
-     */
-    private int addParentWrapper(int parentWrapperPosition, int newParentItemPosition) {
-        if (parentWrapperPosition==RecyclerView.NO_POSITION || newParentItemPosition < 0) return 0;
-        ParentItem newParentItem=mParentItems.get(newParentItemPosition);
-        ParentItemWrapper newParentItemWrapper = new ParentItemWrapper(newParentItem);
-        mItems.add(parentWrapperPosition, newParentItemWrapper);
-        int insertedItemCount = 1;
-        if (newParentItemWrapper.isInitiallyExpanded()) {
-            List<?> childItems = newParentItemWrapper.getChildItems();
-            final boolean hasChildren = childItems != null && !childItems.isEmpty();
-            newParentItemWrapper.setExpanded(hasChildren);
-            if (hasChildren) {
-                mItems.addAll(parentWrapperPosition + insertedItemCount, childItems);
-                insertedItemCount += childItems.size();
-            }
-        }
-        return insertedItemCount;
-    }
-
-    /**
-     * 根据指定的子列表项在适配器数据集中所对应的位置返回该子列表项所属的父列表项
-     * @param childAdapterPosition 子列表项在适配器里对应的位置
-     * @return 指定子列表项所属的父列表项
-     */
-    private ParentItemWrapper getParentWrapper(int childAdapterPosition) {
-        if (childAdapterPosition == RecyclerView.NO_POSITION) return null;
-        for (int i = childAdapterPosition - 1; i >= 0; i--) {
-            Object listItem = getItem(i);
-            if (listItem instanceof ParentItemWrapper) {
-                return (ParentItemWrapper) listItem;
-            }
-        }
-        return null;
-    }
-
-//    /**
-//     * 根据指定的在适配器里对应位置的列表项返回是否是父列表项
-//     * @param adapterPosition 列表项在适配器里对应的位置
-//     * @return 指定的在适配器里对应位置的列表项返回是否是父列表项
-//     */
-//    public boolean isParent(int adapterPosition) {
-//        return !(adapterPosition >= mItems.size() || adapterPosition < 0) && mItems.get(
-//                adapterPosition) instanceof ParentItemWrapper;
-//    }
-
     /**
      * 获取指定的父列表项位置返回该列表项在适配器里对应的位置
      * @param parentPosition 指定的父列表项在父列表里的位置
      * @return 指定的父列表项位置在适配器里对应的位置
      */
     private int getParentAdapterPosition(int parentPosition) {
-        if (parentPosition < 0) return RecyclerView.NO_POSITION;
-        int parentIndex = -1;
-        int listItemCount = mItems.size();
-        for (int i = 0; i < listItemCount; i++) {
-            Object listItem = mItems.get(i);
-            if (listItem instanceof ParentItemWrapper) {
-                parentIndex++;
-                if (parentIndex == parentPosition) {
-                    return i;
-                }
-            }
-        }
-        return RecyclerView.NO_POSITION;
+        return mItemList.getParentAdapterPosition(parentPosition);
     }
 
     /**
@@ -522,25 +726,7 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @return 子列表项位置在适配器里对应的位置
      */
     private int getChildAdapterPosition(int parentPosition, int childPosition) {
-        if (parentPosition < 0 || childPosition < 0) return RecyclerView.NO_POSITION;
-        int parentAdapterPosition=getParentAdapterPosition(parentPosition);
-        return parentAdapterPosition + childPosition + 1;
-    }
-
-    /**
-     * 获取父列表项之前展开的所有子列表项数量
-     * @param parentAdapterPosition 父列表项在适配器中所对应的位置
-     * @return 父列表项之前展开的所有子列表项数量
-     */
-    private int getBeforeExpandedChildCount(int parentAdapterPosition) {
-        if (parentAdapterPosition == 0 || parentAdapterPosition == RecyclerView.NO_POSITION) return 0;
-        int beforeExpandedChildCount = 0;
-        for (int i = 0; i < parentAdapterPosition; i++) {
-            if (!(getItem(i) instanceof ParentItemWrapper)) {
-                beforeExpandedChildCount++;
-            }
-        }
-        return beforeExpandedChildCount;
+        return mItemList.getChildAdapterPosition(parentPosition, childPosition);
     }
 
     /**
@@ -548,7 +734,7 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * 通知更新所有 ItemView
      */
     public void notifyAllChanged() {
-        notifyItemRangeChanged(0,mItems.size());
+        notifyItemRangeChanged(0, getItemCount());
     }
 
     /**
@@ -559,27 +745,14 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      */
     private boolean expandParentItem(int parentAdapterPosition, boolean byUser, boolean force)
     {
-        if (parentAdapterPosition==RecyclerView.NO_POSITION) return false;
-        Object item = getItem(parentAdapterPosition);
-        if (!(item instanceof ParentItemWrapper)) return false;
-        ParentItemWrapper parentItemWrapper = (ParentItemWrapper) item;
-        //如果非强制展开 Parent 并且当前 parent 无法展开或者当前 Parent 已展开情况下调用无效
-        if (!force && (!parentItemWrapper.isExpandable() || parentItemWrapper.isExpanded())) return false;
-        //如果强制展开 Parent 并且当前 parent 已展开时调用也无效，例如:程序调用展开同一 parent 方法多次
-        if (force && parentItemWrapper.isExpanded()) return false;
-
-        List<?> childItems = parentItemWrapper.getChildItems();
-        if (childItems == null || childItems.isEmpty()) return false;
-
-        //保存该父列表项当前为展开状态
-        parentItemWrapper.setExpanded(true);
-
-        final int insertPosStart = parentAdapterPosition + 1;
-        final int childCount = childItems.size();
-        //按照顺序依次将子列表项插入到该父列表项下
-        mItems.addAll(insertPosStart, childItems);
-        //通知 RecyclerView 指定位置有新的列表项插入，刷新界面
-        notifyItemRangeInserted(insertPosStart, childCount);
+        if (!mItemList.isParent(parentAdapterPosition)) return false;
+        final int parentPosition = getParentPosition(parentAdapterPosition);
+        ParentItemWrapper parentItemWrapper = mItemList.getParentWrapper(parentPosition);
+        //如果非强制展开 Parent 并且当前 parent 无法展开情况下调用无效
+        if (!force && !parentItemWrapper.isExpandable()) return false;
+        //当前 Parent 已展开或者没有 Child 时调用也无效，例如:程序调用展开同一 parent 方法多次
+        //展开成功时扁平化引擎会通知 RecyclerView 指定位置有新的列表项插入
+        if (!mItemList.expand(parentPosition)) return false;
         //通知所有监听 Parent 展开折叠状态监听器当前 Parent 已展开
         notifyParentExpanded(parentAdapterPosition, byUser);
         //检查当前的展开模式，如果为单项展开模式处理单项 ParentItem 展开逻辑
@@ -602,9 +775,11 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
         final int lastExpandedAdapterPosition = mExpandCollapseMode.lastExpandedAdapterPosition;
         final int lastExpandedPosition = mExpandCollapseMode.lastExpandedPosition;
         if (lastExpandedPosition == currExpandedPosition) return;
-        Logger.e(TAG, "checkSingleExpandMode " +
-                "---->lastExpandedPosition=*" + lastExpandedPosition+"," +
-                "lastExpandedAdapterPosition="+lastExpandedAdapterPosition);
+        if (Logger.isEnabled()) {
+            Logger.e(TAG, "checkSingleExpandMode---->lastExpandedPosition=*{}," +
+                    "lastExpandedAdapterPosition={}", lastExpandedPosition,
+                    lastExpandedAdapterPosition);
+        }
         //折叠上次记录的展开位置对应的 parentItem，注意这里需转换的是上次的 position 而非参数 currExpandedAdapterPosition!
         collapseViews(getParentAdapterPosition(lastExpandedPosition), true);
         //将当前展开的 parentItem 相关位置记录为下次自动折叠位置
@@ -619,10 +794,9 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @param byUser 是否是被用户手动展开的
      */
     private void notifyParentExpanded(int parentAdapterPosition, boolean byUser) {
+        final int parentPosition = getParentPosition(parentAdapterPosition);
         for (OnParentExpandCollapseListener listener : mExpandCollapseListeners) {
-            int beforeExpandedChildCount = getBeforeExpandedChildCount(parentAdapterPosition);
-            listener.onParentExpanded(parentAdapterPosition - beforeExpandedChildCount,
-                    parentAdapterPosition, byUser);
+            listener.onParentExpanded(parentPosition, parentAdapterPosition, byUser);
         }
     }
 
@@ -633,24 +807,12 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      */
     private boolean collapseParentItem(int parentAdapterPosition, boolean byUser, boolean force)
     {
-        if (parentAdapterPosition==RecyclerView.NO_POSITION) return false;
-        Object item = getItem(parentAdapterPosition);
-        if (!(item instanceof ParentItemWrapper)) return false;
-        ParentItemWrapper parentItemWrapper = (ParentItemWrapper) item;
-        if (!force && (!parentItemWrapper.isExpandable() || !parentItemWrapper.isExpanded())) return false;
-        if (force && !parentItemWrapper.isExpanded()) return false;
-        List<?> childItems = parentItemWrapper.getChildItems();
-        if (childItems == null || childItems.isEmpty()) return false;
-
-        //保存该父列表项当前为折叠状态
-        parentItemWrapper.setExpanded(false);
-
-        final int collapsePosStart = parentAdapterPosition + 1;
-        final int childItemCount = childItems.size();
-        //按照顺序依次将该父列表项下的子列表项移除
-        mItems.removeAll(childItems);
-        //通知 RecyclerView 指定位置有列表项已移除，刷新界面
-        notifyItemRangeRemoved(collapsePosStart, childItemCount);
+        if (!mItemList.isParent(parentAdapterPosition)) return false;
+        final int parentPosition = getParentPosition(parentAdapterPosition);
+        ParentItemWrapper parentItemWrapper = mItemList.getParentWrapper(parentPosition);
+        if (!force && !parentItemWrapper.isExpandable()) return false;
+        //折叠成功时扁平化引擎会通知 RecyclerView 指定位置有列表项已移除
+        if (!mItemList.collapse(parentPosition)) return false;
         //通知所有监听 Parent 展开折叠状态监听器当前 Parent 已折叠
         notifyParentCollapsed(parentAdapterPosition, byUser);
         //检查当前的折叠模式，如果为单项折叠模式处理单项 parentItem 折叠逻辑
@@ -673,9 +835,11 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
         final int lastCollapsedAdapterPosition=mExpandCollapseMode.lastCollapsedAdapterPosition;
         final int lastCollapsedPosition=mExpandCollapseMode.lastCollapsedPosition;
         if (currCollapsedPosition == lastCollapsedPosition) return;
-        Logger.e(TAG, "checkSingleCollapseMode " +
-                "---->lastCollapsedPosition=*" + lastCollapsedPosition + "," +
-                "lastCollapsedAdapterPosition=" + lastCollapsedAdapterPosition);
+        if (Logger.isEnabled()) {
+            Logger.e(TAG, "checkSingleCollapseMode---->lastCollapsedPosition=*{}," +
+                    "lastCollapsedAdapterPosition={}", lastCollapsedPosition,
+                    lastCollapsedAdapterPosition);
+        }
         //展开上次记录的折叠位置对应的 parentItem，注意这里需转换的是上次的 position 而非参数 currCollapsedAdapterPosition!
         expandViews(getParentAdapterPosition(lastCollapsedPosition), true);
         //将当前折叠的 parentItem 相关位置记录为下次自动展开位置
@@ -690,10 +854,9 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @param byUser 是否是被用户手动折叠的
      */
     private void notifyParentCollapsed(int parentAdapterPosition, boolean byUser) {
+        final int parentPosition = getParentPosition(parentAdapterPosition);
         for (OnParentExpandCollapseListener listener : mExpandCollapseListeners) {
-            int beforeExpandedChildCount = getBeforeExpandedChildCount(parentAdapterPosition);
-            listener.onParentCollapsed(parentAdapterPosition - beforeExpandedChildCount,
-                    parentAdapterPosition, byUser);
+            listener.onParentCollapsed(parentPosition, parentAdapterPosition, byUser);
         }
     }
 
@@ -713,18 +876,16 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
     {
         if (parentAdapterPosition == RecyclerView.NO_POSITION) return;
 
-        //for debug
-        final int parentPos = getParentPosition(parentAdapterPosition);
-
         for (RecyclerView recyclerView : mAttachedRecyclerViews) {
             PVH pvh = (PVH) recyclerView.findViewHolderForAdapterPosition(parentAdapterPosition);
             if (pvh != null && !pvh.isExpanded()) {
                 pvh.setExpanded(expanded);
-                Logger.e(TAG,"expanded="+expanded);
+                if (Logger.isEnabled()) Logger.e(TAG, "expanded={}", expanded);
             } else if (pvh == null && expanded) {
-                Logger.e(TAG, "expandViews pvh is null---->parentPos=" + parentPos +
-                        ",parentAdapterPos=" +
-                        parentAdapterPosition);
+                if (Logger.isEnabled()) {
+                    Logger.e(TAG, "expandViews pvh is null---->parentPos={},parentAdapterPos={}",
+                            getParentPosition(parentAdapterPosition), parentAdapterPosition);
+                }
                 //未 laid out 的 ParentItem ,虽然无法获取并设置展开折叠标识，
                 // 这里添加待处理展开逻辑的所有 parentItem 的 position
                 // 如果先前已经记录待折叠位置记录，移除该记录并以最新的待展开记录为准!
@@ -738,21 +899,19 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
 
     @SuppressWarnings("unchecked")
     private void syncViewCollapseState(int parentAdapterPosition, boolean collapsed) {
-        Logger.e(TAG,"syncViewCollapseState=>"+collapsed);
+        if (Logger.isEnabled()) Logger.e(TAG, "syncViewCollapseState=>{}", collapsed);
         if (parentAdapterPosition == RecyclerView.NO_POSITION) return;
 
-        //for debug
-        final int parentPos = getParentPosition(parentAdapterPosition);
-
         for (RecyclerView recyclerView : mAttachedRecyclerViews) {
             PVH pvh = (PVH) recyclerView.findViewHolderForAdapterPosition(parentAdapterPosition);
             if (pvh != null && pvh.isExpanded()) {
                 pvh.setExpanded(!collapsed);
-                Logger.e(TAG,"collapsed="+collapsed);
+                if (Logger.isEnabled()) Logger.e(TAG, "collapsed={}", collapsed);
             } else if (pvh == null && collapsed) {
-                Logger.e(TAG, "collapseViews pvh is null---->parentPos=" + parentPos +
-                        ",parentAdapterPos=" +
-                        parentAdapterPosition);
+                if (Logger.isEnabled()) {
+                    Logger.e(TAG, "collapseViews pvh is null---->parentPos={},parentAdapterPos={}",
+                            getParentPosition(parentAdapterPosition), parentAdapterPosition);
+                }
                 // 未 laid out 的 ParentItem ,虽然无法获取并设置展开折叠标识，
                 // 这里添加待处理折叠逻辑的所有 parentItem 的 position
                 // 如果先前已经记录待折叠位置记录，移除该记录并以最新的待展开记录为准!
@@ -775,14 +934,18 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
     private boolean expandViews(int parentAdapterPosition, boolean force) {
         final int parentPos = getParentPosition(parentAdapterPosition);
 
-        Logger.i(TAG, "expandViews---->parentPos=" + parentPos + ",parentAdapterPos=" +
-                parentAdapterPosition);
+        if (Logger.isEnabled()) {
+            Logger.i(TAG, "expandViews---->parentPos={},parentAdapterPos={}", parentPos,
+                    parentAdapterPosition);
+        }
 
         boolean isSuccessful = expandParentItem(parentAdapterPosition, false, force);
 
         if (!isSuccessful) {
-            Logger.e(TAG, "expandViews failed---->parentPos=" + parentPos + ",parentAdapterPos=" +
-                    parentAdapterPosition);
+            if (Logger.isEnabled()) {
+                Logger.e(TAG, "expandViews failed---->parentPos={},parentAdapterPos={}",
+                        parentPos, parentAdapterPosition);
+            }
         }
         //同步 parentItem 展开状态
         //注意:这里需要再次通过 parentPosition 转换为 parentAdapterPosition，而不是直接使用参数 parentAdapterPosition!
@@ -797,9 +960,14 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @param parentPosition 该父列表项在父列表里的位置
      */
     public boolean expandParent(int parentPosition) {
-        int parentAdapterPosition = getParentAdapterPosition(parentPosition);
-        return parentAdapterPosition != RecyclerView.NO_POSITION && expandViews(
-                parentAdapterPosition,true);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_EXPAND);
+        try {
+            int parentAdapterPosition = getParentAdapterPosition(parentPosition);
+            return parentAdapterPosition != RecyclerView.NO_POSITION && expandViews(
+                    parentAdapterPosition,true);
+        } finally {
+            endOperation(MetricsListener.OP_EXPAND, startNanos);
+        }
     }
 
     /**
@@ -807,9 +975,14 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @param parentItem 与父列表项相关的 ParentItem
      */
     public boolean expandParent(ParentItem parentItem) {
-        if (parentItem == null) return false;
-        int parentPosition = mParentItems.indexOf(parentItem);
-        return expandParent(parentPosition);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_EXPAND);
+        try {
+            if (parentItem == null) return false;
+            int parentPosition = mParentItems.indexOf(parentItem);
+            return expandParent(parentPosition);
+        } finally {
+            endOperation(MetricsListener.OP_EXPAND, startNanos);
+        }
     }
 
     /**
@@ -821,8 +994,13 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * </p>
      */
     public void expandAllParent() {
-        for (int i = 0; i < mParentItems.size(); i++) {
-            expandParent(i);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_EXPAND_ALL);
+        try {
+            for (int i = 0; i < mParentItems.size(); i++) {
+                expandParent(i);
+            }
+        } finally {
+            endOperation(MetricsListener.OP_EXPAND_ALL, startNanos);
         }
     }
 
@@ -837,14 +1015,18 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
     private boolean collapseViews(int parentAdapterPosition, boolean force) {
         final int parentPos = getParentPosition(parentAdapterPosition);
 
-        Logger.i(TAG, "collapseViews---->parentPos=" + parentPos + ",parentAdapterPos=" +
-                parentAdapterPosition);
+        if (Logger.isEnabled()) {
+            Logger.i(TAG, "collapseViews---->parentPos={},parentAdapterPos={}", parentPos,
+                    parentAdapterPosition);
+        }
 
         boolean isSuccessful = collapseParentItem(parentAdapterPosition, false, force);
 
         if (!isSuccessful) {
-            Logger.e(TAG, "collapseViews failed---->parentPos=" + parentPos + ",parentAdapterPos=" +
-                    parentAdapterPosition);
+            if (Logger.isEnabled()) {
+                Logger.e(TAG, "collapseViews failed---->parentPos={},parentAdapterPos={}",
+                        parentPos, parentAdapterPosition);
+            }
         }
 
         //同步 parentItem 折叠状态
@@ -883,7 +1065,9 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
         final int adapterPos = holder.getAdapterPosition();
 
         if (mPendingExpandPositions.contains(adapterPos)) {
-            Logger.e(TAG, "onViewAttachedToWindow==PendingExpandPosition=>" + adapterPos);
+            if (Logger.isEnabled()) {
+                Logger.e(TAG, "onViewAttachedToWindow==PendingExpandPosition=>{}", adapterPos);
+            }
             if (!pvh.isExpanded()) {
                 pvh.setExpanded(true);
                 notifyParentExpanded(adapterPos, false);
@@ -892,7 +1076,9 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
         }
 
         if (mPendingCollapsePositions.contains(adapterPos)) {
-            Logger.e(TAG, "onViewAttachedToWindow==PendingCollapsePosition=>" + adapterPos);
+            if (Logger.isEnabled()) {
+                Logger.e(TAG, "onViewAttachedToWindow==PendingCollapsePosition=>{}", adapterPos);
+            }
             if (pvh.isExpanded()) {
                 pvh.setExpanded(false);
                 notifyParentCollapsed(adapterPos, false);
@@ -912,9 +1098,14 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @param parentPosition 该父列表项在父列表里的位置
      */
     public boolean collapseParent(int parentPosition) {
-        int parentAdapterPosition = getParentAdapterPosition(parentPosition);
-        return parentAdapterPosition != RecyclerView.NO_POSITION && collapseViews(
-                parentAdapterPosition, true);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_COLLAPSE);
+        try {
+            int parentAdapterPosition = getParentAdapterPosition(parentPosition);
+            return parentAdapterPosition != RecyclerView.NO_POSITION && collapseViews(
+                    parentAdapterPosition, true);
+        } finally {
+            endOperation(MetricsListener.OP_COLLAPSE, startNanos);
+        }
     }
 
     /**
@@ -922,9 +1113,14 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @param parentItem 与父列表项相关的 ParentItem
      */
     public boolean collapseParent(ParentItem parentItem) {
-        if (parentItem == null) return false;
-        int parentPosition = mParentItems.indexOf(parentItem);
-        return collapseParent(parentPosition);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_COLLAPSE);
+        try {
+            if (parentItem == null) return false;
+            int parentPosition = mParentItems.indexOf(parentItem);
+            return collapseParent(parentPosition);
+        } finally {
+            endOperation(MetricsListener.OP_COLLAPSE, startNanos);
+        }
     }
 
     /**
@@ -936,8 +1132,13 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * </p>
      */
     public void collapseAllParent() {
-        for (int i = 0; i < mParentItems.size(); i++) {
-            collapseParent(i);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_COLLAPSE_ALL);
+        try {
+            for (int i = 0; i < mParentItems.size(); i++) {
+                collapseParent(i);
+            }
+        } finally {
+            endOperation(MetricsListener.OP_COLLAPSE_ALL, startNanos);
         }
     }
 
@@ -1002,21 +1203,14 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @see #notifyParentItemInserted(int)
      */
     public final void notifyParentItemRangeInserted(int parentPositionStart, int parentItemCount) {
-        final int endInsertPos = mParentItems.size() - parentItemCount;
-        int parentAdapterPos = RecyclerView.NO_POSITION;
-        if (parentPositionStart >= 0 && parentPositionStart < endInsertPos) {
-            parentAdapterPos = getParentAdapterPosition(parentPositionStart);
-        } else if (parentPositionStart == endInsertPos) {
-            parentAdapterPos = mItems.size();
-        }
-        if (parentAdapterPos == RecyclerView.NO_POSITION) return;
-        int insertedItemCount = 0;
-        for (int i = parentPositionStart; i < parentPositionStart + parentItemCount; i++) {
-            insertedItemCount += addParentWrapper(parentAdapterPos + insertedItemCount, i);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_PARENT_INSERTED);
+        try {
+            mItemList.insertParents(parentPositionStart, parentItemCount);
+            //这里如果有 parentItem 初始化是展开的 是否需要 notifyParentExpanded 通知客户端?
+            //注意：通知客户端通知的前提是当前所有的 ParentItem 已经 notifyItemRangeInserted 通知 recyclerView 了
+        } finally {
+            endOperation(MetricsListener.OP_PARENT_INSERTED, startNanos);
         }
-        notifyItemRangeInserted(parentAdapterPos, insertedItemCount);
-        //这里如果有 parentItem 初始化是展开的 是否需要 notifyParentExpanded 通知客户端?
-        //注意：通知客户端通知的前提是当前所有的 ParentItem 已经 notifyItemRangeInserted 通知 recyclerView 了
     }
 
     /**
@@ -1055,36 +1249,27 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
     public final void notifyChildItemRangeInserted(int parentPosition, int childPositionStart,
             int childItemCount, boolean forceExpandParent)
     {
-        int parentAdapterPos = getParentAdapterPosition(parentPosition);
-        if (parentAdapterPos == RecyclerView.NO_POSITION) return;
-        ParentItemWrapper parentItemWrapper = (ParentItemWrapper) getItem(parentAdapterPos);
-        //这里判断如果父列表项已展开才添加数据并通知刷新列表界面
-        //注意：这里的数据添加和 {@code expandParentItem } 数据添加有冲突，因为 expandParentItem
-        //获取子列表数据然后再添加到模型数据层再刷新界面的，这里如果判断没展开就不能添加数据，否则有重复数据显示
-        if (!forceExpandParent && !parentItemWrapper.isExpanded()) return;
-
-        //如果强制展开父列表项并且当前的父列表项没有展开，直接调用{@link #expandViews},通知父列表项已展开
-        if (forceExpandParent && !parentItemWrapper.isExpanded()) {
-            //直接展开 ParentItem,注意：同时更新对应的 ParentViewHolder 的展开折叠状态
-            expandViews(parentAdapterPos, true);
-            return;
-        }
-
-        List<?> childItems = parentItemWrapper.getChildItems();
-        if (childItems==null || childItems.isEmpty()) return;
-        List<?> insertedChildItemList = childItems.subList(childPositionStart,
-                childItemCount + childPositionStart);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_CHILD_INSERTED);
+        try {
+            int parentAdapterPos = getParentAdapterPosition(parentPosition);
+            if (parentAdapterPos == RecyclerView.NO_POSITION) return;
+            ParentItemWrapper parentItemWrapper = mItemList.getParentWrapper(parentPosition);
+            //这里判断如果父列表项已展开才添加数据并通知刷新列表界面
+            //注意：这里的数据添加和 {@code expandParentItem } 数据添加有冲突，因为 expandParentItem
+            //获取子列表数据然后再添加到模型数据层再刷新界面的，这里如果判断没展开就不能添加数据，否则有重复数据显示
+            if (!forceExpandParent && !parentItemWrapper.isExpanded()) return;
+
+            //如果强制展开父列表项并且当前的父列表项没有展开，直接调用{@link #expandViews},通知父列表项已展开
+            if (forceExpandParent && !parentItemWrapper.isExpanded()) {
+                //直接展开 ParentItem,注意：同时更新对应的 ParentViewHolder 的展开折叠状态
+                expandViews(parentAdapterPos, true);
+                return;
+            }
 
-        int childAdapterPos=RecyclerView.NO_POSITION;
-        if (childPositionStart >= 0 && childPositionStart < childItems.size() - childItemCount) {
-            childAdapterPos = getChildAdapterPosition(parentPosition, childPositionStart);
-        } else if(childPositionStart == childItems.size() - childItemCount){
-            childAdapterPos = parentAdapterPos + childItems.size() - childItemCount + 1;
+            mItemList.insertChildren(parentPosition, childPositionStart, childItemCount);
+        } finally {
+            endOperation(MetricsListener.OP_CHILD_INSERTED, startNanos);
         }
-        if (childAdapterPos==RecyclerView.NO_POSITION) return;
-
-        mItems.addAll(childAdapterPos, insertedChildItemList);
-        notifyItemRangeInserted(childAdapterPos, childItemCount);
     }
 
     /**
@@ -1134,26 +1319,13 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @see #notifyParentItemRemoved(int)
      */
     public final void notifyParentItemRangeRemoved(int parentPositionStart, int parentItemCount) {
-        int parentAdapterPosStart = getParentAdapterPosition(parentPositionStart);
-        if (parentAdapterPosStart == RecyclerView.NO_POSITION) return;
-        //计算移除的 ItemView 个数
-        int removedItemCount = 0;
-        for (int i = parentPositionStart; i < parentPositionStart + parentItemCount; i++) {
-            ParentItemWrapper parentItemWrapper = (ParentItemWrapper) getItem(
-                    parentAdapterPosStart);
-            //判断当前 ParentItem 是否为展开状态
-            if (parentItemWrapper.isExpanded()) {
-                List<?> childItems = parentItemWrapper.getChildItems();
-                if (childItems != null) {
-                    int childItemCount = childItems.size();
-                    mItems.removeAll(childItems);
-                    removedItemCount += childItemCount;
-                }
-            }
-            mItems.remove(parentItemWrapper);
-            removedItemCount++;
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_PARENT_REMOVED);
+        try {
+            //移除的 ItemView 包括这些父列表项和其展开的子列表项
+            mItemList.removeParents(parentPositionStart, parentItemCount);
+        } finally {
+            endOperation(MetricsListener.OP_PARENT_REMOVED, startNanos);
         }
-        notifyItemRangeRemoved(parentAdapterPosStart, removedItemCount);
     }
 
     public final void notifyChildItemRangeRemoved(int parentPosition, int childPositionStart,
@@ -1177,34 +1349,32 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
     public final void notifyChildItemRangeRemoved(int parentPosition, int childPositionStart,
             int childItemCount,boolean forceCollapseParent)
     {
-        int parentAdapterPos = getParentAdapterPosition(parentPosition);
-        if (parentAdapterPos == RecyclerView.NO_POSITION) return;
-
-        ParentItemWrapper parentItemWrapper = (ParentItemWrapper) getItem(parentAdapterPos);
-        List<?> childItems = parentItemWrapper.getChildItems();
-
-        //注意：这里判断当前父列表项是否已经打开，只有打开更改本地数据结构并通知刷新，否则会出现数据混乱异常
-        if (!parentItemWrapper.isExpanded()) return;
-
-        int childAdapterPosStart = getChildAdapterPosition(parentPosition, childPositionStart);
-        if (childAdapterPosStart==RecyclerView.NO_POSITION) return;
-
-        mItems.removeAll(mItems.subList(childAdapterPosStart,childAdapterPosStart+childItemCount));
-        notifyItemRangeRemoved(childAdapterPosStart, childItemCount);
-
-        boolean allChildRemoved = childItems == null || childItems.isEmpty();
-        //强制在移除 child 时自动折叠 parent
-        if (forceCollapseParent && !allChildRemoved) {
-            collapseViews(parentAdapterPos, true);
-        } else {
-            //如果子列表项都删除了，默认通知这些删除的子列表项所属的父列表项已变为折叠状态
-            if (allChildRemoved) {
-                parentItemWrapper.setExpanded(false);
-                //同步 ParentViewHolder 和 ParentItemWrapper 的 ParentItem 展开状态
-                syncViewCollapseState(parentAdapterPos, true);
-                //通知所有监听 Parent 展开折叠状态监听器当前 Parent 已折叠
-                notifyParentCollapsed(parentAdapterPos, false);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_CHILD_REMOVED);
+        try {
+            int parentAdapterPos = getParentAdapterPosition(parentPosition);
+            if (parentAdapterPos == RecyclerView.NO_POSITION) return;
+
+            ParentItemWrapper parentItemWrapper = mItemList.getParentWrapper(parentPosition);
+
+            //注意：这里判断当前父列表项是否已经打开，只有打开更改本地数据结构并通知刷新，否则会出现数据混乱异常
+            if (!mItemList.removeChildren(parentPosition, childPositionStart, childItemCount)) return;
+
+            //所有可见的子列表项都移除后扁平化引擎已经把父列表项设置为折叠状态
+            boolean allChildRemoved = !parentItemWrapper.isExpanded();
+            //强制在移除 child 时自动折叠 parent
+            if (forceCollapseParent && !allChildRemoved) {
+                collapseViews(parentAdapterPos, true);
+            } else {
+                //如果子列表项都删除了，默认通知这些删除的子列表项所属的父列表项已变为折叠状态
+                if (allChildRemoved) {
+                    //同步 ParentViewHolder 和 ParentItemWrapper 的 ParentItem 展开状态
+                    syncViewCollapseState(parentAdapterPos, true);
+                    //通知所有监听 Parent 展开折叠状态监听器当前 Parent 已折叠
+                    notifyParentCollapsed(parentAdapterPos, false);
+                }
             }
+        } finally {
+            endOperation(MetricsListener.OP_CHILD_REMOVED, startNanos);
         }
     }
 
@@ -1221,13 +1391,12 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
     //FIXME Bug
     //TODO 是否需要处理更改后的 parent 的 children 和展开状态
     public final void notifyParentItemChanged(int parentPosition) {
-        ParentItem changedParentItem = mParentItems.get(parentPosition);
-        if (changedParentItem == null) return;
-        int parentAdapterPos = getParentAdapterPosition(parentPosition);
-        if (parentAdapterPos == RecyclerView.NO_POSITION) return;
-        ParentItemWrapper parentItemWrapper = (ParentItemWrapper) getItem(parentAdapterPos);
-        parentItemWrapper.setParentItem(changedParentItem);
-        notifyItemChanged(parentAdapterPos);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_PARENT_CHANGED);
+        try {
+            mItemList.changeParents(parentPosition, 1);
+        } finally {
+            endOperation(MetricsListener.OP_PARENT_CHANGED, startNanos);
+        }
     }
 
     /**
@@ -1239,29 +1408,12 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @param parentItemCount 父列表项数据更改的数量
      */
     public final void notifyParentItemRangeChanged(int parentPositionStart, int parentItemCount) {
-        //判断当前是否所有的 ParentItem 都是折叠状态
-        //1.如果都为折叠状态，直接调用 {@link notifyItemRangeChanged(positionStart,itemCount)}
-        //2.只要有一个是打开状态，循环遍历调用 {@link notifyParentItemChanged(parentPosition)}
-        boolean allCollapsed = true;
-        for (int i = parentPositionStart; i < parentPositionStart + parentItemCount; i++) {
-            int parentAdapterPos = getParentAdapterPosition(i);
-            if (parentAdapterPos == RecyclerView.NO_POSITION) {
-                allCollapsed = false;
-                break;
-            }
-            ParentItemWrapper parentItemWrapper = (ParentItemWrapper) getItem(parentAdapterPos);
-            if (parentItemWrapper.isExpanded()) {
-                allCollapsed = false;
-                break;
-            }
-        }
-        if (allCollapsed) {
-            final int parentAdapterPosStart = getParentAdapterPosition(parentPositionStart);
-            notifyItemRangeChanged(parentAdapterPosStart, parentItemCount);
-        } else {
-            for (int i = parentPositionStart; i < parentPositionStart + parentItemCount; i++) {
-                notifyParentItemChanged(i);
-            }
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_PARENT_CHANGED);
+        try {
+            //适配器位置连续的父列表项(例如都为折叠状态)合并为一次 notifyItemRangeChanged 通知
+            mItemList.changeParents(parentPositionStart, parentItemCount);
+        } finally {
+            endOperation(MetricsListener.OP_PARENT_CHANGED, startNanos);
         }
     }
     
@@ -1286,26 +1438,13 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
     public final void notifyChildItemRangeChanged(int parentPosition, int childPositionStart,
             int childItemCount)
     {
-        int parentAdapterPos = getParentAdapterPosition(parentPosition);
-        if (parentAdapterPos == RecyclerView.NO_POSITION) return;
-
-        ParentItemWrapper parentItemWrapper = (ParentItemWrapper) getItem(parentAdapterPos);
-        //父列表项没有展开，不执行更新子列表相关事务
-        if (!parentItemWrapper.isExpanded()) return;
-        List<?> childItems = parentItemWrapper.getChildItems();
-        if (childItems==null || childItems.isEmpty()) return;
-
-        int changedItemCount=0;
-        for (int i = childPositionStart; i < childPositionStart + childItemCount; i++) {
-            Object changedChildItem = childItems.get(i);
-            if (changedChildItem == null) continue;
-            int childAdapterPos = getChildAdapterPosition(parentPosition, i);
-            if (childAdapterPos == RecyclerView.NO_POSITION) continue;
-            mItems.set(childAdapterPos, changedChildItem);
-            changedItemCount++;
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_CHILD_CHANGED);
+        try {
+            //父列表项没有展开，不执行更新子列表相关事务
+            mItemList.changeChildren(parentPosition, childPositionStart, childItemCount);
+        } finally {
+            endOperation(MetricsListener.OP_CHILD_CHANGED, startNanos);
         }
-        final int childAdapterPosStart=getChildAdapterPosition(parentPosition, childPositionStart);
-        notifyItemRangeChanged(childAdapterPosStart,changedItemCount);
     }
 
     /**
@@ -1319,48 +1458,12 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      */
     public final void notifyParentItemMoved(int fromParentPosition, int toParentPosition)
     {
-        if (fromParentPosition == toParentPosition) return;
-
-        int fromParentAdapterPos = getParentAdapterPosition(fromParentPosition);
-        int toParentAdapterPos = getParentAdapterPosition(toParentPosition);
-        if (fromParentAdapterPos == RecyclerView.NO_POSITION ||
-                toParentAdapterPos == RecyclerView.NO_POSITION) return;
-
-        ParentItemWrapper fromParentItemWrapper= (ParentItemWrapper) getItem(fromParentAdapterPos);
-        ParentItemWrapper toParentItemWrapper= (ParentItemWrapper) getItem(toParentAdapterPos);
-        final boolean isFromExpanded=fromParentItemWrapper.isExpanded();
-        final boolean isToExpanded=toParentItemWrapper.isExpanded();
-        //Parent 或 Child 往下 Move 需要特殊处理
-        boolean moveToBottom = fromParentPosition < toParentAdapterPos;
-
-        mItems.remove(fromParentAdapterPos);
-        int moveToParentAdapterPos;
-        //这里需要判断 toParentItem 展开状态来计算出 fromParentItem 的 moveTo 位置
-        if (moveToBottom && isToExpanded && toParentItemWrapper.getChildItemCount() > 0) {
-            moveToParentAdapterPos=toParentAdapterPos + toParentItemWrapper.getChildItemCount();
-        } else {
-            moveToParentAdapterPos=toParentAdapterPos;
-        }
-        mItems.add(moveToParentAdapterPos, fromParentItemWrapper);
-        notifyItemMoved(fromParentAdapterPos,moveToParentAdapterPos);
-
-        //根据 fromParentItem 的展开状态判断是否需要移动其 ChildItem(s)
-        if (isFromExpanded) {
-            List<?> childItems = fromParentItemWrapper.getChildItems();
-            if (childItems==null || childItems.isEmpty()) return;
-
-            final int childCount=childItems.size();
-            for (int i = 0; i < childCount; i++) {
-                Object fromChildItem=childItems.get(i);
-                if (fromChildItem==null) continue;
-                int fromChildAdapterPos =
-                        moveToBottom ? fromParentAdapterPos  : fromParentAdapterPos + i + 1;
-                int toChildAdapterPos = moveToBottom ? moveToParentAdapterPos
-                        : moveToParentAdapterPos + i + 1;
-                mItems.remove(fromChildAdapterPos);
-                mItems.add(toChildAdapterPos, fromChildItem);
-                notifyItemMoved(fromChildAdapterPos, toChildAdapterPos);
-            }
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_PARENT_MOVED);
+        try {
+            //父列表项和其展开的子列表项作为一个整体移动
+            mItemList.moveParent(fromParentPosition, toParentPosition);
+        } finally {
+            endOperation(MetricsListener.OP_PARENT_MOVED, startNanos);
         }
     }
 
@@ -1379,32 +1482,26 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
     public final void notifyChildItemMoved(int fromParentPosition, int fromChildPosition,
             int toParentPosition, int toChildPosition)
     {
-        if (fromParentPosition == toParentPosition && fromChildPosition == toChildPosition) return;
-        int fromParentAdapterPos = getParentAdapterPosition(fromParentPosition);
-        int fromChildAdapterPos = getChildAdapterPosition(fromParentPosition, fromChildPosition);
-        int toParentAdapterPos = getParentAdapterPosition(toParentPosition);
-        int toChildAdapterPos = getChildAdapterPosition(toParentPosition, toChildPosition);
-        if (fromParentAdapterPos == RecyclerView.NO_POSITION ||
-                fromChildAdapterPos == RecyclerView.NO_POSITION ||
-                toParentAdapterPos == RecyclerView.NO_POSITION ||
-                toChildAdapterPos == RecyclerView.NO_POSITION)
-            return;
-
-        ParentItemWrapper fromParentItemWrapper = (ParentItemWrapper) getItem(fromParentAdapterPos);
-        ParentItemWrapper toParentItemWrapper = (ParentItemWrapper) getItem(toParentAdapterPos);
-        if (fromParentItemWrapper.isExpanded()) {
-            if (toParentItemWrapper.isExpanded()) {
-                Object fromChildItem=getItem(fromChildAdapterPos);
-                mItems.remove(fromChildAdapterPos);
-                mItems.add(toChildAdapterPos,fromChildItem);
-                notifyItemMoved(fromChildAdapterPos,toChildAdapterPos);
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_CHILD_MOVED);
+        try {
+            if (fromParentPosition == toParentPosition && fromChildPosition == toChildPosition) return;
+            ParentItemWrapper fromParentItemWrapper = mItemList.getParentWrapper(fromParentPosition);
+            ParentItemWrapper toParentItemWrapper = mItemList.getParentWrapper(toParentPosition);
+            if (fromParentItemWrapper == null || toParentItemWrapper == null) return;
+            if (fromParentItemWrapper.isExpanded()) {
+                if (toParentItemWrapper.isExpanded()) {
+                    mItemList.moveChild(fromParentPosition, fromChildPosition, toParentPosition,
+                            toChildPosition);
+                } else {
+                    notifyChildItemRemoved(fromParentPosition, fromChildPosition);
+                }
+            } else if (toParentItemWrapper.isExpanded()) {
+                notifyChildItemInserted(toParentPosition, toChildPosition,false);
             } else {
-                notifyChildItemRemoved(fromParentPosition, fromChildPosition);
+                // from 和 to parentItem 都没有展开,do nothing
             }
-        } else if (toParentItemWrapper.isExpanded()) {
-            notifyChildItemInserted(toParentPosition, toChildPosition,false);
-        } else {
-            // from 和 to parentItem 都没有展开,do nothing
+        } finally {
+            endOperation(MetricsListener.OP_CHILD_MOVED, startNanos);
         }
     }
 
@@ -1423,28 +1520,11 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
     }
 
     private SavedState getSavedState() {
-        boolean[] expansionState = new boolean[getParentCount()];
-        SavedState savedState = new SavedState(expansionState);
-        final int itemCount = mItems.size();
-        int index=0;
-        for (int i = 0; i < itemCount; i++) {
-            Object item = getItem(i);
-            if (item instanceof ParentItemWrapper) {
-                ParentItemWrapper parentItemWrapper = (ParentItemWrapper) item;
-                expansionState[index++] = parentItemWrapper.isExpanded();
-            }
-        }
-        return savedState;
+        return new SavedState(mItemList.getExpansionState());
     }
 
     private int getParentCount() {
-        int count = 0;
-        for (Object item : mItems) {
-            if (item instanceof ParentItemWrapper) {
-                count++;
-            }
-        }
-        return count;
+        return mItemList.getParentCount();
     }
 
     /**
@@ -1453,41 +1533,229 @@ public abstract class ExpandableAdapter<PVH extends ParentViewHolder, CVH extend
      * @param savedInstanceState 之前保存过的数据的 Bundle
      */
     public void onRestoreInstanceState(Bundle savedInstanceState) {
-        if (savedInstanceState == null) return;
-        SavedState savedState = savedInstanceState.getParcelable(SAVED_EXPANSION_STATE);
-        if (savedState==null) return;
-        boolean[] savedExpansionState=savedState.getExpansionState();
-        if (savedExpansionState==null) return;
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_RESTORE_STATE);
+        try {
+            if (savedInstanceState == null) return;
+            SavedState savedState = savedInstanceState.getParcelable(SAVED_EXPANSION_STATE);
+            if (savedState==null) return;
+            boolean[] savedExpansionState=savedState.getExpansionState();
+            if (savedExpansionState==null) return;
+
+            Logger.e(TAG, "onRestoreInstanceState");
+
+            mItemList.setExpansionState(savedExpansionState);
+            resetFilter();
+            countNotify(getItemCount());
+            notifyDataSetChanged();
+        } finally {
+            endOperation(MetricsListener.OP_RESTORE_STATE, startNanos);
+        }
+    }
+
+    //———————————————————————————过滤子列表项———————————————————————————————————————\\
+
+    /**
+     * 子列表项过滤完成监听接口
+     */
+    public interface OnFilterCompleteListener {
+        /**
+         * 过滤结果已经应用到列表后的回调
+         * @param matchedChildCount 符合过滤条件的子列表项总数，清除过滤时为所有子列表项总数
+         */
+        void onFilterComplete(int matchedChildCount);
+    }
+
+    /**
+     * 设置子列表项过滤器
+     * @param childFilter 子列表项过滤器
+     * @see #filter(CharSequence)
+     */
+    public void setChildFilter(ChildFilter childFilter) {
+        mChildFilter = childFilter;
+    }
+
+    public ChildFilter getChildFilter() {
+        return mChildFilter;
+    }
 
-        Logger.e(TAG, "onRestoreInstanceState");
+    /**
+     * 根据过滤条件过滤子列表项
+     * @param constraint 过滤条件
+     * @see #filter(CharSequence, OnFilterCompleteListener)
+     */
+    public void filter(CharSequence constraint) {
+        filter(constraint, null);
+    }
 
-        List<Object> savedItems = new ArrayList<>();
-        final int savedCount=savedExpansionState.length;
-        final int parentCount=mParentItems.size();
+    /**
+     * 根据过滤条件过滤子列表项
+     * <p>
+     *     在工作线程中通过 {@link ChildFilter} 过滤所有父列表项下的子列表项，完成后在主线程中自动展开有匹配
+     *     子列表项的父列表项，折叠没有匹配的父列表项，并且只通知可见列表项的变化部分。
+     *     新的过滤条件以上一次的过滤条件开头时(参考 {@link ChildFilter#isNarrowing(CharSequence, CharSequence)})
+     *     只在上一次的结果中继续过滤；再次调用时之前未完成的过滤会被取消
+     * </p>
+     * <p>
+     *     过滤条件为 null 或空时清除过滤，恢复开始过滤前各父列表项的展开状态
+     * </p>
+     * <p>
+     *     <b>注意：必须在主线程调用；过滤状态下子列表项位置对应的是过滤后的子列表，过滤期间不要修改子列表项数据源，
+     *     需要更新数据时请调用 {@link #invalidateParentItems(List)}</b>
+     * </p>
+     * @param constraint 过滤条件
+     * @param listener 过滤完成监听器，可以为 null
+     */
+    public void filter(CharSequence constraint, OnFilterCompleteListener listener) {
+        if (mChildFilter == null) {
+            throw new IllegalStateException("ChildFilter should be set before filter");
+        }
+        mFilterListener = listener;
+        if (constraint == null || constraint.length() == 0) {
+            clearFilter();
+            return;
+        }
+        if (mPreFilterExpansionState == null) {
+            mPreFilterExpansionState = getSavedState().getExpansionState();
+        }
+        final int parentCount = getParentCount();
+        ParentItem[] parentItems = new ParentItem[parentCount];
+        List<?>[] sources = new List<?>[parentCount];
         for (int i = 0; i < parentCount; i++) {
-            ParentItem parentItem=mParentItems.get(i);
-            if (parentItem==null) continue;
-            ParentItemWrapper parentItemWrapper=new ParentItemWrapper(parentItem);
-            savedItems.add(parentItemWrapper);
-
-            if (i < savedCount) {
-               final boolean isExpanded=savedExpansionState[i];
-                if (isExpanded) {
-                    List<?> childItems = parentItemWrapper.getChildItems();
-                    final boolean hasChildren = childItems != null && !childItems.isEmpty();
-                    if (!hasChildren) continue;
-                    parentItemWrapper.setExpanded(true);
-                    final int childCount = childItems.size();
-                    for (int j = 0; j < childCount; j++) {
-                        Object childListItem = childItems.get(j);
-                        if (childListItem == null) continue;
-                        savedItems.add(childListItem);
-                    }
+            ParentItemWrapper parentItemWrapper = mItemList.getParentWrapper(i);
+            if (parentItemWrapper == null) continue;
+            parentItems[i] = parentItemWrapper.getParentItem();
+            sources[i] = parentItemWrapper.getSourceChildItems();
+        }
+        getExpandableFilter().filter(mChildFilter, constraint.toString(), parentItems, sources);
+    }
+
+    /**
+     * 清除过滤，恢复显示所有子列表项以及开始过滤前各父列表项的展开状态
+     */
+    public void clearFilter() {
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_CLEAR_FILTER);
+        try {
+            if (mExpandableFilter != null) {
+                mExpandableFilter.cancel();
+                mExpandableFilter.setLastResult(null);
+            }
+            final boolean[] expansionState = mPreFilterExpansionState;
+            if (expansionState == null) return;
+            mPreFilterExpansionState = null;
+            int childCount = 0;
+            final int parentCount = getParentCount();
+            for (int i = 0; i < parentCount; i++) {
+                ParentItemWrapper parentItemWrapper = mItemList.getParentWrapper(i);
+                if (parentItemWrapper == null) continue;
+                List<?> source = parentItemWrapper.getSourceChildItems();
+                childCount += source != null ? source.size() : 0;
+                final boolean expand = i < expansionState.length && expansionState[i];
+                updateVisibleChildItems(i, null, expand);
+            }
+            if (mFilterListener != null) mFilterListener.onFilterComplete(childCount);
+        } finally {
+            endOperation(MetricsListener.OP_CLEAR_FILTER, startNanos);
+        }
+    }
+
+    /**
+     * 当前是否处于过滤状态
+     * @return
+     */
+    public boolean isFiltered() {
+        return mPreFilterExpansionState != null;
+    }
+
+    private ExpandableFilter getExpandableFilter() {
+        if (mExpandableFilter == null) {
+            mExpandableFilter = createExpandableFilter(new ExpandableFilter.Callback() {
+                @Override
+                public void onFilterResult(ExpandableFilter.FilterResult result) {
+                    applyFilterResult(result);
                 }
+            });
+        }
+        return mExpandableFilter;
+    }
+
+    /**
+     * 创建子列表项后台过滤处理类，测试时可以替换执行过滤和回调结果的线程
+     */
+    ExpandableFilter createExpandableFilter(ExpandableFilter.Callback callback) {
+        return new ExpandableFilter(callback);
+    }
+
+    /**
+     * 数据源重置时丢弃过滤状态
+     */
+    private void resetFilter() {
+        mPreFilterExpansionState = null;
+        if (mExpandableFilter != null) {
+            mExpandableFilter.cancel();
+            mExpandableFilter.setLastResult(null);
+        }
+    }
+
+    /**
+     * 应用工作线程的过滤结果
+     * @param result 过滤结果
+     */
+    private void applyFilterResult(ExpandableFilter.FilterResult result) {
+        final long startNanos = beginOperation(TRACE_PREFIX + MetricsListener.OP_APPLY_FILTER);
+        try {
+            //过滤期间数据源已经改变，丢弃该结果并重新过滤
+            if (!isFilterSourceValid(result)) {
+                Logger.e(TAG, "applyFilterResult---->source changed,refilter");
+                mExpandableFilter.setLastResult(null);
+                filter(result.constraint, mFilterListener);
+                return;
+            }
+            for (int i = 0; i < result.matches.length; i++) {
+                updateVisibleChildItems(i, result.matches[i], result.matches[i].length > 0);
             }
+            mExpandableFilter.setLastResult(result);
+            if (mFilterListener != null) mFilterListener.onFilterComplete(result.matchedCount);
+        } finally {
+            endOperation(MetricsListener.OP_APPLY_FILTER, startNanos);
+        }
+    }
+
+    private boolean isFilterSourceValid(ExpandableFilter.FilterResult result) {
+        final int parentCount = getParentCount();
+        if (parentCount != result.sources.length) return false;
+        for (int i = 0; i < parentCount; i++) {
+            ParentItemWrapper parentItemWrapper = mItemList.getParentWrapper(i);
+            List<?> source = parentItemWrapper != null ?
+                    parentItemWrapper.getSourceChildItems() : null;
+            final int size = source != null ? source.size() : 0;
+            if (source != result.sources[i] || size != result.sourceSizes[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 更新指定父列表项下可见的子列表项，只通知新旧可见子列表项之间变化的连续区间
+     * @param parentPosition 父列表项在父列表里的位置
+     * @param filteredIndexes 保留的子列表项在原始子列表里的位置(升序)，为 null 时保留所有子列表项
+     * @param expand 是否展开该父列表项
+     */
+    private void updateVisibleChildItems(int parentPosition, int[] filteredIndexes,
+            boolean expand)
+    {
+        ParentItemWrapper parentItemWrapper = mItemList.getParentWrapper(parentPosition);
+        if (parentItemWrapper == null) return;
+        final boolean wasExpanded = parentItemWrapper.isExpanded();
+        final boolean expanded = mItemList.setVisibleChildIndexes(parentPosition,
+                filteredIndexes, expand);
+
+        final int parentAdapterPosition = getParentAdapterPosition(parentPosition);
+        if (expanded && !wasExpanded) {
+            syncViewExpansionState(parentAdapterPosition, true);
+            notifyParentExpanded(parentAdapterPosition, false);
+        } else if (!expanded && wasExpanded) {
+            syncViewCollapseState(parentAdapterPosition, true);
+            notifyParentCollapsed(parentAdapterPosition, false);
         }
-        mItems = savedItems;
-        notifyDataSetChanged();
     }
 
     /**
@@ -0,0 +1,217 @@
+package com.jhj.expandablerecyclerview.adapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import com.jhj.expandablerecyclerview.model.ParentItem;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ExpandableAdapter} 子列表项后台过滤处理类
+ * <p>
+ *     在单独的工作线程中根据 {@link ChildFilter} 计算每个父列表项下符合条件的子列表项位置，
+ *     计算完成后在主线程回调 {@link Callback#onFilterResult(FilterResult)}。
+ *     新的过滤请求会使之前未完成的过滤任务失效，过期的结果不会被回调
+ * </p>
+ */
+class ExpandableFilter {
+    private static final String TAG = "ExpandableFilter";
+
+    /**
+     * 工作线程每处理多少个子列表项检查一次当前任务是否已过期
+     */
+    private static final int CANCEL_CHECK_INTERVAL = 256;
+
+    private static final int[] EMPTY_INDEXES = new int[0];
+
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, "ExpandableFilter");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    /**
+     * 执行过滤任务的工作线程和投递结果的主线程
+     */
+    private final Executor mWorkExecutor;
+    private final Executor mMainExecutor;
+
+    /**
+     * 过滤任务的版本号，每次发起或取消过滤时递增，用于丢弃过期的过滤任务和结果
+     */
+    private final AtomicInteger mGeneration = new AtomicInteger();
+
+    private final Callback mCallback;
+
+    private Future<?> mRunningTask;
+
+    /**
+     * 上一次完成并已应用的过滤结果，用于在过滤条件收窄时复用
+     */
+    private FilterResult mLastResult;
+
+    interface Callback {
+        /**
+         * 过滤完成后在主线程的回调
+         * @param result 过滤结果
+         */
+        void onFilterResult(FilterResult result);
+    }
+
+    /**
+     * 过滤结果
+     */
+    static class FilterResult {
+        CharSequence constraint;
+        /**
+         * 过滤时每个父列表项的原始子列表项集合
+         */
+        List<?>[] sources;
+        /**
+         * 过滤时每个父列表项的原始子列表项数量
+         */
+        int[] sourceSizes;
+        /**
+         * 每个父列表项下符合条件的子列表项在原始子列表里的位置(升序)
+         */
+        int[][] matches;
+        int matchedCount;
+    }
+
+    ExpandableFilter(Callback callback) {
+        this(callback, sExecutor, new Executor() {
+            private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+            @Override
+            public void execute(Runnable command) {
+                mMainHandler.post(command);
+            }
+        });
+    }
+
+    /**
+     * @param workExecutor 执行过滤任务的线程，同一时间只能执行一个任务
+     * @param mainExecutor 回调过滤结果的主线程
+     */
+    ExpandableFilter(Callback callback, Executor workExecutor, Executor mainExecutor) {
+        mCallback = callback;
+        mWorkExecutor = workExecutor;
+        mMainExecutor = mainExecutor;
+    }
+
+    /**
+     * 在工作线程中过滤子列表项
+     * <p><b>注意：必须在主线程调用，过滤期间不能修改子列表项集合</b></p>
+     * @param filter 过滤器
+     * @param constraint 过滤条件，不能为空
+     * @param parentItems 当前所有的父列表项
+     * @param sources 当前每个父列表项的原始子列表项集合
+     */
+    void filter(final ChildFilter filter, final CharSequence constraint,
+            final ParentItem[] parentItems, final List<?>[] sources)
+    {
+        final int generation = cancel();
+        final int parentCount = sources.length;
+        final int[] sourceSizes = new int[parentCount];
+        for (int i = 0; i < parentCount; i++) {
+            sourceSizes[i] = sources[i] != null ? sources[i].size() : 0;
+        }
+        final FilterResult last = mLastResult != null && filter.isNarrowing(
+                mLastResult.constraint, constraint) ? mLastResult : null;
+
+        FutureTask<Void> task = new FutureTask<>(new Runnable() {
+            @Override
+            public void run() {
+                FilterResult result = new FilterResult();
+                result.constraint = constraint;
+                result.sources = sources;
+                result.sourceSizes = sourceSizes;
+                result.matches = new int[parentCount][];
+                int[] buffer = EMPTY_INDEXES;
+                int checked = 0;
+                for (int i = 0; i < parentCount; i++) {
+                    if (mGeneration.get() != generation) return;
+                    final List<?> source = sources[i];
+                    final int size = sourceSizes[i];
+                    if (size == 0) {
+                        result.matches[i] = EMPTY_INDEXES;
+                        continue;
+                    }
+                    //上一次过滤的是同一个子列表时只需在上一次的匹配结果里继续过滤
+                    final int[] candidates = last != null && i < last.sources.length &&
+                            last.sources[i] == source && last.sourceSizes[i] == size ?
+                            last.matches[i] : null;
+                    final int candidateCount = candidates != null ? candidates.length : size;
+                    if (buffer.length < candidateCount) buffer = new int[candidateCount];
+                    int matchedCount = 0;
+                    for (int j = 0; j < candidateCount; j++) {
+                        final int childPos = candidates != null ? candidates[j] : j;
+                        if (filter.accept(parentItems[i], source.get(childPos), constraint)) {
+                            buffer[matchedCount++] = childPos;
+                        }
+                        if (++checked % CANCEL_CHECK_INTERVAL == 0 &&
+                                mGeneration.get() != generation) return;
+                    }
+                    result.matches[i] = matchedCount == 0 ? EMPTY_INDEXES : Arrays.copyOf(buffer,
+                            matchedCount);
+                    result.matchedCount += matchedCount;
+                }
+                deliverResult(result, generation);
+            }
+        }, null);
+        mRunningTask = task;
+        mWorkExecutor.execute(task);
+    }
+
+    private void deliverResult(final FilterResult result, final int generation) {
+        mMainExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mGeneration.get() != generation) return;
+                mRunningTask = null;
+                mCallback.onFilterResult(result);
+            }
+        });
+    }
+
+    /**
+     * 记录已应用的过滤结果，供下一次收窄的过滤条件复用
+     * @param result 已应用的过滤结果，为 null 时清除记录
+     */
+    void setLastResult(FilterResult result) {
+        mLastResult = result;
+    }
+
+    /**
+     * 取消当前未完成的过滤任务，已经计算完成但还没有回调的结果也会被丢弃
+     * @return 新的过滤任务版本号
+     */
+    int cancel() {
+        final int generation = mGeneration.incrementAndGet();
+        if (mRunningTask != null) {
+            mRunningTask.cancel(false);
+            mRunningTask = null;
+        }
+        return generation;
+    }
+}
@@ -0,0 +1,53 @@
+package com.jhj.expandablerecyclerview.adapter;
+
+/**
+ * {@link ExpandableAdapter} 操作耗时统计监听器，通过 {@link ExpandableAdapter#setMetricsListener(MetricsListener)}
+ * 设置，用于把适配器内部的开销接入客户端自己的统计系统
+ * <p>
+ *     每次最外层的操作结束时回调一次，嵌套调用(例如 {@link ExpandableAdapter#expandAllParent()} 内部的每次展开)
+ *     计入最外层操作，不单独回调。默认为 {@link #NONE}，此时适配器不会读取时钟也不会统计
+ * </p>
+ * <p><b>注意：该方法在主线程中同步回调，实现类应该尽快返回</b></p>
+ */
+public interface MetricsListener {
+
+    String OP_CREATE_VIEW_HOLDER = "createViewHolder";
+    String OP_BIND_VIEW_HOLDER = "bindViewHolder";
+    String OP_GET_ITEM_VIEW_TYPE = "getItemViewType";
+    String OP_SET_PARENT_ITEMS = "setParentItems";
+    String OP_EXPAND = "expand";
+    String OP_COLLAPSE = "collapse";
+    String OP_EXPAND_ALL = "expandAll";
+    String OP_COLLAPSE_ALL = "collapseAll";
+    String OP_PARENT_INSERTED = "parentInserted";
+    String OP_PARENT_REMOVED = "parentRemoved";
+    String OP_PARENT_CHANGED = "parentChanged";
+    String OP_PARENT_MOVED = "parentMoved";
+    String OP_CHILD_INSERTED = "childInserted";
+    String OP_CHILD_REMOVED = "childRemoved";
+    String OP_CHILD_CHANGED = "childChanged";
+    String OP_CHILD_MOVED = "childMoved";
+    String OP_RESTORE_STATE = "restoreState";
+    String OP_APPLY_FILTER = "applyFilter";
+    String OP_CLEAR_FILTER = "clearFilter";
+
+    /**
+     * 不做任何统计的默认实现
+     */
+    MetricsListener NONE = new MetricsListener() {
+        @Override
+        public void onOperation(String operation, int notifyCount, int rowCount,
+                long durationNanos)
+        {
+        }
+    };
+
+    /**
+     * 一次操作完成后的回调
+     * @param operation 操作名称，为 {@code OP_XXX} 常量之一
+     * @param notifyCount 该操作发给 RecyclerView 的 notify 通知次数
+     * @param rowCount 这些通知涉及的列表项行数，bind 和 create 为 1
+     * @param durationNanos 操作耗时，单位纳秒，包括 RecyclerView 处理 notify 通知的同步部分
+     */
+    void onOperation(String operation, int notifyCount, int rowCount, long durationNanos);
+}
@@ -0,0 +1,291 @@
+package com.jhj.expandablerecyclerview.adapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.widget.RecyclerView;
+
+import com.jhj.expandablerecyclerview.model.ParentItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将扁平的数据记录按分组键构建为父列表项和子列表项
+ * <p>
+ *     逐条接收数据记录，通过 {@link GroupCallback#getGroupKey(Object)} 一次遍历完成分组：
+ *     父列表项按分组键第一次出现的顺序排列，子列表项按记录到达的顺序排列。
+ *     通过 {@link #attach(ExpandableAdapter)} 关联适配器后，每积累 {@link #setBatchSize(int)} 条记录就会
+ *     以区间通知的方式把新的父列表项和子列表项添加到适配器，不需要等到所有记录读取完成
+ * </p>
+ * <p>
+ *     {@link #add(Object)} 可以在任意单个线程(例如读取网络数据流的工作线程)中调用，数据源的修改和适配器的通知
+ *     总是在主线程中进行
+ * </p>
+ * <p>
+ *     构建期间可以通过适配器在父列表项集合中插入、删除或移动父列表项，已存在分组的位置在每个批次
+ *     添加到数据源时重新确定；被删除的父列表项之后收到的子列表项仍然添加到该父列表项，但不再通知适配器
+ * </p>
+ * <pre>
+ *     ParentItemGroupBuilder&lt;Record, String, OrgnzParent&gt; builder =
+ *             new ParentItemGroupBuilder&lt;&gt;(callback);
+ *     OrgnzAdapter adapter = new OrgnzAdapter(context, builder.getParentItems());
+ *     builder.attach(adapter);
+ *     while (stream.hasNext()) builder.add(stream.next());
+ *     builder.finish();
+ * </pre>
+ * @param <R> 数据记录类型
+ * @param <K> 分组键类型
+ * @param <P> 父列表项类型
+ */
+public class ParentItemGroupBuilder<R, K, P extends ParentItem> {
+    private static final String TAG = "ParentItemGroupBuilder";
+
+    private static final int DEFAULT_BATCH_SIZE = 64;
+
+    /**
+     * 分组构建回调接口
+     */
+    public interface GroupCallback<R, K, P extends ParentItem> {
+        /**
+         * 获取数据记录的分组键
+         * @param record 数据记录
+         * @return 分组键，需要正确实现 equals 和 hashCode
+         */
+        K getGroupKey(R record);
+
+        /**
+         * 分组键第一次出现时创建对应的父列表项
+         * @param key 分组键
+         * @param record 该分组的第一条数据记录
+         * @return 新的父列表项，其 {@link ParentItem#getChildItems()} 必须返回一个可修改的空集合
+         */
+        P createParentItem(K key, R record);
+
+        /**
+         * 将数据记录转换为子列表项
+         * @param parentItem 该记录所属的父列表项
+         * @param record 数据记录
+         * @return 子列表项
+         */
+        Object createChildItem(P parentItem, R record);
+    }
+
+    /**
+     * 一个分组对应的父列表项
+     */
+    private static class Group<P> {
+        final P parentItem;
+        /**
+         * 上一次添加到数据源时父列表项的位置，只在主线程中访问，使用前需要校验
+         */
+        int parentPosition = RecyclerView.NO_POSITION;
+        /**
+         * 当前批次中新增的子列表项，为 null 表示当前批次中没有新增
+         */
+        List<Object> pendingChildItems;
+
+        Group(P parentItem) {
+            this.parentItem = parentItem;
+        }
+    }
+
+    /**
+     * 一个批次中积累的改变
+     */
+    private static class Batch<P> {
+        final List<Group<P>> newGroups = new ArrayList<>();
+        final List<Group<P>> changedGroups = new ArrayList<>();
+        int recordCount;
+    }
+
+    private final GroupCallback<R, K, P> mCallback;
+
+    /**
+     * 构建的父列表项集合，只在主线程(或未关联适配器时在调用线程)中修改
+     */
+    private final List<P> mParentItems = new ArrayList<>();
+
+    /**
+     * 分组键和分组的对应关系，只在添加记录的线程中访问
+     */
+    private final Map<K, Group<P>> mGroups = new HashMap<>();
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private ExpandableAdapter mAdapter;
+
+    private Batch<P> mPendingBatch = new Batch<>();
+
+    private int mBatchSize = DEFAULT_BATCH_SIZE;
+
+    public ParentItemGroupBuilder(GroupCallback<R, K, P> callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback should not be null");
+        }
+        mCallback = callback;
+    }
+
+    /**
+     * 获取构建的父列表项集合，可直接用于创建 {@link ExpandableAdapter}
+     * @return 父列表项集合
+     */
+    public List<P> getParentItems() {
+        return mParentItems;
+    }
+
+    /**
+     * 关联使用 {@link #getParentItems()} 创建的适配器，之后每个批次都会通知该适配器
+     * <p><b>注意：需要在主线程中并且在添加第一条记录之前调用</b></p>
+     * @param adapter 使用 {@link #getParentItems()} 作为父列表项数据源的适配器
+     */
+    public void attach(ExpandableAdapter adapter) {
+        mAdapter = adapter;
+    }
+
+    /**
+     * 设置每个批次包含的记录数量，数值越小第一批列表项显示得越早，但通知次数越多
+     * @param batchSize 每个批次包含的记录数量
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize should be positive");
+        }
+        mBatchSize = batchSize;
+    }
+
+    /**
+     * 添加一条数据记录
+     * @param record 数据记录
+     */
+    public void add(R record) {
+        final K key = mCallback.getGroupKey(record);
+        Group<P> group = mGroups.get(key);
+        Batch<P> batch = mPendingBatch;
+        if (group == null) {
+            group = new Group<>(mCallback.createParentItem(key, record));
+            if (group.parentItem.getChildItems() == null) {
+                throw new IllegalStateException("createParentItem should return a ParentItem " +
+                        "with a modifiable child list");
+            }
+            mGroups.put(key, group);
+            batch.newGroups.add(group);
+            group.pendingChildItems = new ArrayList<>();
+        } else if (group.pendingChildItems == null) {
+            batch.changedGroups.add(group);
+            group.pendingChildItems = new ArrayList<>();
+        }
+        group.pendingChildItems.add(mCallback.createChildItem(group.parentItem, record));
+        if (++batch.recordCount >= mBatchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * 添加多条数据记录
+     * @param records 数据记录
+     */
+    public void addAll(Iterable<? extends R> records) {
+        for (R record : records) {
+            add(record);
+        }
+    }
+
+    /**
+     * 将当前批次中积累的改变添加到数据源并通知适配器
+     */
+    public void flush() {
+        final Batch<P> batch = mPendingBatch;
+        if (batch.recordCount == 0) return;
+        mPendingBatch = new Batch<>();
+        //在添加记录的线程中取出本批次的子列表项，保证下一批次的记录不会混入
+        final List<List<Object>> newChildItems = detachPendingChildItems(batch.newGroups);
+        final List<List<Object>> changedChildItems = detachPendingChildItems(
+                batch.changedGroups);
+        Runnable apply = new Runnable() {
+            @Override
+            public void run() {
+                applyBatch(batch, newChildItems, changedChildItems);
+            }
+        };
+        if (mAdapter == null || Looper.myLooper() == Looper.getMainLooper()) {
+            apply.run();
+        } else {
+            mMainHandler.post(apply);
+        }
+    }
+
+    /**
+     * 所有记录添加完成，将剩余的改变添加到数据源并通知适配器
+     * @return 构建的父列表项集合
+     */
+    public List<P> finish() {
+        flush();
+        return mParentItems;
+    }
+
+    private List<List<Object>> detachPendingChildItems(List<Group<P>> groups) {
+        List<List<Object>> childItems = new ArrayList<>(groups.size());
+        for (Group<P> group : groups) {
+            childItems.add(group.pendingChildItems);
+            group.pendingChildItems = null;
+        }
+        return childItems;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyBatch(Batch<P> batch, List<List<Object>> newChildItems,
+            List<List<Object>> changedChildItems)
+    {
+        //已存在的父列表项追加子列表项，不影响任何父列表项的位置
+        final int changedCount = batch.changedGroups.size();
+        for (int i = 0; i < changedCount; i++) {
+            Group<P> group = batch.changedGroups.get(i);
+            List<Object> childItems = (List<Object>) group.parentItem.getChildItems();
+            final int childPositionStart = childItems.size();
+            final List<Object> addedChildItems = changedChildItems.get(i);
+            childItems.addAll(addedChildItems);
+            final int parentPosition = findParentPosition(group);
+            if (mAdapter != null && parentPosition != RecyclerView.NO_POSITION) {
+                mAdapter.notifyChildItemRangeInserted(parentPosition, childPositionStart,
+                        addedChildItems.size(), false);
+            }
+        }
+
+        //新的父列表项带着本批次的子列表项一次性追加到末尾
+        final int newCount = batch.newGroups.size();
+        if (newCount == 0) return;
+        final int parentPositionStart = mParentItems.size();
+        for (int i = 0; i < newCount; i++) {
+            Group<P> group = batch.newGroups.get(i);
+            ((List<Object>) group.parentItem.getChildItems()).addAll(newChildItems.get(i));
+            group.parentPosition = parentPositionStart + i;
+            mParentItems.add(group.parentItem);
+        }
+        if (mAdapter != null) {
+            mAdapter.notifyParentItemRangeInserted(parentPositionStart, newCount);
+        }
+    }
+
+    /**
+     * 确定分组的父列表项在数据源中的当前位置，只在主线程中调用
+     * <p>位置没有变化时直接返回，否则按引用查找，父列表项已被删除时返回 {@link RecyclerView#NO_POSITION}</p>
+     */
+    private int findParentPosition(Group<P> group) {
+        final int cached = group.parentPosition;
+        if (cached >= 0 && cached < mParentItems.size()
+                && mParentItems.get(cached) == group.parentItem) {
+            return cached;
+        }
+        int position = RecyclerView.NO_POSITION;
+        for (int i = 0, size = mParentItems.size(); i < size; i++) {
+            if (mParentItems.get(i) == group.parentItem) {
+                position = i;
+                break;
+            }
+        }
+        group.parentPosition = position;
+        return position;
+    }
+}
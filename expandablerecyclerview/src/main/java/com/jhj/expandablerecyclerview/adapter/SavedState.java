@@ -18,7 +18,7 @@ public class SavedState implements Parcelable {
     }
 
     private SavedState(Parcel in) {
-        Logger.e(TAG,"***********create SavedState from Parcel*********");
+        if (Logger.isEnabled()) Logger.d(TAG, "***********create SavedState from Parcel*********");
         mExpansionState = in.createBooleanArray();
     }
 
@@ -33,13 +33,13 @@ public class SavedState implements Parcelable {
     public static final Creator<SavedState> CREATOR = new Creator<SavedState>() {
         @Override
         public SavedState createFromParcel(Parcel in) {
-            Logger.e(TAG,"***********createFromParcel*********");
+            if (Logger.isEnabled()) Logger.d(TAG, "***********createFromParcel*********");
             return new SavedState(in);
         }
 
         @Override
         public SavedState[] newArray(int size) {
-            Logger.e(TAG,"***********newArray*********");
+            if (Logger.isEnabled()) Logger.d(TAG, "***********newArray*********");
             return new SavedState[size];
         }
     };
@@ -51,7 +51,7 @@ public class SavedState implements Parcelable {
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        Logger.e(TAG,"***********writeToParcel*********");
+        if (Logger.isEnabled()) Logger.d(TAG, "***********writeToParcel*********");
         dest.writeBooleanArray(mExpansionState);
     }
 }
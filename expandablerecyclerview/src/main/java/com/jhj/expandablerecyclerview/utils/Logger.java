@@ -2,13 +2,24 @@ package com.jhj.expandablerecyclerview.utils;
 
 import android.util.Log;
 
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
 /**
  * Created by jhj_Plus on 2016/8/4.
+ * <p>
+ *     日志输出工具，库和 app 共用。默认关闭，由 app 启动时通过 {@link #setEnabled(boolean)}
+ *     按 app 的构建类型打开，库自身的 BuildConfig.DEBUG 跟随库的构建类型，不能用来判断。
+ *     消息支持 {@code {}} 占位符，只有在日志级别满足时才拼接字符串；
+ *     需要额外计算参数的调用用 {@code if (Logger.isEnabled())} 包裹，关闭时不做任何计算
+ * </p>
  */
 public class Logger {
     private static final String TAG = "Logger";
 
-    public static final boolean LOGGABLE = true;
+    private static volatile boolean sEnabled;
 
     public static final int VERBOSE= Log.VERBOSE;
     public static final int DEBUG= Log.DEBUG;
@@ -17,14 +28,104 @@ public class Logger {
     public static final int ERROR= Log.ERROR;
     public static final int ASSERT= Log.ASSERT;
 
+    /**
+     * 当前输出的最低日志级别
+     */
+    private static volatile int sLevel = VERBOSE;
+
+    /**
+     * 内存环形日志缓冲区，为 null 时不记录
+     */
+    private static RingBuffer sRingBuffer;
+
+    /**
+     * 打开或关闭所有日志输出
+     * @param enabled 是否打开，通常传入 app 的 BuildConfig.DEBUG
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * 设置输出的最低日志级别，低于该级别的日志不会拼接消息也不会输出
+     * @param level 日志级别，例如 {@link #WARN}
+     */
+    public static void setLevel(int level) {
+        sLevel = level;
+    }
+
+    /**
+     * 查询指定级别的日志当前是否会输出
+     * @param priority 日志级别
+     * @return 是否会输出
+     */
+    public static boolean isLoggable(int priority) {
+        return sEnabled && priority >= sLevel;
+    }
+
+    /**
+     * 设置内存环形日志缓冲区的容量，之后输出的日志同时保存在内存中，可以通过 {@link #dump(PrintWriter)} 导出
+     * @param capacity 最多保存的日志条数，小于等于 0 时关闭并清空缓冲区
+     */
+    public static synchronized void setRingBufferCapacity(int capacity) {
+        sRingBuffer = capacity > 0 ? new RingBuffer(capacity) : null;
+    }
+
+    /**
+     * 按时间顺序导出内存环形日志缓冲区里的日志
+     * @param writer 输出目标
+     */
+    public static synchronized void dump(PrintWriter writer) {
+        if (sRingBuffer != null) sRingBuffer.dump(writer);
+        writer.flush();
+    }
 
     public static void println(int priority, String tag, String msg) {
         println(priority, tag, msg, null);
     }
 
     public static void println(int priority, String tag, String msg, Throwable tr) {
-        Log.println(priority, tag,
-                msg != null ? msg : "" + "\n" + (tr != null ? Log.getStackTraceString(tr) : ""));
+        if (!isLoggable(priority)) return;
+        if (tr != null) {
+            msg = (msg != null ? msg : "") + "\n" + Log.getStackTraceString(tr);
+        } else if (msg == null) {
+            msg = "";
+        }
+        Log.println(priority, tag, msg);
+        if (sRingBuffer != null) record(priority, tag, msg);
+    }
+
+    private static synchronized void record(int priority, String tag, String msg) {
+        if (sRingBuffer != null) sRingBuffer.add(priority, tag, msg);
+    }
+
+    /**
+     * 依次用参数替换消息里的 {@code {}} 占位符
+     */
+    private static String format(String format, int argCount, Object arg1, Object arg2,
+            Object arg3)
+    {
+        if (format == null) return null;
+        StringBuilder sb = new StringBuilder(format.length() + 16 * argCount);
+        int start = 0;
+        for (int i = 0; i < argCount; i++) {
+            final int index = format.indexOf("{}", start);
+            if (index < 0) break;
+            sb.append(format, start, index).append(i == 0 ? arg1 : i == 1 ? arg2 : arg3);
+            start = index + 2;
+        }
+        return sb.append(format, start, format.length()).toString();
+    }
+
+    private static void log(int priority, String tag, String format, int argCount, Object arg1,
+            Object arg2, Object arg3)
+    {
+        if (!isLoggable(priority)) return;
+        println(priority, tag, format(format, argCount, arg1, arg2, arg3), null);
     }
 
     public static void v(String tag, String msg) {
@@ -35,6 +136,18 @@ public class Logger {
         println(VERBOSE, tag, msg, tr);
     }
 
+    public static void v(String tag, String format, Object arg) {
+        log(VERBOSE, tag, format, 1, arg, null, null);
+    }
+
+    public static void v(String tag, String format, Object arg1, Object arg2) {
+        log(VERBOSE, tag, format, 2, arg1, arg2, null);
+    }
+
+    public static void v(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        log(VERBOSE, tag, format, 3, arg1, arg2, arg3);
+    }
+
     public static void d(String tag, String msg) {
         d(tag, msg, null);
     }
@@ -43,6 +156,18 @@ public class Logger {
         println(DEBUG,tag,msg,tr);
     }
 
+    public static void d(String tag, String format, Object arg) {
+        log(DEBUG, tag, format, 1, arg, null, null);
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2) {
+        log(DEBUG, tag, format, 2, arg1, arg2, null);
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        log(DEBUG, tag, format, 3, arg1, arg2, arg3);
+    }
+
     public static void i(String tag, String msg) {
         i(tag, msg, null);
     }
@@ -51,6 +176,18 @@ public class Logger {
         println(INFO,tag,msg,tr);
     }
 
+    public static void i(String tag, String format, Object arg) {
+        log(INFO, tag, format, 1, arg, null, null);
+    }
+
+    public static void i(String tag, String format, Object arg1, Object arg2) {
+        log(INFO, tag, format, 2, arg1, arg2, null);
+    }
+
+    public static void i(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        log(INFO, tag, format, 3, arg1, arg2, arg3);
+    }
+
     public static void w(String tag, String msg) {
         w(tag, msg, null);
     }
@@ -59,6 +196,18 @@ public class Logger {
         println(WARN,tag,msg,tr);
     }
 
+    public static void w(String tag, String format, Object arg) {
+        log(WARN, tag, format, 1, arg, null, null);
+    }
+
+    public static void w(String tag, String format, Object arg1, Object arg2) {
+        log(WARN, tag, format, 2, arg1, arg2, null);
+    }
+
+    public static void w(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        log(WARN, tag, format, 3, arg1, arg2, arg3);
+    }
+
     public static void e(String tag, String msg) {
         e(tag, msg, null);
     }
@@ -67,6 +216,18 @@ public class Logger {
         println(ERROR,tag,msg,tr);
     }
 
+    public static void e(String tag, String format, Object arg) {
+        log(ERROR, tag, format, 1, arg, null, null);
+    }
+
+    public static void e(String tag, String format, Object arg1, Object arg2) {
+        log(ERROR, tag, format, 2, arg1, arg2, null);
+    }
+
+    public static void e(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        log(ERROR, tag, format, 3, arg1, arg2, arg3);
+    }
+
     public static void wtf(String tag, String msg) {
         wtf(tag, msg, null);
     }
@@ -78,4 +239,56 @@ public class Logger {
     public static void wtf(String tag, String msg, Throwable tr) {
         println(ASSERT,tag,msg,tr);
     }
+
+    /**
+     * 固定容量的日志缓冲区，写满后覆盖最早的日志
+     */
+    private static class RingBuffer {
+        private static final String LEVELS = "??VDIWEA";
+
+        private final long[] mTimes;
+        private final int[] mPriorities;
+        private final String[] mTags;
+        private final String[] mMessages;
+        /**
+         * 下一条日志写入的位置
+         */
+        private int mNext;
+        private int mSize;
+
+        RingBuffer(int capacity) {
+            mTimes = new long[capacity];
+            mPriorities = new int[capacity];
+            mTags = new String[capacity];
+            mMessages = new String[capacity];
+        }
+
+        void add(int priority, String tag, String msg) {
+            mTimes[mNext] = System.currentTimeMillis();
+            mPriorities[mNext] = priority;
+            mTags[mNext] = tag;
+            mMessages[mNext] = msg;
+            mNext = (mNext + 1) % mTimes.length;
+            if (mSize < mTimes.length) mSize++;
+        }
+
+        void dump(PrintWriter writer) {
+            SimpleDateFormat dateFormat = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+            Date date = new Date();
+            final int capacity = mTimes.length;
+            for (int i = 0; i < mSize; i++) {
+                final int index = (mNext - mSize + i + capacity) % capacity;
+                date.setTime(mTimes[index]);
+                final int priority = mPriorities[index];
+                writer.print(dateFormat.format(date));
+                writer.print(' ');
+                writer.print(priority >= 0 && priority < LEVELS.length() ?
+                        LEVELS.charAt(priority) : '?');
+                writer.print('/');
+                writer.print(mTags[index]);
+                writer.print(": ");
+                writer.println(mMessages[index]);
+            }
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package com.jhj.expandablerecyclerview.utils;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * {@link Trace} 的开关封装，用于在 systrace 中标记适配器的耗时区间
+ * <p>
+ *     默认关闭，通过 {@link #setEnabled(boolean)} 统一打开，API 18 以下的设备调用无效。
+ *     区间名称应该使用字符串常量，避免每次调用时拼接字符串
+ * </p>
+ * <p>
+ *     <b>注意：应该在创建适配器之前设置开关，区间开始和结束时开关状态不同会导致 trace 中的区间错位</b>
+ * </p>
+ */
+public class Tracer {
+    private static final String TAG = "Tracer";
+
+    private static final boolean SUPPORTED =
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+    private static volatile boolean sEnabled;
+
+    /**
+     * 打开或关闭所有 trace 区间
+     * @param enabled 是否打开
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled && SUPPORTED;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * 开始一个 trace 区间，必须在同一线程中和 {@link #endSection()} 成对调用
+     * @param sectionName 区间名称，不超过 127 个字符
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public static void beginSection(String sectionName) {
+        if (sEnabled) Trace.beginSection(sectionName);
+    }
+
+    /**
+     * 结束当前线程最近开始的 trace 区间
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public static void endSection() {
+        if (sEnabled) Trace.endSection();
+    }
+}
@@ -1,8 +1,15 @@
 package com.jhj.expandablerecyclerview.viewholder;
 
+import android.os.Bundle;
+import android.support.v4.view.AccessibilityDelegateCompat;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
 import android.support.v7.widget.RecyclerView;
 import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
 
 /**
  * Created by jhj_Plus on 2016/9/12.
@@ -10,33 +17,85 @@ import android.view.View;
  public class BaseViewHolder<D> extends RecyclerView.ViewHolder {
     private static final String TAG = "BaseViewHolder";
 
+    /**
+     * 事件分发模式：每个注册事件的 View 设置自己的点击和长按监听器
+     */
+    public static final int EVENT_MODE_DIRECT = 0;
+    /**
+     * 事件分发模式：不为 View 设置监听器，由 RecyclerView 上的触摸监听器命中测试后调用
+     * {@link #performEvent(View, Event.EventType)}；注册了事件的子 View 设置所有 ViewHolder 共用的
+     * 无障碍代理，itemView 保留 RecyclerView 设置的无障碍代理，由适配器替换 RecyclerView 的
+     * {@link android.support.v7.widget.RecyclerViewAccessibilityDelegate} 在其外层包一层
+     * {@link DelegatedAccessibility}。无障碍服务的点击和长按同样通过
+     * {@link #performEvent(View, Event.EventType)} 分发
+     */
+    public static final int EVENT_MODE_DELEGATED = 1;
+
+    /**
+     * 正在创建的 ViewHolder 的初始事件分发模式，由适配器在回调创建 ViewHolder 的前后设置，
+     * 这样构造方法里注册的事件在 {@link #EVENT_MODE_DELEGATED} 模式下也不会设置监听器。
+     * 只在主线程读写
+     */
+    private static int sCreatingEventMode = EVENT_MODE_DIRECT;
+
+    /**
+     * {@link #EVENT_MODE_DELEGATED} 模式下所有注册了事件的 View 共用的无障碍代理，第一次使用时创建
+     */
+    private static AccessibilityDelegateCompat sDelegatedAccessibility;
+
     /**
      * View 触发 Event 回调时的 Event 信息携带者
      */
     private ViewHolderEventAfter mEventAfter = new ViewHolderEventAfter();
     
     /**
-     * ItemView 的 childView 缓存
-     * 为了防止频繁调用 findViewById 查找 childView 时的额外性能消耗问题
-     * 如果该缓存里没有查找到该 childView 就先 findViewById 再缓存下来
+     * 该列表项类型共享的 View 索引，由适配器在创建 ViewHolder 时设置
+     */
+    private ViewIndex mViewIndex;
+
+    /**
+     * 按 {@link #mViewIndex} 的槽位解析好的 View
+     */
+    private View[] mIndexedViews;
+
+    /**
+     * 不在 {@link #mViewIndex} 里的 childView 缓存
+     * 如果该缓存里没有查找到该 childView 就先 findViewById 再缓存下来，没有找到的 View 不缓存
      */
-    private SparseArray<View> mCachedViews=new SparseArray<>();
+    private SparseArray<View> mCachedViews;
 
     /**
-     * View 的 Event 缓存
+     * View Id 到该 View 注册的事件掩码的映射，例如 {@link Event#MASK_CLICK} | {@link Event#MASK_LONGCLICK}
      */
-    private SparseArray<Event.EventBefore> mCachedEvents = new SparseArray<>();
+    private SparseIntArray mEventMasks = new SparseIntArray(2);
 
     /**
      * ItemView 或 ItemView 的 ChildView 事件监听器，应包含基本的 View 的 Event 注册
+     * <p>只在 {@link #EVENT_MODE_DIRECT} 模式下第一次注册事件时创建</p>
+     */
+    private ViewEvent mViewEvents;
+
+    /**
+     * 当前的事件分发模式
      */
-    private ViewEvent mViewEvents=new ViewEvent();
+    private int mEventMode = sCreatingEventMode;
 
     /**
      * ViewHolder 事件回调接口
      */
     private ViewHolderCallback mCallback;
 
+    /**
+     * 事件触发时填充 {@link ViewHolderEventAfter} 里的父列表项和子列表项位置
+     */
+    private PositionResolver mPositionResolver;
+
+    /**
+     * {@link #autoBind(Object)} 使用的绑定器及其对应的模型类
+     */
+    private ViewBinder<D> mViewBinder;
+    private Class<?> mViewBinderModelClass;
+
     public BaseViewHolder(View itemView) {
        this(itemView,null);
     }
@@ -53,9 +112,21 @@ import android.view.View;
     @SuppressWarnings("unused")
     public void bind(D data) {}
 
-    //TODO 反射绑定数据?
-    @SuppressWarnings("unused")
-    public void autoBind(Class<? extends D> data,int... ids){}
+    /**
+     * 通过编译期生成的 {@link ViewBinder} 绑定数据，可以在 {@link #bind(Object)} 里直接调用
+     * <p>数据模型的字段需要使用 {@link com.jhj.expandablerecyclerview.annotation.BindText} 等注解标记，
+     * 绑定器在该 ViewHolder 第一次绑定时创建，之后的绑定直接访问其中保存的 View</p>
+     * @param data 要绑定的数据
+     */
+    public void autoBind(D data) {
+        if (data == null) return;
+        final Class<?> modelClass = data.getClass();
+        if (mViewBinderModelClass != modelClass) {
+            mViewBinder = ViewBinders.create(modelClass, itemView);
+            mViewBinderModelClass = modelClass;
+        }
+        mViewBinder.bind(data);
+    }
 
     /**
      * 设置 ViewHolderCallback 回调接口
@@ -83,44 +154,251 @@ import android.view.View;
      * <p>同一个 {@link View} 可同时注册多个 Event</p>
      * <p><b>注意:</b>需要注册事件的 {@link View} 必须提供其对应 <b>Id</b> 元数据,否则该 {@link View} 注册失效</p>
      * @param event 注册事件的元数据
+     * @see #registerEvent(int, int)
      */
     public void setEvent(Event.EventBefore event) {
-        if (event == null || event.id == View.NO_ID) return;
-        View v = getView(event.id);
+        if (event == null) return;
+        registerEvent(event.id, Event.maskOf(event.registerEventTypes));
+    }
+
+    /**
+     * 注册 {@code ItemView} 或者 {@code ItemView} 的 Child View 事件
+     * <p>同一个 {@link View} 多次注册时合并之前注册的事件，注册过程不会分配对象</p>
+     * <p><b>注意:</b>需要注册事件的 {@link View} 必须提供其对应 <b>Id</b>,否则该 {@link View} 注册失效</p>
+     * @param id 注册事件的 View Id
+     * @param eventMask 事件掩码，例如 {@link Event#MASK_CLICK} | {@link Event#MASK_LONGCLICK}
+     */
+    public void registerEvent(int id, int eventMask) {
+        if (id == View.NO_ID || eventMask == 0) return;
+        View v = getView(id);
         if (v == null) return;
-        if (event.registerEventTypes==null) return;
-        for (Event.EventType eventType : event.registerEventTypes) {
-            switch (eventType) {
-                case CLICK:
-                    v.setOnClickListener(mViewEvents);
-                    break;
-                case LONGCLICK:
-                    v.setOnLongClickListener(mViewEvents);
-                    break;
+        final int registeredMask = mEventMasks.get(id);
+        //只为新增的事件设置监听器
+        final int addedMask = eventMask & ~registeredMask;
+        if (addedMask == 0) return;
+        if (mEventMode == EVENT_MODE_DIRECT) {
+            setEventListeners(v, addedMask);
+        } else if (registeredMask == 0 && v != itemView) {
+            ViewCompat.setAccessibilityDelegate(v, getDelegatedAccessibility());
+        }
+        mEventMasks.put(id, registeredMask | eventMask);
+    }
+
+    private void setEventListeners(View v, int eventMask) {
+        if (mViewEvents == null) mViewEvents = new ViewEvent();
+        if ((eventMask & Event.MASK_CLICK) != 0) v.setOnClickListener(mViewEvents);
+        if ((eventMask & Event.MASK_LONGCLICK) != 0) v.setOnLongClickListener(mViewEvents);
+    }
+
+    /**
+     * 设置事件分发模式，已经注册的事件会按新的模式重新设置或移除 View 的监听器
+     * @param eventMode {@link #EVENT_MODE_DIRECT} 或者 {@link #EVENT_MODE_DELEGATED}
+     */
+    public void setEventMode(int eventMode) {
+        if (mEventMode == eventMode) return;
+        mEventMode = eventMode;
+        for (int i = 0; i < mEventMasks.size(); i++) {
+            View v = getView(mEventMasks.keyAt(i));
+            if (v == null) continue;
+            final int eventMask = mEventMasks.valueAt(i);
+            //itemView 的无障碍代理属于 RecyclerView，不替换也不清除
+            if (eventMode == EVENT_MODE_DIRECT) {
+                if (v != itemView) ViewCompat.setAccessibilityDelegate(v, null);
+                setEventListeners(v, eventMask);
+            } else {
+                if ((eventMask & Event.MASK_CLICK) != 0) v.setOnClickListener(null);
+                if ((eventMask & Event.MASK_LONGCLICK) != 0) v.setOnLongClickListener(null);
+                if (v != itemView) {
+                    ViewCompat.setAccessibilityDelegate(v, getDelegatedAccessibility());
+                }
+            }
+        }
+    }
+
+    public int getEventMode() {
+        return mEventMode;
+    }
+
+    /**
+     * 设置之后创建的 ViewHolder 的初始事件分发模式，适配器在回调创建 ViewHolder 前设置，创建后恢复为
+     * {@link #EVENT_MODE_DIRECT}
+     * <p><b>注意：必须在主线程调用</b></p>
+     * @param eventMode {@link #EVENT_MODE_DIRECT} 或者 {@link #EVENT_MODE_DELEGATED}
+     */
+    public static void setCreatingEventMode(int eventMode) {
+        sCreatingEventMode = eventMode;
+    }
+
+    private static AccessibilityDelegateCompat getDelegatedAccessibility() {
+        if (sDelegatedAccessibility == null) {
+            sDelegatedAccessibility = new DelegatedAccessibility(null);
+        }
+        return sDelegatedAccessibility;
+    }
+
+    /**
+     * {@link #EVENT_MODE_DELEGATED} 模式下 View 没有监听器，由该代理向无障碍服务声明 View 可以点击和长按，
+     * 并把无障碍服务的点击和长按分发给 View 所在的 ViewHolder
+     * <p>
+     *     用于 itemView 时包在 RecyclerView 的列表项无障碍代理外层，其余的调用都交给它处理，
+     *     保留列表项的集合信息和 RecyclerView 提供的操作
+     * </p>
+     */
+    public static class DelegatedAccessibility extends AccessibilityDelegateCompat {
+        /**
+         * 被包装的无障碍代理，为 null 时使用默认实现
+         */
+        private final AccessibilityDelegateCompat mFallback;
+
+        /**
+         * @param fallback 被包装的无障碍代理，例如
+         * {@link android.support.v7.widget.RecyclerViewAccessibilityDelegate#getItemDelegate()}，
+         * 可以为 null
+         */
+        public DelegatedAccessibility(AccessibilityDelegateCompat fallback) {
+            mFallback = fallback;
+        }
+
+        @Override
+        public void onInitializeAccessibilityNodeInfo(View host,
+                AccessibilityNodeInfoCompat info)
+        {
+            if (mFallback != null) {
+                mFallback.onInitializeAccessibilityNodeInfo(host, info);
+            } else {
+                super.onInitializeAccessibilityNodeInfo(host, info);
+            }
+            BaseViewHolder holder = findHolder(host);
+            if (holder == null) return;
+            final int eventMask = holder.getEventMask(host.getId());
+            if ((eventMask & Event.MASK_CLICK) != 0) {
+                info.setClickable(true);
+                info.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+            }
+            if ((eventMask & Event.MASK_LONGCLICK) != 0) {
+                info.setLongClickable(true);
+                info.addAction(AccessibilityNodeInfoCompat.ACTION_LONG_CLICK);
+            }
+        }
+
+        @Override
+        public boolean performAccessibilityAction(View host, int action, Bundle args) {
+            BaseViewHolder holder = findHolder(host);
+            if (holder != null && holder.getEventMode() == EVENT_MODE_DELEGATED) {
+                if (action == AccessibilityNodeInfoCompat.ACTION_CLICK &&
+                        holder.performEvent(host, Event.EventType.CLICK)) return true;
+                if (action == AccessibilityNodeInfoCompat.ACTION_LONG_CLICK &&
+                        holder.performEvent(host, Event.EventType.LONGCLICK)) return true;
             }
+            if (mFallback != null) return mFallback.performAccessibilityAction(host, action, args);
+            return super.performAccessibilityAction(host, action, args);
         }
-        //缓存 View 事件
-        mCachedEvents.put(event.id, event);
+
+        /**
+         * 沿着父 View 找到 host 所在的列表项和它的 ViewHolder
+         */
+        private static BaseViewHolder findHolder(View host) {
+            View itemView = host;
+            ViewParent parent = host.getParent();
+            while (parent instanceof View && !(parent instanceof RecyclerView)) {
+                itemView = (View) parent;
+                parent = parent.getParent();
+            }
+            if (!(parent instanceof RecyclerView)) return null;
+            RecyclerView.ViewHolder holder = ((RecyclerView) parent).getChildViewHolder(itemView);
+            return holder instanceof BaseViewHolder ? (BaseViewHolder) holder : null;
+        }
+    }
+
+    /**
+     * 查找包含指定坐标并且注册了指定事件的最内层 View，用于 {@link #EVENT_MODE_DELEGATED} 模式下的命中测试
+     * @param x 相对 itemView 左上角的 x 坐标
+     * @param y 相对 itemView 左上角的 y 坐标
+     * @param eventMask 要查找的事件掩码
+     * @return 命中的 View，没有时返回 null
+     */
+    public View findEventTarget(float x, float y, int eventMask) {
+        if (mEventMasks.size() == 0) return null;
+        return findEventTarget(itemView, x, y, eventMask);
+    }
+
+    private View findEventTarget(View v, float x, float y, int eventMask) {
+        if (v.getVisibility() != View.VISIBLE || !v.isEnabled()) return null;
+        if (v instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) v;
+            final float localX = x + group.getScrollX();
+            final float localY = y + group.getScrollY();
+            //后绘制的子 View 在上层，倒序查找
+            for (int i = group.getChildCount() - 1; i >= 0; i--) {
+                View child = group.getChildAt(i);
+                //按平移后的位置命中，和子 View 绘制的位置一致
+                final float left = child.getLeft() + ViewCompat.getTranslationX(child);
+                final float top = child.getTop() + ViewCompat.getTranslationY(child);
+                if (localX < left || localX >= left + child.getWidth() ||
+                        localY < top || localY >= top + child.getHeight()) continue;
+                View target = findEventTarget(child, localX - left, localY - top, eventMask);
+                if (target != null) return target;
+            }
+        }
+        final int id = v.getId();
+        if (id != View.NO_ID && (mEventMasks.get(id) & eventMask) != 0 && getView(id) == v) {
+            return v;
+        }
+        return null;
+    }
+
+    /**
+     * 触发指定 View 的事件回调，和 View 自身的监听器触发时的效果一样
+     * <p>用于 {@link #EVENT_MODE_DELEGATED} 模式，View 必须已经注册了该事件</p>
+     * @param v 触发事件的 View
+     * @param eventType 触发的事件类型
+     * @return 是否消费此 Event
+     */
+    public boolean performEvent(View v, Event.EventType eventType) {
+        if ((mEventMasks.get(v.getId()) & Event.maskOf(eventType)) == 0) return false;
+        return dispatchEvent(v, eventType);
     }
 
+    /**
+     * 根据 View Id 查询其注册的事件掩码
+     * @param id 要查询的 View 的 Id
+     * @return View 注册的事件掩码，没有注册过时返回 0
+     */
+    public int getEventMask(int id) {
+        return mEventMasks.get(id);
+    }
 
     /**
      * 根据 View Id 查询返回其对应注册的 Event
      * <p>如果该 Id 对应的 View 之前没有注册 Event 就返回 null</p>
+     * <p>use {@link #getEventMask(int)}，该方法每次调用都会创建新的 {@link Event.EventBefore}</p>
      * @param id 要查询的 View 的 Id
      * @return View 注册的 Event
      */
+    @Deprecated
     public Event.EventBefore getEventBefore(int id) {
-        return  mCachedEvents.get(id);
+        final int eventMask = mEventMasks.get(id);
+        if (eventMask == 0) return null;
+        Event.EventBefore event = new Event.EventBefore();
+        event.id = id;
+        event.registerEventTypes = Event.typesOf(eventMask);
+        return event;
     }
     
     /**
      * 根据 id 查找 ItemView 里 childView
+     * <p>设置了 {@link ViewIndex} 时索引里的 View 直接从数组读取，否则先查找缓存再 findViewById</p>
      * @param id ItemView 里 childView 的 id
      * @return ItemView 里的 childView
      */
+    @SuppressWarnings("unchecked")
     public <T extends View> T getView(int id) {
         if (id == View.NO_ID) return null;
+        if (mViewIndex != null) {
+            final int slot = mViewIndex.slotOf(id);
+            if (slot >= 0) return (T) mIndexedViews[slot];
+        }
+        if (mCachedViews == null) mCachedViews = new SparseArray<>(4);
         View v = mCachedViews.get(id);
         if (v == null) {
             if (id == itemView.getId()) {
@@ -133,6 +411,31 @@ import android.view.View;
         return (T) v;
     }
 
+    /**
+     * 根据 {@link ViewIndex} 的槽位读取 ItemView 里的 childView，用于绑定时已经知道槽位的场景
+     * @param slot {@link ViewIndex#slotOf(int)} 返回的槽位
+     * @return ItemView 里的 childView，ItemView 里没有该槽位的 View 时返回 null
+     * @throws IllegalStateException 没有设置 {@link ViewIndex}
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends View> T getViewAt(int slot) {
+        if (mIndexedViews == null) throw new IllegalStateException("ViewIndex not set");
+        return (T) mIndexedViews[slot];
+    }
+
+    /**
+     * 设置该列表项类型共享的 View 索引，并一次性解析出索引里的所有 View
+     * @param viewIndex 由同类型的列表项布局创建的索引
+     */
+    public void setViewIndex(ViewIndex viewIndex) {
+        mViewIndex = viewIndex;
+        mIndexedViews = viewIndex != null ? viewIndex.resolve(itemView) : null;
+    }
+
+    public ViewIndex getViewIndex() {
+        return mViewIndex;
+    }
+
 
     /**
      * 内部实现 View 触发事件的相关回调
@@ -164,11 +467,37 @@ import android.view.View;
             event.id=id;
             event.v=v;
             event.triggeredEventType=eventType;
+            event.parentPosition = RecyclerView.NO_POSITION;
+            event.childPosition = RecyclerView.NO_POSITION;
+            final int adapterPosition = getAdapterPosition();
+            if (mPositionResolver != null && adapterPosition != RecyclerView.NO_POSITION) {
+                mPositionResolver.resolvePosition(adapterPosition, event);
+            }
             return mCallback.eventAfter(event);
         }
         return false;
     }
 
+    /**
+     * 设置事件位置解析器，由适配器在创建 ViewHolder 时设置
+     * @param resolver 位置解析器
+     */
+    public void setPositionResolver(PositionResolver resolver) {
+        mPositionResolver = resolver;
+    }
+
+    /**
+     * 根据列表项的适配器位置解析其父列表项和子列表项位置
+     */
+    public interface PositionResolver {
+        /**
+         * 填充 {@link ViewHolderEventAfter#parentPosition} 和 {@link ViewHolderEventAfter#childPosition}
+         * @param adapterPosition 触发事件的列表项在适配器里的位置
+         * @param event 要填充的事件
+         */
+        void resolvePosition(int adapterPosition, ViewHolderEventAfter event);
+    }
+
 
     /**
      * View 触发事件后包含相关触发信息的类
@@ -14,6 +14,53 @@ public class Event {
         LONGCLICK
     }
 
+    /**
+     * 点击事件掩码，和 {@link EventType#CLICK} 对应
+     */
+    public static final int MASK_CLICK = 1;
+    /**
+     * 长按事件掩码，和 {@link EventType#LONGCLICK} 对应
+     */
+    public static final int MASK_LONGCLICK = 1 << 1;
+
+    /**
+     * 返回事件类型对应的掩码
+     * @param eventType 事件类型
+     * @return 事件掩码，eventType 为 null 时返回 0
+     */
+    public static int maskOf(EventType eventType) {
+        return eventType == null ? 0 : 1 << eventType.ordinal();
+    }
+
+    /**
+     * 返回多个事件类型合并后的掩码
+     * @param eventTypes 事件类型集合
+     * @return 事件掩码，eventTypes 为 null 时返回 0
+     */
+    public static int maskOf(EventType[] eventTypes) {
+        if (eventTypes == null) return 0;
+        int mask = 0;
+        for (EventType eventType : eventTypes) {
+            mask |= maskOf(eventType);
+        }
+        return mask;
+    }
+
+    /**
+     * 把事件掩码转换为事件类型集合，只用于兼容旧的 {@link EventBefore} 接口
+     * @param eventMask 事件掩码
+     * @return 事件类型集合
+     */
+    public static EventType[] typesOf(int eventMask) {
+        EventType[] all = EventType.values();
+        EventType[] types = new EventType[Integer.bitCount(eventMask & ((1 << all.length) - 1))];
+        int count = 0;
+        for (EventType eventType : all) {
+            if ((eventMask & maskOf(eventType)) != 0) types[count++] = eventType;
+        }
+        return types;
+    }
+
     public static class EventBefore {
         /**
          * 注册监听事件的 View id
@@ -1,18 +1,11 @@
 package com.jhj.expandablerecyclerview.viewholder;
 
-import android.support.annotation.NonNull;
-import android.support.v7.widget.RecyclerView;
 import android.view.View;
 
 import com.jhj.expandablerecyclerview.R;
 import com.jhj.expandablerecyclerview.adapter.ExpandableAdapter;
 import com.jhj.expandablerecyclerview.utils.Logger;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  * <p>父列表项 ViewHolder，监听父列表项的点击事件并根据当前展开或收缩状态触发父列表项展开或折叠事件
  * 客户端父列表项 ViewHolder 应该继承它实现可展开的 {@code RecyclerView}
@@ -85,67 +78,37 @@ public class ParentViewHolder<D> extends BaseViewHolder<D> {
      *
      */
     public void setClickEvent() {
-        Event.EventBefore event = new Event.EventBefore();
-        event.registerEventTypes = new Event.EventType[]{Event.EventType.CLICK};
-        Event.EventType[] outerEventTypes=getItemViewEventTypes();
-
-        Event.EventType[] mergedEventTypes=mergeEvent(event.registerEventTypes,outerEventTypes);
-        if (mergedEventTypes!=null) event.registerEventTypes=mergedEventTypes;
-
         //此处判断 ItemView 是否设置 ID，防止注册不了点击事件回调
         if (itemView.getId() == View.NO_ID) itemView.setId(R.id.itemView);
-        event.id=itemView.getId();
-        setEvent(event);
+        //内部需要监听 ItemView 点击来展开折叠，和子类需要的 ItemView 事件合并后一起注册
+        registerEvent(itemView.getId(), Event.MASK_CLICK | getItemViewEventMask());
     }
 
     /**
-     * 合内部和外部注册的同一个 View 事件，ItemVew 的 Event 注册内外部同时比较常见
-     * @param innerEventTypes 内部已经注册过的 Event
-     * @param outerEventTypes 外部需要注册的同一个 View Event
-     * @return 合并后新注册的 View Event
+     * 如果子类需要注册该 Parent ItemView 相关 View Event，应该重写该方法并返回相关事件掩码，而不是通过
+     * {@link ViewHolderCallback} 返回对应的 View Event
+     * @return 需要注册的 Parent ItemView 事件掩码，例如 {@link Event#MASK_LONGCLICK}
      */
-    private Event.EventType[] mergeEvent(@NonNull Event.EventType[] innerEventTypes,
-            Event.EventType[] outerEventTypes)
-    {
-        if (outerEventTypes == null || outerEventTypes.length == 0) return null;
-        Set<Event.EventType> mergedEventTypes = new HashSet<>(Arrays.asList(innerEventTypes));
-        Collections.addAll(mergedEventTypes, outerEventTypes);
-        return mergedEventTypes.toArray(new Event.EventType[mergedEventTypes.size()]);
+    protected int getItemViewEventMask() {
+        return Event.maskOf(getItemViewEventTypes());
     }
 
     /**
      * 如果子类需要注册该 Parent ItemView 相关 View Event，应该重写该方法并返回相关 Event，而不是通过
      * {@link ViewHolderCallback} 返回对应的 View Event
+     * <p>use {@link #getItemViewEventMask()}</p>
      * @return Caller 返回的需要注册私有的 Parent ItemView 相关的 View Event
      */
+    @Deprecated
     protected Event.EventType[] getItemViewEventTypes() {return null;}
 
-    /**
-     * 注册 View 相关的 Event
-     * @param event 注册 Event 的元数据
-     */
-    @Override
-    public void setEvent(Event.EventBefore event) {
-        if (event == null || event.id == View.NO_ID) return;
-        Event.EventBefore cachedEvent=getEventBefore(event.id);
-        //该 View 之前已经注册过事件，合并注册的 Event
-        if (cachedEvent!=null) {
-            final Event.EventType[] cachedEventTypes=cachedEvent.registerEventTypes;
-            final  Event.EventType[] newEventTypes=event.registerEventTypes;
-            Event.EventType[] mergedEventTypes=mergeEvent(cachedEventTypes,newEventTypes);
-            if (mergedEventTypes==null) return;
-            event.registerEventTypes=mergedEventTypes;
-        }
-        super.setEvent(event);
-    }
-
     /**
      * 展开父列表项
      */
     private void expandParent() {
         if (mExpandCollapseListener != null) {
             mExpanded = mExpandCollapseListener.onParentItemExpand(getAdapterPosition());
-            Logger.e(TAG, "*******expandParent*******>" + mExpanded);
+            if (Logger.isEnabled()) Logger.e(TAG, "*******expandParent*******>{}", mExpanded);
         }
     }
 
@@ -155,7 +118,7 @@ public class ParentViewHolder<D> extends BaseViewHolder<D> {
     private void collapseParent() {
         if (mExpandCollapseListener != null) {
             mExpanded = !mExpandCollapseListener.onParentItemCollapse(getAdapterPosition());
-            Logger.e(TAG, "*******collapseParent*******>" + mExpanded);
+            if (Logger.isEnabled()) Logger.e(TAG, "*******collapseParent*******>{}", mExpanded);
         }
     }
 
@@ -181,8 +144,7 @@ public class ParentViewHolder<D> extends BaseViewHolder<D> {
           //  Logger.i(TAG, "onEvent=" + event.toString());
             //处理内部 ItemView 事件，需要监听ParentItemView点击事件来处理展开折叠
             handleInnerEvent(event);
-
-            event.parentPosition = RecyclerView.NO_POSITION;//FIXME wrong position
+            //parentPosition 已经由适配器在分发前填充，展开折叠不会改变父列表项自身的位置
             return mOuterCallback != null && mOuterCallback.eventAfter(event);
         }
     }
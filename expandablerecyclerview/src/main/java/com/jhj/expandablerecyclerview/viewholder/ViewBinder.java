@@ -0,0 +1,18 @@
+package com.jhj.expandablerecyclerview.viewholder;
+
+/**
+ * 数据模型到列表项 View 的绑定器
+ * <p>
+ *     由注解处理器为带有 {@link com.jhj.expandablerecyclerview.annotation.BindText} 或
+ *     {@link com.jhj.expandablerecyclerview.annotation.BindImageResource} 字段的模型类生成，
+ *     类名为模型类名加 {@code _ViewBinder}，构造方法接收 itemView。每个 ViewHolder 持有一个实例
+ * </p>
+ * @see ViewBinders
+ */
+public interface ViewBinder<D> {
+    /**
+     * 把数据设置到构造时查找好的 View 上
+     * @param data 要绑定的数据
+     */
+    void bind(D data);
+}
@@ -0,0 +1,71 @@
+package com.jhj.expandablerecyclerview.viewholder;
+
+import android.view.View;
+
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 查找并创建编译期生成的 {@link ViewBinder}
+ * <p>
+ *     每个模型类只通过反射查找一次生成类的构造方法并缓存，之后每个 ViewHolder 只在第一次绑定时创建一次
+ *     {@link ViewBinder}，绑定过程本身不涉及反射
+ * </p>
+ */
+public final class ViewBinders {
+    private static final String TAG = "ViewBinders";
+
+    private static final String BINDER_SUFFIX = "_ViewBinder";
+
+    private static final Map<Class<?>, Constructor<?>> sConstructors = new HashMap<>();
+
+    private ViewBinders() {}
+
+    /**
+     * 为指定模型类创建绑定到 itemView 的 {@link ViewBinder}
+     * <p>模型类本身没有生成的绑定器时使用父类的绑定器</p>
+     * @param modelClass 数据模型类
+     * @param itemView 列表项 View
+     * @return 绑定器
+     * @throws IllegalStateException 模型类及其父类都没有生成的绑定器
+     */
+    @SuppressWarnings("unchecked")
+    public static <D> ViewBinder<D> create(Class<?> modelClass, View itemView) {
+        Constructor<?> constructor = findConstructor(modelClass);
+        try {
+            return (ViewBinder<D>) constructor.newInstance(itemView);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to create view binder for " + modelClass, e);
+        }
+    }
+
+    private static Constructor<?> findConstructor(Class<?> modelClass) {
+        synchronized (sConstructors) {
+            Constructor<?> constructor = sConstructors.get(modelClass);
+            if (constructor != null) return constructor;
+            for (Class<?> cls = modelClass; cls != null && cls != Object.class;
+                    cls = cls.getSuperclass())
+            {
+                try {
+                    Class<?> binderClass = Class.forName(cls.getName() + BINDER_SUFFIX, true,
+                            cls.getClassLoader());
+                    constructor = binderClass.getConstructor(View.class);
+                    break;
+                } catch (ClassNotFoundException e) {
+                    //继续查找父类
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalStateException("Unable to find constructor of "
+                            + cls.getName() + BINDER_SUFFIX, e);
+                }
+            }
+            if (constructor == null) {
+                throw new IllegalStateException("No view binder generated for " + modelClass
+                        + ", annotate its fields with @BindText or @BindImageResource and add"
+                        + " expandablerecyclerview-compiler as annotationProcessor");
+            }
+            sConstructors.put(modelClass, constructor);
+            return constructor;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.jhj.expandablerecyclerview.viewholder;
+
+import android.util.SparseIntArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一种列表项布局里所有带 Id 的 View 到连续槽位的索引表，同一种列表项类型的 ViewHolder 共享同一个实例
+ * <p>
+ *     ViewHolder 创建时按该索引把自己的 View 一次性解析到数组里，之后根据 Id 查找 View 只需要读数组，
+ *     已知槽位时可以直接通过 {@link BaseViewHolder#getViewAt(int)} 读取。
+ *     应用资源 Id 的高 16 位相同，低 16 位是连续的条目序号，所以直接用条目序号作为下标查找槽位，
+ *     其它 Id(例如 {@code android.R.id.*})使用 {@link SparseIntArray} 查找
+ * </p>
+ */
+public final class ViewIndex {
+    private static final String TAG = "ViewIndex";
+
+    /**
+     * 直接下标查找表的最大长度，超过时全部使用 {@link SparseIntArray}
+     */
+    private static final int MAX_ENTRY_TABLE_SIZE = 4096;
+
+    /**
+     * 槽位到 View Id 的映射
+     */
+    private final int[] mIds;
+
+    /**
+     * 使用下标查找表的 Id 的高 16 位
+     */
+    private int mIdType = View.NO_ID;
+
+    /**
+     * 条目序号(Id 的低 16 位)到槽位的映射，没有对应槽位时为 -1
+     */
+    private int[] mEntrySlots = new int[0];
+
+    /**
+     * 不能使用下标查找的 Id 到槽位的映射
+     */
+    private final SparseIntArray mOtherSlots = new SparseIntArray(0);
+
+    /**
+     * @param ids 按槽位顺序排列的 View Id，重复的 Id 只保留第一个
+     */
+    public ViewIndex(int... ids) {
+        List<Integer> slotIds = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            if (id != View.NO_ID && !slotIds.contains(id)) slotIds.add(id);
+        }
+        mIds = new int[slotIds.size()];
+        for (int i = 0; i < mIds.length; i++) {
+            mIds[i] = slotIds.get(i);
+        }
+        buildTable();
+    }
+
+    /**
+     * 按 {@link View#findViewById(int)} 的先序遍历顺序收集 itemView 及其所有子 View 的 Id 创建索引
+     * @param itemView 列表项布局的根 View
+     * @return 该布局的索引
+     */
+    public static ViewIndex of(View itemView) {
+        List<View> views = new ArrayList<>();
+        collectViews(itemView, views);
+        int[] ids = new int[views.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = views.get(i).getId();
+        }
+        return new ViewIndex(ids);
+    }
+
+    private static void collectViews(View v, List<View> out) {
+        if (v.getId() != View.NO_ID) out.add(v);
+        if (v instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) v;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                collectViews(group.getChildAt(i), out);
+            }
+        }
+    }
+
+    private void buildTable() {
+        //以第一个应用资源 Id(包 Id 为 0x7f)的高 16 位作为下标查找表的类型，也就是应用的 R.id
+        int maxEntry = -1;
+        for (int id : mIds) {
+            if (mIdType == View.NO_ID && (id >>> 24) == 0x7f) mIdType = id & 0xFFFF0000;
+            if (mIdType != View.NO_ID && (id & 0xFFFF0000) == mIdType) maxEntry = Math.max(maxEntry, id & 0xFFFF);
+        }
+        if (maxEntry >= MAX_ENTRY_TABLE_SIZE) {
+            mIdType = View.NO_ID;
+            maxEntry = -1;
+        }
+        mEntrySlots = new int[maxEntry + 1];
+        for (int i = 0; i < mEntrySlots.length; i++) {
+            mEntrySlots[i] = -1;
+        }
+        for (int slot = 0; slot < mIds.length; slot++) {
+            final int id = mIds[slot];
+            if (mIdType != View.NO_ID && (id & 0xFFFF0000) == mIdType) {
+                mEntrySlots[id & 0xFFFF] = slot;
+            } else {
+                mOtherSlots.put(id, slot);
+            }
+        }
+    }
+
+    /**
+     * 查找 View Id 对应的槽位
+     * @param id View 的 Id
+     * @return 槽位，索引里没有该 Id 时返回 -1
+     */
+    public int slotOf(int id) {
+        if (id == View.NO_ID) return -1;
+        if (mIdType != View.NO_ID && (id & 0xFFFF0000) == mIdType) {
+            final int entry = id & 0xFFFF;
+            return entry < mEntrySlots.length ? mEntrySlots[entry] : -1;
+        }
+        return mOtherSlots.get(id, -1);
+    }
+
+    /**
+     * @return 槽位数量
+     */
+    public int size() {
+        return mIds.length;
+    }
+
+    /**
+     * @param slot 槽位
+     * @return 该槽位的 View Id
+     */
+    public int idAt(int slot) {
+        return mIds[slot];
+    }
+
+    /**
+     * 按该索引解析 itemView 里所有槽位对应的 View，只遍历一次 View 树
+     * <p>同一个 Id 出现多次时取先序遍历的第一个，和 {@link View#findViewById(int)} 的结果一致，
+     * itemView 里不存在的槽位为 null</p>
+     * @param itemView 列表项布局的根 View
+     * @return 槽位到 View 的数组
+     */
+    public View[] resolve(View itemView) {
+        View[] views = new View[mIds.length];
+        resolve(itemView, views);
+        return views;
+    }
+
+    private void resolve(View v, View[] out) {
+        final int slot = slotOf(v.getId());
+        if (slot >= 0 && out[slot] == null) out[slot] = v;
+        if (v instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) v;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                resolve(group.getChildAt(i), out);
+            }
+        }
+    }
+}
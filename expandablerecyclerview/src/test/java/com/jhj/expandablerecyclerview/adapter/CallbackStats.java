@@ -0,0 +1,54 @@
+package com.jhj.expandablerecyclerview.adapter;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 记录一个适配器回调的调用次数和每次调用的耗时
+ */
+class CallbackStats {
+    private static final String TAG = "CallbackStats";
+
+    final String name;
+    private long[] mSamples = new long[256];
+    private int mCount;
+    private long mTotalNanos;
+
+    CallbackStats(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos) {
+        if (mCount == mSamples.length) {
+            mSamples = Arrays.copyOf(mSamples, mCount * 2);
+        }
+        mSamples[mCount++] = nanos;
+        mTotalNanos += nanos;
+    }
+
+    int getCount() {
+        return mCount;
+    }
+
+    void reset() {
+        mCount = 0;
+        mTotalNanos = 0;
+    }
+
+    private long percentile(long[] sorted, double p) {
+        if (mCount == 0) return 0;
+        return sorted[Math.min(mCount - 1, (int) (p * mCount))];
+    }
+
+    /**
+     * 一行报告：次数、总耗时(ms)、平均/p50/p95/最大耗时(us)
+     */
+    String report() {
+        long[] sorted = Arrays.copyOf(mSamples, mCount);
+        Arrays.sort(sorted);
+        return String.format(Locale.US, "%-22s count=%7d total=%9.2fms avg=%8.2fus " +
+                        "p50=%8.2fus p95=%8.2fus max=%9.2fus", name, mCount, mTotalNanos / 1e6,
+                mCount == 0 ? 0 : mTotalNanos / 1e3 / mCount, percentile(sorted, 0.5) / 1e3,
+                percentile(sorted, 0.95) / 1e3, mCount == 0 ? 0 : sorted[mCount - 1] / 1e3);
+    }
+}
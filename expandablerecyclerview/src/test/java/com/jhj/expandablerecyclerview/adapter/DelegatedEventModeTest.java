@@ -0,0 +1,220 @@
+package com.jhj.expandablerecyclerview.adapter;
+
+import android.app.Activity;
+import android.support.v4.view.AccessibilityDelegateCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.RecyclerViewAccessibilityDelegate;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.jhj.expandablerecyclerview.BuildConfig;
+import com.jhj.expandablerecyclerview.viewholder.BaseViewHolder;
+import com.jhj.expandablerecyclerview.viewholder.ChildViewHolder;
+import com.jhj.expandablerecyclerview.viewholder.Event;
+import com.jhj.expandablerecyclerview.viewholder.ParentViewHolder;
+import com.jhj.expandablerecyclerview.viewholder.ViewHolderCallback;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link BaseViewHolder#EVENT_MODE_DELEGATED} 模式下创建的 ViewHolder 不设置点击监听器，
+ * 无障碍服务的点击仍然能展开和折叠父列表项
+ * <p>
+ *     itemView 的无障碍代理由 RecyclerView 在开启无障碍服务时设置，这里直接使用
+ *     {@link RecyclerViewAccessibilityDelegate#getItemDelegate()} 返回的代理
+ * </p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class DelegatedEventModeTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int ITEM_HEIGHT = 48;
+    private static final int ICON_ID = 0x7f0f0001;
+
+    private RecyclerView mRecyclerView;
+    private InstrumentedAdapter mAdapter;
+    private RecyclerViewAccessibilityDelegate mOriginalAccessibility;
+    private final List<View> mClickedViews = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        //父列表项都是折叠的，共 3 行
+        List<SyntheticTree.Parent> parentItems = Arrays.asList(
+                parent("p0", "ann", "bob"),
+                parent("p1", "al"),
+                parent("p2", "zed"));
+        mAdapter = new InstrumentedAdapter(parentItems) {
+            @Override
+            public ChildViewHolder onCreateChildViewHolder(ViewGroup child, int childType) {
+                return createIconHolder(child);
+            }
+        };
+        mAdapter.setEventMode(BaseViewHolder.EVENT_MODE_DELEGATED);
+        mRecyclerView = new RecyclerView(activity);
+        mOriginalAccessibility = mRecyclerView.getCompatAccessibilityDelegate();
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(activity));
+        mRecyclerView.setItemAnimator(null);
+        mRecyclerView.setAdapter(mAdapter);
+        activity.setContentView(mRecyclerView);
+        layout();
+        assertEquals(3, mRecyclerView.getChildCount());
+    }
+
+    @Test
+    public void delegatedHolderHasNoClickListener() {
+        for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
+            View itemView = mRecyclerView.getChildAt(i);
+            BaseViewHolder holder = holder(itemView);
+            assertEquals(BaseViewHolder.EVENT_MODE_DELEGATED, holder.getEventMode());
+            assertFalse(itemView.hasOnClickListeners());
+        }
+    }
+
+    @Test
+    public void accessibilityNodeIsClickable() {
+        AccessibilityNodeInfoCompat info = AccessibilityNodeInfoCompat.obtain();
+        itemDelegate().onInitializeAccessibilityNodeInfo(mRecyclerView.getChildAt(0), info);
+        assertTrue(info.isClickable());
+        assertTrue((info.getActions() & AccessibilityNodeInfoCompat.ACTION_CLICK) != 0);
+        info.recycle();
+    }
+
+    @Test
+    public void accessibilityClickTogglesParent() {
+        View itemView = mRecyclerView.getChildAt(0);
+        assertTrue(itemDelegate().performAccessibilityAction(itemView,
+                AccessibilityNodeInfoCompat.ACTION_CLICK, null));
+        layout();
+        assertTrue(((ParentViewHolder) holder(itemView)).isExpanded());
+        assertEquals(5, mAdapter.getItemCount());
+
+        //展开的子列表项同样没有设置监听器
+        assertFalse(mRecyclerView.getChildAt(1).hasOnClickListeners());
+
+        assertTrue(itemDelegate().performAccessibilityAction(itemView,
+                AccessibilityNodeInfoCompat.ACTION_CLICK, null));
+        layout();
+        assertEquals(3, mAdapter.getItemCount());
+    }
+
+    @Test
+    public void directModeRestoresRecyclerViewAccessibility() {
+        assertNotSame(mOriginalAccessibility, mRecyclerView.getCompatAccessibilityDelegate());
+        mAdapter.setEventMode(BaseViewHolder.EVENT_MODE_DIRECT);
+        assertSame(mOriginalAccessibility, mRecyclerView.getCompatAccessibilityDelegate());
+    }
+
+    @Test
+    public void directModeRestoresListener() {
+        View itemView = mRecyclerView.getChildAt(0);
+        holder(itemView).setEventMode(BaseViewHolder.EVENT_MODE_DIRECT);
+        assertTrue(itemView.hasOnClickListeners());
+        assertTrue(itemView.performClick());
+        assertEquals(5, mAdapter.getItemCount());
+    }
+
+    @Test
+    public void tapOnTranslatedItemHitsChild() {
+        mAdapter.expandAllParent();
+        layout();
+        //第 1 行是 p0 的子列表项 ann，像滑动删除一样向右平移
+        View itemView = mRecyclerView.getChildAt(1);
+        itemView.setTranslationX(200);
+        DelegatedEventDispatcher dispatcher = new DelegatedEventDispatcher(mRecyclerView);
+
+        //平移前 icon 所在的位置已经没有列表项
+        assertFalse(dispatcher.onSingleTapUp(tap(10, ITEM_HEIGHT + 10)));
+        assertTrue(mClickedViews.isEmpty());
+
+        assertTrue(dispatcher.onSingleTapUp(tap(210, ITEM_HEIGHT + 10)));
+        assertEquals(1, mClickedViews.size());
+        assertSame(itemView.findViewById(ICON_ID), mClickedViews.get(0));
+    }
+
+    @Test
+    public void findEventTargetUsesChildTranslation() {
+        FrameLayout itemView = new FrameLayout(mRecyclerView.getContext());
+        ChildViewHolder holder = createIconHolder(itemView);
+        itemView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(ITEM_HEIGHT, View.MeasureSpec.EXACTLY));
+        itemView.layout(0, 0, WIDTH, ITEM_HEIGHT);
+        View icon = itemView.findViewById(ICON_ID);
+        icon.setTranslationX(100);
+        icon.setTranslationY(-10);
+
+        assertNull(holder.findEventTarget(10, 20, Event.MASK_CLICK));
+        assertSame(icon, holder.findEventTarget(110, 10, Event.MASK_CLICK));
+        //向上平移后 icon 的下边缘之外
+        assertNull(holder.findEventTarget(110, ITEM_HEIGHT - 5, Event.MASK_CLICK));
+    }
+
+    /**
+     * 创建左侧带一个注册了点击事件的 icon 的子列表项，点击的 View 记录到 {@link #mClickedViews}
+     */
+    private ChildViewHolder createIconHolder(ViewGroup parent) {
+        FrameLayout itemView = new FrameLayout(parent.getContext());
+        itemView.setLayoutParams(new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+        View icon = new View(parent.getContext());
+        icon.setId(ICON_ID);
+        itemView.addView(icon, new FrameLayout.LayoutParams(ITEM_HEIGHT, ITEM_HEIGHT));
+        ChildViewHolder holder = new ChildViewHolder(itemView, new ViewHolderCallback() {
+            @Override
+            public Event.EventBefore[] eventBefore() {
+                return null;
+            }
+
+            @Override
+            public boolean eventAfter(BaseViewHolder.ViewHolderEventAfter event) {
+                mClickedViews.add(event.v);
+                return true;
+            }
+        });
+        holder.registerEvent(ICON_ID, Event.MASK_CLICK);
+        return holder;
+    }
+
+    private static MotionEvent tap(float x, float y) {
+        return MotionEvent.obtain(0, 0, MotionEvent.ACTION_UP, x, y, 0);
+    }
+
+    /**
+     * RecyclerView 为 itemView 设置的无障碍代理
+     */
+    private AccessibilityDelegateCompat itemDelegate() {
+        return mRecyclerView.getCompatAccessibilityDelegate().getItemDelegate();
+    }
+
+    private BaseViewHolder holder(View itemView) {
+        return (BaseViewHolder) mRecyclerView.getChildViewHolder(itemView);
+    }
+
+    private void layout() {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private static SyntheticTree.Parent parent(String name, String... children) {
+        return new SyntheticTree.Parent(name, 0, new ArrayList<>(Arrays.asList(children)),
+                false);
+    }
+}
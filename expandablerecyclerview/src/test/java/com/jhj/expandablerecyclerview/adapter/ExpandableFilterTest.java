@@ -0,0 +1,189 @@
+package com.jhj.expandablerecyclerview.adapter;
+
+import android.support.v7.widget.RecyclerView;
+
+import com.jhj.expandablerecyclerview.BuildConfig;
+import com.jhj.expandablerecyclerview.model.ParentItem;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ExpandableAdapter#filter(CharSequence)} 在收窄条件时复用上一次的结果、丢弃过期的结果，
+ * 以及只通知可见列表项的变化区间
+ * <p>工作线程和主线程都用手动执行的队列代替，由测试决定过滤任务和结果回调的执行时机</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ExpandableFilterTest {
+    private final LinkedList<Runnable> mWorkQueue = new LinkedList<>();
+    private final LinkedList<Runnable> mMainQueue = new LinkedList<>();
+
+    private InstrumentedAdapter mAdapter;
+    private final List<String> mEvents = new ArrayList<>();
+    private final List<Integer> mMatchedCounts = new ArrayList<>();
+    private int mAcceptCount;
+
+    private final ExpandableAdapter.OnFilterCompleteListener mFilterListener =
+            new ExpandableAdapter.OnFilterCompleteListener() {
+                @Override
+                public void onFilterComplete(int matchedChildCount) {
+                    mMatchedCounts.add(matchedChildCount);
+                }
+            };
+
+    @Before
+    public void setUp() {
+        //父列表项 0、2、3 初始展开，共 11 行
+        List<SyntheticTree.Parent> parentItems = Arrays.asList(
+                parent("p0", true, "ann", "bob", "amy", "carl"),
+                parent("p1", false, "al", "bo"),
+                parent("p2", true, "zed"),
+                parent("p3", true, "dan", "dave"));
+        mAdapter = new InstrumentedAdapter(parentItems) {
+            @Override
+            ExpandableFilter createExpandableFilter(ExpandableFilter.Callback callback) {
+                return new ExpandableFilter(callback, queue(mWorkQueue), queue(mMainQueue));
+            }
+        };
+        mAdapter.setChildFilter(new ChildFilter() {
+            @Override
+            public boolean accept(ParentItem parentItem, Object childItem,
+                    CharSequence constraint)
+            {
+                mAcceptCount++;
+                return ((String) childItem).contains(constraint);
+            }
+        });
+        mAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                mEvents.add("changed");
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                mEvents.add("insert " + positionStart + "+" + itemCount);
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                mEvents.add("remove " + positionStart + "+" + itemCount);
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount) {
+                mEvents.add("change " + positionStart + "+" + itemCount);
+            }
+        });
+        assertEquals(11, mAdapter.getItemCount());
+    }
+
+    @Test
+    public void filterNotifiesOnlyChangedRanges() {
+        filter("a");
+        //p0 去掉 bob，p1 展开显示 al，p2 没有匹配被折叠，p3 不变
+        assertEquals(Arrays.asList("remove 2+1", "insert 5+1", "remove 7+1"), mEvents);
+        assertEquals(Arrays.asList(6), mMatchedCounts);
+        assertEquals(10, mAdapter.getItemCount());
+        assertTrue(mAdapter.isFiltered());
+    }
+
+    @Test
+    public void narrowingConstraintOnlyChecksPreviousMatches() {
+        filter("a");
+        assertEquals(9, mAcceptCount);
+
+        mAcceptCount = 0;
+        mEvents.clear();
+        filter("an");
+        //只检查上一次匹配的 ann、amy、carl、al、dan、dave
+        assertEquals(6, mAcceptCount);
+        assertEquals(Arrays.asList("remove 2+2", "remove 3+1", "remove 6+1"), mEvents);
+        assertEquals(Arrays.asList(6, 2), mMatchedCounts);
+
+        //不是收窄的条件重新检查所有子列表项
+        mAcceptCount = 0;
+        filter("d");
+        assertEquals(9, mAcceptCount);
+        assertEquals(Arrays.asList(6, 2, 3), mMatchedCounts);
+    }
+
+    @Test
+    public void resultOfReplacedFilterIsDiscarded() {
+        mAdapter.filter("a", mFilterListener);
+        runAll(mWorkQueue);
+        //"a" 的结果已经在主线程队列里，新的过滤使它过期
+        mAdapter.filter("b", mFilterListener);
+        runAll(mWorkQueue);
+        runAll(mMainQueue);
+        assertEquals(Arrays.asList(2), mMatchedCounts);
+        //只应用了 "b" 的结果：p0 只剩 bob，p1 展开显示 bo，p2 和 p3 被折叠
+        assertEquals(Arrays.asList("remove 1+1", "remove 2+2", "insert 3+1", "remove 5+1",
+                "remove 6+2"), mEvents);
+    }
+
+    @Test
+    public void replacedFilterDoesNotRun() {
+        mAdapter.filter("a", mFilterListener);
+        mAdapter.filter("b", mFilterListener);
+        runAll(mWorkQueue);
+        runAll(mMainQueue);
+        //"a" 的任务在开始前被取消，只检查了一遍子列表项
+        assertEquals(9, mAcceptCount);
+        assertEquals(Arrays.asList(2), mMatchedCounts);
+    }
+
+    @Test
+    public void clearFilterRestoresExpansionWithRangedNotifications() {
+        filter("an");
+        mEvents.clear();
+        mAdapter.filter("", mFilterListener);
+        assertTrue(mWorkQueue.isEmpty());
+        assertFalse(mAdapter.isFiltered());
+        assertEquals(11, mAdapter.getItemCount());
+        assertFalse(mEvents.contains("changed"));
+        //p0 恢复 bob、amy、carl，p2 重新展开，p3 恢复 dave
+        assertEquals(Arrays.asList("insert 2+3", "insert 7+1", "insert 10+1"), mEvents);
+        assertEquals(9, (int) mMatchedCounts.get(mMatchedCounts.size() - 1));
+    }
+
+    private void filter(String constraint) {
+        mAdapter.filter(constraint, mFilterListener);
+        runAll(mWorkQueue);
+        runAll(mMainQueue);
+    }
+
+    private static void runAll(LinkedList<Runnable> queue) {
+        while (!queue.isEmpty()) {
+            queue.poll().run();
+        }
+    }
+
+    private static Executor queue(final LinkedList<Runnable> queue) {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queue.add(command);
+            }
+        };
+    }
+
+    private static SyntheticTree.Parent parent(String name, boolean expanded,
+            String... children)
+    {
+        return new SyntheticTree.Parent(name, 0, new ArrayList<>(Arrays.asList(children)),
+                expanded);
+    }
+}
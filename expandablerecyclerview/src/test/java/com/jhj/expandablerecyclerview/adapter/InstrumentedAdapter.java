@@ -0,0 +1,107 @@
+package com.jhj.expandablerecyclerview.adapter;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.jhj.expandablerecyclerview.model.ParentItem;
+import com.jhj.expandablerecyclerview.viewholder.BaseViewHolder;
+import com.jhj.expandablerecyclerview.viewholder.ChildViewHolder;
+import com.jhj.expandablerecyclerview.viewholder.ParentViewHolder;
+
+import java.util.List;
+
+/**
+ * 统计 {@link RecyclerView} 对适配器各个回调的调用次数和耗时
+ * <p>耗时包括 {@link ExpandableAdapter} 自身的位置换算，以及客户端回调(这里只是设置文本)</p>
+ */
+class InstrumentedAdapter extends ExpandableAdapter<ParentViewHolder, ChildViewHolder> {
+    private static final String TAG = "InstrumentedAdapter";
+
+    private static final int ITEM_HEIGHT = 48;
+
+    final CallbackStats createParent = new CallbackStats("createParentHolder");
+    final CallbackStats createChild = new CallbackStats("createChildHolder");
+    final CallbackStats bindParent = new CallbackStats("bindParentHolder");
+    final CallbackStats bindChild = new CallbackStats("bindChildHolder");
+    final CallbackStats viewType = new CallbackStats("getItemViewType");
+
+    private final List<SyntheticTree.Parent> mParentItems;
+
+    InstrumentedAdapter(List<SyntheticTree.Parent> parentItems) {
+        super(parentItems);
+        mParentItems = parentItems;
+    }
+
+    CallbackStats[] getStats() {
+        return new CallbackStats[]{createParent, createChild, bindParent, bindChild, viewType};
+    }
+
+    void resetStats() {
+        for (CallbackStats stats : getStats()) {
+            stats.reset();
+        }
+    }
+
+    @Override
+    public BaseViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        final long start = System.nanoTime();
+        BaseViewHolder holder = super.onCreateViewHolder(parent, viewType);
+        (holder instanceof ParentViewHolder ? createParent : createChild).record(
+                System.nanoTime() - start);
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(BaseViewHolder holder, int position) {
+        final long start = System.nanoTime();
+        super.onBindViewHolder(holder, position);
+        (holder instanceof ParentViewHolder ? bindParent : bindChild).record(
+                System.nanoTime() - start);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        final long start = System.nanoTime();
+        final int type = super.getItemViewType(position);
+        viewType.record(System.nanoTime() - start);
+        return type;
+    }
+
+    @Override
+    public int getParentType(int parentPosition) {
+        return mParentItems.get(parentPosition).type;
+    }
+
+    @Override
+    public ParentViewHolder onCreateParentViewHolder(ViewGroup parent, int parentType) {
+        return new ParentViewHolder(createItemView(parent));
+    }
+
+    @Override
+    public ChildViewHolder onCreateChildViewHolder(ViewGroup child, int childType) {
+        return new ChildViewHolder(createItemView(child));
+    }
+
+    @Override
+    public void onBindParentViewHolder(ParentViewHolder parentViewHolder, int parentPosition,
+            int parentAdapterPosition, ParentItem parentItem)
+    {
+        ((TextView) parentViewHolder.itemView).setText(((SyntheticTree.Parent) parentItem).name);
+    }
+
+    @Override
+    public void onBindChildViewHolder(ChildViewHolder childViewHolder, int parentPosition,
+            int childPosition, int parentAdapterPosition, int childAdapterPosition,
+            Object childListItem)
+    {
+        ((TextView) childViewHolder.itemView).setText((String) childListItem);
+    }
+
+    private static TextView createItemView(ViewGroup parent) {
+        TextView itemView = new TextView(parent.getContext());
+        itemView.setLayoutParams(new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+        return itemView;
+    }
+}
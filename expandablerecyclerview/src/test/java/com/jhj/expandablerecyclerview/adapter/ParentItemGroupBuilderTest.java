@@ -0,0 +1,177 @@
+package com.jhj.expandablerecyclerview.adapter;
+
+import android.support.v7.widget.RecyclerView;
+
+import com.jhj.expandablerecyclerview.BuildConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ParentItemGroupBuilder} 按批次把记录添加到数据源并通知适配器，
+ * 构建期间通过适配器插入或删除父列表项后仍然通知正确的位置
+ * <p>记录的格式为 "分组键:子列表项"，创建的父列表项都是展开的，子列表项的插入会反映到适配器位置上</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ParentItemGroupBuilderTest {
+
+    private ParentItemGroupBuilder<String, String, SyntheticTree.Parent> mBuilder;
+    private InstrumentedAdapter mAdapter;
+    private final List<String> mEvents = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mBuilder = new ParentItemGroupBuilder<>(
+                new ParentItemGroupBuilder.GroupCallback<String, String, SyntheticTree.Parent>() {
+                    @Override
+                    public String getGroupKey(String record) {
+                        return record.substring(0, record.indexOf(':'));
+                    }
+
+                    @Override
+                    public SyntheticTree.Parent createParentItem(String key, String record) {
+                        return parent(key);
+                    }
+
+                    @Override
+                    public Object createChildItem(SyntheticTree.Parent parentItem,
+                            String record)
+                    {
+                        return record.substring(record.indexOf(':') + 1);
+                    }
+                });
+        mBuilder.setBatchSize(3);
+        mAdapter = new InstrumentedAdapter(mBuilder.getParentItems());
+        mBuilder.attach(mAdapter);
+        mAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                mEvents.add("changed");
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                mEvents.add("insert " + positionStart + "+" + itemCount);
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                mEvents.add("remove " + positionStart + "+" + itemCount);
+            }
+        });
+    }
+
+    @Test
+    public void recordsAreAppliedPerBatch() {
+        mBuilder.add("a:1");
+        mBuilder.add("a:2");
+        //未满一个批次时不修改数据源
+        assertTrue(mBuilder.getParentItems().isEmpty());
+        assertEquals(0, mAdapter.getItemCount());
+        assertTrue(mEvents.isEmpty());
+
+        mBuilder.add("b:1");
+        assertEquals(Arrays.asList("a", "b"), names());
+        assertEquals(5, mAdapter.getItemCount());
+
+        mEvents.clear();
+        mBuilder.add("a:3");
+        mBuilder.add("c:1");
+        List<SyntheticTree.Parent> parentItems = mBuilder.finish();
+        assertSame(mBuilder.getParentItems(), parentItems);
+        assertEquals(Arrays.asList("a", "b", "c"), names());
+        assertEquals(Arrays.asList("1", "2", "3"), parentItems.get(0).getChildItems());
+        assertEquals(8, mAdapter.getItemCount());
+        //a 的子列表项插入在 a 的末尾，c 追加在最后
+        assertEquals("insert 3+1", mEvents.get(0));
+        assertEquals("insert 6+2", mEvents.get(1));
+    }
+
+    @Test
+    public void flushWithoutRecordsDoesNothing() {
+        mBuilder.flush();
+        assertTrue(mBuilder.finish().isEmpty());
+        assertTrue(mEvents.isEmpty());
+    }
+
+    @Test
+    public void groupPositionFollowsInsertedParent() {
+        addAll("a:1", "a:2", "b:1");
+        //构建期间在最前面插入一个父列表项，b 从位置 1 移动到 2
+        mBuilder.getParentItems().add(0, parent("x"));
+        mAdapter.notifyParentItemInserted(0);
+        mEvents.clear();
+
+        mBuilder.add("b:2");
+        mBuilder.finish();
+        assertEquals(Arrays.asList("x", "a", "b"), names());
+        assertEquals(Arrays.asList("1", "2"), mBuilder.getParentItems().get(2).getChildItems());
+        //x、a、1、2、b、1 之后
+        assertEquals(Arrays.asList("insert 6+1"), mEvents);
+        assertEquals(7, mAdapter.getItemCount());
+    }
+
+    @Test
+    public void removedGroupIsNotNotified() {
+        addAll("a:1", "a:2", "b:1");
+        SyntheticTree.Parent a = mBuilder.getParentItems().remove(0);
+        mAdapter.notifyParentItemRemoved(0);
+        mEvents.clear();
+
+        addAll("a:3", "b:2", "b:3");
+        assertEquals(Arrays.asList("b"), names());
+        //被删除的父列表项只更新数据，不通知适配器
+        assertEquals(Arrays.asList("1", "2", "3"), a.getChildItems());
+        assertEquals(Arrays.asList("insert 2+2"), mEvents);
+        assertEquals(4, mAdapter.getItemCount());
+    }
+
+    @Test
+    public void backgroundBatchIsAppliedOnMainThread() throws InterruptedException {
+        Robolectric.getForegroundThreadScheduler().pause();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                addAll("a:1", "b:1", "a:2", "c:1");
+                mBuilder.flush();
+            }
+        });
+        reader.start();
+        reader.join();
+        //两个批次都还没有到达主线程
+        assertTrue(mBuilder.getParentItems().isEmpty());
+        assertTrue(mEvents.isEmpty());
+
+        Robolectric.flushForegroundThreadScheduler();
+        assertEquals(Arrays.asList("a", "b", "c"), names());
+        assertEquals(Arrays.asList("1", "2"), mBuilder.getParentItems().get(0).getChildItems());
+        assertEquals(7, mAdapter.getItemCount());
+    }
+
+    private void addAll(String... records) {
+        mBuilder.addAll(Arrays.asList(records));
+    }
+
+    private List<String> names() {
+        List<String> names = new ArrayList<>();
+        for (SyntheticTree.Parent parentItem : mBuilder.getParentItems()) {
+            names.add(parentItem.name);
+        }
+        return names;
+    }
+
+    private static SyntheticTree.Parent parent(String name) {
+        return new SyntheticTree.Parent(name, 0, new ArrayList<String>(), true);
+    }
+}
@@ -0,0 +1,128 @@
+package com.jhj.expandablerecyclerview.adapter;
+
+import android.app.Activity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import com.jhj.expandablerecyclerview.BuildConfig;
+import com.jhj.expandablerecyclerview.viewholder.ParentViewHolder;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 在 JVM 上让 {@link RecyclerView} 真正地布局和滚动 {@link ExpandableAdapter}，
+ * 按阶段报告 onCreateViewHolder、onBindViewHolder 和 getItemViewType 的调用次数和耗时
+ * <p>
+ *     规模通过系统属性调整，例如：
+ *     {@code ./gradlew :expandablerecyclerview:testDebugUnitTest --tests '*ScrollBindBenchmarkTest'
+ *     -Perv.bench.parents=100000 -Perv.bench.maxChildren=20}
+ * </p>
+ * <p>
+ *     Robolectric 下的绝对耗时和设备上不同，用于比较不同版本之间的相对变化和调用次数
+ * </p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ScrollBindBenchmarkTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    private final int mParentCount = Integer.getInteger("erv.bench.parents", 2000);
+    private final int mMaxChildCount = Integer.getInteger("erv.bench.maxChildren", 10);
+    private final double mExpandedRatio = Double.parseDouble(
+            System.getProperty("erv.bench.expandedRatio", "0.3"));
+    private final int mScrollSteps = Integer.getInteger("erv.bench.scrollSteps", 300);
+
+    private RecyclerView mRecyclerView;
+    private InstrumentedAdapter mAdapter;
+    private List<SyntheticTree.Parent> mParentItems;
+
+    @Before
+    public void setUp() throws Exception {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mParentItems = SyntheticTree.generate(mParentCount, mMaxChildCount, mExpandedRatio, 3,
+                42);
+        mAdapter = new InstrumentedAdapter(mParentItems);
+        mRecyclerView = new RecyclerView(activity);
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(activity));
+        mRecyclerView.setItemAnimator(null);
+        mRecyclerView.setAdapter(mAdapter);
+        activity.setContentView(mRecyclerView);
+        layout();
+    }
+
+    @Test
+    public void scrollAndExpand() throws Exception {
+        System.out.println(String.format("ScrollBindBenchmark parents=%d maxChildren=%d " +
+                        "expandedRatio=%.2f rows=%d", mParentCount, mMaxChildCount,
+                mExpandedRatio, mAdapter.getItemCount()));
+        report("initial layout");
+
+        //匀速向下滚动，每次一屏的三分之一
+        for (int i = 0; i < mScrollSteps; i++) {
+            mRecyclerView.scrollBy(0, HEIGHT / 3);
+        }
+        report("scroll down x" + mScrollSteps);
+
+        //快速往回滚动，每次整屏
+        for (int i = 0; i < mScrollSteps; i++) {
+            mRecyclerView.scrollBy(0, -HEIGHT);
+        }
+        report("fling back x" + mScrollSteps);
+
+        //随机跳转到某个位置，像用户一样点击第一个可见的父列表项切换展开状态
+        Random random = new Random(7);
+        final int jumps = 100;
+        for (int i = 0; i < jumps; i++) {
+            ((LinearLayoutManager) mRecyclerView.getLayoutManager()).scrollToPositionWithOffset(
+                    random.nextInt(mAdapter.getItemCount()), 0);
+            layout();
+            for (int j = 0; j < mRecyclerView.getChildCount(); j++) {
+                RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(
+                        mRecyclerView.getChildAt(j));
+                if (holder instanceof ParentViewHolder) {
+                    holder.itemView.performClick();
+                    break;
+                }
+            }
+            layout();
+        }
+        report("jump + click toggle x" + jumps);
+
+        mAdapter.expandAllParent();
+        layout();
+        report("expand all");
+
+        mAdapter.collapseAllParent();
+        layout();
+        report("collapse all");
+
+        assertEquals(mParentCount, mAdapter.getItemCount());
+    }
+
+    private void layout() {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private void report(String phase) {
+        System.out.println("---- " + phase + " (rows=" + mAdapter.getItemCount() + ")");
+        for (CallbackStats stats : mAdapter.getStats()) {
+            System.out.println("  " + stats.report());
+        }
+        mAdapter.resetStats();
+    }
+}
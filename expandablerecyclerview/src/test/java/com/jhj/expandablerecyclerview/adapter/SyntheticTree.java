@@ -0,0 +1,69 @@
+package com.jhj.expandablerecyclerview.adapter;
+
+import com.jhj.expandablerecyclerview.model.ParentItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 可以按规模生成的合成数据，类似 app 模块的 {@code Test.get()}
+ */
+class SyntheticTree {
+    private static final String TAG = "SyntheticTree";
+
+    /**
+     * 生成父列表项集合
+     * @param parentCount 父列表项数量
+     * @param maxChildCount 每个父列表项的子列表项数量在 [0, maxChildCount] 之间随机
+     * @param expandedRatio 初始展开的父列表项比例
+     * @param parentTypeCount 父列表项类型数量
+     * @param seed 随机种子，相同的参数总是生成相同的数据
+     * @return 父列表项集合
+     */
+    static List<Parent> generate(int parentCount, int maxChildCount, double expandedRatio,
+            int parentTypeCount, long seed)
+    {
+        Random random = new Random(seed);
+        List<Parent> parentItems = new ArrayList<>(parentCount);
+        for (int i = 0; i < parentCount; i++) {
+            final int childCount = random.nextInt(maxChildCount + 1);
+            List<String> childItems = new ArrayList<>(childCount);
+            for (int j = 0; j < childCount; j++) {
+                childItems.add("child " + i + "-" + j);
+            }
+            parentItems.add(new Parent("parent " + i, random.nextInt(parentTypeCount), childItems,
+                    random.nextDouble() < expandedRatio));
+        }
+        return parentItems;
+    }
+
+    static class Parent implements ParentItem<String> {
+        final String name;
+        final int type;
+        private final List<String> mChildItems;
+        private final boolean mInitiallyExpanded;
+
+        Parent(String name, int type, List<String> childItems, boolean initiallyExpanded) {
+            this.name = name;
+            this.type = type;
+            mChildItems = childItems;
+            mInitiallyExpanded = initiallyExpanded;
+        }
+
+        @Override
+        public List<String> getChildItems() {
+            return mChildItems;
+        }
+
+        @Override
+        public boolean isExpandable() {
+            return true;
+        }
+
+        @Override
+        public boolean isInitiallyExpanded() {
+            return mInitiallyExpanded;
+        }
+    }
+}